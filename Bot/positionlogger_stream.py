@@ -0,0 +1,215 @@
+"""
+Reader for the PositionLogger record stream (stream.enabled=true in
+config/positionlogger.properties).
+
+    from positionlogger_stream import RecordStream
+
+    with RecordStream(players=["Bob"]) as stream:
+        for tick in stream.ticks():
+            for row in tick:
+                print(row["Tick"], row["PlayerCords_XPos"], row["PlayerCords_ZPos"])
+
+Every frame is a 4-byte big-endian length and a payload in the columnar log
+layout: the first payload is the schema, each later one holds one tick's
+rows. Rows are dicts keyed by column name (the same names as the CSV
+header); block and mob lists are lists of (name, count) pairs.
+"""
+
+import socket
+import struct
+
+MAGIC = b"PLCOL"
+ROW_GROUP = 1
+
+# Column types
+INT8, INT32, INT64, FLOAT32, FLOAT64, STRING, ID_COUNTS, SLOT = 1, 2, 3, 4, 5, 6, 7, 8
+# Encodings
+PLAIN, DELTA, RLE, DICT, REPEAT = 0, 1, 2, 3, 4
+
+
+class _Buffer:
+    def __init__(self, data):
+        self.data = data
+        self.pos = 0
+
+    def remaining(self):
+        return len(self.data) - self.pos
+
+    def byte(self):
+        b = self.data[self.pos]
+        self.pos += 1
+        return b
+
+    def take(self, n):
+        chunk = self.data[self.pos:self.pos + n]
+        self.pos += n
+        return chunk
+
+    def unpack(self, fmt):
+        value = struct.unpack_from(fmt, self.data, self.pos)[0]
+        self.pos += struct.calcsize(fmt)
+        return value
+
+    def varint(self):
+        result = shift = 0
+        while True:
+            b = self.byte()
+            result |= (b & 0x7F) << shift
+            if b < 0x80:
+                return result
+            shift += 7
+
+    def zigzag(self):
+        v = self.varint()
+        return (v >> 1) ^ -(v & 1)
+
+    def utf(self):
+        n = self.unpack(">H")
+        return self.take(n).decode("utf-8", errors="replace")
+
+
+class ColumnarDecoder:
+    """Decodes a schema payload, then row-group payloads into rows."""
+
+    def __init__(self):
+        self.columns = None
+        self.dictionary = []
+
+    def feed(self, payload):
+        """Returns the rows in the payload (none for the schema)."""
+        buf = _Buffer(payload)
+        rows = []
+        while buf.remaining():
+            if buf.data.startswith(MAGIC, buf.pos):
+                self._schema(buf)
+            else:
+                rows.extend(self._row_group(buf))
+        return rows
+
+    def _schema(self, buf):
+        buf.take(len(MAGIC))
+        buf.byte()  # version
+        self.columns = [(buf.utf(), buf.byte(), buf.byte()) for _ in range(buf.varint())]
+        self.dictionary = []
+
+    def _row_group(self, buf):
+        if buf.byte() != ROW_GROUP:
+            raise ValueError("Not a row group")
+        n = buf.varint()
+        for _ in range(buf.varint()):
+            self.dictionary.append(buf.utf())
+
+        rows = [{} for _ in range(n)]
+        players = None
+        for name, type_, encoding in self.columns:
+            page = _Buffer(buf.take(buf.varint()))
+            values = self._column(page, type_, encoding, n, players)
+            if players is None and name == "PlayerName":
+                players = values
+            for row, value in zip(rows, values):
+                row[name] = value
+        return rows
+
+    def _ref(self, index):
+        return None if index == 0 else self.dictionary[index - 1]
+
+    def _column(self, page, type_, encoding, n, players):
+        if encoding == DICT and type_ == ID_COUNTS:
+            out = []
+            for _ in range(n):
+                out.append([(self._ref(page.varint()), page.varint()) for _ in range(page.varint())])
+            return out
+        if encoding == DICT:
+            return [self._ref(page.varint()) for _ in range(n)]
+        if encoding == DELTA:
+            out, prev = [], 0
+            for _ in range(n):
+                prev += page.zigzag()
+                out.append(prev)
+            return out
+        if encoding == RLE:
+            out = []
+            while len(out) < n:
+                run = page.varint()
+                out.extend([page.zigzag()] * run)
+            return out
+        if encoding == REPEAT:
+            # Explicit (item, count) values between runs of "same as this
+            # player's previous row"
+            out, last = [], {}
+            run = page.varint()
+            for r in range(n):
+                player = players[r] if players else None
+                if run > 0:
+                    out.append(last[player])
+                    run -= 1
+                else:
+                    value = (self._ref(page.varint()), page.varint())
+                    last[player] = value
+                    out.append(value)
+                    run = page.varint()
+            return out
+        if encoding == PLAIN:
+            fmt = {INT8: ">b", INT32: ">i", INT64: ">q", FLOAT32: ">f", FLOAT64: ">d"}[type_]
+            return [page.unpack(fmt) for _ in range(n)]
+        raise ValueError("Unknown encoding %d" % encoding)
+
+
+class RecordStream:
+    """
+    Connection to the logger's stream endpoint: TCP by default, or the
+    Unix-domain socket at ``path`` (stream.socketPath).
+    """
+
+    def __init__(self, host="127.0.0.1", port=27100, players=None, path=None):
+        if path:
+            self.sock = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+            self.sock.connect(path)
+        else:
+            self.sock = socket.create_connection((host, port))
+            self.sock.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+        self.sock.sendall((",".join(players or []) + "\n").encode("utf-8"))
+        self.decoder = ColumnarDecoder()
+
+    def _read_exact(self, n):
+        chunks = []
+        while n:
+            chunk = self.sock.recv(n)
+            if not chunk:
+                raise EOFError("Stream closed")
+            chunks.append(chunk)
+            n -= len(chunk)
+        return b"".join(chunks)
+
+    def ticks(self):
+        """Yields one list of rows per tick until the server goes away."""
+        try:
+            while True:
+                (length,) = struct.unpack(">I", self._read_exact(4))
+                rows = self.decoder.feed(self._read_exact(length))
+                if rows:
+                    yield rows
+        except EOFError:
+            return
+
+    def __iter__(self):
+        for tick in self.ticks():
+            yield from tick
+
+    def close(self):
+        self.sock.close()
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, *exc):
+        self.close()
+
+
+if __name__ == "__main__":
+    import sys
+
+    with RecordStream(players=sys.argv[1:]) as stream:
+        for row in stream:
+            print(row["PlayerName"], row["Tick"],
+                  row.get("PlayerCords_XPos"), row.get("PlayerCords_YPos"), row.get("PlayerCords_ZPos"))
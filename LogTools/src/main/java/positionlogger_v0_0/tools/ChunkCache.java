@@ -0,0 +1,98 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded chunks of a saved world, least recently used first out. The
+ * bound is on non-air sections rather than chunks, since those are what
+ * take the memory (8 KiB of state ids each).
+ *
+ * Players of one log mostly stay in the same few hundred chunks, so after
+ * the first rows nearly every lookup is a hit and a chunk is read and
+ * decoded from its region file once. Threads missing the same chunk at the
+ * same time may both decode it; the first one stored wins.
+ */
+final class ChunkCache implements AutoCloseable {
+
+    private record Key(String dimension, int x, int z) {
+    }
+
+    // Marks chunks that were never saved, so they are not looked up again
+    private static final Object MISSING = new Object();
+
+    private final Path world;
+    private final ShapeTable table;
+    private final long maxWeight;
+    private final Map<String, RegionStore> stores = new HashMap<>();
+    private final LinkedHashMap<Key, Object> chunks = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+
+    ChunkCache(Path world, ShapeTable table, long maxSections) {
+        this.world = world;
+        this.table = table;
+        this.maxWeight = Math.max(1, maxSections);
+    }
+
+    /** The chunk, or null if it is not in the save (or not fully generated). */
+    ChunkColumn get(String dimension, int chunkX, int chunkZ) throws IOException {
+        Key key = new Key(dimension, chunkX, chunkZ);
+        RegionStore store;
+        synchronized (this) {
+            Object cached = chunks.get(key);
+            if (cached != null) {
+                hits++;
+                return cached == MISSING ? null : (ChunkColumn) cached;
+            }
+            misses++;
+            store = stores.computeIfAbsent(dimension, d -> RegionStore.of(world, d));
+        }
+
+        Map<String, Object> tag = store.read(chunkX, chunkZ);
+        ChunkColumn chunk = tag == null ? null : ChunkColumn.decode(tag, table);
+
+        synchronized (this) {
+            Object cached = chunks.get(key);
+            if (cached != null) return cached == MISSING ? null : (ChunkColumn) cached;
+
+            chunks.put(key, chunk == null ? MISSING : chunk);
+            weight += weight(chunk);
+            evict();
+        }
+        return chunk;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    private void evict() {
+        Iterator<Object> eldest = chunks.values().iterator();
+        while (weight > maxWeight && chunks.size() > 1) {
+            weight -= weight(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long weight(Object chunk) {
+        return chunk instanceof ChunkColumn c ? c.weight : 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (RegionStore store : stores.values()) store.close();
+        stores.clear();
+        chunks.clear();
+    }
+}
@@ -0,0 +1,184 @@
+package positionlogger_v0_0.tools;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import positionlogger_v0_0.VoxelWorld;
+
+/**
+ * One saved chunk decoded for ray casting: {@link ShapeTable} state ids per
+ * section (null for all-air sections), sky light per section and the
+ * WORLD_SURFACE heightmap. Immutable once decoded, so the worker threads
+ * share it freely.
+ */
+final class ChunkColumn {
+
+    private static final int FULL_SKY = 15;
+
+    final int minY;
+    final int sectionCount;
+    // Indexed by section, then (y * 16 + z) * 16 + x
+    private final char[][] states;
+    // Nibble arrays as saved; null where the light engine kept no data
+    private final byte[][] skyLight;
+    private final int[] surface = new int[256];
+    final int surfaceTop;
+    // Sections that are not all air, what the cache is bounded by
+    final int weight;
+
+    private ChunkColumn(int minY, int sectionCount, char[][] states, byte[][] skyLight, long[] heightmap) {
+        this.minY = minY;
+        this.sectionCount = sectionCount;
+        this.states = states;
+        this.skyLight = skyLight;
+
+        int nonAir = 0;
+        for (char[] section : states) {
+            if (section != null) nonAir++;
+        }
+        this.weight = Math.max(1, nonAir);
+
+        // Packed like block states, with enough bits for 0..height
+        int top = VoxelWorld.NO_SURFACE;
+        int bits = 32 - Integer.numberOfLeadingZeros(sectionCount * 16);
+        for (int i = 0; i < 256; i++) {
+            surface[i] = heightmap == null ? minY + sectionCount * 16 : minY + (int) unpack(heightmap, bits, i);
+            top = Math.max(top, surface[i]);
+        }
+        this.surfaceTop = top;
+    }
+
+    /**
+     * Decodes a chunk's root tag, or returns null if the chunk was not fully
+     * generated (and so would not be loaded by the game either).
+     */
+    static ChunkColumn decode(Map<String, Object> chunk, ShapeTable table) {
+        String status = Nbt.string(chunk, "Status");
+        if (status != null && !status.equals("minecraft:full") && !status.equals("full")) return null;
+
+        List<Object> sections = Nbt.list(chunk, "sections");
+        int lowest = Integer.MAX_VALUE, highest = Integer.MIN_VALUE;
+        for (Object o : sections) {
+            Map<String, Object> section = asCompound(o);
+            if (Nbt.compound(section, "block_states") == null) continue;
+            int y = Nbt.intValue(section, "Y", 0);
+            lowest = Math.min(lowest, y);
+            highest = Math.max(highest, y);
+        }
+        if (lowest > highest) return null;
+
+        int minSection = Nbt.intValue(chunk, "yPos", lowest);
+        int count = highest - minSection + 1;
+        char[][] states = new char[count][];
+        byte[][] skyLight = new byte[count][];
+
+        for (Object o : sections) {
+            Map<String, Object> section = asCompound(o);
+            int s = Nbt.intValue(section, "Y", 0) - minSection;
+            if (s < 0 || s >= count) continue;
+
+            byte[] light = Nbt.bytes(section, "SkyLight");
+            if (light != null && light.length == 2048) skyLight[s] = light;
+
+            Map<String, Object> blockStates = Nbt.compound(section, "block_states");
+            if (blockStates != null) states[s] = blocks(blockStates, table);
+        }
+
+        Map<String, Object> heightmaps = Nbt.compound(chunk, "Heightmaps");
+        long[] surface = heightmaps == null ? null : Nbt.longs(heightmaps, "WORLD_SURFACE");
+        return new ChunkColumn(minSection * 16, count, states, skyLight, surface);
+    }
+
+    int stateId(int x, int y, int z) {
+        int ry = y - minY;
+        if (ry < 0 || ry >= sectionCount * 16) return VoxelWorld.AIR;
+
+        char[] section = states[ry >> 4];
+        return section == null ? VoxelWorld.AIR : section[((ry & 15) * 16 + (z & 15)) * 16 + (x & 15)];
+    }
+
+    /** First Y above the highest non-air block of the column. */
+    int surface(int x, int z) {
+        return surface[(z & 15) * 16 + (x & 15)];
+    }
+
+    /**
+     * Saved sky light at the position. A section without light data reads
+     * the bottom layer of the nearest section above that has some, and
+     * above all of them the sky is full, as in the game's light engine.
+     */
+    int skyLight(int x, int y, int z) {
+        int ry = y - minY;
+        if (ry < 0) return 0;
+
+        for (int s = ry >> 4; s < sectionCount; s++) {
+            byte[] light = skyLight[s];
+            if (light == null) continue;
+
+            int ly = s == ry >> 4 ? ry & 15 : 0;
+            int i = (ly * 16 + (z & 15)) * 16 + (x & 15);
+            return (light[i >> 1] >> ((i & 1) * 4)) & 15;
+        }
+        return FULL_SKY;
+    }
+
+    // Palette indices to state ids; null if the section is all air
+    private static char[] blocks(Map<String, Object> blockStates, ShapeTable table) {
+        List<Object> palette = Nbt.list(blockStates, "palette");
+        if (palette.isEmpty()) return null;
+
+        char[] ids = new char[palette.size()];
+        boolean allAir = true;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (char) table.stateId(stateName(asCompound(palette.get(i))));
+            allAir &= ids[i] == VoxelWorld.AIR;
+        }
+        if (allAir) return null;
+
+        char[] section = new char[4096];
+        long[] data = Nbt.longs(blockStates, "data");
+        if (ids.length == 1 || data == null) {
+            Arrays.fill(section, ids[0]);
+            return section;
+        }
+
+        int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(ids.length - 1));
+        for (int i = 0; i < 4096; i++) {
+            int index = (int) unpack(data, bits, i);
+            section[i] = index < ids.length ? ids[index] : (char) VoxelWorld.AIR;
+        }
+        return section;
+    }
+
+    // "minecraft:oak_slab[type=bottom,waterlogged=false]", properties in name order
+    private static String stateName(Map<String, Object> entry) {
+        String name = Nbt.string(entry, "Name");
+        if (name == null) return "minecraft:air";
+        Map<String, Object> properties = Nbt.compound(entry, "Properties");
+        if (properties == null || properties.isEmpty()) return name;
+
+        StringBuilder sb = new StringBuilder(name).append('[');
+        boolean first = true;
+        for (Map.Entry<String, Object> p : new TreeMap<>(properties).entrySet()) {
+            if (!first) sb.append(',');
+            sb.append(p.getKey()).append('=').append(p.getValue());
+            first = false;
+        }
+        return sb.append(']').toString();
+    }
+
+    // Entry i of values packed bits at a time, none spanning two longs
+    private static long unpack(long[] data, int bits, int i) {
+        int perLong = 64 / bits;
+        int word = i / perLong;
+        if (word >= data.length) return 0;
+        return (data[word] >>> ((i % perLong) * bits)) & ((1L << bits) - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asCompound(Object o) {
+        return o instanceof Map<?, ?> m ? (Map<String, Object>) m : Map.of();
+    }
+}
@@ -0,0 +1,67 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Processes a list of chunks on a fork-join pool: the list is halved until
+ * single chunks remain, and results are combined left to right, so
+ * {@code combine} always sees earlier input as its first argument.
+ */
+@SuppressWarnings("serial")
+final class ChunkTask<T, R> extends RecursiveTask<R> {
+
+    interface Leaf<T, R> {
+        R apply(int index, T chunk) throws IOException;
+    }
+
+    private final List<T> chunks;
+    private final int from;
+    private final int to;
+    private final Leaf<T, R> leaf;
+    private final BinaryOperator<R> combine;
+
+    private ChunkTask(List<T> chunks, int from, int to, Leaf<T, R> leaf, BinaryOperator<R> combine) {
+        this.chunks = chunks;
+        this.from = from;
+        this.to = to;
+        this.leaf = leaf;
+        this.combine = combine;
+    }
+
+    /**
+     * Applies {@code leaf} to every chunk (with its index in the list) and
+     * folds the results in order; {@code empty} for no chunks.
+     */
+    static <T, R> R run(ForkJoinPool pool, List<T> chunks, Leaf<T, R> leaf, BinaryOperator<R> combine,
+                        R empty) throws IOException {
+        if (chunks.isEmpty()) return empty;
+        try {
+            return pool.invoke(new ChunkTask<>(chunks, 0, chunks.size(), leaf, combine));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    protected R compute() {
+        if (to - from == 1) {
+            try {
+                return leaf.apply(from, chunks.get(from));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int mid = (from + to) >>> 1;
+        ChunkTask<T, R> left = new ChunkTask<>(chunks, from, mid, leaf, combine);
+        ChunkTask<T, R> right = new ChunkTask<>(chunks, mid, to, leaf, combine);
+        left.fork();
+        R r = right.compute();
+        return combine.apply(left.join(), r);
+    }
+}
@@ -0,0 +1,82 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.ColumnarLogReader;
+import positionlogger_v0_0.output.ColumnarRecordSink;
+import positionlogger_v0_0.output.CsvRecordSink;
+import positionlogger_v0_0.output.PlayerRecord;
+import positionlogger_v0_0.output.RecordSink;
+
+/**
+ * {@code logtools convert}: CSV to columnar and back, through the mod's own
+ * sinks, so the output is byte for byte what the mod would have written.
+ * The output has the column groups of the first input.
+ *
+ * Both sinks carry per-player state from row to row (delta inventories,
+ * repeat runs), so records are written in input order on one thread; CSV
+ * input is still read chunk by chunk through memory maps.
+ */
+final class Conversion {
+
+    private Conversion() {
+    }
+
+    static long csvToColumnar(List<Path> files, Path output, int rowGroupSize) throws IOException {
+        NameTable names = new NameTable();
+        RecordSink sink = null;
+        long[] rows = new long[1];
+
+        try {
+            for (Path file : files) {
+                CsvHeader header = CsvChunk.readHeader(file);
+                if (sink == null) {
+                    sink = new ColumnarRecordSink(Inputs.create(output), names, rowGroupSize, header.groups());
+                }
+
+                CsvRecordParser parser = new CsvRecordParser(header, names);
+                CsvRow row = new CsvRow();
+                RecordSink target = sink;
+                for (CsvChunk chunk : CsvChunk.split(List.of(file), CsvChunk.SIZE)) {
+                    chunk.forEachLine((line, length) -> {
+                        row.set(line, length);
+                        target.write(parser.parse(row));
+                        rows[0]++;
+                    });
+                }
+            }
+        } finally {
+            if (sink != null) sink.close();
+        }
+        return rows[0];
+    }
+
+    static long columnarToCsv(List<Path> files, Path output) throws IOException {
+        NameTable names = new NameTable();
+        RecordSink sink = null;
+        long rows = 0;
+
+        try {
+            for (Path file : files) {
+                try (ColumnarLogReader reader = new ColumnarLogReader(Inputs.open(file))) {
+                    PlayerRecord r;
+                    while ((r = reader.next()) != null) {
+                        if (sink == null) {
+                            Set<ColumnGroup> groups = reader.columnGroups();
+                            sink = new CsvRecordSink(Inputs.create(output), names, 0, groups);
+                        }
+                        sink.write(names.relabel(r, reader.names()));
+                        rows++;
+                    }
+                }
+            }
+        } finally {
+            if (sink != null) sink.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,159 @@
+package positionlogger_v0_0.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A run of whole lines of one CSV input, the unit of parallel work.
+ *
+ * Uncompressed files are cut into chunks of about {@link #SIZE} bytes at
+ * line ends, and each chunk is memory-mapped only while it is processed, so
+ * memory use does not grow with the input. A gzipped file cannot be entered
+ * in the middle and is a single chunk that is streamed.
+ */
+final class CsvChunk {
+
+    static final long SIZE = 64L << 20;
+
+    /** Receives each line without its newline; the array is reused. */
+    interface LineHandler {
+        void line(byte[] line, int length) throws IOException;
+    }
+
+    final Path file;
+    final CsvHeader header;
+    final long start;
+    final long end;
+    final boolean compressed;
+
+    private CsvChunk(Path file, CsvHeader header, long start, long end, boolean compressed) {
+        this.file = file;
+        this.header = header;
+        this.start = start;
+        this.end = end;
+        this.compressed = compressed;
+    }
+
+    /** Chunks of all files, in input order. */
+    static List<CsvChunk> split(List<Path> files, long size) throws IOException {
+        List<CsvChunk> chunks = new ArrayList<>();
+        for (Path file : files) {
+            if (isCompressed(file)) {
+                chunks.add(new CsvChunk(file, readHeader(file), 0, Long.MAX_VALUE, true));
+                continue;
+            }
+
+            CsvHeader header = readHeader(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long length = channel.size();
+                long start = header.line.getBytes(StandardCharsets.UTF_8).length + 1;
+                while (start < length) {
+                    long end = start + size >= length ? length : lineEnd(channel, start + size);
+                    chunks.add(new CsvChunk(file, header, start, end, false));
+                    start = end;
+                }
+            }
+        }
+        return chunks;
+    }
+
+    static CsvHeader readHeader(Path file) throws IOException {
+        try (InputStream in = Inputs.open(file)) {
+            String line = readLine(in);
+            if (line == null || !isHeader(line)) throw new IOException(file + " does not start with a CSV header");
+            return new CsvHeader(line);
+        }
+    }
+
+    static boolean isCompressed(Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+
+    /**
+     * Hands every data row of the chunk to the handler. Header lines are
+     * skipped, and so is a last line without a newline (a torn write).
+     */
+    void forEachLine(LineHandler handler) throws IOException {
+        if (compressed) {
+            streamLines(handler);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            int limit = map.limit();
+            byte[] line = new byte[4096];
+
+            int from = 0;
+            for (int i = 0; i < limit; i++) {
+                if (map.get(i) != '\n') continue;
+
+                int length = i - from;
+                if (line.length < length) line = new byte[Math.max(length, line.length * 2)];
+                map.get(from, line, 0, length);
+                if (!isHeader(line, length)) handler.line(line, length);
+                from = i + 1;
+            }
+        }
+    }
+
+    private void streamLines(LineHandler handler) throws IOException {
+        try (InputStream in = Inputs.open(file)) {
+            byte[] line = new byte[4096];
+            int length = 0;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b == '\n') {
+                    if (!isHeader(line, length)) handler.line(line, length);
+                    length = 0;
+                } else {
+                    if (length == line.length) line = Arrays.copyOf(line, line.length * 2);
+                    line[length++] = (byte) b;
+                }
+            }
+        }
+    }
+
+    // Offset just past the first newline at or after the position
+    private static long lineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long p = position;
+        while (true) {
+            buf.clear();
+            int n = channel.read(buf, p);
+            if (n < 0) return channel.size();
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return p + i + 1;
+            }
+            p += n;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(1 << 12);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isHeader(String line) {
+        return line.startsWith("ID,") || line.equals("ID");
+    }
+
+    private static boolean isHeader(byte[] line, int length) {
+        return length >= 2 && line[0] == 'I' && line[1] == 'D' && (length == 2 || line[2] == ',');
+    }
+}
@@ -0,0 +1,76 @@
+package positionlogger_v0_0.tools;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.CsvRecordSink;
+
+/**
+ * Column layout of a CSV log, from its header line. Which columns belong to
+ * which {@link ColumnGroup} comes from the mod's own header
+ * ({@link CsvRecordSink#columns}), so a log written with any column
+ * selection is understood.
+ */
+final class CsvHeader {
+
+    final String line;
+    final List<String> names;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    CsvHeader(String line) {
+        this.line = line;
+        this.names = List.of(line.split(","));
+        for (int i = 0; i < names.size(); i++) {
+            index.put(names.get(i), i);
+        }
+    }
+
+    /** Field index of the column, or -1. */
+    int indexOf(String name) {
+        Integer i = index.get(name);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Field indices of the group's columns in the mod's header order, or
+     * null if the log does not have the group.
+     */
+    int[] columns(ColumnGroup group) {
+        List<String> names = groupColumns(group);
+        int[] columns = new int[names.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = indexOf(names.get(i));
+            if (columns[i] < 0) return null;
+        }
+        return columns;
+    }
+
+    /** Groups whose columns are all in the log. */
+    Set<ColumnGroup> groups() {
+        Set<ColumnGroup> groups = EnumSet.noneOf(ColumnGroup.class);
+        for (ColumnGroup g : ColumnGroup.values()) {
+            if (columns(g) != null) groups.add(g);
+        }
+        return groups;
+    }
+
+    /** The group's column names, without ID. */
+    static List<String> groupColumns(ColumnGroup group) {
+        List<String> names = CsvRecordSink.columns(EnumSet.of(group));
+        return names.subList(1, names.size());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CsvHeader h && h.line.equals(line);
+    }
+
+    @Override
+    public int hashCode() {
+        return line.hashCode();
+    }
+}
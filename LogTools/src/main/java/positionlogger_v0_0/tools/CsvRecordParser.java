@@ -0,0 +1,162 @@
+package positionlogger_v0_0.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * Turns CSV rows back into {@link PlayerRecord}s, the inverse of
+ * {@link positionlogger_v0_0.output.CsvRecordSink}. Block and mob names go
+ * into a {@link NameTable}. Empty inventory fields of delta rows are filled
+ * in from the player's previous row, like
+ * {@link positionlogger_v0_0.output.CsvDeltaExpander} does.
+ *
+ * Columns are found through the mod's header for each group, in its order.
+ */
+final class CsvRecordParser {
+
+    private static final String NONE = "none";
+    private static final String COUNT_SEPARATOR = " : ";
+    private static final String ENTRY_SEPARATOR = "; ";
+
+    private final NameTable names;
+
+    // Field indices per group in header order, null if the log lacks it
+    private final int[] position, look, viewpoint, stats, biome, outdoor, highlightedBlock,
+            visibleBlocks, mobs, inventory, actions;
+
+    // Each player's last inventory, for delta rows
+    private final Map<String, String[]> lastItems = new HashMap<>();
+    private final Map<String, int[]> lastCounts = new HashMap<>();
+
+    CsvRecordParser(CsvHeader header, NameTable names) {
+        this.names = names;
+        this.position = header.columns(ColumnGroup.POSITION);
+        this.look = header.columns(ColumnGroup.LOOK);
+        this.viewpoint = header.columns(ColumnGroup.VIEWPOINT);
+        this.stats = header.columns(ColumnGroup.STATS);
+        this.biome = header.columns(ColumnGroup.BIOME);
+        this.outdoor = header.columns(ColumnGroup.OUTDOOR);
+        this.highlightedBlock = header.columns(ColumnGroup.HIGHLIGHTED_BLOCK);
+        this.visibleBlocks = header.columns(ColumnGroup.VISIBLE_BLOCKS);
+        this.mobs = header.columns(ColumnGroup.MOBS);
+        this.inventory = header.columns(ColumnGroup.INVENTORY);
+        this.actions = header.columns(ColumnGroup.ACTIONS);
+    }
+
+    PlayerRecord parse(CsvRow row) {
+        PlayerRecord.Builder b = PlayerRecord.builder();
+        b.playerName = row.player();
+        b.tick = row.tick();
+        b.timestamp = row.timestamp();
+
+        if (position != null) {
+            b.x = row.doubleValue(position[0]);
+            b.y = row.doubleValue(position[1]);
+            b.z = row.doubleValue(position[2]);
+        }
+        if (look != null) {
+            b.lookX = row.doubleValue(look[0]);
+            b.lookY = row.doubleValue(look[1]);
+            b.lookZ = row.doubleValue(look[2]);
+        }
+        if (viewpoint != null) {
+            b.eyeY = row.doubleValue(viewpoint[0]);
+            b.dimension = row.string(viewpoint[1]);
+            b.dayTime = row.intValue(viewpoint[2]);
+        }
+        if (stats != null) {
+            b.health = row.doubleValue(stats[0]);
+            b.food = row.doubleValue(stats[1]);
+            b.oxygen = row.doubleValue(stats[2]);
+        }
+        if (biome != null) {
+            b.biome = row.string(biome[0]);
+        }
+        if (outdoor != null) {
+            // Flag, night flag, then the age column
+            b.outsideObservable = row.flag(outdoor[0]);
+            b.nightFlag = row.string(outdoor[1]);
+            b.outdoorAge = row.intValue(outdoor[2]);
+        }
+        if (highlightedBlock != null) {
+            b.blockHighlighted = row.flag(highlightedBlock[0]);
+            b.highlightedBlock = row.string(highlightedBlock[1]);
+        }
+        if (visibleBlocks != null) {
+            int[][] counts = counts(row.unquoted(visibleBlocks[0]));
+            b.visibleBlockIds = counts[0];
+            b.visibleBlockCounts = counts[1];
+            b.visibleBlocksAge = row.intValue(visibleBlocks[1]);
+        }
+        if (mobs != null) {
+            b.viewingMob = row.flag(mobs[0]);
+            b.closestViewingMob = id(row.string(mobs[1]));
+            int[][] counts = counts(row.string(mobs[2]));
+            b.viewingMobIds = counts[0];
+            b.viewingMobCounts = counts[1];
+            b.mobsAge = row.intValue(mobs[3]);
+        }
+        if (inventory != null) {
+            parseInventory(row, b);
+        }
+        if (actions != null) {
+            b.lastBlockHit = id(row.string(actions[0]));
+            b.lastBlockBroken = id(row.string(actions[1]));
+            b.lastBlockPlaced = id(row.string(actions[2]));
+            b.lastBlockDamageTaken = id(row.string(actions[3]));
+            b.lastMobHit = id(row.string(actions[4]));
+            b.lastMobKilled = id(row.string(actions[5]));
+        }
+        return b.build();
+    }
+
+    // Hotbar columns repeat the first nine main slots and are skipped
+    private void parseInventory(CsvRow row, PlayerRecord.Builder b) {
+        String[] previousItems = lastItems.get(b.playerName);
+        int[] previousCounts = lastCounts.get(b.playerName);
+
+        for (int slot = 0; slot < PlayerRecord.SLOT_COUNT; slot++) {
+            int field = inventory[PlayerRecord.HOTBAR_SLOTS + slot];
+            if (row.isEmpty(field)) {
+                if (previousItems != null) b.slot(slot, previousItems[slot], previousCounts[slot]);
+                continue;
+            }
+
+            String value = row.string(field);
+            if (value.equals(NONE)) continue;
+
+            int separator = value.lastIndexOf(COUNT_SEPARATOR);
+            if (separator < 0) {
+                b.slot(slot, value, 1);
+            } else {
+                b.slot(slot, value.substring(0, separator),
+                        Integer.parseInt(value.substring(separator + COUNT_SEPARATOR.length())));
+            }
+        }
+
+        lastItems.put(b.playerName, b.slotItems);
+        lastCounts.put(b.playerName, b.slotCounts);
+    }
+
+    private int id(String name) {
+        return name.isEmpty() || name.equals(NONE) ? PlayerRecord.NONE : names.id(name);
+    }
+
+    // "name : count; ..." or "none" to ids and counts
+    private int[][] counts(String field) {
+        if (field.isEmpty() || field.equals(NONE)) return new int[][] { new int[0], new int[0] };
+
+        String[] entries = field.split(ENTRY_SEPARATOR);
+        int[] ids = new int[entries.length];
+        int[] counts = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            int separator = entries[i].lastIndexOf(COUNT_SEPARATOR);
+            ids[i] = names.id(entries[i].substring(0, separator));
+            counts[i] = Integer.parseInt(entries[i].substring(separator + COUNT_SEPARATOR.length()));
+        }
+        return new int[][] { ids, counts };
+    }
+}
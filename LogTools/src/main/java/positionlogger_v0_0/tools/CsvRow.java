@@ -0,0 +1,148 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Field boundaries of one CSV line, found once and reused for the next line.
+ * Fields are only decoded when asked for; copying a field or the whole line
+ * to an output copies bytes.
+ */
+final class CsvRow {
+
+    private byte[] line;
+    private int length;
+
+    private int[] starts = new int[128];
+    private int[] ends = new int[128];
+    private int count;
+
+    // From the ID field, name_tick_timestamp
+    private int tickStart;
+    private int tickEnd;
+
+    /** Points the row at a line; the array must stay unchanged while the row is used. */
+    void set(byte[] line, int length) {
+        this.line = line;
+        this.length = length;
+
+        count = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            byte c = line[i];
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                add(start, i);
+                start = i + 1;
+            }
+        }
+        add(start, length);
+
+        // Names may contain '_', the tick and timestamp cannot
+        tickStart = tickEnd = -1;
+        int id = ends[0];
+        for (int i = id - 1; i > starts[0]; i--) {
+            if (line[i] != '_') continue;
+            if (tickEnd < 0) {
+                tickEnd = i;
+            } else {
+                tickStart = i + 1;
+                break;
+            }
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    /** Player name from the ID. */
+    String player() {
+        int end = tickStart > 0 ? tickStart - 1 : ends[0];
+        return new String(line, starts[0], end - starts[0], StandardCharsets.UTF_8);
+    }
+
+    /** Tick from the ID; Long.MIN_VALUE if the ID is malformed. */
+    long tick() {
+        if (tickStart < 0) return Long.MIN_VALUE;
+        long v = 0;
+        boolean negative = line[tickStart] == '-';
+        for (int i = negative ? tickStart + 1 : tickStart; i < tickEnd; i++) {
+            int d = line[i] - '0';
+            if (d < 0 || d > 9) return Long.MIN_VALUE;
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /** Timestamp from the ID. */
+    String timestamp() {
+        if (tickEnd < 0) return "";
+        return new String(line, tickEnd + 1, ends[0] - tickEnd - 1, StandardCharsets.UTF_8);
+    }
+
+    /** Field as written, quotes included; "" past the last field. */
+    String string(int field) {
+        if (field < 0 || field >= count) return "";
+        return new String(line, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+    }
+
+    /** Field without its surrounding quotes, doubled quotes undone. */
+    String unquoted(int field) {
+        String s = string(field);
+        if (s.length() < 2 || s.charAt(0) != '"') return s;
+        return s.substring(1, s.length() - 1).replace("\"\"", "\"");
+    }
+
+    boolean isEmpty(int field) {
+        return field < 0 || field >= count || starts[field] == ends[field];
+    }
+
+    /** Numeric field; NaN if missing or empty. */
+    double doubleValue(int field) {
+        if (isEmpty(field)) return Double.NaN;
+        try {
+            return Double.parseDouble(string(field));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    int intValue(int field) {
+        if (isEmpty(field)) return 0;
+        try {
+            return Integer.parseInt(string(field));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** A "1"/"0" flag field. */
+    boolean flag(int field) {
+        return !isEmpty(field) && line[starts[field]] == '1';
+    }
+
+    void writeField(OutputStream out, int field) throws IOException {
+        if (field < count) out.write(line, starts[field], ends[field] - starts[field]);
+    }
+
+    /** The whole line and its newline. */
+    void writeLine(OutputStream out) throws IOException {
+        out.write(line, 0, length);
+        out.write('\n');
+    }
+
+    private void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+}
@@ -0,0 +1,119 @@
+package positionlogger_v0_0.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Input and output files of the tools: log files and segment directories,
+ * gzipped or not, and the per-chunk part files that parallel commands
+ * write before joining them in order.
+ */
+final class Inputs {
+
+    enum Format { CSV, COLUMNAR }
+
+    private Inputs() {
+    }
+
+    /**
+     * The log files named on the command line; a directory stands for its
+     * segments, in name (and so segment number) order.
+     */
+    static List<Path> expand(List<String> args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> list = Files.list(path)) {
+                    list.filter(p -> format(p) != null).sorted().forEach(files::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                if (format(path) == null) throw new IOException("Not a CSV or columnar log: " + arg);
+                files.add(path);
+            } else {
+                throw new IOException("No such file: " + arg);
+            }
+        }
+        return files;
+    }
+
+    /** Format of a log file by name, or null for anything else. */
+    static Format format(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        if (name.endsWith(".csv")) return Format.CSV;
+        if (name.endsWith(".plcol")) return Format.COLUMNAR;
+        return null;
+    }
+
+    /** The one format of all files. */
+    static Format format(List<Path> files) throws IOException {
+        if (files.isEmpty()) throw new IOException("No input files");
+        Format format = format(files.get(0));
+        for (Path f : files) {
+            if (format(f) != format) throw new IOException("Inputs mix CSV and columnar logs");
+        }
+        return format;
+    }
+
+    static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedInputStream(in, 1 << 16);
+    }
+
+    /** A new file, gzipped if its name ends in .gz. */
+    static OutputStream create(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) return new GZIPOutputStream(out, 1 << 16);
+        return new BufferedOutputStream(out, 1 << 16);
+    }
+
+    /** A part file for one chunk's output, next to the final output. */
+    static Path part(Path output, String kind, int chunk) {
+        return output.resolveSibling("." + output.getFileName() + "." + kind + "-" + chunk + ".part");
+    }
+
+    /**
+     * Writes the header, then the parts in order, and deletes them. Parts
+     * are copied by the kernel when the output is not compressed.
+     */
+    static void join(Path output, byte[] header, List<Path> parts) throws IOException {
+        try {
+            if (output.getFileName().toString().endsWith(".gz")) {
+                try (OutputStream out = create(output)) {
+                    out.write(header);
+                    for (Path part : parts) Files.copy(part, out);
+                }
+                return;
+            }
+
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                out.write(ByteBuffer.wrap(header));
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long done = 0;
+                        while (done < size) done += in.transferTo(done, size - done, out);
+                    }
+                }
+            }
+        } finally {
+            for (Path part : parts) Files.deleteIfExists(part);
+        }
+    }
+}
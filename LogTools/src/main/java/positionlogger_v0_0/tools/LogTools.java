@@ -0,0 +1,210 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import positionlogger_v0_0.LoggerConfig;
+
+/**
+ * Offline processing of PositionLogger output: CSV logs and columnar
+ * ({@code .plcol}) segments, gzipped or not, or whole segment directories.
+ *
+ * <pre>
+ * logtools stats   [--threads N] &lt;input...&gt;
+ * logtools split   --out &lt;dir&gt; [--test 0.2] [--by player|session] [--gap 6000] [--seed 0] [--threads N] &lt;input...&gt;
+ * logtools project --columns &lt;name,...&gt; --out &lt;file&gt; [--threads N] &lt;input...&gt;
+ * logtools convert --out &lt;file.csv|file.plcol&gt; [--row-group 4096] &lt;input...&gt;
+ * logtools vision  --world &lt;dir&gt; --out &lt;file&gt; [--shapes &lt;block-shapes.tsv&gt;] [--config &lt;file&gt;] [--cache-sections 65536] [--threads N] &lt;input...&gt;
+ * </pre>
+ *
+ * Inputs are read in chunks (memory-mapped for uncompressed CSV), so memory
+ * use stays flat however large they are; chunks are spread over a
+ * fork-join pool of {@code --threads} workers (default: all cores).
+ */
+public final class LogTools {
+
+    private static final String USAGE = String.join("\n",
+            "Usage:",
+            "  logtools stats   [--threads N] <input...>",
+            "  logtools split   --out <dir> [--test 0.2] [--by player|session] [--gap 6000] [--seed 0] [--threads N] <input...>",
+            "  logtools project --columns <name,...> --out <file> [--threads N] <input...>",
+            "  logtools convert --out <file.csv|file.plcol> [--row-group 4096] <input...>",
+            "  logtools vision  --world <dir> --out <file> [--shapes <block-shapes.tsv>] [--config <file>]",
+            "                   [--cache-sections 65536] [--threads N] <input...>",
+            "Inputs are .csv or .plcol files (optionally .gz) or segment directories.");
+
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> inputs = new ArrayList<>();
+
+    private LogTools() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) usage(null);
+
+        LogTools tools = new LogTools();
+        tools.parse(Arrays.copyOfRange(args, 1, args.length));
+
+        ForkJoinPool pool = new ForkJoinPool(tools.intOption("threads", Runtime.getRuntime().availableProcessors()));
+        long start = System.nanoTime();
+        try {
+            switch (args[0]) {
+                case "stats" -> tools.stats(pool);
+                case "split" -> tools.split(pool);
+                case "project" -> tools.project(pool);
+                case "convert" -> tools.convert();
+                case "vision" -> tools.vision(pool);
+                default -> usage("Unknown command " + args[0]);
+            }
+        } catch (IOException e) {
+            System.err.println("logtools: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+        System.err.printf("Done in %.1fs%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private void stats(ForkJoinPool pool) throws IOException {
+        List<Path> files = Inputs.expand(inputs);
+        Stats.print(Inputs.format(files) == Inputs.Format.CSV
+                ? Stats.csv(pool, files)
+                : Stats.columnar(pool, files), System.out);
+    }
+
+    private void split(ForkJoinPool pool) throws IOException {
+        Path out = Path.of(required("out"));
+        List<Path> files = Inputs.expand(inputs);
+        Inputs.Format format = Inputs.format(files);
+
+        TrainTestSplit.By by = switch (options.getOrDefault("by", "player")) {
+            case "player" -> TrainTestSplit.By.PLAYER;
+            case "session" -> TrainTestSplit.By.SESSION;
+            default -> throw usage("--by is player or session");
+        };
+        TrainTestSplit split = new TrainTestSplit(by, doubleOption("test", 0.2),
+                longOption("seed", 0), longOption("gap", 6000));
+
+        Files.createDirectories(out);
+        if (format == Inputs.Format.CSV) {
+            split.csv(pool, files, out.resolve("train.csv"), out.resolve("test.csv"));
+        } else {
+            split.columnar(files, out.resolve("train.plcol"), out.resolve("test.plcol"), intOption("row-group", 4096));
+        }
+        System.err.println("train " + split.trainRows + " rows, test " + split.testRows + " rows");
+    }
+
+    private void project(ForkJoinPool pool) throws IOException {
+        Projection projection = new Projection(List.of(required("columns").split(",")));
+        Path out = Path.of(required("out"));
+        List<Path> files = Inputs.expand(inputs);
+
+        if (Inputs.format(files) == Inputs.Format.CSV) {
+            if (Inputs.format(out) != Inputs.Format.CSV) throw usage("--out must be a .csv file for CSV input");
+            projection.csv(pool, files, out);
+        } else {
+            if (Inputs.format(out) != Inputs.Format.COLUMNAR) throw usage("--out must be a .plcol file for columnar input");
+            projection.columnar(files, out, intOption("row-group", 4096));
+        }
+    }
+
+    private void convert() throws IOException {
+        Path out = Path.of(required("out"));
+        List<Path> files = Inputs.expand(inputs);
+        Inputs.Format from = Inputs.format(files);
+        Inputs.Format to = Inputs.format(out);
+
+        long rows;
+        if (from == Inputs.Format.CSV && to == Inputs.Format.COLUMNAR) {
+            rows = Conversion.csvToColumnar(files, out, intOption("row-group", 4096));
+        } else if (from == Inputs.Format.COLUMNAR && to == Inputs.Format.CSV) {
+            rows = Conversion.columnarToCsv(files, out);
+        } else {
+            throw usage("--out must be a .plcol file for CSV input and a .csv file for columnar input");
+        }
+        System.err.println(rows + " rows");
+    }
+
+    private void vision(ForkJoinPool pool) throws IOException {
+        Path world = Path.of(required("world"));
+        Path out = Path.of(required("out"));
+        List<Path> files = Inputs.expand(inputs);
+        if (Inputs.format(out) == null) throw usage("--out must be a .csv or .plcol file");
+        if (!Files.isDirectory(world.resolve("region"))) throw usage(world + " is not a saved world");
+
+        // The mod writes the shapes into its segment directory
+        Path shapes = options.containsKey("shapes")
+                ? Path.of(options.get("shapes"))
+                : files.get(0).resolveSibling("block-shapes.tsv");
+        if (!Files.isRegularFile(shapes)) throw usage("No " + shapes + "; pass --shapes");
+
+        LoggerConfig config = LoggerConfig.defaults();
+        if (options.containsKey("config")) {
+            Path file = Path.of(options.get("config"));
+            if (!Files.isRegularFile(file)) throw usage("No such config " + file);
+            config = LoggerConfig.load(file);
+        }
+        config.samplingThreads = pool.getParallelism();
+
+        long rows = VisionReplay.run(pool, files, out, world, ShapeTable.load(shapes), config,
+                longOption("cache-sections", 65536), intOption("row-group", 4096));
+        System.err.println(rows + " rows");
+    }
+
+    // --- Arguments ---
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) usage("Missing value for " + args[i]);
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) usage("No inputs");
+    }
+
+    private String required(String name) {
+        String v = options.get(name);
+        if (v == null) usage("Missing --" + name);
+        return v;
+    }
+
+    private int intOption(String name, int def) {
+        return (int) longOption(name, def);
+    }
+
+    private long longOption(String name, long def) {
+        String v = options.get(name);
+        try {
+            return v == null ? def : Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw usage("--" + name + " takes a number");
+        }
+    }
+
+    private double doubleOption(String name, double def) {
+        String v = options.get(name);
+        try {
+            return v == null ? def : Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            throw usage("--" + name + " takes a number");
+        }
+    }
+
+    // Exits; declared to return so callers can write "throw usage(...)"
+    private static RuntimeException usage(String error) {
+        if (error != null) System.err.println("logtools: " + error);
+        System.err.println(USAGE);
+        System.exit(2);
+        return new IllegalStateException();
+    }
+}
@@ -0,0 +1,110 @@
+package positionlogger_v0_0.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import positionlogger_v0_0.output.NameResolver;
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * Block and mob names by id for records built outside the game. Ids are
+ * handed out in first-seen order and stay fixed, which the sinks rely on:
+ * they cache each id's name for good, while the ids of a
+ * {@link positionlogger_v0_0.output.ColumnarLogReader} are only valid
+ * within one segment.
+ */
+final class NameTable implements NameResolver {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    @Override
+    public String blockName(int id) {
+        return names.get(id);
+    }
+
+    @Override
+    public String entityName(int id) {
+        return names.get(id);
+    }
+
+    /** The record with its ids, resolved through {@code from}, moved to this table. */
+    PlayerRecord relabel(PlayerRecord r, NameResolver from) {
+        return relabeled(r, from).build();
+    }
+
+    /** Like {@link #relabel}, as a builder for changing fields first. */
+    PlayerRecord.Builder relabeled(PlayerRecord r, NameResolver from) {
+        PlayerRecord.Builder b = PlayerRecord.builder();
+        b.playerName = r.playerName;
+        b.tick = r.tick;
+        b.timestamp = r.timestamp;
+        b.x = r.x;
+        b.y = r.y;
+        b.z = r.z;
+        b.lookX = r.lookX;
+        b.lookY = r.lookY;
+        b.lookZ = r.lookZ;
+        b.eyeY = r.eyeY;
+        b.dimension = r.dimension;
+        b.dayTime = r.dayTime;
+        b.health = r.health;
+        b.food = r.food;
+        b.oxygen = r.oxygen;
+        b.biome = r.biome;
+        b.outsideObservable = r.outsideObservable;
+        b.nightFlag = r.nightFlag;
+        b.blockHighlighted = r.blockHighlighted;
+        b.highlightedBlock = r.highlightedBlock;
+        b.visibleBlockIds = blocks(r.visibleBlockIds, from);
+        b.visibleBlockCounts = r.visibleBlockCounts;
+        b.viewingMob = r.viewingMob;
+        b.closestViewingMob = entity(r.closestViewingMob, from);
+        b.viewingMobIds = entities(r.viewingMobIds, from);
+        b.viewingMobCounts = r.viewingMobCounts;
+        b.slotItems = r.slotItems;
+        b.slotCounts = r.slotCounts;
+        b.lastBlockHit = block(r.lastBlockHit, from);
+        b.lastBlockBroken = block(r.lastBlockBroken, from);
+        b.lastBlockPlaced = block(r.lastBlockPlaced, from);
+        b.lastBlockDamageTaken = block(r.lastBlockDamageTaken, from);
+        b.lastMobHit = entity(r.lastMobHit, from);
+        b.lastMobKilled = entity(r.lastMobKilled, from);
+        b.visibleBlocksAge = r.visibleBlocksAge;
+        b.outdoorAge = r.outdoorAge;
+        b.mobsAge = r.mobsAge;
+        return b;
+    }
+
+    private int block(int id, NameResolver from) {
+        return id == PlayerRecord.NONE ? id : id(from.blockName(id));
+    }
+
+    private int entity(int id, NameResolver from) {
+        return id == PlayerRecord.NONE ? id : id(from.entityName(id));
+    }
+
+    private int[] blocks(int[] ids, NameResolver from) {
+        int[] out = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) out[i] = block(ids[i], from);
+        return out;
+    }
+
+    private int[] entities(int[] ids, NameResolver from) {
+        int[] out = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) out[i] = entity(ids[i], from);
+        return out;
+    }
+}
@@ -0,0 +1,129 @@
+package positionlogger_v0_0.tools;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of the NBT format to read chunks out of region files.
+ * Compounds become {@code Map<String, Object>}, lists {@code List<Object>},
+ * the array tags {@code byte[]}, {@code int[]} and {@code long[]}, and the
+ * rest their boxed Java types.
+ */
+final class Nbt {
+
+    private static final int END = 0;
+    private static final int BYTE = 1;
+    private static final int SHORT = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int FLOAT = 5;
+    private static final int DOUBLE = 6;
+    private static final int BYTE_ARRAY = 7;
+    private static final int STRING = 8;
+    private static final int LIST = 9;
+    private static final int COMPOUND = 10;
+    private static final int INT_ARRAY = 11;
+    private static final int LONG_ARRAY = 12;
+
+    // Deeper than any chunk; guards against corrupt data
+    private static final int MAX_DEPTH = 64;
+
+    private Nbt() {
+    }
+
+    /** The unnamed root compound of an (uncompressed) NBT stream. */
+    static Map<String, Object> read(InputStream stream) throws IOException {
+        DataInput in = new DataInputStream(stream);
+        int type = in.readUnsignedByte();
+        if (type != COMPOUND) throw new IOException("NBT root is not a compound (tag " + type + ")");
+        in.readUTF();
+        return compound(in, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> compound(Map<String, Object> tag, String key) {
+        return tag.get(key) instanceof Map<?, ?> m ? (Map<String, Object>) m : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> list(Map<String, Object> tag, String key) {
+        return tag.get(key) instanceof List<?> l ? (List<Object>) l : List.of();
+    }
+
+    static String string(Map<String, Object> tag, String key) {
+        return tag.get(key) instanceof String s ? s : null;
+    }
+
+    /** Any numeric tag as an int, or {@code def}. */
+    static int intValue(Map<String, Object> tag, String key, int def) {
+        return tag.get(key) instanceof Number n ? n.intValue() : def;
+    }
+
+    static long[] longs(Map<String, Object> tag, String key) {
+        return tag.get(key) instanceof long[] a ? a : null;
+    }
+
+    static byte[] bytes(Map<String, Object> tag, String key) {
+        return tag.get(key) instanceof byte[] a ? a : null;
+    }
+
+    private static Map<String, Object> compound(DataInput in, int depth) throws IOException {
+        Map<String, Object> tag = new HashMap<>();
+        int type;
+        while ((type = in.readUnsignedByte()) != END) {
+            String name = in.readUTF();
+            tag.put(name, value(in, type, depth + 1));
+        }
+        return tag;
+    }
+
+    private static Object value(DataInput in, int type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new IOException("NBT nested too deeply");
+
+        return switch (type) {
+            case BYTE -> in.readByte();
+            case SHORT -> in.readShort();
+            case INT -> in.readInt();
+            case LONG -> in.readLong();
+            case FLOAT -> in.readFloat();
+            case DOUBLE -> in.readDouble();
+            case BYTE_ARRAY -> {
+                byte[] a = new byte[length(in)];
+                in.readFully(a);
+                yield a;
+            }
+            case STRING -> in.readUTF();
+            case LIST -> {
+                int elementType = in.readUnsignedByte();
+                int n = length(in);
+                List<Object> list = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) list.add(value(in, elementType, depth + 1));
+                yield list;
+            }
+            case COMPOUND -> compound(in, depth);
+            case INT_ARRAY -> {
+                int[] a = new int[length(in)];
+                for (int i = 0; i < a.length; i++) a[i] = in.readInt();
+                yield a;
+            }
+            case LONG_ARRAY -> {
+                long[] a = new long[length(in)];
+                for (int i = 0; i < a.length; i++) a[i] = in.readLong();
+                yield a;
+            }
+            default -> throw new IOException("Unknown NBT tag " + type);
+        };
+    }
+
+    private static int length(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) throw new IOException("Negative NBT length " + n);
+        return n;
+    }
+}
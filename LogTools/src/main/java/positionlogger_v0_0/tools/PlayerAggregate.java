@@ -0,0 +1,137 @@
+package positionlogger_v0_0.tools;
+
+import java.util.Locale;
+
+/**
+ * Running statistics of one player's rows. Aggregates of consecutive runs
+ * of rows (e.g. of two chunks) are combined with {@link #merge}, in order,
+ * so the result does not depend on how the input was split. Values of
+ * columns the log does not have are NaN and left out.
+ */
+final class PlayerAggregate {
+
+    /** Longer moves between two rows are teleports or respawns, not travel. */
+    static final double MAX_STEP = 64;
+
+    static final String HEADER = "Player,Rows,FirstTick,LastTick,Distance,MeanHealth,MinHealth,Deaths,MeanFood,OutdoorShare";
+
+    long rows;
+    long firstTick = Long.MAX_VALUE;
+    long lastTick = Long.MIN_VALUE;
+
+    double distance;
+    private double firstX = Double.NaN, firstY = Double.NaN, firstZ = Double.NaN;
+    private double lastX = Double.NaN, lastY = Double.NaN, lastZ = Double.NaN;
+
+    private double healthSum;
+    private long healthRows;
+    private double minHealth = Double.POSITIVE_INFINITY;
+    private double firstHealth = Double.NaN;
+    private double lastHealth = Double.NaN;
+    int deaths;
+
+    private double foodSum;
+    private long foodRows;
+
+    private long outdoorRows;
+    private long outdoorKnown;
+
+    /**
+     * Adds the player's next row.
+     *
+     * @param outdoor 1 or 0, or -1 if the log has no outdoor column
+     */
+    void add(long tick, double x, double y, double z, double health, double food, int outdoor) {
+        rows++;
+        firstTick = Math.min(firstTick, tick);
+        lastTick = Math.max(lastTick, tick);
+
+        if (!Double.isNaN(x)) {
+            if (Double.isNaN(firstX)) {
+                firstX = x;
+                firstY = y;
+                firstZ = z;
+            } else {
+                distance += step(lastX, lastY, lastZ, x, y, z);
+            }
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+        }
+
+        if (!Double.isNaN(health)) {
+            healthSum += health;
+            healthRows++;
+            minHealth = Math.min(minHealth, health);
+            if (Double.isNaN(firstHealth)) firstHealth = health;
+            else if (lastHealth > 0 && health <= 0) deaths++;
+            lastHealth = health;
+        }
+
+        if (!Double.isNaN(food)) {
+            foodSum += food;
+            foodRows++;
+        }
+
+        if (outdoor >= 0) {
+            outdoorKnown++;
+            outdoorRows += outdoor;
+        }
+    }
+
+    /** Appends the rows that came after this aggregate's. */
+    void merge(PlayerAggregate later) {
+        if (!Double.isNaN(lastX) && !Double.isNaN(later.firstX)) {
+            distance += step(lastX, lastY, lastZ, later.firstX, later.firstY, later.firstZ);
+        }
+        if (lastHealth > 0 && later.firstHealth <= 0) deaths++;
+
+        rows += later.rows;
+        firstTick = Math.min(firstTick, later.firstTick);
+        lastTick = Math.max(lastTick, later.lastTick);
+        distance += later.distance;
+        if (Double.isNaN(firstX)) {
+            firstX = later.firstX;
+            firstY = later.firstY;
+            firstZ = later.firstZ;
+        }
+        if (!Double.isNaN(later.lastX)) {
+            lastX = later.lastX;
+            lastY = later.lastY;
+            lastZ = later.lastZ;
+        }
+
+        healthSum += later.healthSum;
+        healthRows += later.healthRows;
+        minHealth = Math.min(minHealth, later.minHealth);
+        if (Double.isNaN(firstHealth)) firstHealth = later.firstHealth;
+        if (!Double.isNaN(later.lastHealth)) lastHealth = later.lastHealth;
+        deaths += later.deaths;
+
+        foodSum += later.foodSum;
+        foodRows += later.foodRows;
+        outdoorRows += later.outdoorRows;
+        outdoorKnown += later.outdoorKnown;
+    }
+
+    /** A line matching {@link #HEADER}. */
+    String csv(String player) {
+        return String.join(",", player, Long.toString(rows), Long.toString(firstTick), Long.toString(lastTick),
+                number(Double.isNaN(firstX) ? Double.NaN : distance),
+                number(healthRows == 0 ? Double.NaN : healthSum / healthRows),
+                number(healthRows == 0 ? Double.NaN : minHealth),
+                healthRows == 0 ? "" : Integer.toString(deaths),
+                number(foodRows == 0 ? Double.NaN : foodSum / foodRows),
+                number(outdoorKnown == 0 ? Double.NaN : (double) outdoorRows / outdoorKnown));
+    }
+
+    private static double step(double x0, double y0, double z0, double x1, double y1, double z1) {
+        double dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+        double d = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return d > MAX_STEP ? 0 : d;
+    }
+
+    private static String number(double v) {
+        return Double.isNaN(v) ? "" : String.format(Locale.ROOT, "%.3f", v);
+    }
+}
@@ -0,0 +1,114 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.ColumnarLogReader;
+import positionlogger_v0_0.output.ColumnarRecordSink;
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * {@code logtools project}: keeps only the named columns. A name is a CSV
+ * column or a {@link ColumnGroup} ({@code position}, {@code visible_blocks},
+ * ...) standing for its columns; ID always comes first.
+ *
+ * CSV rows are cut per chunk in parallel, copying the kept fields' bytes.
+ * Columnar logs are projected per group: a column name keeps its whole
+ * group.
+ */
+final class Projection {
+
+    private final List<String> columns;
+
+    Projection(List<String> names) throws IOException {
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("ID");
+        for (String name : names) {
+            ColumnGroup group = group(name);
+            if (group != null) columns.addAll(CsvHeader.groupColumns(group));
+            else columns.add(name);
+        }
+        this.columns = new ArrayList<>(columns);
+    }
+
+    void csv(ForkJoinPool pool, List<Path> files, Path output) throws IOException {
+        List<CsvChunk> chunks = CsvChunk.split(files, CsvChunk.SIZE);
+
+        List<Path> parts = ChunkTask.run(pool, chunks, (i, chunk) -> {
+            int[] fields = new int[columns.size()];
+            for (int c = 0; c < fields.length; c++) {
+                fields[c] = chunk.header.indexOf(columns.get(c));
+                if (fields[c] < 0) throw new IOException(chunk.file + " has no column " + columns.get(c));
+            }
+
+            Path part = Inputs.part(output, "project", i);
+            try (OutputStream out = Inputs.create(part)) {
+                CsvRow row = new CsvRow();
+                chunk.forEachLine((line, length) -> {
+                    row.set(line, length);
+                    for (int c = 0; c < fields.length; c++) {
+                        if (c > 0) out.write(',');
+                        row.writeField(out, fields[c]);
+                    }
+                    out.write('\n');
+                });
+            }
+
+            List<Path> mine = new ArrayList<>();
+            mine.add(part);
+            return mine;
+        }, (a, b) -> {
+            a.addAll(b);
+            return a;
+        }, new ArrayList<>());
+
+        Inputs.join(output, (String.join(",", columns) + "\n").getBytes(StandardCharsets.UTF_8), parts);
+    }
+
+    void columnar(List<Path> files, Path output, int rowGroupSize) throws IOException {
+        Set<ColumnGroup> groups = EnumSet.noneOf(ColumnGroup.class);
+        for (String column : columns) {
+            boolean found = column.equals("ID");
+            for (ColumnGroup g : ColumnGroup.values()) {
+                if (CsvHeader.groupColumns(g).contains(column)) {
+                    groups.add(g);
+                    found = true;
+                }
+            }
+            if (!found) throw new IOException("No column " + column);
+        }
+
+        NameTable names = new NameTable();
+        ColumnarRecordSink sink = new ColumnarRecordSink(Inputs.create(output), names, rowGroupSize, groups);
+        try {
+            for (Path file : files) {
+                try (ColumnarLogReader reader = new ColumnarLogReader(Inputs.open(file))) {
+                    PlayerRecord r;
+                    while ((r = reader.next()) != null) {
+                        sink.write(names.relabel(r, reader.names()));
+                    }
+                }
+            }
+        } finally {
+            sink.close();
+        }
+    }
+
+    private static ColumnGroup group(String name) {
+        try {
+            return ColumnGroup.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
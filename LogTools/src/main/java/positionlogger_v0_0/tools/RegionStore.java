@@ -0,0 +1,133 @@
+package positionlogger_v0_0.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The chunks of one dimension of a saved world, read from its {@code .mca}
+ * region files: a 4 KiB table of chunk offsets, a table of timestamps, then
+ * each chunk as a length, a compression type and compressed NBT (or, for
+ * oversized chunks, a {@code c.X.Z.mcc} file next to the region).
+ *
+ * Region files stay open for the store's lifetime; reads are positional, so
+ * any number of threads can load chunks at once.
+ */
+final class RegionStore implements AutoCloseable {
+
+    private static final int SECTOR = 4096;
+
+    private static final int GZIP = 1;
+    private static final int ZLIB = 2;
+    private static final int NONE = 3;
+    private static final int LZ4 = 4;
+    // Flag on the compression type: the data is in an .mcc file
+    private static final int EXTERNAL = 128;
+
+    private final Path directory;
+    // Keyed by region x and z; null for regions without a file
+    private final Map<Long, FileChannel> regions = new HashMap<>();
+
+    private RegionStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /** The region directory of a dimension ("minecraft:overworld", ...) in a world save. */
+    static RegionStore of(Path world, String dimension) {
+        Path dir = switch (dimension) {
+            case "minecraft:overworld" -> world.resolve("region");
+            case "minecraft:the_nether" -> world.resolve("DIM-1").resolve("region");
+            case "minecraft:the_end" -> world.resolve("DIM1").resolve("region");
+            default -> {
+                int colon = dimension.indexOf(':');
+                String namespace = colon < 0 ? "minecraft" : dimension.substring(0, colon);
+                yield world.resolve("dimensions").resolve(namespace)
+                        .resolve(dimension.substring(colon + 1)).resolve("region");
+            }
+        };
+        return new RegionStore(dir);
+    }
+
+    /** Root tag of the chunk, or null if it was never saved. */
+    Map<String, Object> read(int chunkX, int chunkZ) throws IOException {
+        FileChannel region = region(chunkX >> 5, chunkZ >> 5);
+        if (region == null) return null;
+
+        ByteBuffer entry = ByteBuffer.allocate(4);
+        int slot = ((chunkZ & 31) << 5 | (chunkX & 31)) * 4;
+        if (region.read(entry, slot) < 4) return null;
+        int location = entry.getInt(0);
+        if (location == 0) return null;
+
+        long offset = (long) (location >>> 8) * SECTOR;
+        int sectors = location & 0xFF;
+        if (sectors == 0) return null;
+
+        ByteBuffer header = ByteBuffer.allocate(5);
+        readFully(region, header, offset);
+        int length = header.getInt(0);
+        int type = header.get(4) & 0xFF;
+        if (length <= 1 || length > sectors * SECTOR) {
+            throw new IOException("Bad length " + length + " for chunk " + chunkX + "," + chunkZ);
+        }
+
+        byte[] data;
+        if ((type & EXTERNAL) != 0) {
+            data = Files.readAllBytes(directory.resolve("c." + chunkX + "." + chunkZ + ".mcc"));
+            type &= ~EXTERNAL;
+        } else {
+            ByteBuffer body = ByteBuffer.allocate(length - 1);
+            readFully(region, body, offset + 5);
+            data = body.array();
+        }
+
+        try (InputStream in = decompress(type, data, chunkX, chunkZ)) {
+            return Nbt.read(in);
+        }
+    }
+
+    private static InputStream decompress(int type, byte[] data, int chunkX, int chunkZ) throws IOException {
+        InputStream raw = new ByteArrayInputStream(data);
+        return switch (type) {
+            case GZIP -> new GZIPInputStream(raw);
+            case ZLIB -> new InflaterInputStream(raw);
+            case NONE -> raw;
+            case LZ4 -> throw new IOException("Chunk " + chunkX + "," + chunkZ
+                    + " is LZ4-compressed; set region-file-compression=deflate and re-save the world");
+            default -> throw new IOException("Unknown compression " + type + " for chunk " + chunkX + "," + chunkZ);
+        };
+    }
+
+    private synchronized FileChannel region(int regionX, int regionZ) throws IOException {
+        long key = (long) regionX << 32 | (regionZ & 0xFFFFFFFFL);
+        if (regions.containsKey(key)) return regions.get(key);
+
+        Path file = directory.resolve("r." + regionX + "." + regionZ + ".mca");
+        FileChannel channel = Files.isRegularFile(file) ? FileChannel.open(file) : null;
+        regions.put(key, channel);
+        return channel;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Region file truncated");
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel channel : regions.values()) {
+            if (channel != null) channel.close();
+        }
+        regions.clear();
+    }
+}
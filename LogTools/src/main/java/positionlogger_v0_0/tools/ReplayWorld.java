@@ -0,0 +1,167 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import positionlogger_v0_0.BlockTable;
+import positionlogger_v0_0.VoxelWorld;
+
+/**
+ * The saved chunks around one logged viewpoint, the offline counterpart of
+ * the mod's {@code SectionSnapshot}: chunks missing from the save read as
+ * void air, shapes come from the {@link ShapeTable} and sky light from the
+ * saved light data. Captured on one thread, then only read, so the sampler's
+ * workers share it without locking.
+ */
+final class ReplayWorld implements VoxelWorld {
+
+    private final ShapeTable table;
+
+    private int minChunkX;
+    private int minChunkZ;
+    private int chunkSpan;
+    // Indexed by (cx - minChunkX) * chunkSpan + (cz - minChunkZ); null if not saved
+    private ChunkColumn[] chunks = new ChunkColumn[0];
+    private int surfaceTop;
+
+    // The same chunks with fluids ignored by outline casts
+    private final VoxelWorld withoutFluids = new WithoutFluids();
+
+    ReplayWorld(ShapeTable table) {
+        this.table = table;
+    }
+
+    /** Re-captures the chunks within {@code radius} blocks (horizontally) of the point. */
+    ReplayWorld capture(ChunkCache cache, String dimension, double x, double z, double radius) throws IOException {
+        int minCX = (int) Math.floor(x - radius) >> 4;
+        int maxCX = (int) Math.floor(x + radius) >> 4;
+        int minCZ = (int) Math.floor(z - radius) >> 4;
+        int maxCZ = (int) Math.floor(z + radius) >> 4;
+
+        this.minChunkX = minCX;
+        this.minChunkZ = minCZ;
+        this.chunkSpan = Math.max(maxCX - minCX, maxCZ - minCZ) + 1;
+
+        int chunkCount = chunkSpan * chunkSpan;
+        if (chunks.length < chunkCount) chunks = new ChunkColumn[chunkCount];
+        Arrays.fill(chunks, null);
+        surfaceTop = NO_SURFACE;
+
+        for (int dx = 0; dx < chunkSpan; dx++) {
+            for (int dz = 0; dz < chunkSpan; dz++) {
+                ChunkColumn chunk = cache.get(dimension, minChunkX + dx, minChunkZ + dz);
+                if (chunk == null) continue;
+
+                chunks[dx * chunkSpan + dz] = chunk;
+                surfaceTop = Math.max(surfaceTop, chunk.surfaceTop);
+            }
+        }
+        return this;
+    }
+
+    /** This world as seen by a {@code ClipContext.Fluid.NONE} pick. */
+    VoxelWorld withoutFluids() {
+        return withoutFluids;
+    }
+
+    ShapeTable table() {
+        return table;
+    }
+
+    private ChunkColumn chunk(int x, int z) {
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        if (cx < 0 || cz < 0 || cx >= chunkSpan || cz >= chunkSpan) return null;
+        return chunks[cx * chunkSpan + cz];
+    }
+
+    @Override
+    public int stateId(int x, int y, int z) {
+        ChunkColumn chunk = chunk(x, z);
+        return chunk == null ? AIR : chunk.stateId(x, y, z);
+    }
+
+    @Override
+    public int surface(int x, int z) {
+        ChunkColumn chunk = chunk(x, z);
+        return chunk == null ? NO_SURFACE : chunk.surface(x, z);
+    }
+
+    @Override
+    public int surfaceTop() {
+        return surfaceTop;
+    }
+
+    @Override
+    public boolean skyLit(int x, int y, int z) {
+        ChunkColumn chunk = chunk(x, z);
+        return chunk != null && chunk.skyLight(x, y, z) > 0;
+    }
+
+    @Override
+    public BlockTable blocks() {
+        return table;
+    }
+
+    @Override
+    public boolean clipOutline(int x, int y, int z,
+                               double fx, double fy, double fz,
+                               double tx, double ty, double tz,
+                               double[] hit) {
+        return table.clipOutline(stateId(x, y, z), stateId(x, y + 1, z), true,
+                x, y, z, fx, fy, fz, tx, ty, tz, hit);
+    }
+
+    @Override
+    public boolean clipCollider(int x, int y, int z,
+                                double fx, double fy, double fz,
+                                double tx, double ty, double tz,
+                                double[] hit) {
+        return table.clipCollider(stateId(x, y, z), x, y, z, fx, fy, fz, tx, ty, tz, hit);
+    }
+
+    private final class WithoutFluids implements VoxelWorld {
+
+        @Override
+        public int stateId(int x, int y, int z) {
+            return ReplayWorld.this.stateId(x, y, z);
+        }
+
+        @Override
+        public int surface(int x, int z) {
+            return ReplayWorld.this.surface(x, z);
+        }
+
+        @Override
+        public int surfaceTop() {
+            return surfaceTop;
+        }
+
+        @Override
+        public boolean skyLit(int x, int y, int z) {
+            return ReplayWorld.this.skyLit(x, y, z);
+        }
+
+        @Override
+        public BlockTable blocks() {
+            return table.withoutFluids();
+        }
+
+        @Override
+        public boolean clipOutline(int x, int y, int z,
+                                   double fx, double fy, double fz,
+                                   double tx, double ty, double tz,
+                                   double[] hit) {
+            return table.clipOutline(ReplayWorld.this.stateId(x, y, z), AIR, false,
+                    x, y, z, fx, fy, fz, tx, ty, tz, hit);
+        }
+
+        @Override
+        public boolean clipCollider(int x, int y, int z,
+                                    double fx, double fy, double fz,
+                                    double tx, double ty, double tz,
+                                    double[] hit) {
+            return ReplayWorld.this.clipCollider(x, y, z, fx, fy, fz, tx, ty, tz, hit);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package positionlogger_v0_0.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import positionlogger_v0_0.BlockTable;
+import positionlogger_v0_0.VoxelWorld;
+
+/**
+ * Block states and their shapes as the mod exported them to
+ * {@code block-shapes.tsv}, for replaying the vision groups without the
+ * game. State ids are line numbers in the file (the game's registry order),
+ * except that every kind of air is {@link VoxelWorld#AIR}.
+ *
+ * States a world has but the file lacks (a different game version, a
+ * removed mod) fall back to the block's first state, or else to a full cube
+ * named "unknown", with one warning each.
+ */
+final class ShapeTable implements BlockTable {
+
+    private static final Set<String> AIR_BLOCKS = Set.of("minecraft:air", "minecraft:cave_air", "minecraft:void_air");
+    private static final String UNKNOWN_BLOCK = "unknown";
+
+    private static final double[] UNIT_CUBE = { 0, 0, 0, 1, 1, 1 };
+
+    private static final byte NO_OFFSET = 0;
+    private static final byte OFFSET_XZ = 1;
+    private static final byte OFFSET_XYZ = 2;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> blockNames = new ArrayList<>();
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+    private final int unknownId;
+
+    private final byte[] outline;
+    private final byte[] outlineWithoutFluid;
+    private final byte[] collider;
+    private final int[] blockIds;
+
+    // Boxes as minX, minY, minZ, maxX, maxY, maxZ runs, null when empty
+    private final double[][] outlineBoxes;
+    private final double[][] colliderBoxes;
+
+    // Fluid family or -1, and the fluid's box at the state's own height
+    private final int[] fluid;
+    private final double[][] fluidBoxes;
+
+    private final byte[] offset;
+    private final float[] maxHorizontalOffset;
+    private final float[] maxVerticalOffset;
+
+    private final BlockTable withoutFluids = new BlockTable() {
+        @Override
+        public byte outlineClass(int stateId) {
+            return stateId >= 0 && stateId < outlineWithoutFluid.length ? outlineWithoutFluid[stateId] : UNKNOWN;
+        }
+
+        @Override
+        public byte colliderClass(int stateId) {
+            return ShapeTable.this.colliderClass(stateId);
+        }
+
+        @Override
+        public int blockId(int stateId) {
+            return ShapeTable.this.blockId(stateId);
+        }
+
+        @Override
+        public int blockCount() {
+            return ShapeTable.this.blockCount();
+        }
+    };
+
+    private ShapeTable(List<String[]> lines) {
+        int n = lines.size() + 1;
+        outline = new byte[n];
+        outlineWithoutFluid = new byte[n];
+        collider = new byte[n];
+        blockIds = new int[n];
+        outlineBoxes = new double[n][];
+        colliderBoxes = new double[n][];
+        fluid = new int[n];
+        fluidBoxes = new double[n][];
+        offset = new byte[n];
+        maxHorizontalOffset = new float[n];
+        maxVerticalOffset = new float[n];
+
+        Map<String, Integer> blocks = new HashMap<>();
+        Map<String, Integer> fluids = new HashMap<>();
+
+        for (int id = 0; id < lines.size(); id++) {
+            String[] f = lines.get(id);
+            String state = f[0];
+            int bracket = state.indexOf('[');
+            String block = bracket < 0 ? state : state.substring(0, bracket);
+
+            ids.put(state, id);
+            ids.putIfAbsent(block, id);
+            blockIds[id] = blocks.computeIfAbsent(block, b -> {
+                blockNames.add(path(b));
+                return blockNames.size() - 1;
+            });
+
+            outlineBoxes[id] = boxes(f[1]);
+            colliderBoxes[id] = boxes(f[2]);
+
+            fluid[id] = -1;
+            if (!f[3].equals("-")) {
+                String[] v = f[3].split(",");
+                fluid[id] = fluids.computeIfAbsent(v[0], k -> fluids.size());
+                fluidBoxes[id] = new double[] { 0, 0, 0, 1, Float.parseFloat(v[1]), 1 };
+            }
+
+            if (!f[4].equals("-")) {
+                String[] v = f[4].split(",");
+                offset[id] = v[0].equals("xyz") ? OFFSET_XYZ : OFFSET_XZ;
+                maxHorizontalOffset[id] = Float.parseFloat(v[1]);
+                maxVerticalOffset[id] = Float.parseFloat(v[2]);
+            }
+
+            outlineWithoutFluid[id] = shapeClass(outlineBoxes[id], offset[id]);
+            outline[id] = fluid[id] >= 0 ? PARTIAL : outlineWithoutFluid[id];
+            collider[id] = shapeClass(colliderBoxes[id], offset[id]);
+        }
+
+        unknownId = n - 1;
+        blockNames.add(UNKNOWN_BLOCK);
+        blockIds[unknownId] = blockNames.size() - 1;
+        outline[unknownId] = outlineWithoutFluid[unknownId] = collider[unknownId] = FULL;
+        fluid[unknownId] = -1;
+    }
+
+    /** Reads an exported {@code block-shapes.tsv}. */
+    static ShapeTable load(Path file) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\t");
+                if (fields.length != 5) throw new IOException(file + ": bad line: " + line);
+                lines.add(fields);
+            }
+        }
+        if (lines.isEmpty()) throw new IOException(file + " has no block states");
+        return new ShapeTable(lines);
+    }
+
+    /**
+     * Id of a state named like a chunk palette entry: the block id plus
+     * {@code [name=value,...]} in name order.
+     */
+    int stateId(String state) {
+        int bracket = state.indexOf('[');
+        String block = bracket < 0 ? state : state.substring(0, bracket);
+        if (AIR_BLOCKS.contains(block)) return VoxelWorld.AIR;
+
+        Integer id = ids.get(state);
+        if (id != null) return id;
+
+        id = ids.get(block);
+        if (warned.add(block)) {
+            System.err.println("logtools: " + state + " is not in the shape table, read as "
+                    + (id != null ? "the first state of its block" : "a full block named " + UNKNOWN_BLOCK));
+        }
+        return id != null ? id : unknownId;
+    }
+
+    /** Block name as the logger writes it (the registry path). */
+    String blockName(int blockId) {
+        return blockNames.get(blockId);
+    }
+
+    /** This table with fluids left out of the outline classes, for Fluid.NONE picks. */
+    BlockTable withoutFluids() {
+        return withoutFluids;
+    }
+
+    @Override
+    public byte outlineClass(int stateId) {
+        return stateId >= 0 && stateId < outline.length ? outline[stateId] : UNKNOWN;
+    }
+
+    @Override
+    public byte colliderClass(int stateId) {
+        return stateId >= 0 && stateId < collider.length ? collider[stateId] : UNKNOWN;
+    }
+
+    @Override
+    public int blockId(int stateId) {
+        return blockIds[stateId];
+    }
+
+    @Override
+    public int blockCount() {
+        return blockNames.size();
+    }
+
+    /**
+     * {@code VoxelShape.clip} against the state's outline at (x, y, z),
+     * moved by its random offset, then (with {@code fluids}) against its
+     * fluid, as tall as a full block under the same fluid.
+     */
+    boolean clipOutline(int stateId, int aboveStateId, boolean fluids, int x, int y, int z,
+                        double fx, double fy, double fz, double tx, double ty, double tz, double[] hit) {
+        if (clip(outlineBoxes[stateId], offset[stateId], stateId, x, y, z, fx, fy, fz, tx, ty, tz, hit)) return true;
+        if (!fluids || fluid[stateId] < 0) return false;
+
+        double[] box = fluid[aboveStateId] == fluid[stateId] ? UNIT_CUBE : fluidBoxes[stateId];
+        return clip(box, NO_OFFSET, 0, x, y, z, fx, fy, fz, tx, ty, tz, hit);
+    }
+
+    boolean clipCollider(int stateId, int x, int y, int z,
+                         double fx, double fy, double fz, double tx, double ty, double tz, double[] hit) {
+        return clip(colliderBoxes[stateId], offset[stateId], stateId, x, y, z, fx, fy, fz, tx, ty, tz, hit);
+    }
+
+    private boolean clip(double[] boxes, byte offsetType, int stateId, int x, int y, int z,
+                         double fx, double fy, double fz, double tx, double ty, double tz, double[] hit) {
+        if (boxes == null) return false;
+
+        double dx = tx - fx;
+        double dy = ty - fy;
+        double dz = tz - fz;
+        if (dx * dx + dy * dy + dz * dz < 1.0E-7) return false;
+
+        // Same offset as BlockBehaviour's OffsetType, seeded by the column
+        double ox = 0, oy = 0, oz = 0;
+        if (offsetType != NO_OFFSET) {
+            long seed = seed(x, 0, z);
+            float max = maxHorizontalOffset[stateId];
+            ox = Math.clamp(((double) ((float) (seed & 15L) / 15.0F) - 0.5) * 0.5, -max, max);
+            oz = Math.clamp(((double) ((float) (seed >> 8 & 15L) / 15.0F) - 0.5) * 0.5, -max, max);
+            if (offsetType == OFFSET_XYZ) {
+                oy = ((double) ((float) (seed >> 4 & 15L) / 15.0F) - 1.0) * maxVerticalOffset[stateId];
+            }
+        }
+
+        // A segment starting inside the shape hits just past its start
+        double ix = fx + dx * 0.001 - x - ox;
+        double iy = fy + dy * 0.001 - y - oy;
+        double iz = fz + dz * 0.001 - z - oz;
+        for (int b = 0; b < boxes.length; b += 6) {
+            if (ix >= boxes[b] && ix < boxes[b + 3] && iy >= boxes[b + 1] && iy < boxes[b + 4]
+                    && iz >= boxes[b + 2] && iz < boxes[b + 5]) {
+                return hit(hit, fx + dx * 0.001, fy + dy * 0.001, fz + dz * 0.001);
+            }
+        }
+
+        // Otherwise the nearest entry face over all boxes, like AABB.clip
+        double best = 1.0;
+        for (int b = 0; b < boxes.length; b += 6) {
+            best = clipBox(boxes[b] + ox, boxes[b + 1] + oy, boxes[b + 2] + oz,
+                    boxes[b + 3] + ox, boxes[b + 4] + oy, boxes[b + 5] + oz,
+                    x, y, z, fx, fy, fz, tx, ty, tz, best);
+        }
+        return best < 1.0 && hit(hit, fx + best * dx, fy + best * dy, fz + best * dz);
+    }
+
+    // Entry t of the segment into one box at (x, y, z), if below best; else best
+    private static double clipBox(double x0, double y0, double z0, double x1, double y1, double z1,
+                                  int x, int y, int z,
+                                  double fx, double fy, double fz, double tx, double ty, double tz,
+                                  double best) {
+        double dx = tx - fx;
+        double dy = ty - fy;
+        double dz = tz - fz;
+
+        double minX = x + x0, minY = y + y0, minZ = z + z0;
+        double maxX = x + x1, maxY = y + y1, maxZ = z + z1;
+
+        if (dx > 1.0E-7 || dx < -1.0E-7) {
+            double t = ((dx > 0 ? minX : maxX) - fx) / dx;
+            if (t > 0.0 && t < best && within(fy + t * dy, minY, maxY) && within(fz + t * dz, minZ, maxZ)) best = t;
+        }
+        if (dy > 1.0E-7 || dy < -1.0E-7) {
+            double t = ((dy > 0 ? minY : maxY) - fy) / dy;
+            if (t > 0.0 && t < best && within(fz + t * dz, minZ, maxZ) && within(fx + t * dx, minX, maxX)) best = t;
+        }
+        if (dz > 1.0E-7 || dz < -1.0E-7) {
+            double t = ((dz > 0 ? minZ : maxZ) - fz) / dz;
+            if (t > 0.0 && t < best && within(fx + t * dx, minX, maxX) && within(fy + t * dy, minY, maxY)) best = t;
+        }
+        return best;
+    }
+
+    private static boolean within(double v, double min, double max) {
+        return min - 1.0E-7 < v && v < max + 1.0E-7;
+    }
+
+    private static boolean hit(double[] hit, double x, double y, double z) {
+        hit[0] = x;
+        hit[1] = y;
+        hit[2] = z;
+        return true;
+    }
+
+    // Mth.getSeed
+    private static long seed(int x, int y, int z) {
+        long l = (long) (x * 3129871) ^ (long) z * 116129781L ^ (long) y;
+        l = l * l * 42317861L + l * 11L;
+        return l >> 16;
+    }
+
+    private static byte shapeClass(double[] boxes, byte offsetType) {
+        if (boxes == null) return EMPTY;
+        if (offsetType == NO_OFFSET && Arrays.equals(boxes, UNIT_CUBE)) return FULL;
+        return PARTIAL;
+    }
+
+    private static double[] boxes(String field) {
+        if (field.equals("-")) return null;
+
+        String[] boxes = field.split(";");
+        double[] out = new double[boxes.length * 6];
+        for (int b = 0; b < boxes.length; b++) {
+            String[] v = boxes[b].split(",");
+            for (int i = 0; i < 6; i++) out[b * 6 + i] = Double.parseDouble(v[i]);
+        }
+        return out;
+    }
+
+    private static String path(String id) {
+        return id.substring(id.indexOf(':') + 1);
+    }
+}
@@ -0,0 +1,103 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.ColumnarLogReader;
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * {@code logtools stats}: one {@link PlayerAggregate} per player, computed
+ * per chunk (CSV) or per file (columnar) in parallel and merged in input
+ * order.
+ */
+final class Stats {
+
+    private Stats() {
+    }
+
+    static Map<String, PlayerAggregate> csv(ForkJoinPool pool, List<Path> files) throws IOException {
+        List<CsvChunk> chunks = CsvChunk.split(files, CsvChunk.SIZE);
+        return ChunkTask.run(pool, chunks, (i, chunk) -> aggregate(chunk), Stats::merge, new HashMap<>());
+    }
+
+    static Map<String, PlayerAggregate> columnar(ForkJoinPool pool, List<Path> files) throws IOException {
+        return ChunkTask.run(pool, files, (i, file) -> aggregate(file), Stats::merge, new HashMap<>());
+    }
+
+    static void print(Map<String, PlayerAggregate> players, PrintStream out) {
+        out.println(PlayerAggregate.HEADER);
+        for (Map.Entry<String, PlayerAggregate> e : new TreeMap<>(players).entrySet()) {
+            out.println(e.getValue().csv(e.getKey()));
+        }
+    }
+
+    private static Map<String, PlayerAggregate> aggregate(CsvChunk chunk) throws IOException {
+        CsvHeader header = chunk.header;
+        int[] position = header.columns(ColumnGroup.POSITION);
+        int[] stats = header.columns(ColumnGroup.STATS);
+        int[] outdoor = header.columns(ColumnGroup.OUTDOOR);
+
+        Map<String, PlayerAggregate> players = new HashMap<>();
+        CsvRow row = new CsvRow();
+        chunk.forEachLine((line, length) -> {
+            row.set(line, length);
+            players.computeIfAbsent(row.player(), p -> new PlayerAggregate()).add(row.tick(),
+                    position == null ? Double.NaN : row.doubleValue(position[0]),
+                    position == null ? Double.NaN : row.doubleValue(position[1]),
+                    position == null ? Double.NaN : row.doubleValue(position[2]),
+                    stats == null ? Double.NaN : row.doubleValue(stats[0]),
+                    stats == null ? Double.NaN : row.doubleValue(stats[1]),
+                    outdoor == null ? -1 : row.flag(outdoor[0]) ? 1 : 0);
+        });
+        return players;
+    }
+
+    private static Map<String, PlayerAggregate> aggregate(Path file) throws IOException {
+        Map<String, PlayerAggregate> players = new HashMap<>();
+        try (ColumnarLogReader reader = new ColumnarLogReader(Inputs.open(file))) {
+            List<?> schema = null;
+            Set<ColumnGroup> groups = Set.of();
+            boolean position = false, stats = false;
+
+            PlayerRecord r;
+            while ((r = reader.next()) != null) {
+                // Columns a segment lacks hold builder defaults, not data
+                if (reader.schema() != schema) {
+                    schema = reader.schema();
+                    groups = reader.columnGroups();
+                    position = groups.contains(ColumnGroup.POSITION);
+                    stats = groups.contains(ColumnGroup.STATS);
+                }
+
+                players.computeIfAbsent(r.playerName, p -> new PlayerAggregate()).add(r.tick,
+                        position ? r.x : Double.NaN,
+                        position ? r.y : Double.NaN,
+                        position ? r.z : Double.NaN,
+                        stats ? r.health : Double.NaN,
+                        stats ? r.food : Double.NaN,
+                        groups.contains(ColumnGroup.OUTDOOR) ? (r.outsideObservable ? 1 : 0) : -1);
+            }
+        }
+        return players;
+    }
+
+    // Later players are appended to the earlier map
+    private static Map<String, PlayerAggregate> merge(Map<String, PlayerAggregate> earlier,
+                                                      Map<String, PlayerAggregate> later) {
+        for (Map.Entry<String, PlayerAggregate> e : later.entrySet()) {
+            PlayerAggregate a = earlier.get(e.getKey());
+            if (a == null) earlier.put(e.getKey(), e.getValue());
+            else a.merge(e.getValue());
+        }
+        return earlier;
+    }
+}
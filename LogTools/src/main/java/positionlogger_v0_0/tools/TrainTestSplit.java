@@ -0,0 +1,232 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.ColumnarLogReader;
+import positionlogger_v0_0.output.ColumnarRecordSink;
+import positionlogger_v0_0.output.PlayerRecord;
+import positionlogger_v0_0.output.SegmentIndex;
+
+/**
+ * {@code logtools split}: sends every row to a train or a test file, keeping
+ * all rows of a player (or of one of a player's sessions) on the same side.
+ *
+ * A session is a run of a player's rows without a gap of more than
+ * {@code gapTicks} and without the tick going back (a restart or another
+ * world). Which side a key goes to is a hash of the key and the seed, so
+ * the split is the same on every run and for every chunking of the input.
+ *
+ * CSV inputs are split per chunk in parallel. By session, a first parallel
+ * pass collects each chunk's tick span and session breaks per player, so
+ * that every chunk knows the session numbers it starts with.
+ */
+final class TrainTestSplit {
+
+    enum By { PLAYER, SESSION }
+
+    private final By by;
+    private final double testFraction;
+    private final long seed;
+    private final long gapTicks;
+
+    long trainRows;
+    long testRows;
+
+    TrainTestSplit(By by, double testFraction, long seed, long gapTicks) {
+        this.by = by;
+        this.testFraction = testFraction;
+        this.seed = seed;
+        this.gapTicks = gapTicks;
+    }
+
+    boolean isTest(String player, long session) {
+        String key = by == By.PLAYER ? player : player + "#" + session;
+        return (mix(SegmentIndex.hash(key) ^ seed) >>> 11) * 0x1.0p-53 < testFraction;
+    }
+
+    // --- CSV ---
+
+    void csv(ForkJoinPool pool, List<Path> files, Path train, Path test) throws IOException {
+        List<CsvChunk> chunks = CsvChunk.split(files, CsvChunk.SIZE);
+        CsvHeader header = chunks.isEmpty() ? CsvChunk.readHeader(files.get(0)) : chunks.get(0).header;
+        for (CsvChunk c : chunks) {
+            if (!c.header.equals(header)) throw new IOException(c.file + " has other columns than " + files.get(0));
+        }
+
+        List<Sessions> starts = by == By.SESSION ? sessionStarts(pool, chunks) : null;
+
+        List<Path[]> parts = ChunkTask.run(pool, chunks, (i, chunk) -> {
+            Sessions sessions = starts == null ? null : starts.get(i).copy();
+            Path trainPart = Inputs.part(train, "train", i);
+            Path testPart = Inputs.part(test, "test", i);
+            long[] rows = new long[2];
+
+            try (OutputStream trainOut = Inputs.create(trainPart);
+                 OutputStream testOut = Inputs.create(testPart)) {
+                CsvRow row = new CsvRow();
+                chunk.forEachLine((line, length) -> {
+                    row.set(line, length);
+                    String player = row.player();
+                    long session = sessions == null ? 0 : sessions.next(player, row.tick());
+                    boolean toTest = isTest(player, session);
+                    row.writeLine(toTest ? testOut : trainOut);
+                    rows[toTest ? 1 : 0]++;
+                });
+            }
+
+            synchronized (this) {
+                trainRows += rows[0];
+                testRows += rows[1];
+            }
+            List<Path[]> mine = new ArrayList<>();
+            mine.add(new Path[] { trainPart, testPart });
+            return mine;
+        }, TrainTestSplit::concat, new ArrayList<>());
+
+        byte[] headerLine = (header.line + "\n").getBytes(StandardCharsets.UTF_8);
+        List<Path> trainParts = new ArrayList<>(), testParts = new ArrayList<>();
+        for (Path[] p : parts) {
+            trainParts.add(p[0]);
+            testParts.add(p[1]);
+        }
+        Inputs.join(train, headerLine, trainParts);
+        Inputs.join(test, headerLine, testParts);
+    }
+
+    // Each chunk's session state before its first row
+    private List<Sessions> sessionStarts(ForkJoinPool pool, List<CsvChunk> chunks) throws IOException {
+        List<Map<String, long[]>> spans = ChunkTask.run(pool, chunks, (i, chunk) -> {
+            // Per player: first tick, last tick, sessions started after the first row
+            Map<String, long[]> span = new HashMap<>();
+            Sessions sessions = new Sessions(gapTicks);
+            CsvRow row = new CsvRow();
+            chunk.forEachLine((line, length) -> {
+                row.set(line, length);
+                String player = row.player();
+                long tick = row.tick();
+                long session = sessions.next(player, tick);
+                long[] s = span.get(player);
+                if (s == null) span.put(player, new long[] { tick, tick, session });
+                else {
+                    s[1] = tick;
+                    s[2] = session;
+                }
+            });
+            List<Map<String, long[]>> mine = new ArrayList<>();
+            mine.add(span);
+            return mine;
+        }, TrainTestSplit::concat, new ArrayList<>());
+
+        List<Sessions> starts = new ArrayList<>(spans.size());
+        Sessions running = new Sessions(gapTicks);
+        for (Map<String, long[]> span : spans) {
+            starts.add(running.copy());
+            for (Map.Entry<String, long[]> e : span.entrySet()) {
+                long[] s = e.getValue();
+                running.next(e.getKey(), s[0]);
+                running.advance(e.getKey(), s[1], s[2]);
+            }
+        }
+        return starts;
+    }
+
+    // --- Columnar ---
+
+    void columnar(List<Path> files, Path train, Path test, int rowGroupSize) throws IOException {
+        NameTable names = new NameTable();
+        Sessions sessions = new Sessions(gapTicks);
+        ColumnarRecordSink trainSink = null, testSink = null;
+
+        try {
+            for (Path file : files) {
+                try (ColumnarLogReader reader = new ColumnarLogReader(Inputs.open(file))) {
+                    PlayerRecord r;
+                    while ((r = reader.next()) != null) {
+                        if (trainSink == null) {
+                            Set<ColumnGroup> groups = reader.columnGroups();
+                            trainSink = new ColumnarRecordSink(Inputs.create(train), names, rowGroupSize, groups);
+                            testSink = new ColumnarRecordSink(Inputs.create(test), names, rowGroupSize, groups);
+                        }
+
+                        long session = by == By.SESSION ? sessions.next(r.playerName, r.tick) : 0;
+                        boolean toTest = isTest(r.playerName, session);
+                        (toTest ? testSink : trainSink).write(names.relabel(r, reader.names()));
+                        if (toTest) testRows++;
+                        else trainRows++;
+                    }
+                }
+            }
+        } finally {
+            if (trainSink != null) trainSink.close();
+            if (testSink != null) testSink.close();
+        }
+        if (trainSink == null) {
+            Files.deleteIfExists(train);
+            Files.deleteIfExists(test);
+        }
+    }
+
+    /**
+     * Each player's last tick and session number, as of some row.
+     */
+    static final class Sessions {
+
+        private final long gapTicks;
+        private final Map<String, long[]> players = new HashMap<>();
+
+        Sessions(long gapTicks) {
+            this.gapTicks = gapTicks;
+        }
+
+        /** Session number of the player's next row. */
+        long next(String player, long tick) {
+            long[] s = players.get(player);
+            if (s == null) {
+                players.put(player, new long[] { tick, 0 });
+                return 0;
+            }
+            if (tick < s[0] || tick - s[0] > gapTicks) s[1]++;
+            s[0] = tick;
+            return s[1];
+        }
+
+        // Skips over rows already counted elsewhere: sessions started after
+        // their first one, and their last tick
+        void advance(String player, long lastTick, long sessionsAfterFirst) {
+            long[] s = players.get(player);
+            s[0] = lastTick;
+            s[1] += sessionsAfterFirst;
+        }
+
+        Sessions copy() {
+            Sessions copy = new Sessions(gapTicks);
+            for (Map.Entry<String, long[]> e : players.entrySet()) {
+                copy.players.put(e.getKey(), e.getValue().clone());
+            }
+            return copy;
+        }
+    }
+
+    private static <T> List<T> concat(List<T> earlier, List<T> later) {
+        earlier.addAll(later);
+        return earlier;
+    }
+
+    // SplitMix64 finalizer: spreads the hash over all bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
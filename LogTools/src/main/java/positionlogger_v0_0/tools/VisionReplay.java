@@ -0,0 +1,229 @@
+package positionlogger_v0_0.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import positionlogger_v0_0.LoggerConfig;
+import positionlogger_v0_0.VisionSampler;
+import positionlogger_v0_0.VoxelRayMarcher;
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.ColumnarLogReader;
+import positionlogger_v0_0.output.ColumnarRecordSink;
+import positionlogger_v0_0.output.CsvRecordSink;
+import positionlogger_v0_0.output.NameResolver;
+import positionlogger_v0_0.output.PlayerRecord;
+import positionlogger_v0_0.output.RecordSink;
+import positionlogger_v0_0.util.IdCounter;
+
+/**
+ * {@code logtools vision}: fills in the vision groups (outdoor flag and
+ * NightFlag, highlighted block, visible blocks) of a log written with
+ * {@code view.deferred=true}, by casting the mod's own rays from each
+ * logged viewpoint into a copy of the world's region files.
+ *
+ * Rows go through in batches: the chunks around every viewpoint of a batch
+ * are captured (and the highlighted block picked) on the fork-join pool,
+ * the {@link VisionSampler} casts the grid and outdoor rays with the
+ * configured sampling settings, and the rows are written in input order.
+ * The world should be saved close to when the log was, since blocks placed
+ * or broken in between are seen as they are in the save.
+ */
+final class VisionReplay {
+
+    private static final int BATCH = 256;
+
+    private static final Set<ColumnGroup> REQUIRED =
+            EnumSet.of(ColumnGroup.POSITION, ColumnGroup.LOOK, ColumnGroup.VIEWPOINT);
+
+    private final ForkJoinPool pool;
+    private final ChunkCache cache;
+    private final ShapeTable table;
+    private final VisionSampler sampler;
+    private final NameTable names = new NameTable();
+    private final double pickDistance;
+    private final double radius;
+
+    // One slot per row of the batch, reused from batch to batch
+    private final List<PlayerRecord> batch = new ArrayList<>(BATCH);
+    private final ReplayWorld[] worlds = new ReplayWorld[BATCH];
+    private final VisionSampler.Job[] jobs = new VisionSampler.Job[BATCH];
+    private final String[] highlighted = new String[BATCH];
+    private final ThreadLocal<VoxelRayMarcher> marchers = ThreadLocal.withInitial(VoxelRayMarcher::new);
+
+    // Shape table block id to name table id, filled in as blocks are seen
+    private final int[] nameIds;
+
+    private RecordSink sink;
+    private long rows;
+
+    private VisionReplay(ForkJoinPool pool, ChunkCache cache, ShapeTable table, LoggerConfig config) {
+        this.pool = pool;
+        this.cache = cache;
+        this.table = table;
+        this.sampler = new VisionSampler(config);
+        this.pickDistance = config.viewMaxDistance;
+        this.radius = Math.max(sampler.captureRadius(), pickDistance + 1.0);
+        this.nameIds = new int[table.blockCount()];
+        Arrays.fill(nameIds, PlayerRecord.NONE);
+
+        for (int i = 0; i < BATCH; i++) {
+            worlds[i] = new ReplayWorld(table);
+            jobs[i] = new VisionSampler.Job();
+        }
+    }
+
+    /**
+     * Replays the vision groups of every row into {@code output} (CSV or
+     * columnar by its name); returns the number of rows. The sampler runs
+     * on {@code config}'s {@code sampling.threads}.
+     */
+    static long run(ForkJoinPool pool, List<Path> files, Path output, Path world, ShapeTable table,
+                    LoggerConfig config, long cacheSections, int rowGroupSize) throws IOException {
+        Inputs.Format from = Inputs.format(files);
+        Set<ColumnGroup> groups = groups(files.get(0), from);
+        if (!groups.containsAll(REQUIRED)) {
+            throw new IOException(files.get(0) + " has no viewpoint columns; log with view.deferred=true");
+        }
+        groups.addAll(ColumnGroup.VISION);
+
+        try (ChunkCache cache = new ChunkCache(world, table, cacheSections)) {
+            VisionReplay replay = new VisionReplay(pool, cache, table, config);
+            try {
+                replay.sink = Inputs.format(output) == Inputs.Format.COLUMNAR
+                        ? new ColumnarRecordSink(Inputs.create(output), replay.names, rowGroupSize, groups)
+                        : new CsvRecordSink(Inputs.create(output), replay.names, 0, groups);
+
+                if (from == Inputs.Format.CSV) {
+                    replay.csv(files);
+                } else {
+                    replay.columnar(files);
+                }
+                replay.flush();
+            } finally {
+                replay.sampler.close();
+                if (replay.sink != null) replay.sink.close();
+            }
+
+            System.err.printf("chunks: %d loaded, %d cache hits%n", cache.misses(), cache.hits());
+            return replay.rows;
+        }
+    }
+
+    private static Set<ColumnGroup> groups(Path file, Inputs.Format format) throws IOException {
+        if (format == Inputs.Format.CSV) return CsvChunk.readHeader(file).groups();
+        // The schema is known once the first row group is read
+        try (ColumnarLogReader reader = new ColumnarLogReader(Inputs.open(file))) {
+            Set<ColumnGroup> groups = EnumSet.noneOf(ColumnGroup.class);
+            if (reader.next() != null) groups.addAll(reader.columnGroups());
+            return groups;
+        }
+    }
+
+    private void csv(List<Path> files) throws IOException {
+        for (Path file : files) {
+            CsvRecordParser parser = new CsvRecordParser(CsvChunk.readHeader(file), names);
+            CsvRow row = new CsvRow();
+            for (CsvChunk chunk : CsvChunk.split(List.of(file), CsvChunk.SIZE)) {
+                chunk.forEachLine((line, length) -> {
+                    row.set(line, length);
+                    add(parser.parse(row), names);
+                });
+            }
+        }
+    }
+
+    private void columnar(List<Path> files) throws IOException {
+        for (Path file : files) {
+            try (ColumnarLogReader reader = new ColumnarLogReader(Inputs.open(file))) {
+                PlayerRecord r;
+                while ((r = reader.next()) != null) {
+                    add(r, reader.names());
+                }
+            }
+        }
+    }
+
+    private void add(PlayerRecord r, NameResolver from) throws IOException {
+        // A segment's reader ids are only valid until its next segment
+        if (from != names) r = names.relabel(r, from);
+        batch.add(r);
+        if (batch.size() == BATCH) flush();
+    }
+
+    private void flush() throws IOException {
+        if (batch.isEmpty()) return;
+
+        ChunkTask.run(pool, batch, (i, r) -> {
+            prepare(i, r);
+            return null;
+        }, (a, b) -> null, null);
+
+        sampler.run(Arrays.asList(jobs).subList(0, batch.size()));
+
+        for (int i = 0; i < batch.size(); i++) {
+            sink.write(complete(i, batch.get(i)));
+            rows++;
+        }
+        batch.clear();
+    }
+
+    // Worker thread: the chunks around the eye, the sampler's job and the pick
+    private void prepare(int i, PlayerRecord r) throws IOException {
+        ReplayWorld world = worlds[i].capture(cache, r.dimension, r.x, r.z, radius);
+        sampler.reset(jobs[i], world, r.x, r.eyeY, r.z, r.lookX, r.lookY, r.lookZ);
+
+        // player.pick: OUTLINE shapes, Fluid.NONE, the block containing the hit
+        VoxelRayMarcher marcher = marchers.get();
+        highlighted[i] = null;
+        if (marcher.castOutline(world.withoutFluids(), r.x, r.eyeY, r.z,
+                r.x + r.lookX * pickDistance, r.eyeY + r.lookY * pickDistance, r.z + r.lookZ * pickDistance)) {
+            int state = world.stateId((int) Math.floor(marcher.hitX()),
+                    (int) Math.floor(marcher.hitY()), (int) Math.floor(marcher.hitZ()));
+            highlighted[i] = table.blockName(table.blockId(state));
+        }
+    }
+
+    private PlayerRecord complete(int i, PlayerRecord r) {
+        PlayerRecord.Builder b = names.relabeled(r, names);
+        VisionSampler.Job job = jobs[i];
+
+        boolean hasSky = !r.dimension.equals("minecraft:the_nether") && !r.dimension.equals("minecraft:the_end");
+        b.outsideObservable = job.outsideObservable();
+        b.nightFlag = "none";
+        if (b.outsideObservable && hasSky) {
+            // Vanilla night window: 13000–23000
+            b.nightFlag = r.dayTime >= 13000 && r.dayTime <= 23000 ? "1" : "0";
+        }
+        b.outdoorAge = 0;
+
+        b.blockHighlighted = highlighted[i] != null;
+        b.highlightedBlock = highlighted[i] != null ? highlighted[i] : "none";
+
+        IdCounter visible = job.visibleBlocks();
+        int[] ids = new int[visible.distinct()];
+        int[] counts = new int[ids.length];
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = nameId(visible.idAt(k));
+            counts[k] = visible.countAt(k);
+        }
+        b.visibleBlockIds = ids;
+        b.visibleBlockCounts = counts;
+        b.visibleBlocksAge = 0;
+        return b.build();
+    }
+
+    private int nameId(int blockId) {
+        int id = nameIds[blockId];
+        if (id == PlayerRecord.NONE) {
+            id = names.id(table.blockName(blockId));
+            nameIds[blockId] = id;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,88 @@
+package positionlogger_v0_0.benchmark;
+
+import java.util.Set;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.core.UUIDUtil;
+import net.minecraft.network.DisconnectionDetails;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ClientInformation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.CommonListenerCookie;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.GameType;
+
+/**
+ * A server-side player with no client. It joins through the normal player
+ * list (so the logger opens a session for it as for anyone else), is moved
+ * by its {@link Scenario} every tick and ticks itself, since no network
+ * handler does it.
+ */
+final class BenchmarkPlayer extends ServerPlayer {
+
+    // Ticks between hotbar slot changes, so the inventory columns see changes
+    private static final int SLOT_TICKS = 100;
+
+    private FakeConnection fakeConnection;
+    private int ticks;
+
+    private BenchmarkPlayer(MinecraftServer server, ServerLevel level, GameProfile profile) {
+        super(server, level, profile, ClientInformation.createDefault());
+    }
+
+    static BenchmarkPlayer join(MinecraftServer server, ServerLevel level, String name) {
+        GameProfile profile = new GameProfile(UUIDUtil.createOfflinePlayerUUID(name), name);
+        BenchmarkPlayer player = new BenchmarkPlayer(server, level, profile);
+        player.fakeConnection = new FakeConnection();
+
+        server.getPlayerList().placeNewPlayer(player.fakeConnection, player,
+                CommonListenerCookie.createInitial(profile, false));
+
+        // Creative and flying: nothing hurts them and nothing drags them off their route
+        player.setGameMode(GameType.CREATIVE);
+        player.getAbilities().flying = true;
+        player.onUpdateAbilities();
+
+        player.getInventory().add(new ItemStack(Items.STONE, 64));
+        player.getInventory().add(new ItemStack(Items.OAK_LOG, 32));
+        player.getInventory().add(new ItemStack(Items.TORCH, 16));
+        player.getInventory().add(new ItemStack(Items.DIAMOND_PICKAXE));
+        return player;
+    }
+
+    /** Puts the player at the start of its route, telling the chunk map. */
+    void place(ServerLevel level, double x, double y, double z, float yaw, float pitch) {
+        teleportTo(level, x, y, z, Set.of(), yaw, pitch, true);
+        connection.resetPosition();
+    }
+
+    /** One step along the route. */
+    void walk(double x, double y, double z, float yaw, float pitch) {
+        snapTo(x, y, z, yaw, pitch);
+        setYHeadRot(yaw);
+    }
+
+    void leave() {
+        connection.onDisconnect(new DisconnectionDetails(Component.literal("Benchmark over")));
+    }
+
+    @Override
+    public void tick() {
+        ticks++;
+        if (ticks % 10 == 0) {
+            // What the movement packet handler would do for a real player
+            connection.resetPosition();
+            level().getChunkSource().move(this);
+        }
+        if (ticks % SLOT_TICKS == 0) {
+            getInventory().setSelectedSlot((ticks / SLOT_TICKS) % 4);
+        }
+
+        super.tick();
+        doTick();
+        fakeConnection.drain();
+    }
+}
@@ -0,0 +1,46 @@
+package positionlogger_v0_0.benchmark;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.minecraft.network.Connection;
+import net.minecraft.network.PacketListener;
+import net.minecraft.network.ProtocolInfo;
+import net.minecraft.network.protocol.PacketFlow;
+
+import positionlogger_v0_0.benchmark.mixin.ConnectionAccessor;
+
+/**
+ * A connection with no client behind it. Packets go into an in-memory
+ * channel and are thrown away every tick, so the server still builds and
+ * sends everything a real player would get (chunks, entity updates) without
+ * a socket.
+ */
+final class FakeConnection extends Connection {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    FakeConnection() {
+        super(PacketFlow.SERVERBOUND);
+        ((ConnectionAccessor) this).positionlogger$setChannel(channel);
+    }
+
+    /** Drops the packets sent since the last call. */
+    void drain() {
+        channel.releaseOutbound();
+    }
+
+    @Override
+    public void setReadOnly() {
+    }
+
+    @Override
+    public void handleDisconnection() {
+    }
+
+    @Override
+    public void setListenerForServerboundHandshake(PacketListener listener) {
+    }
+
+    @Override
+    public <T extends PacketListener> void setupInboundProtocol(ProtocolInfo<T> protocol, T listener) {
+    }
+}
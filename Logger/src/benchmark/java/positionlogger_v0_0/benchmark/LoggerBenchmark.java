@@ -0,0 +1,349 @@
+package positionlogger_v0_0.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.google.gson.stream.JsonWriter;
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+/**
+ * Load test for the logger on a dedicated server ({@code ./gradlew
+ * runBenchmark}). For each scenario it builds the site, has N fake players
+ * join and walk their routes, and measures three phases with the same
+ * players and routes:
+ *
+ * <ul>
+ *   <li>{@code off}: {@code logging.enabled=false}, the baseline;</li>
+ *   <li>{@code on}: the logger as configured;</li>
+ *   <li>{@code stats}: the logger with {@code stats.enabled=true}, for the
+ *       per-stage times (and what measuring them costs).</li>
+ * </ul>
+ *
+ * Phases are switched through the config file, which the logger re-reads
+ * every second, and are measured in sprint mode so a tick's start-to-start
+ * time is its work, not the 50 ms pacing. Results go to
+ * {@code benchmark-results.json} in the run directory.
+ *
+ * Settings are system properties {@code positionlogger.benchmark.*}:
+ * {@code players}, {@code scenarios}, {@code warmupTicks}, {@code ticks}
+ * and {@code output}.
+ */
+public final class LoggerBenchmark implements ModInitializer {
+
+    enum Phase {
+        OFF("off", false, false),
+        ON("on", true, false),
+        STATS("stats", true, true);
+
+        final String label;
+        final boolean logging;
+        final boolean stats;
+
+        Phase(String label, boolean logging, boolean stats) {
+            this.label = label;
+            this.logging = logging;
+            this.stats = stats;
+        }
+    }
+
+    /** One step of the script; runs at the start of every tick until done. */
+    @FunctionalInterface
+    private interface Step {
+        boolean tick(MinecraftServer server);
+    }
+
+    // Long enough for two config polls and for chunks around new players to load
+    private static final int SETTLE_TICKS = 60;
+    // Scenario sites sit this far apart along x, out of each other's view
+    private static final int SITE_SPACING = 4096;
+
+    private final int playerCount = Integer.getInteger("positionlogger.benchmark.players", 16);
+    private final int warmupTicks = Integer.getInteger("positionlogger.benchmark.warmupTicks", 200);
+    private final int measuredTicks = Integer.getInteger("positionlogger.benchmark.ticks", 1200);
+    private final String scenarioList = System.getProperty("positionlogger.benchmark.scenarios",
+            "plains,forest,caves,mob_farm");
+    private final String output = System.getProperty("positionlogger.benchmark.output", "benchmark-results.json");
+
+    private final Deque<Step> steps = new ArrayDeque<>();
+    private final List<PhaseResult> results = new ArrayList<>();
+    private final List<BenchmarkPlayer> players = new ArrayList<>();
+
+    private Path configPath;
+    private Properties startConfig;
+    private StageRecorder recorder;
+
+    // The running site, and the phase being measured
+    private Scenario scenario;
+    private BlockPos origin;
+    private long routeTick;
+    private PhaseResult measuring;
+    private long lastTickStart;
+
+    @Override
+    public void onInitialize() {
+        configPath = FabricLoader.getInstance().getConfigDir().resolve("positionlogger.properties");
+
+        ServerLifecycleEvents.SERVER_STARTED.register(this::start);
+        ServerTickEvents.START_SERVER_TICK.register(this::onTickStart);
+    }
+
+    private void start(MinecraftServer server) {
+        startConfig = readConfig();
+        recorder = new StageRecorder();
+        server.overworld().setDayTime(6000);
+        script();
+
+        System.out.println("[PositionLogger] Benchmark: " + playerCount + " players, "
+                + warmupTicks + " warmup + " + measuredTicks + " measured ticks per phase, scenarios " + scenarioList);
+    }
+
+    private void script() {
+        steps.add(configure(Phase.OFF));
+        steps.add(waitTicks(SETTLE_TICKS));
+
+        for (String label : scenarioList.split(",")) {
+            Scenario s = Scenario.byLabel(label.trim());
+            steps.add(server -> {
+                build(server, s);
+                return true;
+            });
+            steps.add(waitTicks(SETTLE_TICKS));
+
+            for (Phase phase : Phase.values()) {
+                PhaseResult result = new PhaseResult(s, phase);
+                results.add(result);
+
+                long[] logging = new long[2];
+                steps.add(server -> {
+                    if (phase.logging) {
+                        logging[0] = directorySize();
+                        logging[1] = server.getTickCount();
+                    }
+                    return configure(phase).tick(server);
+                });
+                steps.add(waitTicks(SETTLE_TICKS));
+                steps.add(measure(result));
+
+                if (phase.logging) {
+                    // Turning logging off closes the segment, so its size is final
+                    steps.add(configure(Phase.OFF));
+                    steps.add(waitTicks(SETTLE_TICKS));
+                    steps.add(server -> {
+                        result.bytesWritten = directorySize() - logging[0];
+                        result.loggedTicks = server.getTickCount() - SETTLE_TICKS - logging[1];
+                        return true;
+                    });
+                }
+            }
+
+            steps.add(server -> {
+                leave();
+                return true;
+            });
+        }
+
+        steps.add(server -> {
+            finish(server);
+            return true;
+        });
+    }
+
+    private void onTickStart(MinecraftServer server) {
+        long now = System.nanoTime();
+        if (measuring != null) measuring.mspt.record(now - lastTickStart);
+        lastTickStart = now;
+
+        if (scenario != null) {
+            routeTick++;
+            for (int i = 0; i < players.size(); i++) {
+                scenario.move(players.get(i), i, routeTick, origin);
+            }
+        }
+
+        Step step = steps.peek();
+        if (step != null && step.tick(server)) steps.poll();
+    }
+
+    // ---------------- STEPS ----------------
+
+    private static Step waitTicks(int ticks) {
+        int[] left = { ticks };
+        return server -> --left[0] <= 0;
+    }
+
+    private Step configure(Phase phase) {
+        return server -> {
+            Properties p = readConfig();
+            p.setProperty("logging.enabled", Boolean.toString(phase.logging));
+            p.setProperty("stats.enabled", Boolean.toString(phase.stats));
+            try (Writer out = Files.newBufferedWriter(configPath)) {
+                p.store(out, "PositionLogger settings (benchmark phase " + phase.label + ")");
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Warms up, then measures; the whole phase runs as one sprint so ticks
+     * follow each other without waiting.
+     */
+    private Step measure(PhaseResult result) {
+        int[] tick = { 0 };
+        return server -> {
+            if (tick[0] == 0) server.tickRateManager().requestGameToSprint(warmupTicks + measuredTicks + 1);
+
+            if (tick[0] == warmupTicks) {
+                result.begin(recorder);
+                measuring = result;
+            }
+            if (tick[0] == warmupTicks + measuredTicks) {
+                measuring = null;
+                result.end();
+                server.tickRateManager().stopSprinting();
+                System.out.println("[PositionLogger] Benchmark " + result.scenario.label + "/" + result.phase.label + " measured");
+                return true;
+            }
+            tick[0]++;
+            return false;
+        };
+    }
+
+    private void build(MinecraftServer server, Scenario s) {
+        ServerLevel level = server.overworld();
+        int x = SITE_SPACING * (s.ordinal() + 1);
+        origin = new BlockPos(x, level.getHeight(Heightmap.Types.MOTION_BLOCKING, x, 0), 0);
+
+        long start = System.nanoTime();
+        s.build(level, origin, RandomSource.create(s.ordinal()));
+        System.out.printf("[PositionLogger] Benchmark built %s in %.1fs%n", s.label, (System.nanoTime() - start) / 1e9);
+
+        scenario = s;
+        routeTick = 0;
+        for (int i = 0; i < playerCount; i++) {
+            BenchmarkPlayer player = BenchmarkPlayer.join(server, level, "bench_" + i);
+            s.move(player, i, 0, origin);
+            player.place(level, player.getX(), player.getY(), player.getZ(), player.getYRot(), player.getXRot());
+            players.add(player);
+        }
+    }
+
+    private void leave() {
+        for (BenchmarkPlayer player : players) {
+            player.leave();
+        }
+        players.clear();
+        scenario = null;
+    }
+
+    private void finish(MinecraftServer server) {
+        recorder.close();
+
+        Path file = FabricLoader.getInstance().getGameDir().resolve(output);
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(file))) {
+            json.setIndent("  ");
+            writeResults(json);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        for (PhaseResult r : results) {
+            System.out.println("[PositionLogger] Benchmark " + r.summary());
+        }
+        System.out.println("[PositionLogger] Benchmark results written to " + file);
+
+        server.halt(false);
+    }
+
+    private void writeResults(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("minecraft").value(FabricLoader.getInstance().getModContainer("minecraft")
+                .map(m -> m.getMetadata().getVersion().getFriendlyString()).orElse("unknown"));
+        json.name("java").value(System.getProperty("java.version"));
+        json.name("processors").value(Runtime.getRuntime().availableProcessors());
+        json.name("players").value(playerCount);
+        json.name("warmupTicks").value(warmupTicks);
+        json.name("measuredTicks").value(measuredTicks);
+
+        json.name("config").beginObject();
+        for (var e : new TreeMap<>(startConfig).entrySet()) {
+            json.name(e.getKey().toString()).value(e.getValue().toString());
+        }
+        json.endObject();
+
+        json.name("results").beginArray();
+        for (PhaseResult r : results) {
+            r.write(json);
+        }
+        json.endArray();
+
+        // What turning the logger on costs per scenario, in ms per tick and bytes per tick
+        json.name("overhead").beginArray();
+        for (int i = 0; i + Phase.values().length <= results.size(); i += Phase.values().length) {
+            PhaseResult off = results.get(i + Phase.OFF.ordinal());
+            PhaseResult on = results.get(i + Phase.ON.ordinal());
+            json.beginObject();
+            json.name("scenario").value(off.scenario.label);
+            json.name("msptMean").value(on.meanMillis() - off.meanMillis());
+            json.name("msptP99").value((on.mspt.percentile(0.99) - off.mspt.percentile(0.99)) / 1e6);
+            json.name("serverThreadBytesPerTick").value(on.serverBytesPerTick() - off.serverBytesPerTick());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.endObject();
+    }
+
+    // ---------------- FILES ----------------
+
+    private Properties readConfig() {
+        Properties p = new Properties();
+        if (Files.exists(configPath)) {
+            try (Reader in = Files.newBufferedReader(configPath)) {
+                p.load(in);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return p;
+    }
+
+    /** Bytes in the logger's segment directory. */
+    private long directorySize() {
+        Path dir = FabricLoader.getInstance().getGameDir()
+                .resolve(startConfig.getProperty("segment.directory", "positionlogger").trim());
+        if (!Files.isDirectory(dir)) return 0;
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(f -> {
+                try {
+                    return Files.size(f);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package positionlogger_v0_0.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+import positionlogger_v0_0.util.LatencyHistogram;
+
+/**
+ * What one phase of one scenario measured: tick times, allocation, the
+ * logger's stage times (stats phase only) and, for phases with the logger
+ * on, the bytes it wrote.
+ */
+final class PhaseResult {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    final Scenario scenario;
+    final LoggerBenchmark.Phase phase;
+
+    /** Start-to-start time of each measured tick. */
+    final LatencyHistogram mspt = new LatencyHistogram();
+
+    private long startNanos;
+    private long elapsedNanos;
+    private long serverThreadBytes;
+    private long allThreadsBytes;
+    private StageRecorder.Window stages;
+
+    long bytesWritten = -1;
+    long loggedTicks;
+
+    PhaseResult(Scenario scenario, LoggerBenchmark.Phase phase) {
+        this.scenario = scenario;
+        this.phase = phase;
+    }
+
+    /** Called on the server thread as the first measured tick starts. */
+    void begin(StageRecorder recorder) {
+        stages = recorder.open();
+        serverThreadBytes = -THREADS.getCurrentThreadAllocatedBytes();
+        allThreadsBytes = -THREADS.getTotalThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /** Called on the server thread as the tick after the last measured one starts. */
+    void end() {
+        elapsedNanos = System.nanoTime() - startNanos;
+        serverThreadBytes += THREADS.getCurrentThreadAllocatedBytes();
+        allThreadsBytes += THREADS.getTotalThreadAllocatedBytes();
+        stages.close();
+    }
+
+    double meanMillis() {
+        return mspt.mean() / 1e6;
+    }
+
+    double serverBytesPerTick() {
+        return (double) serverThreadBytes / Math.max(1, mspt.count());
+    }
+
+    String summary() {
+        StringBuilder s = new StringBuilder();
+        s.append(scenario.label).append('/').append(phase.label).append(": ")
+                .append(String.format("%.2f mspt (p99 %.2f, max %.2f)", meanMillis(),
+                        mspt.percentile(0.99) / 1e6, mspt.max() / 1e6))
+                .append(String.format(", %.1f KiB/tick allocated on the server thread", serverBytesPerTick() / 1024));
+        if (bytesWritten >= 0) {
+            s.append(String.format(", %.1f KiB/tick written", bytesWritten / 1024.0 / Math.max(1, loggedTicks)));
+        }
+        return s.toString();
+    }
+
+    void write(JsonWriter json) throws IOException {
+        long ticks = mspt.count();
+        double seconds = elapsedNanos / 1e9;
+
+        json.beginObject();
+        json.name("scenario").value(scenario.label);
+        json.name("phase").value(phase.label);
+        json.name("ticks").value(ticks);
+        json.name("seconds").value(seconds);
+
+        json.name("mspt").beginObject();
+        writeMillis(json, mspt);
+        json.endObject();
+
+        json.name("allocation").beginObject();
+        json.name("serverThreadBytes").value(serverThreadBytes);
+        json.name("serverThreadBytesPerTick").value(serverBytesPerTick());
+        json.name("allThreadsBytes").value(allThreadsBytes);
+        json.name("allThreadsBytesPerSecond").value(allThreadsBytes / Math.max(seconds, 1e-9));
+        json.endObject();
+
+        if (bytesWritten >= 0) {
+            json.name("output").beginObject();
+            json.name("bytes").value(bytesWritten);
+            json.name("loggedTicks").value(loggedTicks);
+            json.name("bytesPerTick").value((double) bytesWritten / Math.max(1, loggedTicks));
+            json.endObject();
+        }
+
+        // Stage times are CPU time summed over threads for the sampled stages
+        json.name("stages").beginObject();
+        for (Map.Entry<String, LatencyHistogram> e : stages.stages.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            json.name(e.getKey()).beginObject();
+            json.name("count").value(h.count());
+            writeMillis(json, h);
+            json.name("msPerTick").value(h.mean() * h.count() / 1e6 / Math.max(1, ticks));
+            json.endObject();
+        }
+        json.endObject();
+
+        json.endObject();
+    }
+
+    private static void writeMillis(JsonWriter json, LatencyHistogram h) throws IOException {
+        json.name("mean").value(h.mean() / 1e6);
+        json.name("p50").value(h.percentile(0.50) / 1e6);
+        json.name("p95").value(h.percentile(0.95) / 1e6);
+        json.name("p99").value(h.percentile(0.99) / 1e6);
+        json.name("max").value(h.max() / 1e6);
+    }
+}
@@ -0,0 +1,223 @@
+package positionlogger_v0_0.benchmark;
+
+import java.util.List;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.EntitySpawnReason;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * A site the fake players walk around in, built into a superflat world. Each
+ * scenario stresses a different part of the logger: plains are cheap rays
+ * under open sky, a forest has short rays into leaves, caves have no sky and
+ * walls everywhere, and a mob farm fills the mob scan.
+ *
+ * Routes depend only on the player's index and the tick, so every run (and
+ * every phase of a run) replays the same movement.
+ */
+enum Scenario {
+
+    PLAINS("plains") {
+        @Override
+        void build(ServerLevel level, BlockPos origin, RandomSource random) {
+            // The superflat grass is the scenario
+        }
+
+        @Override
+        void move(BenchmarkPlayer player, int index, long tick, BlockPos origin) {
+            double cx = origin.getX() + spread(index, 0) * 48;
+            double cz = origin.getZ() + spread(index, 1) * 48;
+            circle(player, index, tick, cx, origin.getY(), cz, 8 + (index % 5) * 6, 10);
+        }
+    },
+
+    FOREST("forest") {
+        @Override
+        void build(ServerLevel level, BlockPos origin, RandomSource random) {
+            BlockState log = Blocks.OAK_LOG.defaultBlockState();
+            BlockState leaves = Blocks.OAK_LEAVES.defaultBlockState().setValue(LeavesBlock.PERSISTENT, true);
+
+            for (int x = -FOREST_RADIUS; x < FOREST_RADIUS; x += 4) {
+                for (int z = -FOREST_RADIUS; z < FOREST_RADIUS; z += 4) {
+                    BlockPos base = origin.offset(x + random.nextInt(3), 0, z + random.nextInt(3));
+                    int height = 4 + random.nextInt(3);
+
+                    for (int dx = -2; dx <= 2; dx++) {
+                        for (int dz = -2; dz <= 2; dz++) {
+                            for (int dy = height - 2; dy <= height + 1; dy++) {
+                                int r = dy > height ? 1 : 2;
+                                if (Math.abs(dx) > r || Math.abs(dz) > r) continue;
+                                set(level, base.offset(dx, dy, dz), leaves);
+                            }
+                        }
+                    }
+                    for (int dy = 0; dy < height; dy++) {
+                        set(level, base.above(dy), log);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void move(BenchmarkPlayer player, int index, long tick, BlockPos origin) {
+            double cx = origin.getX() + spread(index, 0) * 32;
+            double cz = origin.getZ() + spread(index, 1) * 32;
+            circle(player, index, tick, cx, origin.getY(), cz, 6 + (index % 4) * 5, 0);
+        }
+    },
+
+    CAVES("caves") {
+        @Override
+        void build(ServerLevel level, BlockPos origin, RandomSource random) {
+            BlockState stone = Blocks.STONE.defaultBlockState();
+            BlockState air = Blocks.AIR.defaultBlockState();
+
+            for (int x = -CAVE_RADIUS; x < CAVE_RADIUS; x++) {
+                for (int z = -CAVE_RADIUS; z < CAVE_RADIUS; z++) {
+                    for (int y = 0; y < CAVE_HEIGHT; y++) {
+                        set(level, origin.offset(x, y, z), stone);
+                    }
+                }
+            }
+
+            // A grid of 3x3 tunnels on two floors
+            for (int floor : CAVE_FLOORS) {
+                for (int line : tunnelLines()) {
+                    for (int s = -CAVE_RADIUS + 2; s < CAVE_RADIUS - 2; s++) {
+                        for (int w = -1; w <= 1; w++) {
+                            for (int h = 0; h < 3; h++) {
+                                set(level, origin.offset(s, floor + h, line + w), air);
+                                set(level, origin.offset(line + w, floor + h, s), air);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        void move(BenchmarkPlayer player, int index, long tick, BlockPos origin) {
+            List<Integer> lines = tunnelLines();
+            int line = lines.get(index % lines.size());
+            int floor = CAVE_FLOORS[(index / lines.size()) % CAVE_FLOORS.length];
+            boolean alongX = (index / (lines.size() * CAVE_FLOORS.length)) % 2 == 0;
+
+            // Back and forth along the tunnel
+            double length = 2.0 * (CAVE_RADIUS - 4);
+            double t = (tick * SPEED + index * 13.0) % (2 * length);
+            boolean back = t >= length;
+            double s = (back ? 2 * length - t : t) - length / 2;
+
+            double along = s + 0.5;
+            double across = line + 0.5;
+            double x = origin.getX() + (alongX ? along : across);
+            double z = origin.getZ() + (alongX ? across : along);
+            float yaw = alongX ? (back ? 90 : -90) : (back ? 180 : 0);
+            float pitch = (float) (15 * Math.sin(tick / 30.0 + index));
+            player.walk(x, origin.getY() + floor, z, yaw, pitch);
+        }
+    },
+
+    MOB_FARM("mob_farm") {
+        @Override
+        void build(ServerLevel level, BlockPos origin, RandomSource random) {
+            BlockState fence = Blocks.OAK_FENCE.defaultBlockState();
+            for (int i = -PEN_RADIUS; i <= PEN_RADIUS; i++) {
+                set(level, origin.offset(i, 0, -PEN_RADIUS), fence);
+                set(level, origin.offset(i, 0, PEN_RADIUS), fence);
+                set(level, origin.offset(-PEN_RADIUS, 0, i), fence);
+                set(level, origin.offset(PEN_RADIUS, 0, i), fence);
+            }
+
+            List<EntityType<?>> animals = List.of(EntityType.COW, EntityType.SHEEP, EntityType.PIG, EntityType.CHICKEN);
+            for (int i = 0; i < PEN_MOBS; i++) {
+                BlockPos pos = origin.offset(
+                        random.nextInt(2 * PEN_RADIUS - 3) - PEN_RADIUS + 2, 0,
+                        random.nextInt(2 * PEN_RADIUS - 3) - PEN_RADIUS + 2);
+                animals.get(i % animals.size()).spawn(level, pos, EntitySpawnReason.COMMAND);
+            }
+        }
+
+        @Override
+        void move(BenchmarkPlayer player, int index, long tick, BlockPos origin) {
+            // Around the pen, looking into it
+            double radius = PEN_RADIUS + 4 + (index % 3) * 3;
+            double a = index * GOLDEN_ANGLE + tick * SPEED / radius;
+            double x = origin.getX() + radius * Math.cos(a);
+            double z = origin.getZ() + radius * Math.sin(a);
+            float yaw = (float) Math.toDegrees(Math.atan2(x - origin.getX(), origin.getZ() - z));
+            player.walk(x, origin.getY() + 2, z, yaw, 25);
+        }
+    };
+
+    // Walking pace in blocks per tick
+    private static final double SPEED = 0.2;
+    // Spreads the players' starting angles evenly
+    private static final double GOLDEN_ANGLE = 2.399963;
+
+    private static final int FOREST_RADIUS = 64;
+    private static final int CAVE_RADIUS = 48;
+    private static final int CAVE_HEIGHT = 32;
+    private static final int[] CAVE_FLOORS = { 4, 18 };
+    private static final int PEN_RADIUS = 20;
+    private static final int PEN_MOBS = 300;
+
+    final String label;
+
+    Scenario(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Builds the site around {@code origin}, the first air block above the
+     * superflat ground.
+     */
+    abstract void build(ServerLevel level, BlockPos origin, RandomSource random);
+
+    /** Moves the player to where its route has it at this tick. */
+    abstract void move(BenchmarkPlayer player, int index, long tick, BlockPos origin);
+
+    static Scenario byLabel(String label) {
+        for (Scenario s : values()) {
+            if (s.label.equals(label)) return s;
+        }
+        throw new IllegalArgumentException("Unknown scenario " + label);
+    }
+
+    /**
+     * Walks a circle, facing along it and looking up and down; {@code pitch}
+     * is the middle of the look range.
+     */
+    private static void circle(BenchmarkPlayer player, int index, long tick,
+                               double cx, double y, double cz, double radius, double pitch) {
+        double a = index * GOLDEN_ANGLE + tick * SPEED / radius;
+        double x = cx + radius * Math.cos(a);
+        double z = cz + radius * Math.sin(a);
+        // Moving along (-sin a, cos a), which is Minecraft's facing for yaw a
+        float yaw = (float) Math.toDegrees(a);
+        player.walk(x, y, z, yaw, (float) (pitch + 20 * Math.sin(tick / 40.0 + index)));
+    }
+
+    // A fixed offset in [-1, 1) per player and axis
+    private static double spread(int index, int axis) {
+        long h = (index * 0x9E3779B97F4A7C15L) ^ (axis * 0xC2B2AE3D27D4EB4FL);
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return ((h >>> 11) * 0x1.0p-53) * 2 - 1;
+    }
+
+    private static List<Integer> tunnelLines() {
+        return List.of(-36, -24, -12, 0, 12, 24, 36);
+    }
+
+    private static void set(ServerLevel level, BlockPos pos, BlockState state) {
+        level.setBlock(pos, state, Block.UPDATE_CLIENTS);
+    }
+}
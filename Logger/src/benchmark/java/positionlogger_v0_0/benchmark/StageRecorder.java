@@ -0,0 +1,80 @@
+package positionlogger_v0_0.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import positionlogger_v0_0.util.LatencyHistogram;
+
+/**
+ * Collects the logger's {@code positionlogger.Stage} JFR events (sent while
+ * {@code stats.enabled} is on) into a histogram per stage and measurement
+ * window. Events arrive on the stream's thread about a second after they
+ * happened, so they are sorted into windows by their start time; the
+ * histograms are complete once {@link #close()} has returned.
+ */
+final class StageRecorder {
+
+    private static final String EVENT = "positionlogger.Stage";
+
+    /** One measured phase's stage times, keyed by stage label. */
+    static final class Window {
+        final Map<String, LatencyHistogram> stages = new TreeMap<>();
+        private final Instant start;
+        private volatile Instant end;
+
+        private Window(Instant start) {
+            this.start = start;
+        }
+
+        boolean contains(Instant time) {
+            Instant e = end;
+            return !time.isBefore(start) && (e == null || time.isBefore(e));
+        }
+
+        void close() {
+            end = Instant.now();
+        }
+    }
+
+    private final RecordingStream stream = new RecordingStream();
+    private final List<Window> windows = new ArrayList<>();
+
+    StageRecorder() {
+        stream.enable(EVENT);
+        stream.onEvent(EVENT, this::accept);
+        stream.startAsync();
+    }
+
+    synchronized Window open() {
+        Window window = new Window(Instant.now());
+        windows.add(window);
+        return window;
+    }
+
+    /** Waits for the events recorded so far to be delivered, then stops. */
+    void close() {
+        stream.stop();
+        stream.close();
+    }
+
+    private void accept(RecordedEvent event) {
+        Instant time = event.getStartTime();
+        Window window = null;
+        synchronized (this) {
+            for (int i = windows.size() - 1; i >= 0 && window == null; i--) {
+                if (windows.get(i).contains(time)) window = windows.get(i);
+            }
+        }
+        if (window == null) return;
+
+        // Only the stream's thread records
+        window.stages.computeIfAbsent(event.getString("stage"), s -> new LatencyHistogram())
+                .record(event.getLong("time"));
+    }
+}
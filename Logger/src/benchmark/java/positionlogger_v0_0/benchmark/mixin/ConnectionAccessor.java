@@ -0,0 +1,13 @@
+package positionlogger_v0_0.benchmark.mixin;
+
+import io.netty.channel.Channel;
+import net.minecraft.network.Connection;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(Connection.class)
+public interface ConnectionAccessor {
+	// A connection without a channel counts as closed and drops every packet
+	@Accessor("channel")
+	void positionlogger$setChannel(Channel channel);
+}
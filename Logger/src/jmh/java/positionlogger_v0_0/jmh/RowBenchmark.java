@@ -0,0 +1,221 @@
+package positionlogger_v0_0.jmh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import positionlogger_v0_0.LoggerConfig;
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.ColumnarRecordSink;
+import positionlogger_v0_0.output.CsvRecordSink;
+import positionlogger_v0_0.output.NameResolver;
+import positionlogger_v0_0.output.PlayerRecord;
+import positionlogger_v0_0.output.RecordSink;
+
+/**
+ * The per-row cost of the output path: building a {@link PlayerRecord} as
+ * the server thread does, and formatting one on the writer thread (block
+ * counts, inventory slots and all) into a sink that discards the bytes.
+ * Rows come from a fixed set of players walking for a few hundred ticks,
+ * with visible blocks, mobs and inventories that change now and then.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowBenchmark {
+
+    private static final int PLAYERS = 16;
+    private static final int TICKS = 256;
+    private static final long SEED = 42;
+
+    private static final String[] BLOCKS = {
+            "air", "stone", "dirt", "grass_block", "short_grass", "tall_grass", "water", "sand",
+            "gravel", "oak_log", "oak_leaves", "birch_log", "birch_leaves", "andesite", "diorite", "granite",
+            "coal_ore", "iron_ore", "copper_ore", "deepslate", "tuff", "cobblestone", "oak_planks", "torch",
+            "dandelion", "poppy", "fern", "clay", "moss_block", "glow_lichen", "stone_slab", "oak_fence"
+    };
+    private static final String[] ENTITIES = {
+            "cow", "sheep", "pig", "chicken", "zombie", "skeleton", "creeper", "spider"
+    };
+    private static final String[] ITEMS = {
+            "stone", "oak_log", "torch", "diamond_pickaxe", "bread", "cobblestone", "iron_ingot", "oak_planks"
+    };
+
+    private static final NameResolver NAMES = new NameResolver() {
+        @Override
+        public String blockName(int id) {
+            return BLOCKS[id];
+        }
+
+        @Override
+        public String entityName(int id) {
+            return ENTITIES[id];
+        }
+    };
+
+    @Param({ "csv", "columnar" })
+    public String format;
+
+    private PlayerRecord[] records;
+    private RecordSink sink;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        records = records(new SplittableRandom(SEED));
+
+        LoggerConfig config = LoggerConfig.defaults();
+        OutputStream out = OutputStream.nullOutputStream();
+        sink = switch (format) {
+            case "csv" -> new CsvRecordSink(out, NAMES,
+                    config.inventoryDeltaRows ? config.inventoryKeyframeTicks : 0, ColumnGroup.ALL);
+            case "columnar" -> new ColumnarRecordSink(out, NAMES, config.rowGroupSize, ColumnGroup.ALL);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        sink.close();
+    }
+
+    @Benchmark
+    public void writeRow() throws IOException {
+        sink.write(nextRecord());
+    }
+
+    @Benchmark
+    public PlayerRecord assembleRow() {
+        PlayerRecord r = nextRecord();
+        PlayerRecord.Builder b = PlayerRecord.builder();
+
+        b.playerName = r.playerName;
+        b.tick = r.tick;
+        b.timestamp = r.timestamp;
+        b.x = r.x;
+        b.y = r.y;
+        b.z = r.z;
+        b.lookX = r.lookX;
+        b.lookY = r.lookY;
+        b.lookZ = r.lookZ;
+        b.health = r.health;
+        b.food = r.food;
+        b.oxygen = r.oxygen;
+        b.biome = r.biome;
+        b.outsideObservable = r.outsideObservable;
+        b.nightFlag = r.nightFlag;
+        b.blockHighlighted = r.blockHighlighted;
+        b.highlightedBlock = r.highlightedBlock;
+        b.visibleBlockIds = r.visibleBlockIds;
+        b.visibleBlockCounts = r.visibleBlockCounts;
+        b.viewingMob = r.viewingMob;
+        b.closestViewingMob = r.closestViewingMob;
+        b.viewingMobIds = r.viewingMobIds;
+        b.viewingMobCounts = r.viewingMobCounts;
+        for (int s = 0; s < PlayerRecord.SLOT_COUNT; s++) {
+            if (r.slotItems[s] != null) b.slot(s, r.slotItems[s], r.slotCounts[s]);
+        }
+        b.lastBlockHit = r.lastBlockHit;
+        b.lastBlockBroken = r.lastBlockBroken;
+        b.lastBlockPlaced = r.lastBlockPlaced;
+        b.visibleBlocksAge = r.visibleBlocksAge;
+        b.outdoorAge = r.outdoorAge;
+        b.mobsAge = r.mobsAge;
+        return b.build();
+    }
+
+    private PlayerRecord nextRecord() {
+        PlayerRecord r = records[next];
+        next = (next + 1) % records.length;
+        return r;
+    }
+
+    /** Rows in logging order: every player for tick 0, then tick 1, ... */
+    private static PlayerRecord[] records(SplittableRandom random) {
+        PlayerRecord[] records = new PlayerRecord[PLAYERS * TICKS];
+        int[][] visibleIds = new int[PLAYERS][], visibleCounts = new int[PLAYERS][];
+        int[][] mobIds = new int[PLAYERS][], mobCounts = new int[PLAYERS][];
+        String[][] slots = new String[PLAYERS][PlayerRecord.SLOT_COUNT];
+        int[][] slotCounts = new int[PLAYERS][PlayerRecord.SLOT_COUNT];
+
+        for (int t = 0; t < TICKS; t++) {
+            String timestamp = String.format("2026-01-01T12:%02d:%02d.%03dZ", t / 1200, t / 20 % 60, t % 20 * 50);
+
+            for (int p = 0; p < PLAYERS; p++) {
+                // Vision and mobs refresh every few ticks, the inventory rarely
+                if (t % 4 == p % 4 || visibleIds[p] == null) {
+                    visibleIds[p] = ids(random, 12 + random.nextInt(16), BLOCKS.length);
+                    visibleCounts[p] = random.ints(visibleIds[p].length, 1, 400).toArray();
+                    mobIds[p] = ids(random, random.nextInt(4), ENTITIES.length);
+                    mobCounts[p] = random.ints(mobIds[p].length, 1, 5).toArray();
+                }
+                if (t == 0) {
+                    for (int s = 0; s < 10; s++) {
+                        slots[p][s] = ITEMS[random.nextInt(ITEMS.length)];
+                        slotCounts[p][s] = 1 + random.nextInt(64);
+                    }
+                } else if (random.nextInt(100) == 0) {
+                    int s = random.nextInt(PlayerRecord.SLOT_COUNT);
+                    slots[p][s] = random.nextInt(3) == 0 ? null : ITEMS[random.nextInt(ITEMS.length)];
+                    slotCounts[p][s] = slots[p][s] == null ? 0 : 1 + random.nextInt(64);
+                }
+
+                PlayerRecord.Builder b = PlayerRecord.builder();
+                double a = p * 2.399963 + t * 0.02;
+                b.playerName = "player_" + p;
+                b.tick = t;
+                b.timestamp = timestamp;
+                b.x = 100 + 20 * Math.cos(a);
+                b.y = 64;
+                b.z = -50 + 20 * Math.sin(a);
+                b.lookX = -Math.sin(a);
+                b.lookZ = Math.cos(a);
+                b.health = 20;
+                b.food = 18;
+                b.oxygen = 300;
+                b.biome = p % 2 == 0 ? "plains" : "forest";
+                b.outsideObservable = p % 3 != 0;
+                b.nightFlag = b.outsideObservable ? "0" : "none";
+                b.blockHighlighted = true;
+                b.highlightedBlock = "grass_block";
+                b.visibleBlockIds = visibleIds[p];
+                b.visibleBlockCounts = visibleCounts[p];
+                b.viewingMob = mobIds[p].length > 0;
+                b.closestViewingMob = b.viewingMob ? mobIds[p][0] : PlayerRecord.NONE;
+                b.viewingMobIds = mobIds[p];
+                b.viewingMobCounts = mobCounts[p];
+                for (int s = 0; s < PlayerRecord.SLOT_COUNT; s++) {
+                    if (slots[p][s] != null) b.slot(s, slots[p][s], slotCounts[p][s]);
+                }
+                b.visibleBlocksAge = (t - p) & 3;
+                b.outdoorAge = (t - p) & 3;
+                b.mobsAge = (t - p) & 3;
+                records[t * PLAYERS + p] = b.build();
+            }
+        }
+        return records;
+    }
+
+    // Distinct ids below the bound, in ascending order
+    private static int[] ids(SplittableRandom random, int count, int bound) {
+        return random.ints(0, bound).distinct().limit(Math.min(count, bound)).sorted().toArray();
+    }
+}
@@ -0,0 +1,185 @@
+package positionlogger_v0_0.jmh;
+
+import java.util.SplittableRandom;
+
+import static positionlogger_v0_0.jmh.SyntheticBlocks.*;
+
+/**
+ * The synthetic counterparts of the load test's scenarios: open plains with
+ * grass and ponds, a dense forest, and stone with a grid of tunnels. Scenes
+ * and viewpoints are generated from a fixed seed, so every run measures the
+ * same rays.
+ */
+enum Scene {
+
+    PLAINS("plains") {
+        @Override
+        void build(SyntheticWorld world, SplittableRandom random) {
+            ground(world, random);
+        }
+
+        @Override
+        void view(int index, SplittableRandom random, double[] view) {
+            double r = random.nextDouble(40);
+            double a = index * GOLDEN_ANGLE;
+            look(view, r * Math.cos(a), GROUND + EYE_HEIGHT, r * Math.sin(a),
+                    random.nextDouble(360), random.nextDouble(-30, 20));
+        }
+    },
+
+    FOREST("forest") {
+        @Override
+        void build(SyntheticWorld world, SplittableRandom random) {
+            ground(world, random);
+
+            int r = world.radius() - 4;
+            for (int x = -r; x < r; x += 4) {
+                for (int z = -r; z < r; z += 4) {
+                    int bx = x + random.nextInt(3);
+                    int bz = z + random.nextInt(3);
+                    int height = 4 + random.nextInt(3);
+
+                    for (int dx = -2; dx <= 2; dx++) {
+                        for (int dz = -2; dz <= 2; dz++) {
+                            for (int dy = height - 2; dy <= height + 1; dy++) {
+                                int leaves = dy > height ? 1 : 2;
+                                if (Math.abs(dx) > leaves || Math.abs(dz) > leaves) continue;
+                                world.set(bx + dx, GROUND + dy, bz + dz, OAK_LEAVES);
+                            }
+                        }
+                    }
+                    world.fill(bx, GROUND, bz, bx + 1, GROUND + height, bz + 1, OAK_LOG);
+                }
+            }
+        }
+
+        @Override
+        void view(int index, SplittableRandom random, double[] view) {
+            // Between the trunks, which stand on a 4-block grid
+            double x = Math.floorDiv(random.nextInt(-32, 32), 4) * 4 + 3.5;
+            double z = Math.floorDiv(random.nextInt(-32, 32), 4) * 4 + 3.5;
+            look(view, x, GROUND + EYE_HEIGHT, z, random.nextDouble(360), random.nextDouble(-20, 20));
+        }
+    },
+
+    CAVES("caves") {
+        @Override
+        void build(SyntheticWorld world, SplittableRandom random) {
+            ground(world, random);
+
+            int r = world.radius();
+            world.fill(-r, GROUND, -r, r, GROUND + CAVE_HEIGHT, r, STONE);
+
+            // A grid of 3x3 tunnels on two floors, with the odd slab on the floor
+            for (int floor : CAVE_FLOORS) {
+                for (int line = -r + 12; line < r - 12; line += 12) {
+                    world.fill(-r + 2, GROUND + floor, line - 1, r - 2, GROUND + floor + 3, line + 2, AIR);
+                    world.fill(line - 1, GROUND + floor, -r + 2, line + 2, GROUND + floor + 3, r - 2, AIR);
+                }
+                for (int i = 0; i < 400; i++) {
+                    int x = random.nextInt(-r, r);
+                    int z = random.nextInt(-r, r);
+                    if (world.stateId(x, GROUND + floor, z) == AIR) world.set(x, GROUND + floor, z, STONE_SLAB);
+                }
+            }
+        }
+
+        @Override
+        void view(int index, SplittableRandom random, double[] view) {
+            int floor = CAVE_FLOORS[index % CAVE_FLOORS.length];
+            double line = Math.floorDiv(random.nextInt(-48, 48), 12) * 12 + 0.5;
+            double along = random.nextDouble(-40, 40);
+            boolean alongX = random.nextBoolean();
+
+            // Looking down the tunnel, either way
+            double yaw = (alongX ? 90 : 0) + (random.nextBoolean() ? 180 : 0) + random.nextDouble(-20, 20);
+            look(view, alongX ? along : line, GROUND + floor + EYE_HEIGHT, alongX ? line : along,
+                    yaw, random.nextDouble(-15, 15));
+        }
+    };
+
+    static final int GROUND = 48;
+    private static final int WORLD_RADIUS = 96;
+    private static final int WORLD_HEIGHT = 96;
+    private static final double EYE_HEIGHT = 1.62;
+    private static final double GOLDEN_ANGLE = 2.399963;
+
+    private static final int CAVE_HEIGHT = 32;
+    private static final int[] CAVE_FLOORS = { 4, 18 };
+
+    final String label;
+
+    Scene(String label) {
+        this.label = label;
+    }
+
+    abstract void build(SyntheticWorld world, SplittableRandom random);
+
+    /**
+     * Writes the index-th viewpoint into {@code view}: eye x, y, z, then the
+     * unit look vector.
+     */
+    abstract void view(int index, SplittableRandom random, double[] view);
+
+    static Scene byLabel(String label) {
+        for (Scene s : values()) {
+            if (s.label.equals(label)) return s;
+        }
+        throw new IllegalArgumentException("Unknown scene " + label);
+    }
+
+    SyntheticWorld create(long seed) {
+        SyntheticWorld world = new SyntheticWorld(WORLD_RADIUS, 0, WORLD_HEIGHT);
+        build(world, new SplittableRandom(seed));
+        world.finish();
+        return world;
+    }
+
+    double[][] views(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] views = new double[count][6];
+        for (int i = 0; i < count; i++) {
+            view(i, random, views[i]);
+        }
+        return views;
+    }
+
+    /** Stone, dirt and grass up to {@link #GROUND}, with short grass and a few ponds. */
+    private static void ground(SyntheticWorld world, SplittableRandom random) {
+        int r = world.radius();
+        world.fill(-r, 0, -r, r, GROUND - 4, r, STONE);
+        world.fill(-r, GROUND - 4, -r, r, GROUND - 1, r, DIRT);
+        world.fill(-r, GROUND - 1, -r, r, GROUND, r, GRASS_BLOCK);
+
+        for (int x = -r; x < r; x++) {
+            for (int z = -r; z < r; z++) {
+                if (random.nextInt(4) == 0) world.set(x, GROUND, z, SHORT_GRASS);
+            }
+        }
+
+        for (int i = 0; i < 6; i++) {
+            int cx = random.nextInt(-r + 8, r - 8);
+            int cz = random.nextInt(-r + 8, r - 8);
+            int size = 3 + random.nextInt(4);
+            for (int x = -size; x <= size; x++) {
+                for (int z = -size; z <= size; z++) {
+                    if (x * x + z * z > size * size) continue;
+                    world.fill(cx + x, GROUND - 2, cz + z, cx + x + 1, GROUND, cz + z + 1, WATER);
+                    world.set(cx + x, GROUND, cz + z, AIR);
+                }
+            }
+        }
+    }
+
+    /** Eye position plus the look vector of Minecraft's yaw and pitch, in degrees. */
+    private static void look(double[] view, double x, double y, double z, double yaw, double pitch) {
+        double f = Math.toRadians(pitch);
+        double g = Math.toRadians(-yaw);
+        view[0] = x;
+        view[1] = y;
+        view[2] = z;
+        view[3] = Math.sin(g) * Math.cos(f);
+        view[4] = -Math.sin(f);
+        view[5] = Math.cos(g) * Math.cos(f);
+    }
+}
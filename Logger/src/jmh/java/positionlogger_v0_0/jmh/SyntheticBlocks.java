@@ -0,0 +1,70 @@
+package positionlogger_v0_0.jmh;
+
+import positionlogger_v0_0.BlockTable;
+
+/**
+ * A small fixed palette standing in for the block state registry. Every
+ * block has one state, so state ids and block ids are the same. The partial
+ * blocks are the ones that matter to the ray code: grass you see but walk
+ * through, water with its lowered surface and bottom slabs.
+ */
+final class SyntheticBlocks implements BlockTable {
+
+    static final int AIR = 0;
+    static final int STONE = 1;
+    static final int DIRT = 2;
+    static final int GRASS_BLOCK = 3;
+    static final int OAK_LOG = 4;
+    static final int OAK_LEAVES = 5;
+    static final int SHORT_GRASS = 6;
+    static final int WATER = 7;
+    static final int STONE_SLAB = 8;
+
+    private static final byte[] OUTLINE = { EMPTY, FULL, FULL, FULL, FULL, FULL, PARTIAL, PARTIAL, PARTIAL };
+    private static final byte[] COLLIDER = { EMPTY, FULL, FULL, FULL, FULL, FULL, EMPTY, EMPTY, PARTIAL };
+
+    // Shape of each partial block in voxel coordinates: minX, minY, minZ, maxX, maxY, maxZ
+    private static final double[] GRASS_BOX = { 2 / 16.0, 0, 2 / 16.0, 14 / 16.0, 13 / 16.0, 14 / 16.0 };
+    private static final double[] WATER_BOX = { 0, 0, 0, 1, 8 / 9.0, 1 };
+    private static final double[] SLAB_BOX = { 0, 0, 0, 1, 0.5, 1 };
+
+    static final SyntheticBlocks INSTANCE = new SyntheticBlocks();
+
+    private SyntheticBlocks() {
+    }
+
+    /** Outline box of a partial state, or null. */
+    static double[] outlineBox(int stateId) {
+        return switch (stateId) {
+            case SHORT_GRASS -> GRASS_BOX;
+            case WATER -> WATER_BOX;
+            case STONE_SLAB -> SLAB_BOX;
+            default -> null;
+        };
+    }
+
+    /** Collision box of a partial state, or null. */
+    static double[] colliderBox(int stateId) {
+        return stateId == STONE_SLAB ? SLAB_BOX : null;
+    }
+
+    @Override
+    public byte outlineClass(int stateId) {
+        return stateId >= 0 && stateId < OUTLINE.length ? OUTLINE[stateId] : UNKNOWN;
+    }
+
+    @Override
+    public byte colliderClass(int stateId) {
+        return stateId >= 0 && stateId < COLLIDER.length ? COLLIDER[stateId] : UNKNOWN;
+    }
+
+    @Override
+    public int blockId(int stateId) {
+        return stateId;
+    }
+
+    @Override
+    public int blockCount() {
+        return OUTLINE.length;
+    }
+}
@@ -0,0 +1,180 @@
+package positionlogger_v0_0.jmh;
+
+import positionlogger_v0_0.BlockTable;
+import positionlogger_v0_0.VoxelWorld;
+
+/**
+ * An in-memory box of {@link SyntheticBlocks} states centred on x = z = 0.
+ * Everything outside the box is air with no surface. Sky light is taken to
+ * fall straight down: a block is lit when nothing is above it in its column.
+ *
+ * Built once by a {@link Scene}, then only read, so the sampler's workers
+ * can share it.
+ */
+final class SyntheticWorld implements VoxelWorld {
+
+    private final int radius;
+    private final int size;
+    private final int minY;
+    private final int height;
+    // Indexed by ((x + radius) * size + (z + radius)) * height + (y - minY)
+    private final byte[] states;
+    private final int[] surfaces;
+    private int surfaceTop = NO_SURFACE;
+
+    SyntheticWorld(int radius, int minY, int height) {
+        this.radius = radius;
+        this.size = 2 * radius;
+        this.minY = minY;
+        this.height = height;
+        this.states = new byte[size * size * height];
+        this.surfaces = new int[size * size];
+    }
+
+    void set(int x, int y, int z, int state) {
+        if (!contains(x, y, z)) return;
+        states[index(x, y, z)] = (byte) state;
+    }
+
+    void fill(int x0, int y0, int z0, int x1, int y1, int z1, int state) {
+        for (int x = x0; x < x1; x++) {
+            for (int z = z0; z < z1; z++) {
+                for (int y = y0; y < y1; y++) {
+                    set(x, y, z, state);
+                }
+            }
+        }
+    }
+
+    /** Computes the column surfaces; call once the scene is built. */
+    void finish() {
+        surfaceTop = NO_SURFACE;
+        for (int c = 0; c < surfaces.length; c++) {
+            int base = c * height;
+            int top = height;
+            while (top > 0 && states[base + top - 1] == AIR) top--;
+            surfaces[c] = minY + top;
+            surfaceTop = Math.max(surfaceTop, surfaces[c]);
+        }
+    }
+
+    int radius() {
+        return radius;
+    }
+
+    @Override
+    public int stateId(int x, int y, int z) {
+        return contains(x, y, z) ? states[index(x, y, z)] : AIR;
+    }
+
+    @Override
+    public int surface(int x, int z) {
+        if (x < -radius || x >= radius || z < -radius || z >= radius) return NO_SURFACE;
+        return surfaces[(x + radius) * size + (z + radius)];
+    }
+
+    @Override
+    public int surfaceTop() {
+        return surfaceTop;
+    }
+
+    @Override
+    public boolean skyLit(int x, int y, int z) {
+        int surface = surface(x, z);
+        return surface == NO_SURFACE || y >= surface;
+    }
+
+    @Override
+    public BlockTable blocks() {
+        return SyntheticBlocks.INSTANCE;
+    }
+
+    @Override
+    public boolean clipOutline(int x, int y, int z,
+                               double fx, double fy, double fz,
+                               double tx, double ty, double tz,
+                               double[] hit) {
+        double[] box = SyntheticBlocks.outlineBox(stateId(x, y, z));
+        return box != null && clipBox(box, x, y, z, fx, fy, fz, tx, ty, tz, hit);
+    }
+
+    @Override
+    public boolean clipCollider(int x, int y, int z,
+                                double fx, double fy, double fz,
+                                double tx, double ty, double tz,
+                                double[] hit) {
+        double[] box = SyntheticBlocks.colliderBox(stateId(x, y, z));
+        return box != null && clipBox(box, x, y, z, fx, fy, fz, tx, ty, tz, hit);
+    }
+
+    /**
+     * {@code VoxelShape.clip} for a single box: a segment starting inside
+     * hits just past its start, otherwise at the nearest face it enters.
+     */
+    private static boolean clipBox(double[] box, int x, int y, int z,
+                                   double fx, double fy, double fz,
+                                   double tx, double ty, double tz,
+                                   double[] hit) {
+        double dx = tx - fx;
+        double dy = ty - fy;
+        double dz = tz - fz;
+        if (dx * dx + dy * dy + dz * dz < 1.0E-7) return false;
+
+        double minX = x + box[0], minY = y + box[1], minZ = z + box[2];
+        double maxX = x + box[3], maxY = y + box[4], maxZ = z + box[5];
+
+        double ix = fx + dx * 0.001;
+        double iy = fy + dy * 0.001;
+        double iz = fz + dz * 0.001;
+        if (ix >= minX && ix < maxX && iy >= minY && iy < maxY && iz >= minZ && iz < maxZ) {
+            return hit(hit, ix, iy, iz);
+        }
+
+        // Entry face per axis, with the face tolerance of AABB.clip
+        double best = 1.0;
+        boolean found = false;
+
+        if (dx > 1.0E-7 || dx < -1.0E-7) {
+            double t = ((dx > 0 ? minX : maxX) - fx) / dx;
+            if (t > 0.0 && t < best && within(fy + t * dy, minY, maxY) && within(fz + t * dz, minZ, maxZ)) {
+                best = t;
+                found = true;
+            }
+        }
+        if (dy > 1.0E-7 || dy < -1.0E-7) {
+            double t = ((dy > 0 ? minY : maxY) - fy) / dy;
+            if (t > 0.0 && t < best && within(fz + t * dz, minZ, maxZ) && within(fx + t * dx, minX, maxX)) {
+                best = t;
+                found = true;
+            }
+        }
+        if (dz > 1.0E-7 || dz < -1.0E-7) {
+            double t = ((dz > 0 ? minZ : maxZ) - fz) / dz;
+            if (t > 0.0 && t < best && within(fx + t * dx, minX, maxX) && within(fy + t * dy, minY, maxY)) {
+                best = t;
+                found = true;
+            }
+        }
+
+        return found && hit(hit, fx + best * dx, fy + best * dy, fz + best * dz);
+    }
+
+    private static boolean within(double v, double min, double max) {
+        return min - 1.0E-7 < v && v < max + 1.0E-7;
+    }
+
+    private static boolean hit(double[] hit, double x, double y, double z) {
+        hit[0] = x;
+        hit[1] = y;
+        hit[2] = z;
+        return true;
+    }
+
+    private boolean contains(int x, int y, int z) {
+        return x >= -radius && x < radius && z >= -radius && z < radius && y >= minY && y < minY + height;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((x + radius) * size + (z + radius)) * height + (y - minY);
+    }
+}
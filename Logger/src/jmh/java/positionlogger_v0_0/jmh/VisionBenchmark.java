@@ -0,0 +1,123 @@
+package positionlogger_v0_0.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import positionlogger_v0_0.LoggerConfig;
+import positionlogger_v0_0.VisionSampler;
+import positionlogger_v0_0.util.IdCounter;
+
+/**
+ * One player's vision features per operation, as the logger runs them each
+ * tick: the visible-blocks grid (rays plus aggregation) and the outdoor ray
+ * fan. Each operation takes the next of a fixed set of viewpoints in the
+ * scene, so the numbers average over views rather than replaying one.
+ *
+ * Besides operations per second, {@code visibleBlocks} reports the grid rays
+ * cast as the {@code rays} counter, which is what the adaptive mode saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisionBenchmark {
+
+    private static final int VIEWS = 32;
+    private static final long SEED = 42;
+
+    @Param({ "plains", "forest", "caves" })
+    public String scene;
+
+    @Param({ "UNIFORM", "ADAPTIVE" })
+    public LoggerConfig.SamplingMode mode;
+
+    @Param({ "128" })
+    public int width;
+
+    @Param({ "64" })
+    public int height;
+
+    // 0 casts on the benchmark thread, as with sampling.threads=0
+    @Param({ "0" })
+    public int threads;
+
+    /** Grid rays cast, reported per second next to the operations. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Rays {
+        public long rays;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            rays = 0;
+        }
+    }
+
+    private SyntheticWorld world;
+    private double[][] views;
+    private VisionSampler sampler;
+    private VisionSampler.Job job;
+    private List<VisionSampler.Job> jobs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Scene s = Scene.byLabel(scene);
+        world = s.create(SEED);
+        views = s.views(VIEWS, SEED);
+
+        LoggerConfig config = LoggerConfig.defaults();
+        config.samplingMode = mode;
+        config.samplingWidth = width;
+        config.samplingHeight = height;
+        config.samplingThreads = threads;
+        sampler = new VisionSampler(config);
+        job = new VisionSampler.Job();
+        jobs = List.of(job);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sampler.close();
+    }
+
+    @Benchmark
+    public IdCounter visibleBlocks(Rays rays) {
+        nextView();
+        job.select(true, false);
+        sampler.run(jobs);
+        rays.rays += job.raysCast();
+        return job.visibleBlocks();
+    }
+
+    @Benchmark
+    public boolean outdoorFan() {
+        nextView();
+        job.select(false, true);
+        sampler.run(jobs);
+        return job.outsideObservable();
+    }
+
+    private void nextView() {
+        double[] v = views[next];
+        next = (next + 1) % views.length;
+        sampler.reset(job, world, v[0], v[1], v[2], v[3], v[4], v[5]);
+    }
+}
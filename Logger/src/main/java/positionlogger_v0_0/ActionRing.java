@@ -0,0 +1,67 @@
+package positionlogger_v0_0;
+
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * Preallocated ring of the actions one player did since the last drain.
+ *
+ * Event hooks only store a kind and the game object involved (a Block, an
+ * EntityType or a damage type Holder): no strings, no registry or map
+ * lookups. Resolving to ids happens once per tick in {@link PlayerActions}.
+ * When more actions arrive than fit between two drains the oldest are
+ * overwritten; only the latest action of each kind is logged anyway.
+ *
+ * One producer and one consumer, both on the server thread, so there are no
+ * locks and no atomics.
+ */
+public final class ActionRing {
+
+    public static final int BLOCK_HIT = 0;
+    public static final int BLOCK_BROKEN = 1;
+    public static final int BLOCK_PLACED = 2;
+    public static final int DAMAGE_TAKEN = 3;
+    public static final int MOB_HIT = 4;
+    public static final int MOB_KILLED = 5;
+
+    // Power of two
+    private static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+
+    private final byte[] kinds = new byte[CAPACITY];
+    private final Object[] subjects = new Object[CAPACITY];
+
+    // Total actions pushed and drained; head - tail <= CAPACITY
+    private long head;
+    private long tail;
+
+    public interface Drain {
+        void accept(int kind, Object subject);
+    }
+
+    /**
+     * Pushes onto the player's ring; players without one (client side) are
+     * ignored.
+     */
+    public static void record(Player player, int kind, Object subject) {
+        if (player instanceof PlayerActionSource source) {
+            source.positionlogger$actions().push(kind, subject);
+        }
+    }
+
+    public void push(int kind, Object subject) {
+        int i = (int) head & MASK;
+        kinds[i] = (byte) kind;
+        subjects[i] = subject;
+        head++;
+        if (head - tail > CAPACITY) tail = head - CAPACITY;
+    }
+
+    /** Hands every pending action to {@code drain}, oldest first. */
+    public void drain(Drain drain) {
+        for (; tail < head; tail++) {
+            int i = (int) tail & MASK;
+            drain.accept(kinds[i], subjects[i]);
+            subjects[i] = null;
+        }
+    }
+}
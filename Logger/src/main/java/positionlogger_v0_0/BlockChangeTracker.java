@@ -0,0 +1,99 @@
+package positionlogger_v0_0;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+/**
+ * Tells whether any block inside a region changed since some point in time.
+ *
+ * Every chunk carries a stamp from a global clock ({@link ChunkChangeStamp}),
+ * set when it is loaded and bumped on each block change. A region is unchanged
+ * if its highest stamp and its number of loaded chunks are both the same as
+ * before: edits and newly loaded chunks raise the maximum, unloads lower the
+ * count.
+ */
+public final class BlockChangeTracker {
+
+    private static final AtomicLong CLOCK = new AtomicLong();
+
+    private BlockChangeTracker() {
+    }
+
+    public static long nextStamp() {
+        return CLOCK.incrementAndGet();
+    }
+
+    public static void markChanged(LevelChunk chunk) {
+        ((ChunkChangeStamp) chunk).positionlogger$setStamp(nextStamp());
+    }
+
+    /**
+     * Highest first-free Y of the chunk's WORLD_SURFACE heightmap, i.e. every
+     * block at or above it is air. Recomputed only after the chunk changed.
+     * Server thread only.
+     */
+    public static int surfaceTop(LevelChunk chunk) {
+        ChunkChangeStamp stamp = (ChunkChangeStamp) chunk;
+        long current = stamp.positionlogger$getStamp();
+        if (stamp.positionlogger$getSurfaceStamp() == current) {
+            return stamp.positionlogger$getSurfaceTop();
+        }
+
+        int top = Integer.MIN_VALUE;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                top = Math.max(top, chunk.getHeight(Heightmap.Types.WORLD_SURFACE, x, z) + 1);
+            }
+        }
+        stamp.positionlogger$setSurfaceTop(current, top);
+        return top;
+    }
+
+    /**
+     * Summary of the chunks around a point; compare two with {@link #sameAs}.
+     */
+    public static final class RegionStamp {
+        long maxStamp;
+        int loadedChunks;
+
+        public boolean sameAs(RegionStamp other) {
+            return maxStamp == other.maxStamp && loadedChunks == other.loadedChunks;
+        }
+
+        public void copyFrom(RegionStamp other) {
+            this.maxStamp = other.maxStamp;
+            this.loadedChunks = other.loadedChunks;
+        }
+    }
+
+    /**
+     * Scans the chunks within {@code radius} blocks (horizontally) of the
+     * given point. Server thread only.
+     */
+    public static void scan(ServerLevel level, double x, double z, double radius, RegionStamp out) {
+        int minCX = SectionPos.blockToSectionCoord((int) Math.floor(x - radius));
+        int maxCX = SectionPos.blockToSectionCoord((int) Math.floor(x + radius));
+        int minCZ = SectionPos.blockToSectionCoord((int) Math.floor(z - radius));
+        int maxCZ = SectionPos.blockToSectionCoord((int) Math.floor(z + radius));
+
+        long max = 0;
+        int loaded = 0;
+
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cz = minCZ; cz <= maxCZ; cz++) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(cx, cz);
+                if (chunk == null) continue;
+
+                loaded++;
+                max = Math.max(max, ((ChunkChangeStamp) chunk).positionlogger$getStamp());
+            }
+        }
+
+        out.maxStamp = max;
+        out.loadedChunks = loaded;
+    }
+}
@@ -0,0 +1,150 @@
+package positionlogger_v0_0;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.EmptyBlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+import net.minecraft.world.level.material.FlowingFluid;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+/**
+ * Writes the shape of every block state to {@value #FILE} in the segment
+ * directory, so {@code logtools vision} can replay the vision groups of a
+ * deferred log against a saved world without the game. One line per state:
+ *
+ * <pre>
+ * minecraft:oak_slab[type=bottom,waterlogged=true]  0,0,0,1,0.5,1  0,0,0,1,0.5,1  minecraft:water,0.8888889  -
+ * </pre>
+ *
+ * separated by tabs: the state as a region file's palette names it
+ * (properties sorted by name), the OUTLINE and collision shapes as boxes
+ * {@code minX,minY,minZ,maxX,maxY,maxZ} joined by {@code ;} ({@code -} when
+ * empty), the fluid's still form and own height, and the random offset of
+ * plants as {@code xz|xyz,maxHorizontal,maxVertical}. Shapes are taken in an
+ * empty world with no entity and with the offset removed.
+ */
+final class BlockShapeExport {
+
+    static final String FILE = "block-shapes.tsv";
+    private static final String HEADER = "# PositionLogger block shapes, minecraft ";
+
+    private BlockShapeExport() {
+    }
+
+    /** Writes the file unless it exists for the running game version. */
+    static void writeIfOutdated(Path dir) throws IOException {
+        String header = HEADER + FabricLoader.getInstance().getModContainer("minecraft")
+                .map(m -> m.getMetadata().getVersion().getFriendlyString()).orElse("unknown");
+        Path file = dir.resolve(FILE);
+
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file)) {
+                if (header.equals(in.readLine())) return;
+            }
+        }
+
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve(FILE + ".tmp");
+        int states = 0;
+        try (Writer out = Files.newBufferedWriter(tmp)) {
+            out.write(header);
+            out.write("\n# state\tshape\tcollision\tfluid\toffset\n");
+            for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+                out.write(line(state));
+                out.write('\n');
+                states++;
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+
+        System.out.println("[PositionLogger] Wrote the shapes of " + states + " block states to " + file);
+    }
+
+    private static String line(BlockState state) {
+        Vec3 offset = state.getOffset(BlockPos.ZERO);
+
+        VoxelShape shape = state.getShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+        VoxelShape collision = state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+
+        StringBuilder sb = new StringBuilder(stateName(state));
+        sb.append('\t');
+        boxes(sb, shape, offset);
+        sb.append('\t');
+        boxes(sb, collision, offset);
+
+        sb.append('\t');
+        FluidState fluid = state.getFluidState();
+        if (fluid.isEmpty()) {
+            sb.append('-');
+        } else {
+            Fluid type = fluid.getType();
+            Fluid still = type instanceof FlowingFluid flowing ? flowing.getSource() : type;
+            sb.append(BuiltInRegistries.FLUID.getKey(still)).append(',').append(fluid.getOwnHeight());
+        }
+
+        // At the origin the offset is never zero for a block that has one
+        sb.append('\t');
+        if (offset.equals(Vec3.ZERO)) {
+            sb.append('-');
+        } else {
+            Block block = state.getBlock();
+            sb.append(offset.y != 0 ? "xyz" : "xz")
+                    .append(',').append(block.getMaxHorizontalOffset())
+                    .append(',').append(block.getMaxVerticalOffset());
+        }
+        return sb.toString();
+    }
+
+    // Block id plus [name=value,...] in name order, as in a chunk's palette
+    static String stateName(BlockState state) {
+        StringBuilder sb = new StringBuilder(BuiltInRegistries.BLOCK.getKey(state.getBlock()).toString());
+
+        List<Property<?>> properties = new ArrayList<>(state.getProperties());
+        if (properties.isEmpty()) return sb.toString();
+        properties.sort(Comparator.comparing(Property::getName));
+
+        sb.append('[');
+        for (int i = 0; i < properties.size(); i++) {
+            if (i > 0) sb.append(',');
+            Property<?> property = properties.get(i);
+            sb.append(property.getName()).append('=').append(valueName(state, property));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static <T extends Comparable<T>> String valueName(BlockState state, Property<T> property) {
+        return property.getName(state.getValue(property));
+    }
+
+    private static void boxes(StringBuilder sb, VoxelShape shape, Vec3 offset) {
+        if (shape.isEmpty()) {
+            sb.append('-');
+            return;
+        }
+
+        List<AABB> boxes = shape.toAabbs();
+        for (int i = 0; i < boxes.size(); i++) {
+            AABB b = boxes.get(i);
+            if (i > 0) sb.append(';');
+            sb.append(b.minX - offset.x).append(',').append(b.minY - offset.y).append(',').append(b.minZ - offset.z)
+                    .append(',').append(b.maxX - offset.x).append(',').append(b.maxY - offset.y).append(',').append(b.maxZ - offset.z);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package positionlogger_v0_0;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.EmptyBlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.LightBlock;
+import net.minecraft.world.level.block.PowderSnowBlock;
+import net.minecraft.world.level.block.ScaffoldingBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+/**
+ * The game's {@link BlockTable}: per-BlockState classification of what a
+ * ray can hit, indexed by {@code Block.BLOCK_STATE_REGISTRY} id.
+ *
+ * Filled lazily; concurrent fills of the same entry write the same value.
+ */
+public final class BlockSurfaceTable implements BlockTable {
+
+    private static volatile BlockSurfaceTable instance;
+
+    // OUTLINE block shape combined with Fluid.ANY, as used by the block sampler
+    private final byte[] outline;
+    // COLLIDER block shape with Fluid.NONE, as used by the outdoor check
+    private final byte[] collider;
+    // Block raw id + 1 per state, 0 if not resolved yet
+    private final int[] blockIds;
+
+    private BlockSurfaceTable(int size) {
+        this.outline = new byte[size];
+        this.collider = new byte[size];
+        this.blockIds = new int[size];
+    }
+
+    public static BlockSurfaceTable get() {
+        BlockSurfaceTable table = instance;
+        if (table == null || table.outline.length != Block.BLOCK_STATE_REGISTRY.size()) {
+            table = new BlockSurfaceTable(Block.BLOCK_STATE_REGISTRY.size());
+            instance = table;
+        }
+        return table;
+    }
+
+    @Override
+    public byte outlineClass(int stateId) {
+        byte c = outline[stateId];
+        if (c == UNKNOWN) {
+            c = classifyOutline(Block.BLOCK_STATE_REGISTRY.byId(stateId));
+            outline[stateId] = c;
+        }
+        return c;
+    }
+
+    @Override
+    public byte colliderClass(int stateId) {
+        byte c = collider[stateId];
+        if (c == UNKNOWN) {
+            c = classifyCollider(Block.BLOCK_STATE_REGISTRY.byId(stateId));
+            collider[stateId] = c;
+        }
+        return c;
+    }
+
+    /**
+     * {@code BuiltInRegistries.BLOCK} raw id of the state's block.
+     */
+    @Override
+    public int blockId(int stateId) {
+        int id = blockIds[stateId] - 1;
+        if (id < 0) {
+            BlockState state = Block.BLOCK_STATE_REGISTRY.byId(stateId);
+            id = BuiltInRegistries.BLOCK.getId(state.getBlock());
+            blockIds[stateId] = id + 1;
+        }
+        return id;
+    }
+
+    @Override
+    public int blockCount() {
+        return BuiltInRegistries.BLOCK.size();
+    }
+
+    private static byte classifyOutline(BlockState state) {
+        // Shapes that depend on the collision context or change over time
+        if (state.hasDynamicShape() || state.getBlock() instanceof LightBlock) return PARTIAL;
+
+        VoxelShape shape = state.getShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+
+        if (Block.isShapeFullBlock(shape)) return FULL;
+        if (!state.getFluidState().isEmpty()) return PARTIAL;
+        if (shape.isEmpty()) return EMPTY;
+        return PARTIAL;
+    }
+
+    private static byte classifyCollider(BlockState state) {
+        // Collision depends on the entity (boots, sneaking, standing above)
+        if (state.hasDynamicShape()
+                || state.getBlock() instanceof PowderSnowBlock
+                || state.getBlock() instanceof ScaffoldingBlock) {
+            return PARTIAL;
+        }
+
+        VoxelShape shape = state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+
+        if (Block.isShapeFullBlock(shape)) return FULL;
+        if (shape.isEmpty()) return EMPTY;
+        return PARTIAL;
+    }
+}
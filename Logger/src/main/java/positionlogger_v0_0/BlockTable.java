@@ -0,0 +1,28 @@
+package positionlogger_v0_0;
+
+/**
+ * Per-state facts the ray code needs, indexed by block state id: what a
+ * ray can hit in the voxel, and which block the state belongs to.
+ */
+public interface BlockTable {
+
+    byte UNKNOWN = 0;
+    /** Nothing to hit: the ray passes straight through. */
+    byte EMPTY = 1;
+    /** A full cube: any ray entering the voxel hits it. */
+    byte FULL = 2;
+    /** Anything else; needs an exact shape test. */
+    byte PARTIAL = 3;
+
+    /** Class of the OUTLINE shape combined with any fluid. */
+    byte outlineClass(int stateId);
+
+    /** Class of the collision shape, ignoring fluids. */
+    byte colliderClass(int stateId);
+
+    /** Raw id of the state's block, for the VisibleBlocks column. */
+    int blockId(int stateId);
+
+    /** Number of blocks; block ids are below it. */
+    int blockCount();
+}
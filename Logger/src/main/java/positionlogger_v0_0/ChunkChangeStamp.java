@@ -0,0 +1,24 @@
+package positionlogger_v0_0;
+
+/**
+ * Implemented on {@code LevelChunk} by mixin: the value of
+ * {@link BlockChangeTracker}'s clock at the chunk's last block change, or
+ * at load time if nothing changed since.
+ *
+ * Also holds data derived from the chunk's blocks together with the stamp it
+ * was computed at, so it can be reused until the chunk changes.
+ */
+public interface ChunkChangeStamp {
+
+    long positionlogger$getStamp();
+
+    void positionlogger$setStamp(long stamp);
+
+    /** Stamp {@link #positionlogger$getSurfaceTop()} was computed at; 0 if never. */
+    long positionlogger$getSurfaceStamp();
+
+    /** Highest first-free Y of the chunk's WORLD_SURFACE heightmap. */
+    int positionlogger$getSurfaceTop();
+
+    void positionlogger$setSurfaceTop(long stamp, int top);
+}
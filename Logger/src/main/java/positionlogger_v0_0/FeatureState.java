@@ -0,0 +1,68 @@
+package positionlogger_v0_0;
+
+import java.util.Arrays;
+
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * Latest result of each expensive feature for one player, and the tick it
+ * was computed on. Records copy from here whenever a feature is skipped.
+ *
+ * Result arrays are shared with the records already written and must not
+ * be modified in place.
+ */
+public final class FeatureState {
+
+    private static final int[] NO_IDS = new int[0];
+
+    // Indexed by WorkScheduler.Feature.ordinal(); Long.MIN_VALUE = never computed
+    final long[] computedTick = new long[WorkScheduler.Feature.COUNT];
+    // Set by the scheduler for the current tick
+    final boolean[] due = new boolean[WorkScheduler.Feature.COUNT];
+
+    // --- Visible blocks ---
+    int[] visibleBlockIds = NO_IDS;
+    int[] visibleBlockCounts = NO_IDS;
+
+    // --- Outdoor check ---
+    boolean outsideObservable = false;
+
+    // --- Mob scan (after smoothing) ---
+    boolean viewingMob = false;
+    int closestViewingMob = PlayerRecord.NONE;
+    int[] viewingMobIds = NO_IDS;
+    int[] viewingMobCounts = NO_IDS;
+
+    public FeatureState() {
+        Arrays.fill(computedTick, Long.MIN_VALUE);
+    }
+
+    public boolean isDue(WorkScheduler.Feature feature) {
+        return due[feature.ordinal()];
+    }
+
+    void markComputed(WorkScheduler.Feature feature, long tick) {
+        computedTick[feature.ordinal()] = tick;
+        due[feature.ordinal()] = false;
+    }
+
+    /** Whether the feature was computed within the last {@code ticks} ticks. */
+    boolean computedWithin(WorkScheduler.Feature feature, long tick, int ticks) {
+        long computed = computedTick[feature.ordinal()];
+        return computed != Long.MIN_VALUE && tick - computed < Math.max(1, ticks);
+    }
+
+    boolean neverComputed(WorkScheduler.Feature feature) {
+        return computedTick[feature.ordinal()] == Long.MIN_VALUE;
+    }
+
+    /**
+     * Ticks since the feature was last computed; 0 if computed this tick,
+     * {@link PlayerRecord#NONE} if never.
+     */
+    public int age(WorkScheduler.Feature feature, long tick) {
+        long computed = computedTick[feature.ordinal()];
+        if (computed == Long.MIN_VALUE) return PlayerRecord.NONE;
+        return (int) Math.min(Integer.MAX_VALUE, tick - computed);
+    }
+}
@@ -0,0 +1,18 @@
+package positionlogger_v0_0;
+
+/**
+ * Implemented on {@code Inventory} by mixin: one bit per container slot
+ * (0-40) whose stack changed since the bits were last taken. Set from
+ * {@code Inventory}'s own mutators as they run (all bits where the slot is
+ * not known), and from the menus' change detection for stacks changed in
+ * place, see {@code AbstractContainerMenuMixin}.
+ *
+ * Server thread only.
+ */
+public interface InventoryChangeFlags {
+
+    void positionlogger$markChanged(int containerSlot);
+
+    /** Returns the changed slots and clears them. */
+    long positionlogger$takeChanged();
+}
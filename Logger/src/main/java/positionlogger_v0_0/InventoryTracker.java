@@ -0,0 +1,143 @@
+package positionlogger_v0_0;
+
+import java.util.Objects;
+
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * Inventory columns of one player, re-read only where the game reported a
+ * change ({@link InventoryChangeFlags}) and in full every few ticks. The
+ * held stacks and the slots the open menu does not show, whose in-place
+ * changes go unreported until later, are compared every tick.
+ *
+ * The slot arrays are shared by all records until something changes and are
+ * then replaced, never modified, so records can keep them.
+ *
+ * Server thread only.
+ */
+public final class InventoryTracker {
+
+    private static final int INVENTORY_SIZE = 41;
+    private static final long ALL_SLOTS = (1L << INVENTORY_SIZE) - 1;
+
+    // Record slot of each inventory container slot: 0-35 main, then the
+    // equipment slots FEET, LEGS, CHEST, HEAD, OFFHAND
+    private static final int[] RECORD_SLOT = new int[INVENTORY_SIZE];
+
+    // Equipment behind each record slot from ARMOR_OFFSET on
+    private static final EquipmentSlot[] EQUIPMENT = {
+            EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET,
+            EquipmentSlot.OFFHAND
+    };
+
+    static {
+        for (int i = 0; i < PlayerRecord.MAIN_SLOTS; i++) {
+            RECORD_SLOT[i] = i;
+        }
+        RECORD_SLOT[36] = PlayerRecord.ARMOR_OFFSET + 3;
+        RECORD_SLOT[37] = PlayerRecord.ARMOR_OFFSET + 2;
+        RECORD_SLOT[38] = PlayerRecord.ARMOR_OFFSET + 1;
+        RECORD_SLOT[39] = PlayerRecord.ARMOR_OFFSET;
+        RECORD_SLOT[40] = PlayerRecord.OFFHAND_SLOT;
+    }
+
+    // Respawning replaces the player and its inventory
+    private Inventory inventory;
+    private long keyframeTick;
+
+    // The open menu and the inventory slots it has no slot for, which its
+    // change detection cannot report (e.g. armor and offhand behind a chest)
+    private AbstractContainerMenu menu;
+    private long unobserved;
+
+    private String[] items = new String[PlayerRecord.SLOT_COUNT];
+    private int[] counts = new int[PlayerRecord.SLOT_COUNT];
+
+    /**
+     * Fills the record's slot columns.
+     *
+     * @param keyframeTicks re-read every slot at least this often; 0 = always
+     */
+    public void capture(ServerPlayer player, long tick, int keyframeTicks, PlayerRecord.Builder record) {
+        Inventory current = player.getInventory();
+        long changed = ((InventoryChangeFlags) current).positionlogger$takeChanged();
+        // Using an item shrinks the held stack in place, which only the next
+        // menu broadcast would report
+        changed |= 1L << current.getSelectedSlot() | 1L << Inventory.SLOT_OFFHAND;
+
+        if (player.containerMenu != menu || current != inventory) {
+            menu = player.containerMenu;
+            unobserved = unobservedSlots(menu, current);
+        }
+
+        if (current != inventory || keyframeTicks <= 0 || tick - keyframeTick >= keyframeTicks) {
+            inventory = current;
+            keyframeTick = tick;
+            items = new String[PlayerRecord.SLOT_COUNT];
+            counts = new int[PlayerRecord.SLOT_COUNT];
+            for (int slot = 0; slot < PlayerRecord.SLOT_COUNT; slot++) {
+                read(player, slot);
+            }
+        } else {
+            changed |= unobserved;
+            boolean copied = false;
+            for (int i = 0; i < INVENTORY_SIZE; i++) {
+                if ((changed & (1L << i)) == 0) continue;
+
+                int slot = RECORD_SLOT[i];
+                ItemStack stack = stack(player, slot);
+                String item = stack == null || stack.isEmpty() ? null : RegistryNames.get().itemName(stack.getItem());
+                int count = item == null ? 0 : stack.getCount();
+                if (Objects.equals(item, items[slot]) && count == counts[slot]) continue;
+
+                // Most of these are polled, not changed; copy only on a real change
+                if (!copied) {
+                    items = items.clone();
+                    counts = counts.clone();
+                    copied = true;
+                }
+                items[slot] = item;
+                counts[slot] = count;
+            }
+        }
+
+        record.slotItems = items;
+        record.slotCounts = counts;
+    }
+
+    private void read(ServerPlayer player, int slot) {
+        ItemStack stack = stack(player, slot);
+        if (stack == null || stack.isEmpty()) {
+            items[slot] = null;
+            counts[slot] = 0;
+        } else {
+            items[slot] = RegistryNames.get().itemName(stack.getItem());
+            counts[slot] = stack.getCount();
+        }
+    }
+
+    private static ItemStack stack(ServerPlayer player, int slot) {
+        return slot < PlayerRecord.MAIN_SLOTS
+                ? player.getInventory().getItem(slot)
+                : player.getItemBySlot(EQUIPMENT[slot - PlayerRecord.ARMOR_OFFSET]);
+    }
+
+    // Inventory container slots without a slot in the menu
+    private static long unobservedSlots(AbstractContainerMenu menu, Inventory inventory) {
+        long unobserved = ALL_SLOTS;
+        for (Slot slot : menu.slots) {
+            int index = slot.getContainerSlot();
+            if (slot.container == inventory && index >= 0 && index < INVENTORY_SIZE) {
+                unobserved &= ~(1L << index);
+            }
+        }
+        return unobserved;
+    }
+}
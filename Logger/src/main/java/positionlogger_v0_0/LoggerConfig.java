@@ -0,0 +1,400 @@
+package positionlogger_v0_0;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+import positionlogger_v0_0.output.AsyncLogWriter.BackpressurePolicy;
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.SegmentedRecordSink.FlushPolicy;
+
+/**
+ * Settings read from {@code config/positionlogger.properties}.
+ *
+ * Missing keys fall back to the defaults below; a file with all defaults is
+ * written on first start so the available keys are discoverable. The file is
+ * re-read while the server runs, see {@link #differs}.
+ */
+public final class LoggerConfig {
+
+    public enum OutputFormat {
+        /** One text row per record in {@code .csv} segments. */
+        CSV,
+        /** Binary row groups in {@code .plcol} segments, see {@code ColumnarFormat}. */
+        COLUMNAR
+    }
+
+    public enum SamplingMode {
+        /** Every ray of the width x height grid. */
+        UNIFORM,
+        /** Coarse grid refined where neighbouring rays disagree, finer near the view center. */
+        ADAPTIVE
+    }
+
+    // --- Logging ---
+    // While false nothing is computed or written, and the open segment is closed
+    public boolean loggingEnabled = true;
+
+    // --- Output ---
+    public OutputFormat outputFormat = OutputFormat.CSV;
+    public int rowGroupSize = 4096;
+    // Column groups written (columns.<group> = true/false); the rest are
+    // neither computed nor written. All but the viewpoint by default
+    public Set<ColumnGroup> columns = defaultColumns();
+
+    // --- Segments (files below the game directory) ---
+    public String segmentDirectory = "positionlogger";
+    // Rotation triggers; 0 / false turns one off
+    public int segmentMaxMegabytes = 256;
+    public int segmentMaxMinutes = 0;
+    public boolean segmentRotateOnGameDay = false;
+    // Gzip closed segments in the background
+    public boolean segmentCompress = true;
+    // Tick/player index of record offsets next to each segment (<segment>.idx)
+    public boolean segmentIndex = true;
+
+    // --- Durability ---
+    // When written data is flushed: IDLE, TICKS, MILLIS or ROTATION
+    public FlushPolicy flushPolicy = FlushPolicy.TICKS;
+    public int flushEveryTicks = 20;
+    public int flushEveryMillis = 1000;
+
+    // --- Writer queue ---
+    public int queueCapacity = 8192;
+    public BackpressurePolicy queuePolicy = BackpressurePolicy.BLOCK;
+    public int queueSampleEvery = 4;
+
+    // --- Vision sampling ---
+    // Worker threads for ray sampling; 0 keeps it on the server thread
+    public int samplingThreads = 0;
+    public SamplingMode samplingMode = SamplingMode.UNIFORM;
+    // Adaptive mode: grid cells start this many rays wide and are not split
+    // below peripheryStep away from the view center (powers of two)
+    public int samplingBaseStep = 8;
+    public int samplingPeripheryStep = 2;
+    // Adaptive mode: every n-th sample is also compared against the full
+    // grid and reported at shutdown; 0 = never
+    public int samplingAccuracyEvery = 0;
+    // Ray grid, its field of view in degrees and the ray length in blocks
+    public int samplingWidth = VisionSampler.SAMPLE_W;
+    public int samplingHeight = VisionSampler.SAMPLE_H;
+    public double samplingFovHorizontal = VisionSampler.FOV_DEG_H;
+    public double samplingFovVertical = VisionSampler.FOV_DEG_V;
+    public double samplingMaxDistance = VisionSampler.BLOCK_SAMPLE_MAX_DISTANCE;
+
+    // --- View ---
+    // Reach of the highlighted-block pick, the viewed-mob scan and the
+    // outdoor check's rays
+    public double viewMaxDistance = 64.0;
+    // Log the viewpoint instead of the vision groups (outdoor, highlighted
+    // and visible blocks) and compute those later with "logtools vision"
+    // from a copy of the world
+    public boolean viewDeferred = false;
+
+    // --- Feature rates ---
+    // Compute a feature at most every n ticks per player; rows in between
+    // repeat the last result with a growing age
+    public int rateVisibleBlocks = 1;
+    public int rateOutdoor = 1;
+    public int rateMobs = 1;
+
+    // --- Vision cache ---
+    // Reuse the last vision result while the player stays within these bounds
+    public boolean cacheEnabled = true;
+    public double cachePositionEpsilon = 0.01;
+    public double cacheAngleEpsilonDeg = 0.1;
+    // Recompute at least this often even if nothing seems to have changed
+    public int cacheRefreshTicks = 100;
+
+    // --- Work budget ---
+    // Estimated milliseconds per tick for the expensive features; 0 = no limit
+    public double budgetTickMillis = 20.0;
+
+    // --- Stats ---
+    // Stage timings for /positionlogger stats and JFR; off costs nothing
+    public boolean statsEnabled = false;
+
+    // --- Live stream for bots (see Bot/positionlogger_stream.py) ---
+    public boolean streamEnabled = false;
+    public String streamHost = "127.0.0.1";
+    public int streamPort = 27100;
+    // Unix-domain socket below the game directory instead of TCP, if set
+    public String streamSocketPath = "";
+    // Ticks a subscriber may fall behind before its oldest are dropped
+    public int streamQueueTicks = 20;
+
+    // --- Inventory ---
+    // Slots are re-read when the game reports a change, and all of them at
+    // least this often (a keyframe); 0 = re-read every slot every tick
+    public int inventoryKeyframeTicks = 200;
+    // CSV rows between keyframes leave unchanged slots empty
+    public boolean inventoryDeltaRows = false;
+
+    // False if a value in the file was malformed or out of range
+    private boolean valid = true;
+
+    private LoggerConfig() {
+    }
+
+    /** The default settings, not backed by a file (benchmarks, tools). */
+    public static LoggerConfig defaults() {
+        return new LoggerConfig();
+    }
+
+    public static LoggerConfig load(Path file) {
+        LoggerConfig config = new LoggerConfig();
+        Properties props = new Properties();
+
+        if (Files.exists(file)) {
+            try (Reader in = Files.newBufferedReader(file)) {
+                props.load(in);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        config.read(props);
+
+        if (!Files.exists(file)) {
+            config.save(file);
+        }
+        return config;
+    }
+
+    private void read(Properties p) {
+        loggingEnabled = booleanValue(p, "logging.enabled", loggingEnabled);
+        outputFormat = enumValue(p, "output.format", outputFormat);
+        rowGroupSize = intValue(p, "output.rowGroupSize", rowGroupSize, 1, 1 << 20);
+        Set<ColumnGroup> defaults = defaultColumns();
+        columns = EnumSet.noneOf(ColumnGroup.class);
+        for (ColumnGroup group : ColumnGroup.values()) {
+            if (booleanValue(p, columnKey(group), defaults.contains(group))) columns.add(group);
+        }
+        segmentDirectory = p.getProperty("segment.directory", segmentDirectory).trim();
+        segmentMaxMegabytes = intValue(p, "segment.maxMegabytes", segmentMaxMegabytes, 0, Integer.MAX_VALUE);
+        segmentMaxMinutes = intValue(p, "segment.maxMinutes", segmentMaxMinutes, 0, Integer.MAX_VALUE);
+        segmentRotateOnGameDay = booleanValue(p, "segment.rotateOnGameDay", segmentRotateOnGameDay);
+        segmentCompress = booleanValue(p, "segment.compress", segmentCompress);
+        segmentIndex = booleanValue(p, "segment.index", segmentIndex);
+        flushPolicy = enumValue(p, "flush.policy", flushPolicy);
+        flushEveryTicks = intValue(p, "flush.everyTicks", flushEveryTicks, 0, Integer.MAX_VALUE);
+        flushEveryMillis = intValue(p, "flush.everyMillis", flushEveryMillis, 0, Integer.MAX_VALUE);
+        queueCapacity = intValue(p, "queue.capacity", queueCapacity, 1, 1 << 20);
+        queuePolicy = enumValue(p, "queue.policy", queuePolicy);
+        queueSampleEvery = intValue(p, "queue.sampleEvery", queueSampleEvery, 1, Integer.MAX_VALUE);
+        samplingThreads = intValue(p, "sampling.threads", samplingThreads, 0, 256);
+        samplingMode = enumValue(p, "sampling.mode", samplingMode);
+        samplingBaseStep = intValue(p, "sampling.baseStep", samplingBaseStep, 1, 1024);
+        samplingPeripheryStep = intValue(p, "sampling.peripheryStep", samplingPeripheryStep, 1, 1024);
+        samplingAccuracyEvery = intValue(p, "sampling.accuracyEvery", samplingAccuracyEvery, 0, Integer.MAX_VALUE);
+        samplingWidth = intValue(p, "sampling.width", samplingWidth, 2, 1024);
+        samplingHeight = intValue(p, "sampling.height", samplingHeight, 2, 1024);
+        samplingFovHorizontal = doubleValue(p, "sampling.fovHorizontal", samplingFovHorizontal, 1.0, 179.0);
+        samplingFovVertical = doubleValue(p, "sampling.fovVertical", samplingFovVertical, 1.0, 179.0);
+        samplingMaxDistance = doubleValue(p, "sampling.maxDistance", samplingMaxDistance, 1.0, 1024.0);
+        viewMaxDistance = doubleValue(p, "view.maxDistance", viewMaxDistance, 1.0, 1024.0);
+        viewDeferred = booleanValue(p, "view.deferred", viewDeferred);
+        rateVisibleBlocks = intValue(p, "rate.visibleBlocks", rateVisibleBlocks, 1, Integer.MAX_VALUE);
+        rateOutdoor = intValue(p, "rate.outdoor", rateOutdoor, 1, Integer.MAX_VALUE);
+        rateMobs = intValue(p, "rate.mobs", rateMobs, 1, Integer.MAX_VALUE);
+        cacheEnabled = booleanValue(p, "cache.enabled", cacheEnabled);
+        cachePositionEpsilon = doubleValue(p, "cache.positionEpsilon", cachePositionEpsilon, 0.0, 1024.0);
+        cacheAngleEpsilonDeg = doubleValue(p, "cache.angleEpsilonDeg", cacheAngleEpsilonDeg, 0.0, 180.0);
+        cacheRefreshTicks = intValue(p, "cache.refreshTicks", cacheRefreshTicks, 1, Integer.MAX_VALUE);
+        budgetTickMillis = doubleValue(p, "budget.tickMillis", budgetTickMillis, 0.0, 1000.0);
+        statsEnabled = booleanValue(p, "stats.enabled", statsEnabled);
+        streamEnabled = booleanValue(p, "stream.enabled", streamEnabled);
+        streamHost = p.getProperty("stream.host", streamHost).trim();
+        streamPort = intValue(p, "stream.port", streamPort, 0, 65535);
+        streamSocketPath = p.getProperty("stream.socketPath", streamSocketPath).trim();
+        streamQueueTicks = intValue(p, "stream.queueTicks", streamQueueTicks, 1, 1200);
+        inventoryKeyframeTicks = intValue(p, "inventory.keyframeTicks", inventoryKeyframeTicks, 0, Integer.MAX_VALUE);
+        inventoryDeltaRows = booleanValue(p, "inventory.deltaRows", inventoryDeltaRows);
+    }
+
+    /**
+     * Whether every value in the file was usable. Bad values are replaced
+     * by their defaults; a reload should keep the running settings instead.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    private void write(Properties p) {
+        p.setProperty("logging.enabled", Boolean.toString(loggingEnabled));
+        p.setProperty("output.format", outputFormat.name());
+        p.setProperty("output.rowGroupSize", Integer.toString(rowGroupSize));
+        for (ColumnGroup group : ColumnGroup.values()) {
+            p.setProperty(columnKey(group), Boolean.toString(columns.contains(group)));
+        }
+        p.setProperty("segment.directory", segmentDirectory);
+        p.setProperty("segment.maxMegabytes", Integer.toString(segmentMaxMegabytes));
+        p.setProperty("segment.maxMinutes", Integer.toString(segmentMaxMinutes));
+        p.setProperty("segment.rotateOnGameDay", Boolean.toString(segmentRotateOnGameDay));
+        p.setProperty("segment.compress", Boolean.toString(segmentCompress));
+        p.setProperty("segment.index", Boolean.toString(segmentIndex));
+        p.setProperty("flush.policy", flushPolicy.name());
+        p.setProperty("flush.everyTicks", Integer.toString(flushEveryTicks));
+        p.setProperty("flush.everyMillis", Integer.toString(flushEveryMillis));
+        p.setProperty("queue.capacity", Integer.toString(queueCapacity));
+        p.setProperty("queue.policy", queuePolicy.name());
+        p.setProperty("queue.sampleEvery", Integer.toString(queueSampleEvery));
+        p.setProperty("sampling.threads", Integer.toString(samplingThreads));
+        p.setProperty("sampling.mode", samplingMode.name());
+        p.setProperty("sampling.baseStep", Integer.toString(samplingBaseStep));
+        p.setProperty("sampling.peripheryStep", Integer.toString(samplingPeripheryStep));
+        p.setProperty("sampling.accuracyEvery", Integer.toString(samplingAccuracyEvery));
+        p.setProperty("sampling.width", Integer.toString(samplingWidth));
+        p.setProperty("sampling.height", Integer.toString(samplingHeight));
+        p.setProperty("sampling.fovHorizontal", Double.toString(samplingFovHorizontal));
+        p.setProperty("sampling.fovVertical", Double.toString(samplingFovVertical));
+        p.setProperty("sampling.maxDistance", Double.toString(samplingMaxDistance));
+        p.setProperty("view.maxDistance", Double.toString(viewMaxDistance));
+        p.setProperty("view.deferred", Boolean.toString(viewDeferred));
+        p.setProperty("rate.visibleBlocks", Integer.toString(rateVisibleBlocks));
+        p.setProperty("rate.outdoor", Integer.toString(rateOutdoor));
+        p.setProperty("rate.mobs", Integer.toString(rateMobs));
+        p.setProperty("cache.enabled", Boolean.toString(cacheEnabled));
+        p.setProperty("cache.positionEpsilon", Double.toString(cachePositionEpsilon));
+        p.setProperty("cache.angleEpsilonDeg", Double.toString(cacheAngleEpsilonDeg));
+        p.setProperty("cache.refreshTicks", Integer.toString(cacheRefreshTicks));
+        p.setProperty("budget.tickMillis", Double.toString(budgetTickMillis));
+        p.setProperty("stats.enabled", Boolean.toString(statsEnabled));
+        p.setProperty("stream.enabled", Boolean.toString(streamEnabled));
+        p.setProperty("stream.host", streamHost);
+        p.setProperty("stream.port", Integer.toString(streamPort));
+        p.setProperty("stream.socketPath", streamSocketPath);
+        p.setProperty("stream.queueTicks", Integer.toString(streamQueueTicks));
+        p.setProperty("inventory.keyframeTicks", Integer.toString(inventoryKeyframeTicks));
+        p.setProperty("inventory.deltaRows", Boolean.toString(inventoryDeltaRows));
+    }
+
+    /**
+     * The column groups the logger computes and writes: {@link #columns},
+     * except that with {@link #viewDeferred} the vision groups give way to
+     * the position, look and viewpoint they are replayed from.
+     */
+    public Set<ColumnGroup> loggedColumns() {
+        Set<ColumnGroup> logged = EnumSet.noneOf(ColumnGroup.class);
+        logged.addAll(columns);
+        if (viewDeferred) {
+            logged.removeAll(ColumnGroup.VISION);
+            logged.add(ColumnGroup.POSITION);
+            logged.add(ColumnGroup.LOOK);
+            logged.add(ColumnGroup.VIEWPOINT);
+        }
+        return logged;
+    }
+
+    /**
+     * Whether any key starting with one of the prefixes (e.g. "sampling.")
+     * has a different value in {@code other}.
+     */
+    public boolean differs(LoggerConfig other, String... keyPrefixes) {
+        Properties mine = new Properties();
+        Properties theirs = new Properties();
+        write(mine);
+        other.write(theirs);
+
+        for (String key : mine.stringPropertyNames()) {
+            for (String prefix : keyPrefixes) {
+                if (key.startsWith(prefix)) {
+                    if (!Objects.equals(mine.getProperty(key), theirs.getProperty(key))) return true;
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Set<ColumnGroup> defaultColumns() {
+        Set<ColumnGroup> columns = EnumSet.allOf(ColumnGroup.class);
+        columns.remove(ColumnGroup.VIEWPOINT);
+        return columns;
+    }
+
+    // columns.visibleBlocks for VISIBLE_BLOCKS
+    private static String columnKey(ColumnGroup group) {
+        StringBuilder key = new StringBuilder("columns.");
+        boolean upper = false;
+        for (char c : group.name().toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                key.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return key.toString();
+    }
+
+    private void save(Path file) {
+        Properties props = new Properties();
+        write(props);
+
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer out = Files.newBufferedWriter(file)) {
+                props.store(out, "PositionLogger settings");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int intValue(Properties p, String key, int def, int min, int max) {
+        String v = p.getProperty(key);
+        if (v == null) return def;
+        try {
+            int value = Integer.parseInt(v.trim());
+            if (value >= min && value <= max) return value;
+        } catch (NumberFormatException e) {
+            // Rejected below
+        }
+        return reject(key, v, def);
+    }
+
+    private double doubleValue(Properties p, String key, double def, double min, double max) {
+        String v = p.getProperty(key);
+        if (v == null) return def;
+        try {
+            // Also false for NaN
+            double value = Double.parseDouble(v.trim());
+            if (value >= min && value <= max) return value;
+        } catch (NumberFormatException e) {
+            // Rejected below
+        }
+        return reject(key, v, def);
+    }
+
+    private boolean booleanValue(Properties p, String key, boolean def) {
+        String v = p.getProperty(key);
+        if (v == null) return def;
+        String value = v.trim();
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        return reject(key, v, def);
+    }
+
+    private <E extends Enum<E>> E enumValue(Properties p, String key, E def) {
+        String v = p.getProperty(key);
+        if (v == null) return def;
+        try {
+            return Enum.valueOf(def.getDeclaringClass(), v.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return reject(key, v, def);
+        }
+    }
+
+    private <T> T reject(String key, String value, T def) {
+        System.out.println("[PositionLogger] Bad value for " + key + ": " + value);
+        valid = false;
+        return def;
+    }
+}
@@ -0,0 +1,190 @@
+package positionlogger_v0_0;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * Uniform grid of all mobs in a level, built once per tick and shared by the
+ * mob scans of every player in that level.
+ *
+ * Mobs are bucketed by the center of their bounding box. A view query walks
+ * the cells overlapping the query box and skips whole cells that cannot hold
+ * a mob passing the scan's tests: too far away, and neither inside the view
+ * cone nor close enough to the look ray. The margins are conservative, so
+ * the surviving candidates are a superset of what the per-mob tests accept.
+ *
+ * Server thread only.
+ */
+public final class MobIndex {
+
+    private static final int CELL_SHIFT = 4;   // 16-block cells
+    private static final double CELL_SIZE = 1 << CELL_SHIFT;
+    private static final double CELL_HALF_DIAGONAL = CELL_SIZE * Math.sqrt(3.0) * 0.5;
+
+    // Slack for rounding in the pruning math
+    private static final double EPSILON = 1.0E-6;
+
+    private static final class Cell {
+        final List<Mob> mobs = new ArrayList<>();
+        // Largest half diagonal of an (inflated) bounding box in the cell
+        double maxExtent;
+    }
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final List<Cell> freeCells = new ArrayList<>();
+
+    private ServerLevel level;
+    private long builtTick = Long.MIN_VALUE;
+    private double maxExtent;
+
+    // Counters of the last query
+    private int cellsVisited;
+    private int cellsPruned;
+
+    /**
+     * Rebuilds the grid unless it already holds this level's mobs for this tick.
+     */
+    public MobIndex update(ServerLevel level, long tick) {
+        if (this.level == level && this.builtTick == tick) return this;
+
+        this.level = level;
+        this.builtTick = tick;
+
+        for (Cell cell : cells.values()) {
+            cell.mobs.clear();
+            cell.maxExtent = 0;
+            freeCells.add(cell);
+        }
+        cells.clear();
+        maxExtent = 0;
+
+        for (Entity entity : level.getAllEntities()) {
+            if (!(entity instanceof Mob mob)) continue;
+
+            AABB box = mob.getBoundingBox();
+            long key = SectionPos.asLong(
+                    cellCoord((box.minX + box.maxX) * 0.5),
+                    cellCoord((box.minY + box.maxY) * 0.5),
+                    cellCoord((box.minZ + box.maxZ) * 0.5));
+
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                cell = freeCells.isEmpty() ? new Cell() : freeCells.remove(freeCells.size() - 1);
+                cells.put(key, cell);
+            }
+            cell.mobs.add(mob);
+
+            // Half diagonal of the box as the scan clips it (inflated by 0.1)
+            double dx = box.getXsize() + 0.2, dy = box.getYsize() + 0.2, dz = box.getZsize() + 0.2;
+            double extent = Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.5;
+            if (extent > cell.maxExtent) cell.maxExtent = extent;
+            if (extent > maxExtent) maxExtent = extent;
+        }
+        return this;
+    }
+
+    /**
+     * Collects the mobs that intersect {@code box} and may pass the view tests
+     * of a player at {@code eye} looking along the unit vector {@code look}:
+     * center within {@code distance}, and either the bounding box touching the
+     * look ray or the center inside the cone with cosine {@code coneCos}.
+     */
+    public void query(Vec3 eye, Vec3 look, double distance, double coneCos, AABB box, List<Mob> out) {
+        out.clear();
+        cellsVisited = 0;
+        cellsPruned = 0;
+        if (cells.isEmpty()) return;
+
+        double coneAngle = Math.acos(coneCos);
+
+        // Mobs reach past the cell of their center, so widen the walked range
+        int minX = cellCoord(box.minX - maxExtent), maxX = cellCoord(box.maxX + maxExtent);
+        int minY = cellCoord(box.minY - maxExtent), maxY = cellCoord(box.maxY + maxExtent);
+        int minZ = cellCoord(box.minZ - maxExtent), maxZ = cellCoord(box.maxZ + maxExtent);
+
+        long span = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (span > cells.size()) {
+            // Fewer occupied cells than cells in range: walk the occupied ones
+            for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+                long key = e.getKey();
+                int cx = SectionPos.x(key), cy = SectionPos.y(key), cz = SectionPos.z(key);
+                if (cx < minX || cx > maxX || cy < minY || cy > maxY || cz < minZ || cz > maxZ) continue;
+                visit(e.getValue(), cx, cy, cz, eye, look, distance, coneAngle, box, out);
+            }
+            return;
+        }
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    Cell cell = cells.get(SectionPos.asLong(cx, cy, cz));
+                    if (cell != null) visit(cell, cx, cy, cz, eye, look, distance, coneAngle, box, out);
+                }
+            }
+        }
+    }
+
+    public int cellsVisited() {
+        return cellsVisited;
+    }
+
+    public int cellsPruned() {
+        return cellsPruned;
+    }
+
+    private void visit(Cell cell, int cx, int cy, int cz,
+                       Vec3 eye, Vec3 look, double distance, double coneAngle,
+                       AABB box, List<Mob> out) {
+        cellsVisited++;
+
+        if (!mayContainVisible(cell, cx, cy, cz, eye, look, distance, coneAngle)) {
+            cellsPruned++;
+            return;
+        }
+
+        for (Mob mob : cell.mobs) {
+            if (mob.getBoundingBox().intersects(box)) out.add(mob);
+        }
+    }
+
+    private static boolean mayContainVisible(Cell cell, int cx, int cy, int cz,
+                                             Vec3 eye, Vec3 look, double distance, double coneAngle) {
+        double vx = (cx + 0.5) * CELL_SIZE - eye.x;
+        double vy = (cy + 0.5) * CELL_SIZE - eye.y;
+        double vz = (cz + 0.5) * CELL_SIZE - eye.z;
+        double dist = Math.sqrt(vx * vx + vy * vy + vz * vz);
+
+        // Every center in the cell is farther than the view distance
+        if (dist - CELL_HALF_DIAGONAL > distance + EPSILON) return false;
+
+        // Eye inside or right next to the cell: angles say nothing
+        double reach = CELL_HALF_DIAGONAL + cell.maxExtent + EPSILON;
+        if (dist <= reach) return true;
+
+        // Cone: the smallest angle to any point of the cell's bounding sphere
+        double along = vx * look.x + vy * look.y + vz * look.z;
+        double angle = Math.acos(Math.max(-1.0, Math.min(1.0, along / dist)));
+        double spread = Math.asin(Math.min(1.0, CELL_HALF_DIAGONAL / dist));
+        if (angle - spread < coneAngle + EPSILON) return true;
+
+        // Ray: distance from the cell center to the look segment
+        double t = Math.max(0.0, Math.min(distance, along));
+        double px = vx - look.x * t;
+        double py = vy - look.y * t;
+        double pz = vz - look.z * t;
+        return px * px + py * py + pz * pz <= reach * reach;
+    }
+
+    private static int cellCoord(double v) {
+        return (int) Math.floor(v) >> CELL_SHIFT;
+    }
+}
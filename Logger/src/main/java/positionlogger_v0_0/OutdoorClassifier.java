@@ -0,0 +1,103 @@
+package positionlogger_v0_0;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proves from heightmaps alone that an outdoor ray escapes, i.e. that a
+ * collider cast along it would hit nothing.
+ *
+ * A ray cast only tests the voxels it passes through, so it cannot hit
+ * anything in a column it crosses strictly above the column's WORLD_SURFACE
+ * height (everything up there is air). If that holds for every column on the
+ * ray's way, the ray escapes and the outdoor flag is true without casting.
+ * When the proof fails (the ray dips under some column's surface, as at cave
+ * mouths and under overhangs), the caller casts the ray as before; so the
+ * flag is exactly what the ray fan alone would give.
+ *
+ * Only reads the {@link VoxelWorld}, so it is safe on worker threads.
+ */
+public final class OutdoorClassifier {
+
+    // Slack for the ray cast's end-point nudging and for rounding
+    private static final double MARGIN = 1.0E-4;
+    private static final double T_MIN = -1.0E-6;
+    private static final double T_MAX = 1.0 + 1.0E-6;
+
+    private static final AtomicLong proven = new AtomicLong();
+    private static final AtomicLong cast = new AtomicLong();
+
+    private OutdoorClassifier() {
+    }
+
+    /**
+     * True if a ray from the eye along the unit vector (dx, dy, dz) over
+     * {@code distance} provably passes above every column it crosses.
+     */
+    public static boolean escapes(VoxelWorld world,
+                                  double ex, double ey, double ez,
+                                  double dx, double dy, double dz,
+                                  double distance) {
+        // Level or rising ray above everything in the snapshot
+        if (dy >= 0 && ey - MARGIN >= world.surfaceTop()) return true;
+
+        double rx = dx * distance, ry = dy * distance, rz = dz * distance;
+
+        // Walk the x slabs the ray touches, then the z columns within each,
+        // widened by the margin so that boundary-grazing rays check both sides
+        double xa = ex + rx * T_MIN, xb = ex + rx * T_MAX;
+        int minX = (int) Math.floor(Math.min(xa, xb) - MARGIN);
+        int maxX = (int) Math.floor(Math.max(xa, xb) + MARGIN);
+
+        for (int x = minX; x <= maxX; x++) {
+            double t0 = T_MIN, t1 = T_MAX;
+            if (Math.abs(rx) > 1.0E-12) {
+                double ta = (x - MARGIN - ex) / rx;
+                double tb = (x + 1 + MARGIN - ex) / rx;
+                t0 = Math.max(t0, Math.min(ta, tb));
+                t1 = Math.min(t1, Math.max(ta, tb));
+                if (t0 > t1) continue;
+            }
+
+            double za = ez + rz * t0, zb = ez + rz * t1;
+            int minZ = (int) Math.floor(Math.min(za, zb) - MARGIN);
+            int maxZ = (int) Math.floor(Math.max(za, zb) + MARGIN);
+
+            for (int z = minZ; z <= maxZ; z++) {
+                double u0 = t0, u1 = t1;
+                if (Math.abs(rz) > 1.0E-12) {
+                    double ua = (z - MARGIN - ez) / rz;
+                    double ub = (z + 1 + MARGIN - ez) / rz;
+                    u0 = Math.max(u0, Math.min(ua, ub));
+                    u1 = Math.min(u1, Math.max(ua, ub));
+                    if (u0 > u1) continue;
+                }
+
+                int surface = world.surface(x, z);
+                if (surface == VoxelWorld.NO_SURFACE) continue;
+
+                // Lowest point of the ray within this column
+                double low = ey + ry * (dy >= 0 ? u0 : u1);
+                if (low - MARGIN < surface) return false;
+            }
+        }
+        return true;
+    }
+
+    static void countProven() {
+        proven.incrementAndGet();
+    }
+
+    static void countCast() {
+        cast.incrementAndGet();
+    }
+
+    /** Outdoor flags decided without casting a ray. */
+    public static long proven() {
+        return proven.get();
+    }
+
+    /** Outdoor flags that needed the ray fan. */
+    public static long cast() {
+        return cast.get();
+    }
+}
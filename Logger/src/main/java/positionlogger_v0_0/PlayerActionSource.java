@@ -0,0 +1,12 @@
+package positionlogger_v0_0;
+
+/**
+ * Implemented on {@code ServerPlayer} by mixin: the player's
+ * {@link ActionRing}, created with the player.
+ *
+ * Server thread only.
+ */
+public interface PlayerActionSource {
+
+    ActionRing positionlogger$actions();
+}
@@ -0,0 +1,120 @@
+package positionlogger_v0_0;
+
+import java.util.Map;
+
+import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.event.player.AttackBlockCallback;
+import net.fabricmc.fabric.api.event.player.AttackEntityCallback;
+import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionResult;
+import net.minecraft.world.damagesource.DamageType;
+import net.minecraft.world.damagesource.DamageTypes;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+
+import positionlogger_v0_0.output.PlayerRecord;
+
+/**
+ * PlayerAction columns of one player: the latest block hit, broken and
+ * placed, block that dealt damage, mob hit and mob killed. Kept across ticks
+ * (and respawns) until a newer action of the same kind replaces them.
+ *
+ * Server thread only.
+ */
+public final class PlayerActions implements ActionRing.Drain {
+
+    // Damage types that only a block deals, and the block
+    private static final Map<ResourceKey<DamageType>, Block> DAMAGE_BLOCKS = Map.of(
+            DamageTypes.LAVA, Blocks.LAVA,
+            DamageTypes.IN_FIRE, Blocks.FIRE,
+            DamageTypes.CAMPFIRE, Blocks.CAMPFIRE,
+            DamageTypes.HOT_FLOOR, Blocks.MAGMA_BLOCK,
+            DamageTypes.CACTUS, Blocks.CACTUS,
+            DamageTypes.SWEET_BERRY_BUSH, Blocks.SWEET_BERRY_BUSH,
+            DamageTypes.STALAGMITE, Blocks.POINTED_DRIPSTONE
+    );
+
+    private int lastBlockHit = PlayerRecord.NONE;
+    private int lastBlockBroken = PlayerRecord.NONE;
+    private int lastBlockPlaced = PlayerRecord.NONE;
+    private int lastBlockDamageTaken = PlayerRecord.NONE;
+    private int lastMobHit = PlayerRecord.NONE;
+    private int lastMobKilled = PlayerRecord.NONE;
+
+    /**
+     * Registers the event hooks that fill the players' rings. Block
+     * placement is recorded by {@code BlockItemMixin}.
+     */
+    public static void registerHooks() {
+        AttackBlockCallback.EVENT.register((player, world, hand, pos, direction) -> {
+            if (!world.isClientSide()) {
+                ActionRing.record(player, ActionRing.BLOCK_HIT, world.getBlockState(pos).getBlock());
+            }
+            return InteractionResult.PASS;
+        });
+
+        PlayerBlockBreakEvents.AFTER.register((world, player, pos, state, blockEntity) ->
+                ActionRing.record(player, ActionRing.BLOCK_BROKEN, state.getBlock()));
+
+        // Mobs only, as in the mob scan: not players, armor stands or vehicles
+        AttackEntityCallback.EVENT.register((player, world, hand, entity, hitResult) -> {
+            if (entity instanceof Mob) {
+                ActionRing.record(player, ActionRing.MOB_HIT, entity.getType());
+            }
+            return InteractionResult.PASS;
+        });
+
+        // Only damage without an attacker can come from a block
+        ServerLivingEntityEvents.AFTER_DAMAGE.register((entity, source, baseDamage, damage, blocked) -> {
+            if (entity instanceof ServerPlayer player && source.getEntity() == null) {
+                ActionRing.record(player, ActionRing.DAMAGE_TAKEN, source.typeHolder());
+            }
+        });
+
+        ServerLivingEntityEvents.AFTER_DEATH.register((entity, source) -> {
+            if (entity instanceof Mob && source.getEntity() instanceof ServerPlayer killer) {
+                ActionRing.record(killer, ActionRing.MOB_KILLED, entity.getType());
+            }
+        });
+    }
+
+    /**
+     * Drains the player's ring and fills the record's PlayerAction columns.
+     */
+    public void capture(ServerPlayer player, PlayerRecord.Builder record) {
+        ((PlayerActionSource) player).positionlogger$actions().drain(this);
+
+        record.lastBlockHit = lastBlockHit;
+        record.lastBlockBroken = lastBlockBroken;
+        record.lastBlockPlaced = lastBlockPlaced;
+        record.lastBlockDamageTaken = lastBlockDamageTaken;
+        record.lastMobHit = lastMobHit;
+        record.lastMobKilled = lastMobKilled;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(int kind, Object subject) {
+        switch (kind) {
+            case ActionRing.BLOCK_HIT -> lastBlockHit = BuiltInRegistries.BLOCK.getId((Block) subject);
+            case ActionRing.BLOCK_BROKEN -> lastBlockBroken = BuiltInRegistries.BLOCK.getId((Block) subject);
+            case ActionRing.BLOCK_PLACED -> lastBlockPlaced = BuiltInRegistries.BLOCK.getId((Block) subject);
+            case ActionRing.DAMAGE_TAKEN -> {
+                Block block = ((Holder<DamageType>) subject).unwrapKey()
+                        .map(DAMAGE_BLOCKS::get)
+                        .orElse(null);
+                if (block != null) lastBlockDamageTaken = BuiltInRegistries.BLOCK.getId(block);
+            }
+            case ActionRing.MOB_HIT -> lastMobHit = BuiltInRegistries.ENTITY_TYPE.getId((EntityType<?>) subject);
+            case ActionRing.MOB_KILLED -> lastMobKilled = BuiltInRegistries.ENTITY_TYPE.getId((EntityType<?>) subject);
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package positionlogger_v0_0;
+
+import java.util.UUID;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+
+import positionlogger_v0_0.output.PlayerRecord;
+import positionlogger_v0_0.util.LatencyHistogram;
+
+/**
+ * Everything the logger keeps for one connected player: feature and
+ * scheduling state, caches, the 1-tick mob smoothing and the buffers reused
+ * for sampling. Created on join and dropped on disconnect, so memory follows
+ * the number of players online.
+ *
+ * Server thread only; the vision job is lent to the sampler's workers for
+ * the duration of a run.
+ */
+public final class PlayerSession {
+
+    private static final int[] NO_IDS = new int[0];
+
+    final UUID id;
+    // Fixed for the whole connection
+    final String playerName;
+
+    final FeatureState features = new FeatureState();
+    final VisionCache visionCache = new VisionCache();
+    final InventoryTracker inventory = new InventoryTracker();
+    final PlayerActions actions = new PlayerActions();
+
+    // Ray buffers and the world they read, created on the first vision run
+    private VisionSampler.Job visionJob;
+    private SectionSnapshot visionWorld;
+
+    // --- Mob smoothing: last tick's detection and result ---
+    boolean wasViewingMob = false;
+    int lastClosestViewingMob = PlayerRecord.NONE;
+    int[] lastViewingMobIds = NO_IDS;
+    int[] lastViewingMobCounts = NO_IDS;
+
+    // Block position and level the biome name was looked up at
+    private long biomePos;
+    private Level biomeLevel;
+    private String biomeName = "none";
+
+    // Level the dimension name was taken from
+    private Level level;
+    private String dimensionName = "none";
+
+    // Records submitted during this session
+    long records;
+
+    // Per-stage timings, created on first use (see TickStats)
+    private final LatencyHistogram[] stageTimes = new LatencyHistogram[TickStats.Stage.COUNT];
+
+    PlayerSession(ServerPlayer player) {
+        this.id = player.getUUID();
+        this.playerName = player.getName().getString();
+    }
+
+    /** This player's sampling buffers, set up for the current view and grid. */
+    VisionSampler.Job visionJob(ServerPlayer player, VisionSampler sampler) {
+        if (visionJob == null) {
+            visionJob = new VisionSampler.Job();
+            visionWorld = new SectionSnapshot();
+        }
+
+        Vec3 eye = player.getEyePosition();
+        Vec3 look = player.getLookAngle();
+
+        // Read-only view of everything the rays can reach this tick
+        visionWorld.capture((ServerLevel) player.level(), eye.x, eye.z, sampler.captureRadius(),
+                CollisionContext.of(player));
+        sampler.reset(visionJob, visionWorld, eye.x, eye.y, eye.z, look.x, look.y, look.z);
+        return visionJob;
+    }
+
+    LatencyHistogram stageTime(TickStats.Stage stage) {
+        LatencyHistogram h = stageTimes[stage.ordinal()];
+        if (h == null) {
+            h = new LatencyHistogram();
+            stageTimes[stage.ordinal()] = h;
+        }
+        return h;
+    }
+
+    void resetStageTimes() {
+        for (LatencyHistogram h : stageTimes) {
+            if (h != null) h.reset();
+        }
+    }
+
+    /**
+     * Name of the biome at the player's feet; only looked up again once the
+     * player is in another block.
+     */
+    String biomeName(ServerPlayer player) {
+        Level current = player.level();
+        BlockPos pos = player.blockPosition();
+        if (current != biomeLevel || pos.asLong() != biomePos) {
+            biomeLevel = current;
+            biomePos = pos.asLong();
+            biomeName = RegistryNames.get().biomeName(current.getBiome(pos));
+        }
+        return biomeName;
+    }
+
+    /** Dimension id of the player's level, e.g. "minecraft:overworld". */
+    String dimensionName(ServerPlayer player) {
+        Level current = player.level();
+        if (current != level) {
+            level = current;
+            dimensionName = current.dimension().identifier().toString();
+        }
+        return dimensionName;
+    }
+}
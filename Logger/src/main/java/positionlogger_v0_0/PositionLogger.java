@@ -1,41 +1,46 @@
 package positionlogger_v0_0;
 
-import java.util.Map;
-import java.util.HashMap;
-import java.util.Comparator;
-import java.util.stream.Collectors;
 
 
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.core.BlockPos;
-import net.minecraft.world.level.LightLayer;
-import net.minecraft.world.level.ClipContext;
 
-import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
-import net.minecraft.world.phys.BlockHitResult;
-import net.minecraft.world.phys.shapes.VoxelShape;
-
 
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.entity.Entity;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.Vec3;
 import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.world.item.ItemStack;
+
+import positionlogger_v0_0.output.AsyncLogWriter;
+import positionlogger_v0_0.output.ColumnGroup;
+import positionlogger_v0_0.output.PlayerRecord;
+import positionlogger_v0_0.output.RecordSink;
+import positionlogger_v0_0.output.RecordStreamServer;
+import positionlogger_v0_0.output.SegmentFormat;
+import positionlogger_v0_0.output.SegmentedRecordSink;
+import positionlogger_v0_0.util.IdCounter;
 
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.time.Instant;
-import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 
@@ -43,529 +48,763 @@ import java.time.format.DateTimeFormatter;
 
 public class PositionLogger implements ModInitializer {
 
-    private FileWriter writer;
-    private boolean headerWritten = false;
+    private LoggerConfig config;
+    private AsyncLogWriter logWriter;
+    // The segment sink behind logWriter, for its byte count and timings
+    private SegmentedRecordSink segments;
+    // Totals of writers closed on a config reload
+    private long closedRows;
+    private long closedBytes;
+
+    // Live record stream for bots (stream.enabled); open while the server runs
+    private RecordStreamServer stream;
+
+    // Stage timings (stats.enabled)
+    private final TickStats stats = new TickStats();
+
+    // The config file is re-read when its modification time changes
+    private static final int CONFIG_POLL_TICKS = 20;
+    private Path configPath;
+    private FileTime configModified;
 
     private static final DateTimeFormatter ISO_FORMAT =
         DateTimeFormatter.ISO_INSTANT;
 
-    // Vision parameters (human-like)
-    private static final double MAX_VIEW_DISTANCE = 64.0;
-
     // Peripheral awareness radius
     private static final double PERIPHERAL_RADIUS = 3.0;
     private static final double PERIPHERAL_DISTANCE_LIMIT = 8.0;
 
-    private boolean wasViewingMobLastTick = false;
-    private String lastClosestViewingMobType = "none";
-    private String lastAllViewingMobs = "none";
+    // Mobs whose center is within this cone count as seen
+    private static final double FOV_DOT = Math.cos(Math.toRadians(45.0)); // ~90°
+
+    // Reused every tick for the mob scan (server thread only)
+    private final IdCounter mobCounter = new IdCounter(256);
+    private final List<Mob> mobCandidates = new ArrayList<>();
 
-    // --- Vision-ish block sampling (first-hit surface only) ---
-    private static final double BLOCK_SAMPLE_MAX_DISTANCE = 64.0;
+    // All mobs per level, rebuilt once per tick on first use
+    private final Map<ServerLevel, MobIndex> mobIndexes = new HashMap<>();
 
-    private static final int SAMPLE_W = 128;
-    private static final int SAMPLE_H = 64;
+    // Ray-heavy vision features, optionally spread over worker threads
+    private VisionSampler sampler;
 
-    // Approximate FOV. Tune if desired.
-    private static final double FOV_DEG_H = 90.0;
-    private static final double FOV_DEG_V = 90.0;
+    // Spreads the expensive features over players and ticks
+    private final WorkScheduler scheduler = new WorkScheduler();
 
-    private static final Vec3 WORLD_UP = new Vec3(0, 1, 0);
+    // Per-player state, from join to disconnect
+    private final Map<UUID, PlayerSession> sessions = new HashMap<>();
 
-    // Precomputed normalized screen coords in [-1, 1]
-    private final double[] sampleU = new double[SAMPLE_W];
-    private final double[] sampleV = new double[SAMPLE_H];
-    private boolean blockSamplerInited = false;
+    // Reused per tick (server thread only)
+    private final List<PlayerSession> tickSessions = new ArrayList<>();
+    private final List<FeatureState> tickStates = new ArrayList<>();
+    private final List<ServerPlayer> visionPlayers = new ArrayList<>();
+    private final List<PlayerSession> visionSessions = new ArrayList<>();
+    private final List<VisionSampler.Job> visionJobs = new ArrayList<>();
+    private final PlayerView view = new PlayerView();
+
+    /**
+     * Fills the fields of one column group. The enabled groups are compiled
+     * into {@link #extractors} whenever the config changes.
+     */
+    @FunctionalInterface
+    private interface FeatureExtractor {
+        void extract(PlayerView view, PlayerRecord.Builder record);
+    }
 
+    private FeatureExtractor[] extractors;
 
     @Override
     public void onInitialize() {
 
+        configPath = FabricLoader.getInstance()
+                .getConfigDir()
+                .resolve("positionlogger.properties");
+        config = LoggerConfig.load(configPath);
+        configModified = modifiedTime(configPath);
+
+        sampler = new VisionSampler(config);
+        applyConfig();
+
         ServerTickEvents.END_SERVER_TICK.register(this::onServerTick);
+        PlayerActions.registerHooks();
+        StatsCommand.register(this);
 
-        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
-            try {
-                if (writer != null) {
-                    writer.close();
-                    writer = null;
-                    headerWritten = false;
-                    System.out.println("[PositionLogger] File closed");
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> session(handler.getPlayer()));
+
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            PlayerSession session = sessions.remove(handler.getPlayer().getUUID());
+            if (session != null) {
+                System.out.println("[PositionLogger] " + session.playerName + " left ("
+                        + session.records + " records)");
             }
         });
 
-        System.out.println("[PositionLogger] Loaded");
-    }
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            RegistryNames.rebuild(server);
+            openStream();
+        });
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resources, success) -> RegistryNames.rebuild(server));
 
-    private void initBlockSamplerIfNeeded() {
-        if (blockSamplerInited) return;
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            sampler.close();
+            closeStream();
+
+            if (logWriter != null) {
+                AsyncLogWriter writer = logWriter;
+                closeWriter();
+                System.out.println("[PositionLogger] File closed ("
+                        + writer.writtenCount() + " written, "
+                        + writer.droppedCount() + " dropped)");
+            }
 
-        for (int x = 0; x < SAMPLE_W; x++) {
-            double nx = (x + 0.5) / (double) SAMPLE_W; // 0..1
-            sampleU[x] = nx * 2.0 - 1.0;               // -1..1
-        }
-        for (int y = 0; y < SAMPLE_H; y++) {
-            double ny = (y + 0.5) / (double) SAMPLE_H; // 0..1
-            sampleV[y] = 1.0 - ny * 2.0;               // +1..-1 (top->bottom)
-        }
+            if (config.cacheEnabled) {
+                System.out.println("[PositionLogger] Vision cache: "
+                        + VisionCache.hits() + " hits, "
+                        + VisionCache.misses() + " misses");
+            }
+            System.out.println("[PositionLogger] Outdoor flag: "
+                    + OutdoorClassifier.proven() + " from heightmaps, "
+                    + OutdoorClassifier.cast() + " from rays");
+            if (SamplingAccuracy.samples() > 0) {
+                System.out.println("[PositionLogger] Adaptive sampling: " + SamplingAccuracy.report());
+            }
+            sessions.clear();
+            mobIndexes.clear();
+        });
 
-        blockSamplerInited = true;
+        System.out.println("[PositionLogger] Loaded");
     }
-    private Map<String, Integer> sampleVisibleBlocks(ServerPlayer player) {
 
-        initBlockSamplerIfNeeded();
+    private void onServerTick(MinecraftServer server) {
+        long tickStart = stats.start();
+        try {
+            if (server.getTickCount() % CONFIG_POLL_TICKS == 0) pollConfig();
 
-        Map<String, java.util.HashSet<BlockPos>> seen = new HashMap<>();
+            if (!config.loggingEnabled) {
+                if (logWriter != null) closeWriter();
+                return;
+            }
 
-        Vec3 eye = player.getEyePosition();
-        Vec3 forward = player.getLookAngle().normalize();
+            if (logWriter == null) {
+                logWriter = new AsyncLogWriter(
+                        openSink(),
+                        config.queueCapacity,
+                        config.queuePolicy,
+                        config.queueSampleEvery
+                );
+            }
 
-        Vec3 right = forward.cross(WORLD_UP);
-        if (right.lengthSqr() < 1e-8) right = new Vec3(1, 0, 0);
-        else right = right.normalize();
-        Vec3 up = right.cross(forward).normalize();
+            long tick = server.overworld().getGameTime();
+            String timestamp = ISO_FORMAT.format(Instant.now());
 
-        double tanH = Math.tan(Math.toRadians(FOV_DEG_H * 0.5));
-        double tanV = Math.tan(Math.toRadians(FOV_DEG_V * 0.5));
+            List<ServerPlayer> players = server.getPlayerList().getPlayers();
+
+            // --- Cached vision results count as computed this tick ---
+            boolean useCache = config.cacheEnabled
+                    && scheduler.isEnabled(WorkScheduler.Feature.VISIBLE_BLOCKS)
+                    && scheduler.isEnabled(WorkScheduler.Feature.OUTDOOR);
+            tickSessions.clear();
+            tickStates.clear();
+            for (ServerPlayer player : players) {
+                PlayerSession session = session(player);
+                FeatureState state = session.features;
+                tickSessions.add(session);
+                tickStates.add(state);
+
+                if (!useCache) continue;
+
+                VisionCache cache = session.visionCache;
+                if (cache.lookup(player, tick, config)) {
+                    state.visibleBlockIds = cache.visibleBlockIds();
+                    state.visibleBlockCounts = cache.visibleBlockCounts();
+                    state.outsideObservable = cache.outsideObservable();
+                    state.markComputed(WorkScheduler.Feature.VISIBLE_BLOCKS, tick);
+                    state.markComputed(WorkScheduler.Feature.OUTDOOR, tick);
+                }
+            }
 
-        for (int yi = 0; yi < SAMPLE_H; yi++) {
-            double v = sampleV[yi] * tanV;
+            // --- Pick what to recompute within the tick budget ---
+            scheduler.plan(tickStates, tick, config.budgetTickMillis, Math.max(1, config.samplingThreads));
+
+            // --- Vision features for the scheduled players at once (possibly parallel) ---
+            visionPlayers.clear();
+            visionSessions.clear();
+            visionJobs.clear();
+            for (int p = 0; p < players.size(); p++) {
+                PlayerSession session = tickSessions.get(p);
+                FeatureState state = session.features;
+                if (state.isDue(WorkScheduler.Feature.VISIBLE_BLOCKS) || state.isDue(WorkScheduler.Feature.OUTDOOR)) {
+                    VisionSampler.Job job = session.visionJob(players.get(p), sampler);
+                    job.select(
+                            state.isDue(WorkScheduler.Feature.VISIBLE_BLOCKS),
+                            state.isDue(WorkScheduler.Feature.OUTDOOR));
+                    visionPlayers.add(players.get(p));
+                    visionSessions.add(session);
+                    visionJobs.add(job);
+                }
+            }
+            sampler.run(visionJobs);
 
-            for (int xi = 0; xi < SAMPLE_W; xi++) {
-                double u = sampleU[xi] * tanH;
+            collectVision(tick, useCache);
 
-                Vec3 dir = forward.add(right.scale(u)).add(up.scale(v)).normalize();
-                Vec3 end = eye.add(dir.scale(BLOCK_SAMPLE_MAX_DISTANCE));
+            // Handed to the stream as a whole, so a fresh list per tick
+            List<PlayerRecord> published = stream != null && stream.hasSubscribers()
+                    ? new ArrayList<>(players.size())
+                    : null;
 
-                HitResult hit = player.level().clip(new ClipContext(
-                        eye, end,
-                        ClipContext.Block.OUTLINE, // keep OUTLINE so plants can be hit
-                        ClipContext.Fluid.ANY,
-                        player
-                ));
+            FeatureExtractor[] extractors = this.extractors;
+            for (int p = 0; p < players.size(); p++) {
+                PlayerSession session = tickSessions.get(p);
+                view.reset(players.get(p), session, tick, config.viewMaxDistance);
 
-                if (hit.getType() != HitResult.Type.BLOCK) continue;
+                PlayerRecord.Builder record = PlayerRecord.builder();
 
-                BlockPos hitPos = ((BlockHitResult) hit).getBlockPos();
-                BlockState bs = player.level().getBlockState(hitPos);
+                record.playerName = session.playerName;
+                record.tick = tick;
+                record.timestamp = timestamp;
 
-                String blockKey = BuiltInRegistries.BLOCK
-                        .getKey(bs.getBlock())
-                        .getPath();
+                for (FeatureExtractor extractor : extractors) {
+                    extractor.extract(view, record);
+                }
 
-                seen.computeIfAbsent(blockKey, k -> new java.util.HashSet<>()).add(hitPos);
+                PlayerRecord built = record.build();
+                logWriter.submit(built);
+                if (published != null) published.add(built);
+                session.records++;
             }
-        }
+            if (published != null) stream.publish(published);
 
-        Map<String, Integer> uniqueCounts = new HashMap<>();
-        for (Map.Entry<String, java.util.HashSet<BlockPos>> e : seen.entrySet()) {
-            uniqueCounts.put(e.getKey(), e.getValue().size());
+            stats.stop(TickStats.Stage.TICK, null, tickStart);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        return uniqueCounts;
     }
 
+    // ---------------- FEATURE EXTRACTORS ----------------
 
-    private void onServerTick(MinecraftServer server) {
-        try {
-            if (writer == null) {
-                Path logPath = FabricLoader.getInstance()
-                        .getGameDir()
-                        .resolve("loggger.csv");
-                writer = new FileWriter(logPath.toFile(), true);
-                writeHeaderIfNeeded();
-            }
+    private void extractPosition(PlayerView view, PlayerRecord.Builder record) {
+        ServerPlayer player = view.player;
+        record.x = player.getX();
+        record.y = player.getY();
+        record.z = player.getZ();
+    }
 
-            long tick = server.overworld().getGameTime();
-            String timestamp = ISO_FORMAT.format(Instant.now());
+    private void extractLook(PlayerView view, PlayerRecord.Builder record) {
+        Vec3 look = view.look();
+        record.lookX = look.x;
+        record.lookY = look.y;
+        record.lookZ = look.z;
+    }
 
-            for (ServerPlayer player : server.getPlayerList().getPlayers()) {
-                String playerName = player.getName().getString();
-                String id = playerName + "_" + tick + "_" + timestamp;
+    // Where the vision groups are computed from, for replaying them offline
+    private void extractViewpoint(PlayerView view, PlayerRecord.Builder record) {
+        record.eyeY = view.eye().y;
+        record.dimension = view.session.dimensionName(view.player);
+        record.dayTime = (int) (view.player.level().getDayTime() % 24000L);
+    }
 
+    private void extractStats(PlayerView view, PlayerRecord.Builder record) {
+        ServerPlayer player = view.player;
+        record.health = player.getHealth();
+        record.food = player.getFoodData().getFoodLevel();
+        record.oxygen = player.getAirSupply();
+    }
 
-                // Player position
-                double px = player.getX();
-                double py = player.getY();
-                double pz = player.getZ();
+    private void extractBiome(PlayerView view, PlayerRecord.Builder record) {
+        // Biome (1.15-safe, player-perceivable)
+        record.biome = view.session.biomeName(view.player);
+    }
 
-                // View information
-                Vec3 eye = player.getEyePosition();
-                Vec3 look = player.getLookAngle();
-                boolean outsideObservable = false;
+    /**
+     * Outdoor check (ray fan + sky light at the hits) and the NightFlag
+     * derived from it.
+     */
+    private void extractOutdoor(PlayerView view, PlayerRecord.Builder record) {
+        FeatureState state = view.session.features;
+        boolean outsideObservable = state.outsideObservable;
+        record.outdoorAge = state.age(WorkScheduler.Feature.OUTDOOR, view.tick);
 
-                // ---------------- HOTBAR (0–8) ----------------
-                String[] hotbar = new String[9];
+        record.outsideObservable = outsideObservable;
+        // --- NightFlag logic ---
+        String nightFlag = "none";
 
-                for (int i = 0; i < 9; i++) {
-                    hotbar[i] =
-                            formatSlot(player.getInventory().getItem(i));
-                }
+        boolean hasSky = view.player.level().dimensionType().hasSkyLight();
 
-                // ---------------- MAIN INVENTORY (0–35) ----------------
-                // Includes hotbar again intentionally (full 36 slots)
-                String[] mainInventory = new String[36];
+        if (outsideObservable && hasSky) {
 
-                for (int i = 0; i < 36; i++) {
-                    mainInventory[i] =
-                            formatSlot(player.getInventory().getItem(i));
-                }
+            long dayTime = view.player.level().getDayTime() % 24000L;
 
-                // ---------------- ARMOR ----------------
-                String[] armorInventory = new String[4];
+            // Vanilla night window: 13000–23000
+            boolean isNight = dayTime >= 13000L && dayTime <= 23000L;
 
-                armorInventory[0] = formatSlot(player.getItemBySlot(net.minecraft.world.entity.EquipmentSlot.HEAD));
-                armorInventory[1] = formatSlot(player.getItemBySlot(net.minecraft.world.entity.EquipmentSlot.CHEST));
-                armorInventory[2] = formatSlot(player.getItemBySlot(net.minecraft.world.entity.EquipmentSlot.LEGS));
-                armorInventory[3] = formatSlot(player.getItemBySlot(net.minecraft.world.entity.EquipmentSlot.FEET));
+            nightFlag = isNight ? "1" : "0";
+        }
 
-                // ---------------- SHIELD / OFFHAND ----------------
-                String shieldSlot =
-                        formatSlot(player.getOffhandItem());
+        record.nightFlag = nightFlag;
+    }
 
+    private void extractHighlightedBlock(PlayerView view, PlayerRecord.Builder record) {
+        HitResult blockHit = view.pick();
 
-                // --- Visible block sampling (first-hit surface only) ---
-                Map<String, Integer> visibleBlockCounts = sampleVisibleBlocks(player);
-                String visibleBlocks = blockCountsToString(visibleBlockCounts);
-                String visibleBlocksCsv = "\"" + visibleBlocks.replace("\"", "\"\"") + "\"";
+        // --- BlockHighlightedFlag ---
+        record.blockHighlighted = blockHit.getType() == HitResult.Type.BLOCK;
 
+        // --- HighlightedBlock ---
+        if (blockHit.getType() == HitResult.Type.BLOCK) {
 
-                Vec3[] directions = new Vec3[] {
-                        look,
-                        look.add(0.2, 0, 0).normalize(),
-                        look.add(-0.2, 0, 0).normalize(),
-                        look.add(0, 0.2, 0).normalize(),
-                        look.add(0, -0.2, 0).normalize()
-                };     
+            BlockPos hitPos = BlockPos.containing(blockHit.getLocation());
 
-                
-                for (Vec3 dir : directions) {
+            record.highlightedBlock =
+                    RegistryNames.get().blockName(view.player.level().getBlockState(hitPos).getBlock());
+        }
+    }
 
-                    Vec3 rayEndSample = eye.add(dir.scale(MAX_VIEW_DISTANCE));
+    // Visible block sampling (first-hit surface only), computed by the sampler
+    private void extractVisibleBlocks(PlayerView view, PlayerRecord.Builder record) {
+        FeatureState state = view.session.features;
+        record.visibleBlockIds = state.visibleBlockIds;
+        record.visibleBlockCounts = state.visibleBlockCounts;
+        record.visibleBlocksAge = state.age(WorkScheduler.Feature.VISIBLE_BLOCKS, view.tick);
+    }
 
-                    HitResult hit = player.level().clip(
-                            new net.minecraft.world.level.ClipContext(
-                                    eye,
-                                    rayEndSample,
-                                    net.minecraft.world.level.ClipContext.Block.COLLIDER,
-                                    net.minecraft.world.level.ClipContext.Fluid.NONE,
-                                    player
-                            )
-                    );
+    // Mob scan when scheduled; otherwise the last result
+    private void extractMobs(PlayerView view, PlayerRecord.Builder record) {
+        FeatureState state = view.session.features;
+        if (state.isDue(WorkScheduler.Feature.MOBS)) {
+            long start = System.nanoTime();
+            scanMobs(view.player, view.tick, view.eye(), view.look(), view.visibleDistance(), view.session);
+            state.markComputed(WorkScheduler.Feature.MOBS, view.tick);
+            long nanos = System.nanoTime() - start;
+            scheduler.observe(WorkScheduler.Feature.MOBS, nanos, 1);
+            stats.record(TickStats.Stage.MOB_SCAN, view.session, nanos);
+        }
 
-                    if (hit.getType() == HitResult.Type.MISS) {
-                        outsideObservable = true;
-                        break;
-                    }
+        record.viewingMob = state.viewingMob;
+        record.closestViewingMob = state.closestViewingMob;
+        record.viewingMobIds = state.viewingMobIds;
+        record.viewingMobCounts = state.viewingMobCounts;
+        record.mobsAge = state.age(WorkScheduler.Feature.MOBS, view.tick);
+    }
 
-                    // Check if the hit position receives sky light
-                    BlockPos hitPos = BlockPos.containing(hit.getLocation());
+    // Main (0–35, the hotbar columns are the first nine), armor and
+    // offhand; only changed slots are read again
+    private void extractInventory(PlayerView view, PlayerRecord.Builder record) {
+        long start = stats.start();
+        view.session.inventory.capture(view.player, view.tick, config.inventoryKeyframeTicks, record);
+        stats.stop(TickStats.Stage.INVENTORY, view.session, start);
+    }
 
-                    int skyLight = player.level().getBrightness(
-                            LightLayer.SKY,
-                            hitPos
-                    );
+    private void extractActions(PlayerView view, PlayerRecord.Builder record) {
+        view.session.actions.capture(view.player, record);
+    }
 
-                    if (skyLight > 0) {
-                        outsideObservable = true;
-                        break;
-                    }
+    private FeatureExtractor extractor(ColumnGroup group) {
+        return switch (group) {
+            case POSITION -> this::extractPosition;
+            case LOOK -> this::extractLook;
+            case VIEWPOINT -> this::extractViewpoint;
+            case STATS -> this::extractStats;
+            case BIOME -> this::extractBiome;
+            case OUTDOOR -> this::extractOutdoor;
+            case HIGHLIGHTED_BLOCK -> this::extractHighlightedBlock;
+            case VISIBLE_BLOCKS -> this::extractVisibleBlocks;
+            case MOBS -> this::extractMobs;
+            case INVENTORY -> this::extractInventory;
+            case ACTIONS -> this::extractActions;
+        };
+    }
 
-                }
+    // ---------------- CONFIG ----------------
+
+    /**
+     * Compiles the extractors for the selected columns and passes the
+     * feature switches and rates on to the scheduler.
+     */
+    private void applyConfig() {
+        Set<ColumnGroup> columns = config.loggedColumns();
+        List<FeatureExtractor> enabled = new ArrayList<>();
+        for (ColumnGroup group : columns) {
+            enabled.add(extractor(group));
+        }
+        extractors = enabled.toArray(new FeatureExtractor[0]);
 
-                int outsideObservableFlag = outsideObservable ? 1 : 0; 
-                // --- NightFlag logic ---
-                String nightFlag = "none";
+        scheduler.limit(WorkScheduler.Feature.VISIBLE_BLOCKS,
+                columns.contains(ColumnGroup.VISIBLE_BLOCKS), config.rateVisibleBlocks);
+        scheduler.limit(WorkScheduler.Feature.OUTDOOR,
+                columns.contains(ColumnGroup.OUTDOOR), config.rateOutdoor);
+        scheduler.limit(WorkScheduler.Feature.MOBS,
+                columns.contains(ColumnGroup.MOBS), config.rateMobs);
 
-                boolean hasSky = player.level().dimensionType().hasSkyLight();
+        stats.setEnabled(config.statsEnabled);
+        if (segments != null) segments.setTimings(stats.writerTimings());
+    }
 
-                if (outsideObservable && hasSky) {
+    /**
+     * Re-reads the config file if it changed. Output settings and the column
+     * selection take effect with a new segment (so every file has a single
+     * header), sampling settings with a new sampler. A file with a bad value
+     * is ignored until it changes again.
+     */
+    private void pollConfig() {
+        FileTime modified = modifiedTime(configPath);
+        if (modified == null || modified.equals(configModified)) return;
+        configModified = modified;
+
+        LoggerConfig next = LoggerConfig.load(configPath);
+        if (!next.isValid()) {
+            System.out.println("[PositionLogger] Config not reloaded; keeping the previous settings");
+            return;
+        }
+        LoggerConfig previous = config;
+        config = next;
 
-                    long dayTime = player.level().getDayTime() % 24000L;
+        if (next.differs(previous, "output.", "segment.", "flush.", "queue.", "inventory.", "columns.",
+                "view.deferred") && logWriter != null) {
+            closeWriter();
+        }
+        if (next.differs(previous, "stream.", "columns.", "view.deferred")) {
+            closeStream();
+            openStream();
+        }
+        if (next.differs(previous, "sampling.", "view.maxDistance")) {
+            sampler.close();
+            sampler = new VisionSampler(next);
+        }
+        if (next.differs(previous, "sampling.", "view.maxDistance", "cache.")) {
+            for (PlayerSession session : sessions.values()) {
+                session.visionCache.invalidate();
+            }
+        }
+        applyConfig();
 
-                    // Vanilla night window: 13000–23000
-                    boolean isNight = dayTime >= 13000L && dayTime <= 23000L;
+        System.out.println("[PositionLogger] Config reloaded");
+    }
 
-                    nightFlag = isNight ? "1" : "0";
-                }
-         
+    private static FileTime modifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-                // Player stats
-                double health = player.getHealth();
-                double food = player.getFoodData().getFoodLevel();
-                double oxygen = player.getAirSupply(); 
+    /**
+     * Drains and closes the writer and its segment; the next tick opens a
+     * new one.
+     */
+    private void closeWriter() {
+        logWriter.close();
+        closedRows += logWriter.writtenCount();
+        closedBytes += segments.bytesWritten();
+        logWriter = null;
+        segments = null;
+    }
 
-                // Biome (1.15-safe, player-perceivable)
-                String biomeRaw = player.level()
-                        .getBiome(player.blockPosition())
-                        .toString();
+    private void openStream() {
+        if (!config.streamEnabled) return;
 
-                // Find last ":" (before biome name)
-                int colon = biomeRaw.lastIndexOf(":");
+        try {
+            if (config.streamSocketPath.isEmpty()) {
+                stream = RecordStreamServer.tcp(new InetSocketAddress(config.streamHost, config.streamPort),
+                        new RegistryNameResolver(), config.loggedColumns(), config.streamQueueTicks);
+            } else {
+                Path socket = FabricLoader.getInstance().getGameDir().resolve(config.streamSocketPath);
+                stream = RecordStreamServer.unix(socket,
+                        new RegistryNameResolver(), config.loggedColumns(), config.streamQueueTicks);
+            }
+            System.out.println("[PositionLogger] Streaming records on " + stream.address());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-                // Find closing bracket after biome name
-                int endBracket = biomeRaw.indexOf("]", colon);
+    private void closeStream() {
+        if (stream == null) return;
 
-                // Extract biome name
-                String biome = biomeRaw.substring(colon + 1, endBracket);
+        stream.close();
+        System.out.println("[PositionLogger] Stream closed ("
+                + stream.sentCount() + " sent, "
+                + stream.droppedCount() + " dropped)");
+        stream = null;
+    }
+
+    // ---------------- STATS ----------------
 
-                // Determine visible distance via block raycast
-                HitResult blockHit = player.pick(MAX_VIEW_DISTANCE, 0.0f, false);
+    /** Lines for {@code /positionlogger stats}. */
+    List<String> statsReport() {
+        if (!stats.isEnabled()) return List.of("Stats are off (stats.enabled=false)");
 
-                double visibleDistance = blockHit.getType() == HitResult.Type.MISS
-                ? MAX_VIEW_DISTANCE
-                : blockHit.getLocation().distanceTo(eye);
+        long rows = closedRows;
+        long bytes = closedBytes;
+        int queueDepth = 0;
+        if (logWriter != null) {
+            rows += logWriter.writtenCount();
+            bytes += segments.bytesWritten();
+            queueDepth = logWriter.queueDepth();
+        }
 
+        List<String> lines = stats.report(rows, bytes, queueDepth);
+        if (stream != null) {
+            lines.add("stream: " + stream.subscriberCount() + " subscribers, "
+                    + stream.sentCount() + " sent, " + stream.droppedCount() + " dropped");
+        }
+        return lines;
+    }
 
-                // --- BlockHighlightedFlag ---
-                int blockHighlightedFlag =
-                        (blockHit.getType() == HitResult.Type.BLOCK) ? 1 : 0;
+    /** Lines for {@code /positionlogger stats <player>}. */
+    List<String> statsReport(ServerPlayer player) {
+        if (!stats.isEnabled()) return List.of("Stats are off (stats.enabled=false)");
 
-                // --- HighlightedBlock ---
-                String highlightedBlock = "none";
+        PlayerSession session = sessions.get(player.getUUID());
+        if (session == null) return List.of("No session for " + player.getName().getString());
 
-                if (blockHit.getType() == HitResult.Type.BLOCK) {
+        List<String> lines = new ArrayList<>();
+        lines.add(session.playerName + " (" + session.records + " records)");
+        lines.addAll(stats.report(session));
+        return lines;
+    }
 
-                    BlockPos hitPos = BlockPos.containing(blockHit.getLocation());
+    void resetStats() {
+        stats.reset();
+        for (PlayerSession session : sessions.values()) {
+            session.resetStageTimes();
+        }
+    }
 
-                    highlightedBlock =
-                            BuiltInRegistries.BLOCK
-                                    .getKey(player.level().getBlockState(hitPos).getBlock())
-                                    .getPath();}
-                   
-                // Ray end point (limited by visible distance)
-                Vec3 rayEnd = eye.add(look.scale(visibleDistance));
+    private RecordSink openSink() throws IOException {
+        Path dir = FabricLoader.getInstance()
+                .getGameDir()
+                .resolve(config.segmentDirectory);
+
+        Set<ColumnGroup> columns = config.loggedColumns();
+        SegmentFormat format = switch (config.outputFormat) {
+            case CSV -> SegmentFormat.csv(new RegistryNameResolver(),
+                    config.inventoryDeltaRows ? config.inventoryKeyframeTicks : 0, columns);
+            case COLUMNAR -> SegmentFormat.columnar(new RegistryNameResolver(), config.rowGroupSize, columns);
+        };
+
+        // The shapes "logtools vision" replays the deferred groups with
+        if (config.viewDeferred) BlockShapeExport.writeIfOutdated(dir);
+
+        SegmentedRecordSink.Options options = new SegmentedRecordSink.Options();
+        options.maxBytes = (long) config.segmentMaxMegabytes << 20;
+        options.maxMillis = config.segmentMaxMinutes * 60_000L;
+        options.rotateOnGameDay = config.segmentRotateOnGameDay;
+        options.compress = config.segmentCompress;
+        options.index = config.segmentIndex;
+        options.flushPolicy = config.flushPolicy;
+        options.flushEveryTicks = config.flushEveryTicks;
+        options.flushEveryMillis = config.flushEveryMillis;
+
+        segments = new SegmentedRecordSink(dir, format, options);
+        segments.setTimings(stats.writerTimings());
+        return segments;
+    }
 
-                List<Entity> candidates = player.level().getEntities(
-                        player,
-                        player.getBoundingBox()
-                                .expandTowards(look.scale(visibleDistance))
-                                .inflate(PERIPHERAL_RADIUS),
-                        e -> e instanceof Mob
-                );
+    /**
+     * Copies the sampler's results into each player's state, feeds the cost
+     * averages and refreshes the vision cache where both features ran.
+     */
+    private void collectVision(long tick, boolean useCache) {
+        long blockNanos = 0, outdoorNanos = 0;
+        int blockRuns = 0, outdoorRuns = 0;
+
+        for (int j = 0; j < visionJobs.size(); j++) {
+            VisionSampler.Job vision = visionJobs.get(j);
+            PlayerSession session = visionSessions.get(j);
+            FeatureState state = session.features;
+
+            boolean blocks = state.isDue(WorkScheduler.Feature.VISIBLE_BLOCKS);
+            boolean outdoor = state.isDue(WorkScheduler.Feature.OUTDOOR);
+
+            if (blocks) {
+                stats.record(TickStats.Stage.BLOCK_SAMPLING, session, vision.blockNanos());
+                stats.addRays(vision.raysCast());
+                IdCounter visibleBlocks = vision.visibleBlocks();
+                // Unchanged results keep the arrays the last records share
+                if (!visibleBlocks.matches(state.visibleBlockIds, state.visibleBlockCounts)) {
+                    state.visibleBlockIds = visibleBlocks.copyIds();
+                    state.visibleBlockCounts = visibleBlocks.copyCounts();
+                }
+                state.markComputed(WorkScheduler.Feature.VISIBLE_BLOCKS, tick);
+                blockNanos += vision.blockNanos();
+                blockRuns++;
+            }
+            if (outdoor) {
+                stats.record(TickStats.Stage.OUTDOOR, session, vision.outdoorNanos());
+                state.outsideObservable = vision.outsideObservable();
+                state.markComputed(WorkScheduler.Feature.OUTDOOR, tick);
+                outdoorNanos += vision.outdoorNanos();
+                outdoorRuns++;
+            }
 
-                boolean detectedThisTick = false;
+            // Only a result computed as a whole is worth reusing
+            if (useCache && blocks && outdoor) {
+                ServerPlayer player = visionPlayers.get(j);
+                session.visionCache.store(player, tick, sampler.captureRadius(),
+                        state.visibleBlockIds, state.visibleBlockCounts, state.outsideObservable);
+            }
+        }
 
-                Mob closestViewingMob = null;
-                double closestDistance = Double.MAX_VALUE;
-                Map<String, Integer> viewingMobCounts = new HashMap<>();
-                String allViewingMobs = "none";
+        scheduler.observe(WorkScheduler.Feature.VISIBLE_BLOCKS, blockNanos, blockRuns);
+        scheduler.observe(WorkScheduler.Feature.OUTDOOR, outdoorNanos, outdoorRuns);
+    }
 
+    /**
+     * Mobs in or near the line of sight, with 1-tick smoothing.
+     */
+    private void scanMobs(ServerPlayer player, long tick, Vec3 eye, Vec3 look, double visibleDistance,
+                          PlayerSession session) {
+        FeatureState state = session.features;
 
-    
-                for (Entity entity : candidates) {
-
-                    Vec3 toEntityCenter = entity.getBoundingBox()
-                            .getCenter()
-                            .subtract(eye);
-
-                    double distance = toEntityCenter.length();
-                    if (distance > visibleDistance) continue;
-
-                    boolean isVisible = false;
-
-                    if (entity.getBoundingBox().inflate(0.1).clip(eye, rayEnd).isPresent()) {
-                        isVisible = true;
-                    } else {
-                        Vec3 dir = toEntityCenter.normalize();
-                        double dot = look.dot(dir);
-
-                        double FOV_DOT = Math.cos(Math.toRadians(45.0)) ; // ~90°
-                        if (dot > FOV_DOT) {
-                            isVisible = true;
-                        }
-                    }
-                    if (isVisible) {
-                        detectedThisTick = true;
-
-                        // Get mob type name
-                        String mobType =
-                                BuiltInRegistries.ENTITY_TYPE
-                                        .getKey(entity.getType())
-                                        .getPath();
-
-                        // Count occurrences
-                        viewingMobCounts.put(
-                                mobType,
-                                viewingMobCounts.getOrDefault(mobType, 0) + 1
-                        );
-
-                        // Track closest
-                        if (distance < closestDistance) {
-                            closestDistance = distance;
-                            closestViewingMob = (Mob) entity;
-                        }
-                    }
+        // Ray end point (limited by visible distance)
+        Vec3 rayEnd = eye.add(look.scale(visibleDistance));
 
-                }
+        // Same box as a Level.getEntities query, answered from the shared grid
+        AABB queryBox = player.getBoundingBox()
+                .expandTowards(look.scale(visibleDistance))
+                .inflate(PERIPHERAL_RADIUS);
 
+        List<Mob> candidates = mobCandidates;
+        mobIndexFor((ServerLevel) player.level(), tick)
+                .query(eye, look, visibleDistance, FOV_DOT, queryBox, candidates);
 
-                // 1-tick smoothing
-                boolean viewingMob = detectedThisTick || wasViewingMobLastTick;
-                wasViewingMobLastTick = detectedThisTick;
+        boolean detectedThisTick = false;
 
-                int viewingMobFlag = viewingMob ? 1 : 0;
+        Mob closestViewingMob = null;
+        double closestDistance = Double.MAX_VALUE;
+        IdCounter viewingMobCounts = mobCounter;
+        viewingMobCounts.clear();
 
-                String closestViewingMobType = "none";
 
-                if (closestViewingMob != null) {
-                    closestViewingMobType =
-                            BuiltInRegistries.ENTITY_TYPE
-                                    .getKey(closestViewingMob.getType())
-                                    .getPath();
-                }
+    
+        for (Mob entity : candidates) {
 
+            Vec3 toEntityCenter = entity.getBoundingBox()
+                    .getCenter()
+                    .subtract(eye);
 
-                if (!viewingMobCounts.isEmpty()) {
-                    StringBuilder sb = new StringBuilder();
+            double distance = toEntityCenter.length();
+            if (distance > visibleDistance) continue;
 
-                    for (Map.Entry<String, Integer> entry : viewingMobCounts.entrySet()) {
-                        sb.append(entry.getKey())
-                        .append(" : ")
-                        .append(entry.getValue())
-                        .append("; ");
-                    }
+            boolean isVisible = false;
 
-                    // Remove trailing comma + space
-                    sb.setLength(sb.length() - 2);
+            if (entity.getBoundingBox().inflate(0.1).clip(eye, rayEnd).isPresent()) {
+                isVisible = true;
+            } else {
+                Vec3 dir = toEntityCenter.normalize();
+                double dot = look.dot(dir);
 
-                    allViewingMobs = sb.toString();
-                }
-                if (detectedThisTick) {
-                    lastClosestViewingMobType = closestViewingMobType;
-                    lastAllViewingMobs = allViewingMobs;
-                } else if (viewingMob) {
-                    closestViewingMobType = lastClosestViewingMobType;
-                    allViewingMobs = lastAllViewingMobs;
+                if (dot > FOV_DOT) {
+                    isVisible = true;
                 }
-
-                writer.write(
-                        id + "," +
-                        px + "," + py + "," + pz + "," +
-                        look.x + "," + look.y + "," + look.z + "," +
-                        health + "," +
-                        food + "," +
-                        oxygen + "," +
-                        biome + "," +
-                        outsideObservableFlag + "," +
-                        nightFlag + "," +
-                        blockHighlightedFlag + "," +
-                        highlightedBlock + "," +
-                        visibleBlocksCsv + "," + 
-                        viewingMobFlag + "," + 
-                        closestViewingMobType + "," +
-                        allViewingMobs + "," 
-                    );
-                        // --- Hotbar ---
-                        for (int i = 0; i < 9; i++) {
-                            writer.write(hotbar[i] + ",");
-                        }
-
-                        // --- Main Inventory ---
-                        for (int i = 0; i < 36; i++) {
-                            writer.write(mainInventory[i] + ",");
-                        }
-
-                        // --- Armor ---
-                        for (int i = 0; i < 4; i++) {
-                            writer.write(armorInventory[i] + ",");
-                        }
-
-                        // --- Shield ---
-                        writer.write(shieldSlot + "\n");
             }
+            if (isVisible) {
+                detectedThisTick = true;
 
-            writer.flush();
+                // Count occurrences per mob type id
+                viewingMobCounts.increment(
+                        BuiltInRegistries.ENTITY_TYPE.getId(entity.getType()));
 
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
+                // Track closest
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closestViewingMob = entity;
+                }
+            }
 
-    private static String blockCountsToString(Map<String, Integer> counts) {
-        if (counts == null || counts.isEmpty()) return "none";
-
-        return counts.entrySet()
-                .stream()
-                .sorted(Comparator
-                        .<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue)
-                        .reversed()
-                        .thenComparing(Map.Entry::getKey)
-                )
-                .map(e -> e.getKey() + " : " + e.getValue())
-                .collect(Collectors.joining("; "));
-    }
+        }
 
-    private static String formatSlot(ItemStack stack) {
-        if (stack == null || stack.isEmpty()) return "none";
 
-        String itemName = BuiltInRegistries.ITEM.getKey(stack.getItem()).getPath();
-        int count = stack.getCount();
+        // 1-tick smoothing
+        boolean viewingMob = detectedThisTick || session.wasViewingMob;
+        session.wasViewingMob = detectedThisTick;
 
-        if (count <= 1) return itemName;
-        return itemName + " : " + count;
-    }
+        state.viewingMob = viewingMob;
 
+        int closestViewingMobType = PlayerRecord.NONE;
 
-    private static double degToRad(double deg) {
-        return deg * Math.PI / 180.0;
-    }
+        if (closestViewingMob != null) {
+            closestViewingMobType =
+                    BuiltInRegistries.ENTITY_TYPE.getId(closestViewingMob.getType());
+        }
 
-    private static Vec3 dirFromYawPitch(double yawDeg, double pitchDeg) {
-        double yaw = degToRad(yawDeg);
-        double pitch = degToRad(pitchDeg);
+        // The arrays go into records; copy only when the result changed
+        int[] allViewingMobIds = state.viewingMobIds;
+        int[] allViewingMobCounts = state.viewingMobCounts;
+        if (!viewingMobCounts.matches(allViewingMobIds, allViewingMobCounts)) {
+            allViewingMobIds = viewingMobCounts.copyIds();
+            allViewingMobCounts = viewingMobCounts.copyCounts();
+        }
 
-        double x = -Math.sin(yaw) * Math.cos(pitch);
-        double y = -Math.sin(pitch);
-        double z =  Math.cos(yaw) * Math.cos(pitch);
+        if (detectedThisTick) {
+            session.lastClosestViewingMob = closestViewingMobType;
+            session.lastViewingMobIds = allViewingMobIds;
+            session.lastViewingMobCounts = allViewingMobCounts;
+        } else if (viewingMob) {
+            closestViewingMobType = session.lastClosestViewingMob;
+            allViewingMobIds = session.lastViewingMobIds;
+            allViewingMobCounts = session.lastViewingMobCounts;
+        }
 
-        return new Vec3(x, y, z);
+        state.closestViewingMob = closestViewingMobType;
+        state.viewingMobIds = allViewingMobIds;
+        state.viewingMobCounts = allViewingMobCounts;
     }
 
-    private void writeHeaderIfNeeded() throws IOException {
-        if (!headerWritten) {
-            writer.write(
-                    "ID," +
-                    "PlayerCords_XPos," +
-                    "PlayerCords_YPos," +
-                    "PlayerCords_ZPos," +
-                    "PlayerViewingCords_XPos," +
-                    "PlayerViewingCords_YPos," +
-                    "PlayerViewingCords_ZPos," +
-                    "PlayerStats_Health," +
-                    "PlayerStats_FoodLevel," +
-                    "PlayerStats_OxygenLevel," +
-                    "PlayerEnvironment_Biome," +
-                    "PlayerViewingEnvironment_OutsideObservableFlag," +
-                    "PlayerViewingEnvironment_NightFlag," +
-                    "PlayerViewingEnvironment_BlockHighlightedFlag," +
-                    "PlayerViewingEnvironment_HighlightedBlock," +
-                    "PlayerViewingEnvironment_VisibleBlocks," +
-                    "PlayerViewingEnvironment_MobFlag," +
-                    "PlayerViewingEnvironment_ClosestViewingMobType," +
-                    "PlayerViewingEnvironment_AllViewingMobs,"  
-                );
-                    // Hotbar
-                    for (int i = 1; i <= 9; i++) {
-                        writer.write("PlayerInventory_Item" + i + "Hotbar,");
-                    }
-
-                    // Main Inventory
-                    for (int i = 1; i <= 36; i++) {
-                        writer.write("PlayerInventory_MainInventory_Item" + i + ",");
-                    }
+    /**
+     * What the extractors share about one player in one tick; the block pick
+     * is only done if a column needs it.
+     */
+    private static final class PlayerView {
+        ServerPlayer player;
+        PlayerSession session;
+        long tick;
+
+        private double maxDistance;
+        private Vec3 eye;
+        private Vec3 look;
+        private HitResult pick;
+
+        void reset(ServerPlayer player, PlayerSession session, long tick, double maxDistance) {
+            this.player = player;
+            this.session = session;
+            this.tick = tick;
+            this.maxDistance = maxDistance;
+            this.eye = null;
+            this.look = null;
+            this.pick = null;
+        }
 
-                    // Armor
-                    for (int i = 1; i <= 4; i++) {
-                        writer.write("PlayerInventory_Item" + i + "Armor,");
-                    }
+        Vec3 eye() {
+            if (eye == null) eye = player.getEyePosition();
+            return eye;
+        }
 
-                    // Shield
-                    writer.write("PlayerInventory_ShieldSlot\n");
+        Vec3 look() {
+            if (look == null) look = player.getLookAngle();
+            return look;
+        }
 
+        /** Block the player is looking at, within the view distance. */
+        HitResult pick() {
+            if (pick == null) pick = player.pick(maxDistance, 0.0f, false);
+            return pick;
+        }
 
-            headerWritten = true;
+        /** Distance to the picked block, or the view distance on a miss. */
+        double visibleDistance() {
+            HitResult blockHit = pick();
+            return blockHit.getType() == HitResult.Type.MISS
+                    ? maxDistance
+                    : blockHit.getLocation().distanceTo(eye());
         }
     }
+
+    private PlayerSession session(ServerPlayer player) {
+        return sessions.computeIfAbsent(player.getUUID(), id -> new PlayerSession(player));
+    }
+
+    private MobIndex mobIndexFor(ServerLevel level, long tick) {
+        return mobIndexes.computeIfAbsent(level, l -> new MobIndex()).update(level, tick);
+    }
 }
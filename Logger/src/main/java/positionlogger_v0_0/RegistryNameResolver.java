@@ -0,0 +1,21 @@
+package positionlogger_v0_0;
+
+import positionlogger_v0_0.output.NameResolver;
+
+/**
+ * Resolves raw ids through the {@link RegistryNames} tables. Registries are
+ * frozen once the server runs and the tables are immutable, so reads from
+ * the writer thread are safe.
+ */
+public final class RegistryNameResolver implements NameResolver {
+
+    @Override
+    public String blockName(int id) {
+        return RegistryNames.get().blockName(id);
+    }
+
+    @Override
+    public String entityName(int id) {
+        return RegistryNames.get().entityName(id);
+    }
+}
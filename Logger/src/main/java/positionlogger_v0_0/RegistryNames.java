@@ -0,0 +1,100 @@
+package positionlogger_v0_0;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+
+/**
+ * Names written to the log (registry paths such as "oak_log") by raw
+ * registry id, for blocks, items, entity types and the server's biomes.
+ * Built in one pass over each registry, so a name is a plain array read
+ * instead of a registry key lookup, and the same String instance every
+ * time, which keeps the sinks' string caches hitting.
+ *
+ * Immutable once built. Rebuilt on server start and data pack reload, and
+ * whenever a built-in registry has changed size since the last build; ids
+ * outside the tables (or biomes of another registry) are looked up live.
+ */
+public final class RegistryNames {
+
+    private static volatile RegistryNames instance;
+
+    private final String[] blocks;
+    private final String[] items;
+    private final String[] entities;
+    // Biomes of the server the table was built for; null before one starts
+    private final Registry<Biome> biomeRegistry;
+    private final String[] biomes;
+
+    private RegistryNames(Registry<Biome> biomeRegistry) {
+        this.blocks = names(BuiltInRegistries.BLOCK);
+        this.items = names(BuiltInRegistries.ITEM);
+        this.entities = names(BuiltInRegistries.ENTITY_TYPE);
+        this.biomeRegistry = biomeRegistry;
+        this.biomes = biomeRegistry == null ? new String[0] : names(biomeRegistry);
+    }
+
+    /** Builds the tables for the server's registries. */
+    public static void rebuild(MinecraftServer server) {
+        instance = new RegistryNames(server.registryAccess().lookupOrThrow(Registries.BIOME));
+    }
+
+    public static RegistryNames get() {
+        RegistryNames names = instance;
+        if (names == null
+                || names.blocks.length != BuiltInRegistries.BLOCK.size()
+                || names.items.length != BuiltInRegistries.ITEM.size()
+                || names.entities.length != BuiltInRegistries.ENTITY_TYPE.size()) {
+            names = new RegistryNames(names == null ? null : names.biomeRegistry);
+            instance = names;
+        }
+        return names;
+    }
+
+    public String blockName(int id) {
+        if (id >= 0 && id < blocks.length) return blocks[id];
+        return BuiltInRegistries.BLOCK.getKey(BuiltInRegistries.BLOCK.byId(id)).getPath();
+    }
+
+    public String blockName(Block block) {
+        return blockName(BuiltInRegistries.BLOCK.getId(block));
+    }
+
+    public String itemName(Item item) {
+        int id = BuiltInRegistries.ITEM.getId(item);
+        if (id >= 0 && id < items.length) return items[id];
+        return BuiltInRegistries.ITEM.getKey(item).getPath();
+    }
+
+    public String entityName(int id) {
+        if (id >= 0 && id < entities.length) return entities[id];
+        return BuiltInRegistries.ENTITY_TYPE.getKey(BuiltInRegistries.ENTITY_TYPE.byId(id)).getPath();
+    }
+
+    public String biomeName(Holder<Biome> biome) {
+        if (biomeRegistry != null) {
+            int id = biomeRegistry.getId(biome.value());
+            if (id >= 0 && id < biomes.length) return biomes[id];
+        }
+
+        // Holder's toString ends with "...:name]"
+        String raw = biome.toString();
+        int colon = raw.lastIndexOf(":");
+        int endBracket = raw.indexOf("]", colon);
+        return raw.substring(colon + 1, endBracket);
+    }
+
+    private static <T> String[] names(Registry<T> registry) {
+        String[] names = new String[registry.size()];
+        for (T value : registry) {
+            int id = registry.getId(value);
+            if (id >= 0 && id < names.length) names[id] = registry.getKey(value).getPath();
+        }
+        return names;
+    }
+}
@@ -0,0 +1,67 @@
+package positionlogger_v0_0;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import positionlogger_v0_0.util.IdCounter;
+
+/**
+ * How close the adaptive grid gets to the full grid, summed over the samples
+ * where both were cast ({@code sampling.accuracyEvery}). Adaptive rays are a
+ * subset of the full grid's, so the comparison reduces to how many of the
+ * reference's unique positions and block types were found.
+ */
+public final class SamplingAccuracy {
+
+    private static final AtomicLong samples = new AtomicLong();
+    private static final AtomicLong rays = new AtomicLong();
+    private static final AtomicLong referenceRays = new AtomicLong();
+    private static final AtomicLong positions = new AtomicLong();
+    private static final AtomicLong referencePositions = new AtomicLong();
+    private static final AtomicLong blockTypes = new AtomicLong();
+    private static final AtomicLong referenceBlockTypes = new AtomicLong();
+
+    private SamplingAccuracy() {
+    }
+
+    static void record(int raysCast, int fullRays, IdCounter adaptive, IdCounter reference) {
+        samples.incrementAndGet();
+        rays.addAndGet(raysCast);
+        referenceRays.addAndGet(fullRays);
+        positions.addAndGet(total(adaptive));
+        referencePositions.addAndGet(total(reference));
+        blockTypes.addAndGet(adaptive.distinct());
+        referenceBlockTypes.addAndGet(reference.distinct());
+    }
+
+    public static long samples() {
+        return samples.get();
+    }
+
+    /**
+     * One line for the log, e.g. "1180 of 8192 rays (6.9x fewer), 91.2% of
+     * unique blocks, 97.5% of block types over 40 samples".
+     */
+    public static String report() {
+        long n = samples.get();
+        if (n == 0) return "no samples";
+
+        double avgRays = (double) rays.get() / n;
+        double avgReference = (double) referenceRays.get() / n;
+        return String.format("%.0f of %.0f rays (%.1fx fewer), %.1f%% of unique blocks, "
+                        + "%.1f%% of block types over %d samples",
+                avgRays, avgReference, avgReference / Math.max(1.0, avgRays),
+                percent(positions.get(), referencePositions.get()),
+                percent(blockTypes.get(), referenceBlockTypes.get()),
+                n);
+    }
+
+    private static long total(IdCounter counts) {
+        long sum = 0;
+        for (int i = 0; i < counts.distinct(); i++) sum += counts.countAt(i);
+        return sum;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 100.0 : 100.0 * part / whole;
+    }
+}
@@ -0,0 +1,251 @@
+package positionlogger_v0_0;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.BlockHitResult;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+
+/**
+ * Read-only view of the chunk sections around a point, captured once per tick.
+ *
+ * Only references are copied, so capturing is cheap; it is valid for as long
+ * as the server thread is not mutating the world (i.e. within the tick that
+ * captured it). Chunks that are not loaded read as void air instead of being
+ * loaded synchronously the way {@code Level.getBlockState} would.
+ *
+ * As a {@link VoxelWorld}, shapes are those seen by the collision context
+ * of the capture, and sky light is read from the level's light engine,
+ * whose section data is published for off-thread readers.
+ */
+public final class SectionSnapshot implements BlockGetter, VoxelWorld {
+
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final BlockState VOID_AIR = Blocks.VOID_AIR.defaultBlockState();
+
+    private ServerLevel level;
+    private CollisionContext context;
+
+    private int minChunkX;
+    private int minChunkZ;
+    private int chunkSpan;
+
+    private int minY;
+    private int height;
+    private int sectionCount;
+
+    // Indexed by chunk: (cx - minChunkX) * chunkSpan + (cz - minChunkZ)
+    private LevelChunk[] chunks = new LevelChunk[0];
+    // Indexed by chunk index * sectionCount + section index; null for all-air sections
+    private LevelChunkSection[] sections = new LevelChunkSection[0];
+
+    // Highest surface over all captured chunks
+    private int surfaceTop;
+
+    /**
+     * Re-captures every section whose chunk lies within {@code radius} blocks
+     * (horizontally) of the given point. Arrays are reused between captures.
+     */
+    public SectionSnapshot capture(ServerLevel level, double x, double z, double radius, CollisionContext context) {
+        this.level = level;
+        this.context = context;
+
+        int minCX = SectionPos.blockToSectionCoord((int) Math.floor(x - radius));
+        int maxCX = SectionPos.blockToSectionCoord((int) Math.floor(x + radius));
+        int minCZ = SectionPos.blockToSectionCoord((int) Math.floor(z - radius));
+        int maxCZ = SectionPos.blockToSectionCoord((int) Math.floor(z + radius));
+
+        this.minChunkX = minCX;
+        this.minChunkZ = minCZ;
+        this.chunkSpan = Math.max(maxCX - minCX, maxCZ - minCZ) + 1;
+
+        this.minY = level.getMinY();
+        this.height = level.getHeight();
+        this.sectionCount = level.getSectionsCount();
+
+        int chunkCount = chunkSpan * chunkSpan;
+        if (chunks.length < chunkCount) {
+            chunks = new LevelChunk[chunkCount];
+        }
+        if (sections.length < chunkCount * sectionCount) {
+            sections = new LevelChunkSection[chunkCount * sectionCount];
+        }
+        Arrays.fill(chunks, null);
+        Arrays.fill(sections, null);
+        surfaceTop = NO_SURFACE;
+
+        for (int dx = 0; dx < chunkSpan; dx++) {
+            for (int dz = 0; dz < chunkSpan; dz++) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(minChunkX + dx, minChunkZ + dz);
+                if (chunk == null) continue;
+
+                int ci = dx * chunkSpan + dz;
+                chunks[ci] = chunk;
+                surfaceTop = Math.max(surfaceTop, BlockChangeTracker.surfaceTop(chunk));
+
+                LevelChunkSection[] chunkSections = chunk.getSections();
+                int n = Math.min(sectionCount, chunkSections.length);
+                for (int s = 0; s < n; s++) {
+                    LevelChunkSection section = chunkSections[s];
+                    if (section != null && !section.hasOnlyAir()) {
+                        sections[ci * sectionCount + s] = section;
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Block state at the given coordinates without allocating a BlockPos.
+     */
+    public BlockState getBlockState(int x, int y, int z) {
+        int ry = y - minY;
+        if (ry < 0 || ry >= height) return VOID_AIR;
+
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        if (cx < 0 || cz < 0 || cx >= chunkSpan || cz >= chunkSpan) return VOID_AIR;
+
+        int ci = cx * chunkSpan + cz;
+        if (chunks[ci] == null) return VOID_AIR;
+
+        LevelChunkSection section = sections[ci * sectionCount + (ry >> 4)];
+        if (section == null) return AIR;
+
+        return section.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * {@code Block.BLOCK_STATE_REGISTRY} id of the state at the given
+     * coordinates; {@link VoxelWorld#AIR} for any air.
+     */
+    @Override
+    public int stateId(int x, int y, int z) {
+        BlockState state = getBlockState(x, y, z);
+        return state.isAir() ? VoxelWorld.AIR : Block.BLOCK_STATE_REGISTRY.getId(state);
+    }
+
+    /**
+     * First Y above the highest non-air block of the column (from the chunk's
+     * WORLD_SURFACE heightmap), or {@link #NO_SURFACE} if the column is not
+     * captured and so reads as void air.
+     */
+    @Override
+    public int surface(int x, int z) {
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        if (cx < 0 || cz < 0 || cx >= chunkSpan || cz >= chunkSpan) return NO_SURFACE;
+
+        LevelChunk chunk = chunks[cx * chunkSpan + cz];
+        if (chunk == null) return NO_SURFACE;
+
+        return chunk.getHeight(Heightmap.Types.WORLD_SURFACE, x & 15, z & 15) + 1;
+    }
+
+    /**
+     * Highest {@link #surface} of all captured columns: nothing but air at or
+     * above it anywhere in the snapshot.
+     */
+    @Override
+    public int surfaceTop() {
+        return surfaceTop;
+    }
+
+    @Override
+    public boolean skyLit(int x, int y, int z) {
+        return level.getBrightness(LightLayer.SKY, new BlockPos(x, y, z)) > 0;
+    }
+
+    @Override
+    public BlockTable blocks() {
+        // Re-fetched per call in case blocks were registered after the capture
+        return BlockSurfaceTable.get();
+    }
+
+    @Override
+    public boolean clipOutline(int x, int y, int z,
+                               double fx, double fy, double fz,
+                               double tx, double ty, double tz,
+                               double[] hit) {
+        BlockState state = getBlockState(x, y, z);
+        BlockPos pos = new BlockPos(x, y, z);
+        Vec3 from = new Vec3(fx, fy, fz);
+        Vec3 to = new Vec3(tx, ty, tz);
+
+        // Fluid.ANY: the closer of block and fluid shape wins, but both
+        // report this voxel, so either one is enough here
+        if (hit(state.getShape(this, pos, context).clip(from, to, pos), hit)) return true;
+
+        FluidState fluid = state.getFluidState();
+        if (fluid.isEmpty()) return false;
+        return hit(fluid.getShape(this, pos).clip(from, to, pos), hit);
+    }
+
+    @Override
+    public boolean clipCollider(int x, int y, int z,
+                                double fx, double fy, double fz,
+                                double tx, double ty, double tz,
+                                double[] hit) {
+        BlockPos pos = new BlockPos(x, y, z);
+        return hit(getBlockState(x, y, z).getCollisionShape(this, pos, context)
+                .clip(new Vec3(fx, fy, fz), new Vec3(tx, ty, tz), pos), hit);
+    }
+
+    private static boolean hit(BlockHitResult result, double[] hit) {
+        if (result == null) return false;
+        Vec3 loc = result.getLocation();
+        hit[0] = loc.x;
+        hit[1] = loc.y;
+        hit[2] = loc.z;
+        return true;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        int cx = (pos.getX() >> 4) - minChunkX;
+        int cz = (pos.getZ() >> 4) - minChunkZ;
+        if (cx < 0 || cz < 0 || cx >= chunkSpan || cz >= chunkSpan) return null;
+
+        LevelChunk chunk = chunks[cx * chunkSpan + cz];
+        if (chunk == null) return null;
+
+        // Plain map read: LevelChunk.getBlockEntity may create missing entities
+        Map<BlockPos, BlockEntity> blockEntities = chunk.getBlockEntities();
+        return blockEntities.get(pos);
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinY() {
+        return minY;
+    }
+}
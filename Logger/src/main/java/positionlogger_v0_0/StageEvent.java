@@ -0,0 +1,42 @@
+package positionlogger_v0_0;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one measured stage, committed alongside the histograms in
+ * {@link TickStats}. Only recorded while JFR is running with this event
+ * enabled, e.g. {@code jcmd <pid> JFR.start settings=profile}.
+ */
+@Name("positionlogger.Stage")
+@Label("Logger Stage")
+@Category("PositionLogger")
+@Description("Time spent in one stage of the position logger")
+@StackTrace(false)
+final class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Player")
+    String player;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    static void emit(TickStats.Stage stage, PlayerSession session, long nanos) {
+        StageEvent event = new StageEvent();
+        if (!event.isEnabled()) return;
+
+        event.stage = stage.label;
+        event.player = session == null ? null : session.playerName;
+        event.time = nanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,44 @@
+package positionlogger_v0_0;
+
+import java.util.List;
+
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.commands.arguments.EntityArgument;
+import net.minecraft.network.chat.Component;
+
+/**
+ * {@code /positionlogger stats} prints p50 / p99 / max per stage, rays per
+ * second and the writer's counters; {@code stats <player>} the per-player
+ * stages and {@code stats reset} starts over. Operators only.
+ */
+final class StatsCommand {
+
+    private StatsCommand() {
+    }
+
+    static void register(PositionLogger logger) {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+                dispatcher.register(Commands.literal("positionlogger")
+                        // Game master level, like /gamemode
+                        .requires(source -> source.hasPermission(2))
+                        .then(Commands.literal("stats")
+                                .executes(ctx -> send(ctx.getSource(), logger.statsReport()))
+                                .then(Commands.literal("reset")
+                                        .executes(ctx -> {
+                                            logger.resetStats();
+                                            return send(ctx.getSource(), List.of("Stats reset"));
+                                        }))
+                                .then(Commands.argument("player", EntityArgument.player())
+                                        .executes(ctx -> send(ctx.getSource(),
+                                                logger.statsReport(EntityArgument.getPlayer(ctx, "player"))))))));
+    }
+
+    private static int send(CommandSourceStack source, List<String> lines) {
+        for (String line : lines) {
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return lines.size();
+    }
+}
@@ -0,0 +1,153 @@
+package positionlogger_v0_0;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import positionlogger_v0_0.output.SegmentedRecordSink;
+import positionlogger_v0_0.util.LatencyHistogram;
+
+/**
+ * Where the logger's time goes: a histogram per stage over all players, one
+ * per stage and player for the per-player stages, the number of rays cast,
+ * and a {@link StageEvent} for JFR per measurement.
+ *
+ * Switched by {@code stats.enabled}; when off, {@link #start()} is a field
+ * read and nothing is measured or recorded.
+ *
+ * Each histogram has a single writer: the server thread, or the writer
+ * thread for {@link Stage#SERIALIZATION} and {@link Stage#IO}.
+ */
+public final class TickStats {
+
+    public enum Stage {
+        /** The logger's whole share of a server tick. */
+        TICK("tick", false),
+        /** Visible-block grid, CPU time summed over sampler threads. */
+        BLOCK_SAMPLING("blocks", true),
+        /** Outdoor ray fan, CPU time summed over sampler threads. */
+        OUTDOOR("outdoor", true),
+        MOB_SCAN("mobs", true),
+        INVENTORY("inventory", true),
+        /** Formatting one record (writer thread). */
+        SERIALIZATION("serialize", false),
+        /** Committing buffered rows to disk (writer thread). */
+        IO("io", false);
+
+        public static final int COUNT = values().length;
+
+        final String label;
+        final boolean perPlayer;
+
+        Stage(String label, boolean perPlayer) {
+            this.label = label;
+            this.perPlayer = perPlayer;
+        }
+    }
+
+    /** Returned by {@link #start()} while disabled. */
+    static final long OFF = Long.MIN_VALUE;
+
+    private volatile boolean enabled = false;
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.COUNT];
+
+    // Server thread only
+    private long rays;
+    private long sinceNanos = System.nanoTime();
+
+    private final SegmentedRecordSink.Timings writerTimings = new SegmentedRecordSink.Timings() {
+        @Override
+        public void wrote(long nanos) {
+            record(Stage.SERIALIZATION, null, nanos);
+        }
+
+        @Override
+        public void committed(long nanos) {
+            record(Stage.IO, null, nanos);
+        }
+    };
+
+    public TickStats() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) reset();
+        this.enabled = enabled;
+    }
+
+    /** Timings for the segment sink, or null while disabled. */
+    SegmentedRecordSink.Timings writerTimings() {
+        return enabled ? writerTimings : null;
+    }
+
+    /** Start of a measurement, or {@link #OFF}. */
+    long start() {
+        return enabled ? System.nanoTime() : OFF;
+    }
+
+    /** Ends a measurement begun with {@link #start()}; session may be null. */
+    void stop(Stage stage, PlayerSession session, long start) {
+        if (start != OFF) record(stage, session, System.nanoTime() - start);
+    }
+
+    /** Records a duration measured elsewhere; does nothing while disabled. */
+    void record(Stage stage, PlayerSession session, long nanos) {
+        if (!enabled) return;
+
+        stages[stage.ordinal()].record(nanos);
+        if (session != null && stage.perPlayer) session.stageTime(stage).record(nanos);
+        StageEvent.emit(stage, session, nanos);
+    }
+
+    void addRays(int count) {
+        if (enabled) rays += count;
+    }
+
+    void reset() {
+        for (LatencyHistogram h : stages) h.reset();
+        rays = 0;
+        sinceNanos = System.nanoTime();
+    }
+
+    /**
+     * Lines for {@code /positionlogger stats}: one per stage, then rays per
+     * second and the writer's counters.
+     */
+    List<String> report(long rows, long bytes, int queueDepth) {
+        List<String> lines = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            lines.add(line(stage.label, stages[stage.ordinal()]));
+        }
+
+        double seconds = Math.max(1e-9, (System.nanoTime() - sinceNanos) / 1.0e9);
+        lines.add(String.format("rays/s %.0f, rows %d, %.1f MiB written, queue %d",
+                rays / seconds, rows, bytes / (1024.0 * 1024.0), queueDepth));
+        return lines;
+    }
+
+    /** Lines for one player's per-player stages. */
+    List<String> report(PlayerSession session) {
+        List<String> lines = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            if (stage.perPlayer) lines.add(line(stage.label, session.stageTime(stage)));
+        }
+        return lines;
+    }
+
+    private static String line(String label, LatencyHistogram h) {
+        return String.format("%-9s p50 %s  p99 %s  max %s  (%d)",
+                label, duration(h.percentile(0.50)), duration(h.percentile(0.99)), duration(h.max()), h.count());
+    }
+
+    private static String duration(long nanos) {
+        if (nanos < 1_000_000) return String.format("%.1fµs", nanos / 1.0e3);
+        return String.format("%.2fms", nanos / 1.0e6);
+    }
+}
@@ -0,0 +1,120 @@
+package positionlogger_v0_0;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * Last vision result of one player, reused while the player neither moves
+ * nor turns and no block around them changes.
+ *
+ * Covers the visible-block sample and the outdoor check, which only depend on
+ * the eye, the look vector and the blocks within sampling range.
+ */
+public final class VisionCache {
+
+    // Hit / miss counters across all players (server thread only)
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private boolean valid = false;
+    private ServerLevel level;
+    private double eyeX, eyeY, eyeZ;
+    private double lookX, lookY, lookZ;
+    private long computedTick;
+    // Chunks within this radius can influence the result
+    private double radius;
+
+    private final BlockChangeTracker.RegionStamp stamp = new BlockChangeTracker.RegionStamp();
+    private final BlockChangeTracker.RegionStamp scratch = new BlockChangeTracker.RegionStamp();
+
+    private int[] visibleBlockIds;
+    private int[] visibleBlockCounts;
+    private boolean outsideObservable;
+
+    /**
+     * Whether the stored result still applies to the player this tick.
+     * Counts a hit or a miss.
+     */
+    public boolean lookup(ServerPlayer player, long tick, LoggerConfig config) {
+        if (valid && matches(player, tick, config)) {
+            hits++;
+            return true;
+        }
+        misses++;
+        return false;
+    }
+
+    private boolean matches(ServerPlayer player, long tick, LoggerConfig config) {
+        if (player.level() != level) return false;
+        if (tick - computedTick >= config.cacheRefreshTicks) return false;
+
+        Vec3 eye = player.getEyePosition();
+        double dx = eye.x - eyeX;
+        double dy = eye.y - eyeY;
+        double dz = eye.z - eyeZ;
+        double eps = config.cachePositionEpsilon;
+        if (dx * dx + dy * dy + dz * dz > eps * eps) return false;
+
+        Vec3 look = player.getLookAngle();
+        double dot = look.x * lookX + look.y * lookY + look.z * lookZ;
+        if (dot < Math.cos(Math.toRadians(config.cacheAngleEpsilonDeg))) return false;
+
+        // Any block change or chunk (un)load within range
+        BlockChangeTracker.scan(level, eyeX, eyeZ, radius, scratch);
+        return scratch.sameAs(stamp);
+    }
+
+    /**
+     * Stores a freshly computed result; block changes within {@code radius}
+     * of the eye invalidate it. Arrays are shared with the records they were
+     * written to and must not be modified.
+     */
+    public void store(ServerPlayer player, long tick, double radius,
+                      int[] visibleBlockIds, int[] visibleBlockCounts, boolean outsideObservable) {
+        Vec3 eye = player.getEyePosition();
+        Vec3 look = player.getLookAngle();
+
+        this.level = (ServerLevel) player.level();
+        this.eyeX = eye.x;
+        this.eyeY = eye.y;
+        this.eyeZ = eye.z;
+        this.lookX = look.x;
+        this.lookY = look.y;
+        this.lookZ = look.z;
+        this.computedTick = tick;
+        this.radius = radius;
+
+        BlockChangeTracker.scan(level, eyeX, eyeZ, radius, stamp);
+
+        this.visibleBlockIds = visibleBlockIds;
+        this.visibleBlockCounts = visibleBlockCounts;
+        this.outsideObservable = outsideObservable;
+        this.valid = true;
+    }
+
+    /** Drops the stored result, e.g. after the sampling settings changed. */
+    public void invalidate() {
+        valid = false;
+    }
+
+    public int[] visibleBlockIds() {
+        return visibleBlockIds;
+    }
+
+    public int[] visibleBlockCounts() {
+        return visibleBlockCounts;
+    }
+
+    public boolean outsideObservable() {
+        return outsideObservable;
+    }
+
+    public static long hits() {
+        return hits;
+    }
+
+    public static long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,616 @@
+package positionlogger_v0_0;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import positionlogger_v0_0.util.IdCounter;
+import positionlogger_v0_0.util.PackedBlockPos;
+import positionlogger_v0_0.util.VisibleBlockAggregator;
+
+/**
+ * Runs the ray-heavy vision features (visible-block grid and outdoor ray fan)
+ * for all players of a tick, either on the calling thread or split across a
+ * fork-join pool.
+ *
+ * Every ray writes into its own slot of the player's {@link Job}, and results
+ * are merged in ray order on the server thread, so the output does not depend
+ * on the number of threads. Workers only read from {@link VoxelWorld}s
+ * while the server thread is blocked in {@link #run}.
+ *
+ * The visible-block grid is either cast in full (UNIFORM) or adaptively
+ * (ADAPTIVE): a coarse lattice of the same grid, with cells split only where
+ * their corner rays disagree and no finer than the cell's distance from the
+ * view center allows. Adaptive rays are a subset of the full grid, so its
+ * visible blocks are a subset of the uniform result; how large a subset is
+ * measured by {@link SamplingAccuracy}.
+ *
+ * Grid size, field of view and ray length come from the config the sampler
+ * was created with; the constants below are their defaults.
+ *
+ * Nothing here touches the game directly: the world is whatever
+ * {@link VoxelWorld} the job was reset with, so the sampler runs as well on
+ * a synthetic scene as on a {@link SectionSnapshot}.
+ */
+public final class VisionSampler {
+
+    // --- Vision-ish block sampling (first-hit surface only), defaults ---
+    public static final double BLOCK_SAMPLE_MAX_DISTANCE = 64.0;
+
+    public static final int SAMPLE_W = 128;
+    public static final int SAMPLE_H = 64;
+
+    // Approximate FOV
+    public static final double FOV_DEG_H = 90.0;
+    public static final double FOV_DEG_V = 90.0;
+
+    // Rows handled by a single fork-join leaf
+    private static final int ROWS_PER_TASK = 8;
+
+    private static final int MISS = -1;
+    // Grid ray skipped by the adaptive mode
+    private static final int NOT_CAST = -2;
+
+    private final ForkJoinPool pool;
+
+    // --- Grid ---
+    private final int width;
+    private final int height;
+    private final int rayCount;
+    private final double tanH;
+    private final double tanV;
+    private final double blockDistance;
+    // Outdoor check ray length (view.maxDistance)
+    private final double outdoorDistance;
+    // Precomputed normalized screen coords in [-1, 1]
+    private final double[] sampleU;
+    private final double[] sampleV;
+
+    private final boolean adaptive;
+    private final int baseStep;
+    private final int peripheryStep;
+    private final int accuracyEvery;
+    // Adaptive runs so far, to pick the ones compared with the full grid
+    private long adaptiveRuns;
+    private final ThreadLocal<VoxelRayMarcher> marchers = ThreadLocal.withInitial(VoxelRayMarcher::new);
+
+    /**
+     * Reads the thread count ({@code sampling.threads}, 0 runs everything on
+     * the calling thread), the grid and the sampling mode settings.
+     */
+    public VisionSampler(LoggerConfig config) {
+        this.width = Math.max(2, config.samplingWidth);
+        this.height = Math.max(2, config.samplingHeight);
+        this.rayCount = width * height;
+        this.tanH = Math.tan(Math.toRadians(config.samplingFovHorizontal * 0.5));
+        this.tanV = Math.tan(Math.toRadians(config.samplingFovVertical * 0.5));
+        this.blockDistance = config.samplingMaxDistance;
+        this.outdoorDistance = config.viewMaxDistance;
+
+        this.sampleU = new double[width];
+        this.sampleV = new double[height];
+        for (int x = 0; x < width; x++) {
+            double nx = (x + 0.5) / (double) width; // 0..1
+            sampleU[x] = nx * 2.0 - 1.0;            // -1..1
+        }
+        for (int y = 0; y < height; y++) {
+            double ny = (y + 0.5) / (double) height; // 0..1
+            sampleV[y] = 1.0 - ny * 2.0;             // +1..-1 (top->bottom)
+        }
+
+        this.adaptive = config.samplingMode == LoggerConfig.SamplingMode.ADAPTIVE;
+        this.baseStep = Math.max(1, config.samplingBaseStep);
+        this.peripheryStep = Math.max(1, Math.min(config.samplingPeripheryStep, baseStep));
+        this.accuracyEvery = config.samplingAccuracyEvery;
+
+        int threads = config.samplingThreads;
+        if (threads <= 0) {
+            this.pool = null;
+        } else {
+            this.pool = new ForkJoinPool(threads, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("PositionLogger-Sampler-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+        }
+    }
+
+    /**
+     * Inputs and per-ray outputs of one player's vision features. Each
+     * {@link PlayerSession} owns one and reuses it every tick.
+     */
+    public static final class Job {
+        VoxelWorld world;
+
+        double eyeX, eyeY, eyeZ;
+        double fwdX, fwdY, fwdZ;
+        double rightX, rightY, rightZ;
+        double upX, upY, upZ;
+        // Unit directions of the outdoor ray fan
+        final double[] outdoorX = new double[5];
+        final double[] outdoorY = new double[5];
+        final double[] outdoorZ = new double[5];
+
+        // Indexed by yi * width + xi; MISS if the ray hit nothing,
+        // NOT_CAST if the adaptive mode skipped it. Sized by the sampler.
+        int[] hitStateId = new int[0];
+        long[] hitPos = new long[0];
+        int raysCast;
+
+        // Full grid for the accuracy comparison, created on first use
+        boolean reference;
+        int[] referenceStateId;
+        long[] referencePos;
+        private VisibleBlockAggregator referenceVisible;
+
+        // One flag per outdoor ray, combined in order after the run. Rays
+        // after one that was proven to escape are left false.
+        final boolean[] outdoorHits = new boolean[5];
+
+        // Which features to compute; both by default
+        boolean sampleBlocks;
+        boolean sampleOutdoor;
+
+        // CPU time spent per feature (summed over worker threads)
+        final AtomicLong blockNanos = new AtomicLong();
+        final AtomicLong outdoorNanos = new AtomicLong();
+
+        // Created on the first reset, sized for the world's blocks
+        private VisibleBlockAggregator visible;
+
+        private void reset(VoxelWorld world, int rayCount,
+                           double eyeX, double eyeY, double eyeZ,
+                           double lookX, double lookY, double lookZ) {
+            if (hitStateId.length != rayCount) {
+                hitStateId = new int[rayCount];
+                hitPos = new long[rayCount];
+                referenceStateId = null;
+                referencePos = null;
+                visible = null;
+            }
+            if (visible == null) {
+                // At most one distinct block per ray of the configured grid
+                visible = new VisibleBlockAggregator(rayCount, world.blocks().blockCount());
+            }
+
+            this.world = world;
+            this.sampleBlocks = true;
+            this.sampleOutdoor = true;
+            blockNanos.set(0);
+            outdoorNanos.set(0);
+
+            this.eyeX = eyeX;
+            this.eyeY = eyeY;
+            this.eyeZ = eyeZ;
+
+            // Same arithmetic as Vec3.normalize and Vec3.cross with (0, 1, 0)
+            double len = Math.sqrt(lookX * lookX + lookY * lookY + lookZ * lookZ);
+            if (len < 1.0E-5F) {
+                fwdX = fwdY = fwdZ = 0;
+            } else {
+                fwdX = lookX / len;
+                fwdY = lookY / len;
+                fwdZ = lookZ / len;
+            }
+
+            double rx = -fwdZ, rz = fwdX;
+            double rightSqr = rx * rx + rz * rz;
+            if (rightSqr < 1e-8) {
+                rightX = 1;
+                rightY = 0;
+                rightZ = 0;
+            } else {
+                double r = Math.sqrt(rightSqr);
+                rightX = rx / r;
+                rightY = 0;
+                rightZ = rz / r;
+            }
+
+            double ux = rightY * fwdZ - rightZ * fwdY;
+            double uy = rightZ * fwdX - rightX * fwdZ;
+            double uz = rightX * fwdY - rightY * fwdX;
+            double u = Math.sqrt(ux * ux + uy * uy + uz * uz);
+            if (u < 1.0E-5F) {
+                upX = upY = upZ = 0;
+            } else {
+                upX = ux / u;
+                upY = uy / u;
+                upZ = uz / u;
+            }
+
+            outdoorX[0] = lookX;
+            outdoorY[0] = lookY;
+            outdoorZ[0] = lookZ;
+            outdoorDirection(1, lookX + 0.2, lookY, lookZ);
+            outdoorDirection(2, lookX - 0.2, lookY, lookZ);
+            outdoorDirection(3, lookX, lookY + 0.2, lookZ);
+            outdoorDirection(4, lookX, lookY - 0.2, lookZ);
+        }
+
+        private void outdoorDirection(int i, double x, double y, double z) {
+            double len = Math.sqrt(x * x + y * y + z * z);
+            if (len < 1.0E-5F) {
+                outdoorX[i] = outdoorY[i] = outdoorZ[i] = 0;
+                return;
+            }
+            outdoorX[i] = x / len;
+            outdoorY[i] = y / len;
+            outdoorZ[i] = z / len;
+        }
+
+        /**
+         * Restricts the next {@link #run} to the given features.
+         */
+        public void select(boolean blocks, boolean outdoor) {
+            this.sampleBlocks = blocks;
+            this.sampleOutdoor = outdoor;
+        }
+
+        /** Grid rays cast by the last run. */
+        public int raysCast() {
+            return raysCast;
+        }
+
+        public long blockNanos() {
+            return blockNanos.get();
+        }
+
+        public long outdoorNanos() {
+            return outdoorNanos.get();
+        }
+
+        /**
+         * Unique block positions seen per block id, merged in ray order.
+         * The returned counter is reused by the next tick.
+         */
+        public IdCounter visibleBlocks() {
+            return aggregate(visible, hitStateId, hitPos);
+        }
+
+        // Visible blocks of the full grid, for the accuracy comparison
+        IdCounter referenceBlocks() {
+            if (referenceVisible == null) {
+                referenceVisible = new VisibleBlockAggregator(hitStateId.length, world.blocks().blockCount());
+            }
+            return aggregate(referenceVisible, referenceStateId, referencePos);
+        }
+
+        private IdCounter aggregate(VisibleBlockAggregator into, int[] stateIds, long[] positions) {
+            BlockTable table = world.blocks();
+            into.clear();
+
+            for (int i = 0; i < stateIds.length; i++) {
+                int stateId = stateIds[i];
+                if (stateId < 0) continue; // MISS or NOT_CAST
+
+                into.add(table.blockId(stateId), positions[i]);
+            }
+            return into.counts();
+        }
+
+        /**
+         * True if any outdoor ray escapes or ends somewhere that receives sky light.
+         */
+        public boolean outsideObservable() {
+            for (boolean hit : outdoorHits) {
+                if (hit) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sets the job up for a view from the eye along the look vector (a unit
+     * vector, as from {@code getLookAngle}) and this sampler's grid; the
+     * previous outputs are invalid afterwards. The world must cover
+     * {@link #captureRadius()} around the eye until the next reset.
+     */
+    public void reset(Job job, VoxelWorld world,
+                      double eyeX, double eyeY, double eyeZ,
+                      double lookX, double lookY, double lookZ) {
+        job.reset(world, rayCount, eyeX, eyeY, eyeZ, lookX, lookY, lookZ);
+    }
+
+    /** Horizontal distance from the eye that any ray can reach. */
+    public double captureRadius() {
+        return Math.max(blockDistance, outdoorDistance) + 1.0;
+    }
+
+    /**
+     * Fills in the outputs of every job. Returns once all of them are done.
+     */
+    public void run(List<Job> jobs) {
+        if (jobs.isEmpty()) return;
+
+        for (Job job : jobs) {
+            job.reference = adaptive && job.sampleBlocks
+                    && accuracyEvery > 0 && ++adaptiveRuns % accuracyEvery == 0;
+            // The adaptive path counts its own
+            job.raysCast = job.sampleBlocks && !adaptive ? rayCount : 0;
+        }
+
+        if (pool == null) {
+            VoxelRayMarcher marcher = marchers.get();
+            for (Job job : jobs) {
+                if (job.sampleBlocks) {
+                    if (adaptive) sampleAdaptive(job, marcher);
+                    else sampleRows(job, 0, height, marcher);
+                }
+                if (job.sampleOutdoor) outdoorRays(job, marcher);
+            }
+            return;
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>(jobs.size() * 2);
+                for (Job job : jobs) {
+                    if (job.sampleBlocks) {
+                        // An adaptive grid refines in order, so it stays one task
+                        tasks.add(adaptive ? new AdaptiveTask(job) : new RowTask(job, 0, height));
+                    }
+                    if (job.sampleOutdoor) tasks.add(new OutdoorTask(job));
+                }
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    public void close() {
+        if (pool == null) return;
+
+        pool.shutdown();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Fork-join tasks are Serializable, but these are never serialized
+    @SuppressWarnings("serial")
+    private final class RowTask extends RecursiveAction {
+        private final Job job;
+        private final int y0, y1;
+
+        RowTask(Job job, int y0, int y1) {
+            this.job = job;
+            this.y0 = y0;
+            this.y1 = y1;
+        }
+
+        @Override
+        protected void compute() {
+            if (y1 - y0 <= ROWS_PER_TASK) {
+                sampleRows(job, y0, y1, marchers.get());
+                return;
+            }
+            int mid = (y0 + y1) >>> 1;
+            invokeAll(new RowTask(job, y0, mid), new RowTask(job, mid, y1));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class AdaptiveTask extends RecursiveAction {
+        private final Job job;
+
+        AdaptiveTask(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            sampleAdaptive(job, marchers.get());
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class OutdoorTask extends RecursiveAction {
+        private final Job job;
+
+        OutdoorTask(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            outdoorRays(job, marchers.get());
+        }
+    }
+
+    private void sampleRows(Job job, int y0, int y1, VoxelRayMarcher marcher) {
+        long start = System.nanoTime();
+        sampleRows(job, y0, y1, marcher, job.hitStateId, job.hitPos);
+        job.blockNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void sampleRows(Job job, int y0, int y1, VoxelRayMarcher marcher,
+                            int[] stateIds, long[] positions) {
+        for (int yi = y0; yi < y1; yi++) {
+            for (int xi = 0; xi < width; xi++) {
+                castRay(job, xi, yi, marcher, stateIds, positions);
+            }
+        }
+    }
+
+    // One grid ray into slot yi * width + xi of the given arrays
+    private void castRay(Job job, int xi, int yi, VoxelRayMarcher marcher,
+                         int[] stateIds, long[] positions) {
+        double u = sampleU[xi] * tanH;
+        double v = sampleV[yi] * tanV;
+        int i = yi * width + xi;
+
+        // Same arithmetic as forward.add(right.scale(u)).add(up.scale(v)).normalize()
+        double dx = job.fwdX + job.rightX * u + job.upX * v;
+        double dy = job.fwdY + job.rightY * u + job.upY * v;
+        double dz = job.fwdZ + job.rightZ * u + job.upZ * v;
+
+        double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (len < 1.0E-5) {
+            stateIds[i] = MISS;
+            return;
+        }
+        dx /= len;
+        dy /= len;
+        dz /= len;
+
+        boolean hit = marcher.castOutline(job.world,
+                job.eyeX, job.eyeY, job.eyeZ,
+                job.eyeX + dx * blockDistance,
+                job.eyeY + dy * blockDistance,
+                job.eyeZ + dz * blockDistance);
+
+        if (hit) {
+            stateIds[i] = marcher.hitStateId();
+            positions[i] = marcher.hitPos();
+        } else {
+            stateIds[i] = MISS;
+        }
+    }
+
+    // --- Adaptive grid ---
+
+    private void sampleAdaptive(Job job, VoxelRayMarcher marcher) {
+        long start = System.nanoTime();
+        Arrays.fill(job.hitStateId, NOT_CAST);
+        job.raysCast = 0;
+
+        BlockTable table = job.world.blocks();
+        for (int y0 = 0; y0 < height - 1; y0 += baseStep) {
+            int y1 = Math.min(y0 + baseStep, height - 1);
+            for (int x0 = 0; x0 < width - 1; x0 += baseStep) {
+                int x1 = Math.min(x0 + baseStep, width - 1);
+                refine(job, x0, y0, x1, y1, marcher, table);
+            }
+        }
+        job.blockNanos.addAndGet(System.nanoTime() - start);
+
+        // The full grid only feeds the report, not the cost estimates
+        if (job.reference) {
+            if (job.referenceStateId == null) {
+                job.referenceStateId = new int[rayCount];
+                job.referencePos = new long[rayCount];
+            }
+            sampleRows(job, 0, height, marcher, job.referenceStateId, job.referencePos);
+            SamplingAccuracy.record(job.raysCast, rayCount, job.visibleBlocks(), job.referenceBlocks());
+        }
+    }
+
+    /**
+     * Casts the corners of the cell [x0, x1] x [y0, y1] (grid indices,
+     * inclusive) and splits it while they disagree and the cell is coarser
+     * than its distance from the view center allows.
+     */
+    private void refine(Job job, int x0, int y0, int x1, int y1, VoxelRayMarcher marcher,
+                        BlockTable table) {
+        castOnce(job, x0, y0, marcher);
+        castOnce(job, x1, y0, marcher);
+        castOnce(job, x0, y1, marcher);
+        castOnce(job, x1, y1, marcher);
+
+        int w = x1 - x0, h = y1 - y0;
+        if (w <= 1 && h <= 1) return;
+        if (Math.max(w, h) <= minStep(x0, y0, x1, y1)) return;
+        if (agree(job, table,
+                y0 * width + x0, y0 * width + x1,
+                y1 * width + x0, y1 * width + x1)) return;
+
+        int mx = w > 1 ? (x0 + x1) >>> 1 : x1;
+        int my = h > 1 ? (y0 + y1) >>> 1 : y1;
+
+        refine(job, x0, y0, mx, my, marcher, table);
+        if (mx < x1) refine(job, mx, y0, x1, my, marcher, table);
+        if (my < y1) refine(job, x0, my, mx, y1, marcher, table);
+        if (mx < x1 && my < y1) refine(job, mx, my, x1, y1, marcher, table);
+    }
+
+    private void castOnce(Job job, int xi, int yi, VoxelRayMarcher marcher) {
+        if (job.hitStateId[yi * width + xi] != NOT_CAST) return;
+        castRay(job, xi, yi, marcher, job.hitStateId, job.hitPos);
+        job.raysCast++;
+    }
+
+    // Finest cell size at the cell's center: full resolution in the middle
+    // third of the view, then coarser towards the edges
+    private int minStep(int x0, int y0, int x1, int y1) {
+        double u = Math.abs((sampleU[x0] + sampleU[x1]) * 0.5);
+        double v = Math.abs((sampleV[y0] + sampleV[y1]) * 0.5);
+        double eccentricity = Math.max(u, v);
+
+        if (eccentricity < 1.0 / 3.0) return 1;
+        if (eccentricity < 2.0 / 3.0) return Math.max(1, peripheryStep / 2);
+        return peripheryStep;
+    }
+
+    /**
+     * True if the four rays all miss, or all hit the same block type within
+     * one block of each other, so the rays between them would most likely
+     * find nothing new.
+     */
+    private static boolean agree(Job job, BlockTable table, int a, int b, int c, int d) {
+        int sa = job.hitStateId[a], sb = job.hitStateId[b], sc = job.hitStateId[c], sd = job.hitStateId[d];
+        if (sa == MISS || sb == MISS || sc == MISS || sd == MISS) {
+            return sa == MISS && sb == MISS && sc == MISS && sd == MISS;
+        }
+
+        int block = table.blockId(sa);
+        if (table.blockId(sb) != block || table.blockId(sc) != block || table.blockId(sd) != block) return false;
+
+        long pa = job.hitPos[a], pb = job.hitPos[b], pc = job.hitPos[c], pd = job.hitPos[d];
+        return span(PackedBlockPos.x(pa), PackedBlockPos.x(pb), PackedBlockPos.x(pc), PackedBlockPos.x(pd)) <= 1
+                && span(PackedBlockPos.y(pa), PackedBlockPos.y(pb), PackedBlockPos.y(pc), PackedBlockPos.y(pd)) <= 1
+                && span(PackedBlockPos.z(pa), PackedBlockPos.z(pb), PackedBlockPos.z(pc), PackedBlockPos.z(pd)) <= 1;
+    }
+
+    private static int span(int a, int b, int c, int d) {
+        return Math.max(Math.max(a, b), Math.max(c, d)) - Math.min(Math.min(a, b), Math.min(c, d));
+    }
+
+    private void outdoorRays(Job job, VoxelRayMarcher marcher) {
+        long start = System.nanoTime();
+        Arrays.fill(job.outdoorHits, false);
+
+        // Any ray proven to escape decides the flag; the rest need not be cast
+        boolean proven = false;
+        for (int i = 0; i < job.outdoorHits.length && !proven; i++) {
+            if (OutdoorClassifier.escapes(job.world, job.eyeX, job.eyeY, job.eyeZ,
+                    job.outdoorX[i], job.outdoorY[i], job.outdoorZ[i], outdoorDistance)) {
+                job.outdoorHits[i] = true;
+                proven = true;
+            }
+        }
+
+        if (proven) {
+            OutdoorClassifier.countProven();
+        } else {
+            OutdoorClassifier.countCast();
+            for (int i = 0; i < job.outdoorHits.length; i++) {
+                job.outdoorHits[i] = outdoorRay(job, i, marcher);
+            }
+        }
+        job.outdoorNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private boolean outdoorRay(Job job, int index, VoxelRayMarcher marcher) {
+        boolean hit = marcher.castCollider(job.world,
+                job.eyeX, job.eyeY, job.eyeZ,
+                job.eyeX + job.outdoorX[index] * outdoorDistance,
+                job.eyeY + job.outdoorY[index] * outdoorDistance,
+                job.eyeZ + job.outdoorZ[index] * outdoorDistance);
+
+        if (!hit) return true;
+
+        // Check if the block containing the hit point receives sky light
+        return job.world.skyLit(
+                (int) Math.floor(marcher.hitX()),
+                (int) Math.floor(marcher.hitY()),
+                (int) Math.floor(marcher.hitZ()));
+    }
+}
@@ -0,0 +1,244 @@
+package positionlogger_v0_0;
+
+import positionlogger_v0_0.util.PackedBlockPos;
+
+/**
+ * Amanatides–Woo grid traversal over a {@link VoxelWorld}.
+ *
+ * Visits voxels in exactly the order {@code BlockGetter.traverseBlocks} does
+ * (same end-point nudging and tie breaking), so first hits agree with
+ * {@code Level.clip}. Air and full cubes are decided from the world's
+ * {@link BlockTable}; only partial shapes fall back to the world's exact
+ * shape tests ({@code VoxelShape.clip} for a {@link SectionSnapshot}).
+ *
+ * Not thread-safe: keep one instance per thread.
+ */
+public final class VoxelRayMarcher {
+
+    private static final int MODE_OUTLINE = 0;
+    private static final int MODE_COLLIDER = 1;
+
+    private BlockTable table;
+    // Hit location of the world's exact shape tests
+    private final double[] clipHit = new double[3];
+
+    // Result of the last successful cast
+    private int hitStateId;
+    private long hitPos;
+    private double hitX, hitY, hitZ;
+
+    /** State id of the block hit by the last successful cast. */
+    public int hitStateId() {
+        return hitStateId;
+    }
+
+    /** Table the state ids were classified against. */
+    public BlockTable table() {
+        return table;
+    }
+
+    /** Hit block position packed with {@link PackedBlockPos#asLong}. */
+    public long hitPos() {
+        return hitPos;
+    }
+
+    /** Exact hit location, as {@code HitResult.getLocation()} would report it. */
+    public double hitX() {
+        return hitX;
+    }
+
+    public double hitY() {
+        return hitY;
+    }
+
+    public double hitZ() {
+        return hitZ;
+    }
+
+    /**
+     * Casts from (fx, fy, fz) to (tx, ty, tz) against OUTLINE shapes and any
+     * fluid, matching {@code ClipContext.Block.OUTLINE, ClipContext.Fluid.ANY}.
+     */
+    public boolean castOutline(VoxelWorld world,
+                               double fx, double fy, double fz,
+                               double tx, double ty, double tz) {
+        return cast(MODE_OUTLINE, world, fx, fy, fz, tx, ty, tz);
+    }
+
+    /**
+     * Casts against collision shapes ignoring fluids, matching
+     * {@code ClipContext.Block.COLLIDER, ClipContext.Fluid.NONE}.
+     */
+    public boolean castCollider(VoxelWorld world,
+                                double fx, double fy, double fz,
+                                double tx, double ty, double tz) {
+        return cast(MODE_COLLIDER, world, fx, fy, fz, tx, ty, tz);
+    }
+
+    private boolean cast(int mode, VoxelWorld world,
+                         double fx, double fy, double fz,
+                         double tx, double ty, double tz) {
+
+        if (fx == tx && fy == ty && fz == tz) return false;
+
+        table = world.blocks();
+
+        // Same nudging as traverseBlocks: start slightly behind, end slightly past
+        double ex = lerp(-1.0E-7, tx, fx);
+        double ey = lerp(-1.0E-7, ty, fy);
+        double ez = lerp(-1.0E-7, tz, fz);
+        double sx = lerp(-1.0E-7, fx, tx);
+        double sy = lerp(-1.0E-7, fy, ty);
+        double sz = lerp(-1.0E-7, fz, tz);
+
+        int x = floor(sx);
+        int y = floor(sy);
+        int z = floor(sz);
+
+        if (visit(mode, world, x, y, z, fx, fy, fz, tx, ty, tz)) return true;
+
+        double dx = ex - sx;
+        double dy = ey - sy;
+        double dz = ez - sz;
+
+        int stepX = sign(dx);
+        int stepY = sign(dy);
+        int stepZ = sign(dz);
+
+        double deltaX = stepX == 0 ? Double.MAX_VALUE : stepX / dx;
+        double deltaY = stepY == 0 ? Double.MAX_VALUE : stepY / dy;
+        double deltaZ = stepZ == 0 ? Double.MAX_VALUE : stepZ / dz;
+
+        double maxX = deltaX * (stepX > 0 ? 1.0 - frac(sx) : frac(sx));
+        double maxY = deltaY * (stepY > 0 ? 1.0 - frac(sy) : frac(sy));
+        double maxZ = deltaZ * (stepZ > 0 ? 1.0 - frac(sz) : frac(sz));
+
+        while (maxX <= 1.0 || maxY <= 1.0 || maxZ <= 1.0) {
+            if (maxX < maxY) {
+                if (maxX < maxZ) {
+                    x += stepX;
+                    maxX += deltaX;
+                } else {
+                    z += stepZ;
+                    maxZ += deltaZ;
+                }
+            } else if (maxY < maxZ) {
+                y += stepY;
+                maxY += deltaY;
+            } else {
+                z += stepZ;
+                maxZ += deltaZ;
+            }
+
+            if (visit(mode, world, x, y, z, fx, fy, fz, tx, ty, tz)) return true;
+        }
+
+        return false;
+    }
+
+    private boolean visit(int mode, VoxelWorld world, int x, int y, int z,
+                          double fx, double fy, double fz,
+                          double tx, double ty, double tz) {
+
+        int id = world.stateId(x, y, z);
+        if (id == VoxelWorld.AIR) return false;
+
+        byte c = mode == MODE_OUTLINE ? table.outlineClass(id) : table.colliderClass(id);
+        hitStateId = id;
+
+        switch (c) {
+            case BlockTable.EMPTY:
+                return false;
+
+            case BlockTable.FULL:
+                return clipFullCube(x, y, z, fx, fy, fz, tx, ty, tz);
+
+            default: {
+                boolean hit = mode == MODE_OUTLINE
+                        ? world.clipOutline(x, y, z, fx, fy, fz, tx, ty, tz, clipHit)
+                        : world.clipCollider(x, y, z, fx, fy, fz, tx, ty, tz, clipHit);
+                return hit && hit(x, y, z, clipHit[0], clipHit[1], clipHit[2]);
+            }
+        }
+    }
+
+    /**
+     * {@code VoxelShape.clip} specialised to the unit cube at (x, y, z), using
+     * the same inside test and face tolerances as {@code AABB.clip}.
+     */
+    private boolean clipFullCube(int x, int y, int z,
+                                 double fx, double fy, double fz,
+                                 double tx, double ty, double tz) {
+
+        double dx = tx - fx;
+        double dy = ty - fy;
+        double dz = tz - fz;
+        if (dx * dx + dy * dy + dz * dz < 1.0E-7) return false;
+
+        // Starting inside the cube
+        double ix = fx + dx * 0.001;
+        double iy = fy + dy * 0.001;
+        double iz = fz + dz * 0.001;
+        if (ix >= x && ix < x + 1 && iy >= y && iy < y + 1 && iz >= z && iz < z + 1) {
+            return hit(x, y, z, ix, iy, iz);
+        }
+
+        double best = 1.0;
+        boolean found = false;
+
+        if (dx > 1.0E-7 || dx < -1.0E-7) {
+            double t = ((dx > 0 ? x : x + 1) - fx) / dx;
+            if (t > 0.0 && t < best && inFace(fy + t * dy, y) && inFace(fz + t * dz, z)) {
+                best = t;
+                found = true;
+            }
+        }
+        if (dy > 1.0E-7 || dy < -1.0E-7) {
+            double t = ((dy > 0 ? y : y + 1) - fy) / dy;
+            if (t > 0.0 && t < best && inFace(fz + t * dz, z) && inFace(fx + t * dx, x)) {
+                best = t;
+                found = true;
+            }
+        }
+        if (dz > 1.0E-7 || dz < -1.0E-7) {
+            double t = ((dz > 0 ? z : z + 1) - fz) / dz;
+            if (t > 0.0 && t < best && inFace(fx + t * dx, x) && inFace(fy + t * dy, y)) {
+                best = t;
+                found = true;
+            }
+        }
+
+        if (!found) return false;
+        return hit(x, y, z, fx + best * dx, fy + best * dy, fz + best * dz);
+    }
+
+    private static boolean inFace(double v, int min) {
+        return min - 1.0E-7 < v && v < min + 1 + 1.0E-7;
+    }
+
+    private boolean hit(int x, int y, int z, double lx, double ly, double lz) {
+        hitPos = PackedBlockPos.asLong(x, y, z);
+        hitX = lx;
+        hitY = ly;
+        hitZ = lz;
+        return true;
+    }
+
+    private static double lerp(double delta, double start, double end) {
+        return start + delta * (end - start);
+    }
+
+    private static int floor(double v) {
+        int i = (int) v;
+        return v < i ? i - 1 : i;
+    }
+
+    private static double frac(double v) {
+        return v - Math.floor(v);
+    }
+
+    private static int sign(double v) {
+        if (v == 0.0) return 0;
+        return v > 0.0 ? 1 : -1;
+    }
+}
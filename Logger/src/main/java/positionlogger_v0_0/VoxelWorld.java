@@ -0,0 +1,56 @@
+package positionlogger_v0_0;
+
+/**
+ * What the vision features read from a world: block state ids by position,
+ * column heights, sky light and exact shape tests for the blocks that are
+ * not simply empty or full.
+ *
+ * {@link SectionSnapshot} implements it over the loaded chunks around a
+ * player; benchmarks implement it over synthetic in-memory scenes, so the
+ * ray code runs without a server. Implementations must allow concurrent
+ * reads from the sampler's worker threads.
+ */
+public interface VoxelWorld {
+
+    /** State id of every kind of air, and of anything outside the world. */
+    int AIR = 0;
+
+    /** Surface height of a column that is not part of the world. */
+    int NO_SURFACE = Integer.MIN_VALUE;
+
+    int stateId(int x, int y, int z);
+
+    /**
+     * First Y above the highest non-air block of the column, or
+     * {@link #NO_SURFACE}.
+     */
+    int surface(int x, int z);
+
+    /** Highest {@link #surface} of all columns: only air at or above it. */
+    int surfaceTop();
+
+    /** Whether the block at the given position receives any sky light. */
+    boolean skyLit(int x, int y, int z);
+
+    /**
+     * Classification of the state ids, consistent with {@link #clipOutline}
+     * and {@link #clipCollider}.
+     */
+    BlockTable blocks();
+
+    /**
+     * Exact test of the segment (fx, fy, fz) to (tx, ty, tz) against the
+     * OUTLINE shape and fluid of the {@link BlockTable#PARTIAL} voxel at
+     * (x, y, z). On a hit, writes the hit location into {@code hit}.
+     */
+    boolean clipOutline(int x, int y, int z,
+                        double fx, double fy, double fz,
+                        double tx, double ty, double tz,
+                        double[] hit);
+
+    /** Like {@link #clipOutline}, against the collision shape only. */
+    boolean clipCollider(int x, int y, int z,
+                         double fx, double fy, double fz,
+                         double tx, double ty, double tz,
+                         double[] hit);
+}
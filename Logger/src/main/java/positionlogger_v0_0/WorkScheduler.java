@@ -0,0 +1,155 @@
+package positionlogger_v0_0;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides each tick which players get which expensive features recomputed,
+ * keeping the estimated cost within a per-tick millisecond budget.
+ *
+ * Each feature keeps its own round-robin cursor over the player list and an
+ * exponential moving average of its cost per player. Features are planned
+ * cheapest first so that a slow one cannot starve the others. Players that
+ * never had a feature computed always get it, and every feature advances by
+ * at least one player per tick, so nothing goes stale forever.
+ *
+ * Features can be switched off or limited to every n-th tick per player
+ * (see {@link #limit}); those are never planned more often.
+ *
+ * Server thread only.
+ */
+public final class WorkScheduler {
+
+    public enum Feature {
+        VISIBLE_BLOCKS,
+        OUTDOOR,
+        MOBS;
+
+        public static final int COUNT = values().length;
+    }
+
+    // Weight of the newest sample in the moving averages
+    private static final double EMA_ALPHA = 0.2;
+
+    private final double[] costMillis = new double[Feature.COUNT];
+    private final boolean[] observed = new boolean[Feature.COUNT];
+    private final int[] cursor = new int[Feature.COUNT];
+    private final Feature[] order = Feature.values().clone();
+    private final boolean[] enabled = new boolean[Feature.COUNT];
+    private final int[] minInterval = new int[Feature.COUNT];
+
+    public WorkScheduler() {
+        Arrays.fill(enabled, true);
+        Arrays.fill(minInterval, 1);
+    }
+
+    /**
+     * Turns a feature off or computes it at most every {@code everyTicks}
+     * ticks per player.
+     */
+    public void limit(Feature feature, boolean enabled, int everyTicks) {
+        this.enabled[feature.ordinal()] = enabled;
+        this.minInterval[feature.ordinal()] = Math.max(1, everyTicks);
+    }
+
+    public boolean isEnabled(Feature feature) {
+        return enabled[feature.ordinal()];
+    }
+
+    /**
+     * Marks the features due this tick on each player's state.
+     * Features already fresh this tick (e.g. from the vision cache) are skipped.
+     *
+     * @param budgetMillis estimated cost allowed this tick; 0 or less runs everything
+     * @param parallelism  threads the ray features are spread over
+     */
+    public void plan(List<FeatureState> states, long tick, double budgetMillis, int parallelism) {
+        int n = states.size();
+        if (n == 0) return;
+
+        for (FeatureState state : states) {
+            for (Feature f : order) {
+                state.due[f.ordinal()] = !skipped(state, f, tick) && (budgetMillis <= 0 || state.neverComputed(f));
+            }
+        }
+        if (budgetMillis <= 0) return;
+
+        double remaining = budgetMillis;
+        for (FeatureState state : states) {
+            for (Feature f : order) {
+                if (state.due[f.ordinal()]) remaining -= cost(f, parallelism);
+            }
+        }
+
+        sortByCost();
+
+        for (Feature f : order) {
+            int fi = f.ordinal();
+            double cost = cost(f, parallelism);
+            int start = cursor[fi] % n;
+            int scheduled = 0;
+            int last = -1;
+
+            for (int i = 0; i < n; i++) {
+                int p = (start + i) % n;
+                FeatureState state = states.get(p);
+                if (state.due[fi] || skipped(state, f, tick)) continue;
+
+                if (scheduled > 0 && cost > remaining) break;
+
+                state.due[fi] = true;
+                remaining -= cost;
+                scheduled++;
+                last = p;
+            }
+
+            if (last >= 0) cursor[fi] = last + 1;
+        }
+    }
+
+    /**
+     * Feeds the measured cost of computing a feature for {@code players} players.
+     */
+    public void observe(Feature feature, long nanos, int players) {
+        if (players <= 0) return;
+
+        int fi = feature.ordinal();
+        double perPlayer = nanos / 1.0e6 / players;
+        if (!observed[fi]) {
+            costMillis[fi] = perPlayer;
+            observed[fi] = true;
+        } else {
+            costMillis[fi] += EMA_ALPHA * (perPlayer - costMillis[fi]);
+        }
+    }
+
+    /** Average cost per player in milliseconds (CPU time for ray features). */
+    public double costMillis(Feature feature) {
+        return costMillis[feature.ordinal()];
+    }
+
+    // Off, or computed recently enough (this tick at the least)
+    private boolean skipped(FeatureState state, Feature f, long tick) {
+        int fi = f.ordinal();
+        return !enabled[fi] || state.computedWithin(f, tick, minInterval[fi]);
+    }
+
+    private double cost(Feature f, int parallelism) {
+        double c = costMillis[f.ordinal()];
+        // Rays are spread over the sampler threads; the mob scan is not
+        if (f != Feature.MOBS) c /= Math.max(1, parallelism);
+        return c;
+    }
+
+    private void sortByCost() {
+        for (int i = 1; i < order.length; i++) {
+            Feature cur = order[i];
+            int j = i - 1;
+            while (j >= 0 && costMillis[order[j].ordinal()] > costMillis[cur.ordinal()]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = cur;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package positionlogger_v0_0.mixin;
+
+import java.util.function.Supplier;
+
+import net.minecraft.core.NonNullList;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import positionlogger_v0_0.InventoryChangeFlags;
+
+@Mixin(AbstractContainerMenu.class)
+public class AbstractContainerMenuMixin {
+	@Shadow
+	@Final
+	public NonNullList<Slot> slots;
+
+	@Shadow
+	@Final
+	private NonNullList<ItemStack> lastSlots;
+
+	// Runs for every slot on every broadcast; only differences from the
+	// copy last sent to the client are changes
+	@Inject(at = @At("HEAD"), method = "triggerSlotListeners")
+	private void positionlogger$onSlotCheck(int slotIndex, ItemStack stack, Supplier<ItemStack> copy, CallbackInfo info) {
+		if (!ItemStack.matches(lastSlots.get(slotIndex), stack)) {
+			positionlogger$markChanged(slots.get(slotIndex));
+		}
+	}
+
+	// Overwrites the client copies without comparing, so treat every
+	// inventory slot as changed
+	@Inject(at = @At("HEAD"), method = "sendAllDataToRemote")
+	private void positionlogger$onFullSync(CallbackInfo info) {
+		for (Slot slot : slots) {
+			positionlogger$markChanged(slot);
+		}
+	}
+
+	@Unique
+	private static void positionlogger$markChanged(Slot slot) {
+		if (slot.container instanceof Inventory inventory) {
+			((InventoryChangeFlags) inventory).positionlogger$markChanged(slot.getContainerSlot());
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package positionlogger_v0_0.mixin;
+
+import net.minecraft.world.InteractionResult;
+import net.minecraft.world.item.BlockItem;
+import net.minecraft.world.item.context.BlockPlaceContext;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import positionlogger_v0_0.ActionRing;
+
+@Mixin(BlockItem.class)
+public class BlockItemMixin {
+	// Fabric API has no placement event; every block a player places from
+	// an item goes through here
+	@Inject(at = @At("RETURN"), method = "place")
+	private void positionlogger$onPlace(BlockPlaceContext context, CallbackInfoReturnable<InteractionResult> info) {
+		if (context.getPlayer() != null && info.getReturnValue().consumesAction()) {
+			ActionRing.record(context.getPlayer(), ActionRing.BLOCK_PLACED, ((BlockItem) (Object) this).getBlock());
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package positionlogger_v0_0.mixin;
+
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import positionlogger_v0_0.InventoryChangeFlags;
+
+@Mixin(Inventory.class)
+public class InventoryMixin implements InventoryChangeFlags {
+	@Unique
+	private static final long positionlogger$ALL_SLOTS = (1L << 41) - 1;
+
+	@Unique
+	private long positionlogger$changed;
+
+	// Writes to a known slot
+	@Inject(at = @At("HEAD"), method = "setItem")
+	private void positionlogger$onSetItem(int slot, ItemStack stack, CallbackInfo info) {
+		positionlogger$markChanged(slot);
+	}
+
+	@Inject(at = @At("HEAD"), method = "removeItem(II)Lnet/minecraft/world/item/ItemStack;")
+	private void positionlogger$onRemoveItem(int slot, int count, CallbackInfoReturnable<ItemStack> info) {
+		positionlogger$markChanged(slot);
+	}
+
+	@Inject(at = @At("HEAD"), method = "removeItemNoUpdate")
+	private void positionlogger$onRemoveItemNoUpdate(int slot, CallbackInfoReturnable<ItemStack> info) {
+		positionlogger$markChanged(slot);
+	}
+
+	// Pickups and the like grow whichever stacks fit, in place, so any slot
+	// may have changed; the tracker compares before copying anything
+	@Inject(at = @At("HEAD"), method = "add(ILnet/minecraft/world/item/ItemStack;)Z")
+	private void positionlogger$onAdd(int slot, ItemStack stack, CallbackInfoReturnable<Boolean> info) {
+		positionlogger$changed = positionlogger$ALL_SLOTS;
+	}
+
+	@Inject(at = @At("HEAD"), method = "removeItem(Lnet/minecraft/world/item/ItemStack;)V")
+	private void positionlogger$onRemoveStack(ItemStack stack, CallbackInfo info) {
+		positionlogger$changed = positionlogger$ALL_SLOTS;
+	}
+
+	@Inject(at = @At("HEAD"), method = "clearContent")
+	private void positionlogger$onClear(CallbackInfo info) {
+		positionlogger$changed = positionlogger$ALL_SLOTS;
+	}
+
+	@Inject(at = @At("HEAD"), method = "setChanged")
+	private void positionlogger$onSetChanged(CallbackInfo info) {
+		positionlogger$changed = positionlogger$ALL_SLOTS;
+	}
+
+	@Override
+	public void positionlogger$markChanged(int containerSlot) {
+		if (containerSlot >= 0 && containerSlot < Long.SIZE) {
+			positionlogger$changed |= 1L << containerSlot;
+		}
+	}
+
+	@Override
+	public long positionlogger$takeChanged() {
+		long changed = positionlogger$changed;
+		positionlogger$changed = 0;
+		return changed;
+	}
+}
@@ -0,0 +1,47 @@
+package positionlogger_v0_0.mixin;
+
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+import positionlogger_v0_0.BlockChangeTracker;
+import positionlogger_v0_0.ChunkChangeStamp;
+
+@Mixin(LevelChunk.class)
+public class LevelChunkMixin implements ChunkChangeStamp {
+	// A freshly loaded chunk counts as changed
+	@Unique
+	private long positionlogger$stamp = BlockChangeTracker.nextStamp();
+
+	@Unique
+	private long positionlogger$surfaceStamp;
+
+	@Unique
+	private int positionlogger$surfaceTop;
+
+	@Override
+	public long positionlogger$getStamp() {
+		return positionlogger$stamp;
+	}
+
+	@Override
+	public void positionlogger$setStamp(long stamp) {
+		positionlogger$stamp = stamp;
+	}
+
+	@Override
+	public long positionlogger$getSurfaceStamp() {
+		return positionlogger$surfaceStamp;
+	}
+
+	@Override
+	public int positionlogger$getSurfaceTop() {
+		return positionlogger$surfaceTop;
+	}
+
+	@Override
+	public void positionlogger$setSurfaceTop(long stamp, int top) {
+		positionlogger$surfaceStamp = stamp;
+		positionlogger$surfaceTop = top;
+	}
+}
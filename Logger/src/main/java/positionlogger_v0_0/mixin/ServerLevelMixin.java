@@ -0,0 +1,20 @@
+package positionlogger_v0_0.mixin;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import positionlogger_v0_0.BlockChangeTracker;
+
+@Mixin(ServerLevel.class)
+public class ServerLevelMixin {
+	@Inject(at = @At("HEAD"), method = "onBlockStateChange")
+	private void positionlogger$onBlockStateChange(BlockPos pos, BlockState oldState, BlockState newState, CallbackInfo info) {
+		// Called from Level.setBlock after the chunk was updated, so it is loaded
+		BlockChangeTracker.markChanged(((ServerLevel) (Object) this).getChunkAt(pos));
+	}
+}
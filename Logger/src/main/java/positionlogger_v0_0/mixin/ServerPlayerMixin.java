@@ -0,0 +1,19 @@
+package positionlogger_v0_0.mixin;
+
+import net.minecraft.server.level.ServerPlayer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+import positionlogger_v0_0.ActionRing;
+import positionlogger_v0_0.PlayerActionSource;
+
+@Mixin(ServerPlayer.class)
+public class ServerPlayerMixin implements PlayerActionSource {
+	@Unique
+	private final ActionRing positionlogger$actions = new ActionRing();
+
+	@Override
+	public ActionRing positionlogger$actions() {
+		return positionlogger$actions;
+	}
+}
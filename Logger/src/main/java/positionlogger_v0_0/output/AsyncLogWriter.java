@@ -0,0 +1,179 @@
+package positionlogger_v0_0.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves formatting and disk I/O off the server thread.
+ *
+ * The tick thread hands over immutable {@link PlayerRecord}s through a bounded
+ * queue; a single daemon thread drains it into a {@link RecordSink} and flushes
+ * whenever the queue runs dry. What happens when the queue is full is decided
+ * by the {@link BackpressurePolicy}.
+ */
+public final class AsyncLogWriter {
+
+    public enum BackpressurePolicy {
+        /**
+         * Wait on the tick thread until there is room. Loses records only if
+         * the writer thread has died.
+         */
+        BLOCK,
+        /** Evict the oldest queued record to make room for the new one. */
+        DROP_OLDEST,
+        /** Above the sampling threshold keep only every n-th record, drop the rest. */
+        SAMPLE
+    }
+
+    private static final int DRAIN_BATCH = 256;
+
+    private final RecordSink sink;
+    private final ArrayBlockingQueue<PlayerRecord> queue;
+    private final BackpressurePolicy policy;
+    private final int sampleEvery;
+    private final int sampleThreshold;
+    private final Thread thread;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    // Only touched by the submitting (server) thread
+    private long sampleCounter = 0;
+
+    private volatile boolean closing = false;
+
+    public AsyncLogWriter(RecordSink sink, int capacity, BackpressurePolicy policy, int sampleEvery) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.sampleThreshold = Math.max(1, capacity / 2);
+
+        this.thread = new Thread(this::run, "PositionLogger-Writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Hands a record to the writer thread. Called from the server thread only.
+     */
+    public void submit(PlayerRecord record) {
+        if (closing) return;
+        submitted.incrementAndGet();
+        if (!thread.isAlive()) {
+            // Nothing would ever write it
+            dropped.incrementAndGet();
+            return;
+        }
+
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    // A writer thread that died would never make room
+                    while (!queue.offer(record, 50, TimeUnit.MILLISECONDS)) {
+                        if (!thread.isAlive()) {
+                            dropped.incrementAndGet();
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(record)) {
+                    if (queue.poll() != null) dropped.incrementAndGet();
+                }
+            }
+            case SAMPLE -> {
+                if (queue.size() >= sampleThreshold && (sampleCounter++ % sampleEvery) != 0) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                if (!queue.offer(record)) dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public long submittedCount() {
+        return submitted.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting records, waits until everything queued so far has been
+     * written, then closes the sink.
+     */
+    public void close() {
+        closing = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PlayerRecord> batch = new ArrayList<>(DRAIN_BATCH);
+
+        try {
+            while (true) {
+                PlayerRecord first = queue.poll(50, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    if (closing && queue.isEmpty()) break;
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+
+                for (PlayerRecord record : batch) {
+                    try {
+                        sink.write(record);
+                        written.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        // One bad record must not stop the writer
+                        e.printStackTrace();
+                        dropped.incrementAndGet();
+                    }
+                }
+                batch.clear();
+
+                // Offer a flush once the backlog is gone, i.e. roughly once per tick
+                if (queue.isEmpty()) {
+                    try {
+                        sink.flush();
+                    } catch (IOException | RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
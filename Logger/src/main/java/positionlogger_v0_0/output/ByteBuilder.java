@@ -0,0 +1,76 @@
+package positionlogger_v0_0.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitive encodings of {@link ColumnarFormat}.
+ * Reused between row groups.
+ */
+final class ByteBuilder {
+
+    private byte[] buf;
+    private int size;
+
+    ByteBuilder(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void writeByte(int v) {
+        ensure(1);
+        buf[size++] = (byte) v;
+    }
+
+    void writeVarint(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    void writeZigZag(long v) {
+        writeVarint((v << 1) ^ (v >> 63));
+    }
+
+    void writeInt(int v) {
+        ensure(4);
+        buf[size++] = (byte) (v >>> 24);
+        buf[size++] = (byte) (v >>> 16);
+        buf[size++] = (byte) (v >>> 8);
+        buf[size++] = (byte) v;
+    }
+
+    void writeLong(long v) {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    void writeFloat(float v) {
+        writeInt(Float.floatToRawIntBits(v));
+    }
+
+    void writeDouble(double v) {
+        writeLong(Double.doubleToRawLongBits(v));
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
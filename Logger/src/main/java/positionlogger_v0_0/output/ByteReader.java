@@ -0,0 +1,62 @@
+package positionlogger_v0_0.output;
+
+import java.io.IOException;
+
+/**
+ * Cursor over one column page, the reading side of {@link ByteBuilder}.
+ */
+final class ByteReader {
+
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+
+    ByteReader(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    int readByte() throws IOException {
+        if (pos >= end) throw new IOException("Column page truncated");
+        return buf[pos++];
+    }
+
+    long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    int readVarint32() throws IOException {
+        return (int) readVarint();
+    }
+
+    long readZigZag() throws IOException {
+        long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    int readInt() throws IOException {
+        return (readByte() & 0xFF) << 24
+                | (readByte() & 0xFF) << 16
+                | (readByte() & 0xFF) << 8
+                | (readByte() & 0xFF);
+    }
+
+    long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+}
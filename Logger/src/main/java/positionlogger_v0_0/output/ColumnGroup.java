@@ -0,0 +1,46 @@
+package positionlogger_v0_0.output;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Groups of columns a log can be projected to. A group is computed and
+ * written as a whole; the ID columns (player, tick, timestamp) are always
+ * there. The feature age columns belong to the feature they describe.
+ */
+public enum ColumnGroup {
+    /** PlayerCords_*. */
+    POSITION,
+    /** PlayerViewingCords_*. */
+    LOOK,
+    /**
+     * PlayerViewpoint_*: eye height, dimension and time of day, which with
+     * position and look is what the vision groups are computed from.
+     */
+    VIEWPOINT,
+    /** PlayerStats_*. */
+    STATS,
+    /** PlayerEnvironment_Biome. */
+    BIOME,
+    /** OutsideObservableFlag and NightFlag (which depends on it). */
+    OUTDOOR,
+    /** BlockHighlightedFlag and HighlightedBlock. */
+    HIGHLIGHTED_BLOCK,
+    VISIBLE_BLOCKS,
+    /** MobFlag, ClosestViewingMobType and AllViewingMobs. */
+    MOBS,
+    /** PlayerInventory_*. */
+    INVENTORY,
+    /** PlayerAction_*. */
+    ACTIONS;
+
+    public static final Set<ColumnGroup> ALL = Collections.unmodifiableSet(EnumSet.allOf(ColumnGroup.class));
+
+    /**
+     * Groups computed from the blocks around the eye; {@code logtools vision}
+     * can fill them in afterwards from a saved copy of the world.
+     */
+    public static final Set<ColumnGroup> VISION = Collections.unmodifiableSet(
+            EnumSet.of(OUTDOOR, HIGHLIGHTED_BLOCK, VISIBLE_BLOCKS));
+}
@@ -0,0 +1,194 @@
+package positionlogger_v0_0.output;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Layout of the columnar log shared by {@link ColumnarRecordSink} and
+ * {@link ColumnarLogReader}.
+ *
+ * <pre>
+ * file      := segment*
+ * segment   := MAGIC version:u8 columnCount:varint column* rowGroup*
+ * column    := name:utf type:u8 encoding:u8
+ * rowGroup  := ROW_GROUP rows:varint newStrings:varint utf* (length:varint bytes)*
+ * </pre>
+ *
+ * Every process start appends a new segment, so a file can be appended to
+ * like the CSV. Strings are dictionary encoded per segment: each row group
+ * first lists the strings it adds to the dictionary, columns then refer to
+ * them by index. Column pages follow in schema order and are decoded by
+ * name, so readers skip columns they do not know.
+ *
+ * Variable-length integers are unsigned LEB128; signed values are zigzag
+ * encoded first. Fixed-width numbers are big-endian.
+ */
+public final class ColumnarFormat {
+
+    public static final byte[] MAGIC = { 'P', 'L', 'C', 'O', 'L' };
+    public static final int VERSION = 1;
+    public static final int ROW_GROUP = 1;
+
+    // --- Column types ---
+    public static final int INT8 = 1;
+    public static final int INT32 = 2;
+    public static final int INT64 = 3;
+    public static final int FLOAT32 = 4;
+    public static final int FLOAT64 = 5;
+    /** Nullable string. */
+    public static final int STRING = 6;
+    /** Per row a list of (string, count) pairs. */
+    public static final int ID_COUNTS = 7;
+    /** Inventory slot: nullable item string and a count. */
+    public static final int SLOT = 8;
+
+    // --- Encodings ---
+    /** Fixed width, one value per row. */
+    public static final int PLAIN = 0;
+    /** Zigzag varint difference to the previous row, starting from 0. */
+    public static final int DELTA = 1;
+    /** (run length, zigzag varint value) pairs. */
+    public static final int RLE = 2;
+    /** Dictionary index + 1 as varint, 0 for null; lists are prefixed with their length. */
+    public static final int DICT = 3;
+    /**
+     * Alternating "rows unchanged" run and explicit value, where unchanged
+     * means equal to the previous row of the same player in the row group.
+     * Explicit slot values are item (as in DICT) then count.
+     */
+    public static final int REPEAT = 4;
+
+    // --- Column names ---
+    public static final String PLAYER = "PlayerName";
+    public static final String TICK = "Tick";
+    public static final String TIMESTAMP = "TimestampNanos";
+    public static final String X = "PlayerCords_XPos";
+    public static final String Y = "PlayerCords_YPos";
+    public static final String Z = "PlayerCords_ZPos";
+    public static final String LOOK_X = "PlayerViewingCords_XPos";
+    public static final String LOOK_Y = "PlayerViewingCords_YPos";
+    public static final String LOOK_Z = "PlayerViewingCords_ZPos";
+    public static final String EYE_Y = "PlayerViewpoint_EyeYPos";
+    public static final String DIMENSION = "PlayerViewpoint_Dimension";
+    public static final String DAY_TIME = "PlayerViewpoint_DayTime";
+    public static final String HEALTH = "PlayerStats_Health";
+    public static final String FOOD = "PlayerStats_FoodLevel";
+    public static final String OXYGEN = "PlayerStats_OxygenLevel";
+    public static final String BIOME = "PlayerEnvironment_Biome";
+    public static final String OUTSIDE = "PlayerViewingEnvironment_OutsideObservableFlag";
+    /** -1 for none, otherwise 0 or 1. */
+    public static final String NIGHT = "PlayerViewingEnvironment_NightFlag";
+    public static final String BLOCK_HIGHLIGHTED = "PlayerViewingEnvironment_BlockHighlightedFlag";
+    public static final String HIGHLIGHTED_BLOCK = "PlayerViewingEnvironment_HighlightedBlock";
+    public static final String VISIBLE_BLOCKS = "PlayerViewingEnvironment_VisibleBlocks";
+    public static final String MOB_FLAG = "PlayerViewingEnvironment_MobFlag";
+    public static final String CLOSEST_MOB = "PlayerViewingEnvironment_ClosestViewingMobType";
+    public static final String ALL_MOBS = "PlayerViewingEnvironment_AllViewingMobs";
+    public static final String LAST_BLOCK_HIT = "PlayerAction_LastBlockHit";
+    public static final String LAST_BLOCK_BROKEN = "PlayerAction_LastBlockBroken";
+    public static final String LAST_BLOCK_PLACED = "PlayerAction_LastBlockPlaced";
+    public static final String LAST_BLOCK_DAMAGE = "PlayerAction_LastBlockDamageTaken";
+    public static final String LAST_MOB_HIT = "PlayerAction_LastMobHit";
+    public static final String LAST_MOB_KILLED = "PlayerAction_LastMobKilled";
+    public static final String AGE_VISIBLE_BLOCKS = "FeatureAge_VisibleBlocks";
+    public static final String AGE_OUTDOOR = "FeatureAge_OutsideObservable";
+    public static final String AGE_MOBS = "FeatureAge_Mobs";
+
+    public static final List<Column> COLUMNS;
+
+    static {
+        List<Column> c = new ArrayList<>();
+        c.add(new Column(PLAYER, STRING, DICT, null));
+        c.add(new Column(TICK, INT64, DELTA, null));
+        c.add(new Column(TIMESTAMP, INT64, DELTA, null));
+        c.add(new Column(X, FLOAT64, PLAIN, ColumnGroup.POSITION));
+        c.add(new Column(Y, FLOAT64, PLAIN, ColumnGroup.POSITION));
+        c.add(new Column(Z, FLOAT64, PLAIN, ColumnGroup.POSITION));
+        // The look vector is computed in float precision
+        c.add(new Column(LOOK_X, FLOAT32, PLAIN, ColumnGroup.LOOK));
+        c.add(new Column(LOOK_Y, FLOAT32, PLAIN, ColumnGroup.LOOK));
+        c.add(new Column(LOOK_Z, FLOAT32, PLAIN, ColumnGroup.LOOK));
+        c.add(new Column(EYE_Y, FLOAT64, PLAIN, ColumnGroup.VIEWPOINT));
+        c.add(new Column(DIMENSION, STRING, DICT, ColumnGroup.VIEWPOINT));
+        // Shared by all rows of a tick, so it runs
+        c.add(new Column(DAY_TIME, INT32, RLE, ColumnGroup.VIEWPOINT));
+        // Health is a float, food and air are ints: all exact as float32
+        c.add(new Column(HEALTH, FLOAT32, PLAIN, ColumnGroup.STATS));
+        c.add(new Column(FOOD, FLOAT32, PLAIN, ColumnGroup.STATS));
+        c.add(new Column(OXYGEN, FLOAT32, PLAIN, ColumnGroup.STATS));
+        c.add(new Column(BIOME, STRING, DICT, ColumnGroup.BIOME));
+        c.add(new Column(OUTSIDE, INT8, PLAIN, ColumnGroup.OUTDOOR));
+        c.add(new Column(NIGHT, INT8, PLAIN, ColumnGroup.OUTDOOR));
+        c.add(new Column(BLOCK_HIGHLIGHTED, INT8, PLAIN, ColumnGroup.HIGHLIGHTED_BLOCK));
+        c.add(new Column(HIGHLIGHTED_BLOCK, STRING, DICT, ColumnGroup.HIGHLIGHTED_BLOCK));
+        c.add(new Column(VISIBLE_BLOCKS, ID_COUNTS, DICT, ColumnGroup.VISIBLE_BLOCKS));
+        c.add(new Column(MOB_FLAG, INT8, PLAIN, ColumnGroup.MOBS));
+        c.add(new Column(CLOSEST_MOB, STRING, DICT, ColumnGroup.MOBS));
+        c.add(new Column(ALL_MOBS, ID_COUNTS, DICT, ColumnGroup.MOBS));
+        for (int i = 0; i < PlayerRecord.SLOT_COUNT; i++) {
+            c.add(new Column(slotColumn(i), SLOT, REPEAT, ColumnGroup.INVENTORY));
+        }
+        c.add(new Column(LAST_BLOCK_HIT, STRING, DICT, ColumnGroup.ACTIONS));
+        c.add(new Column(LAST_BLOCK_BROKEN, STRING, DICT, ColumnGroup.ACTIONS));
+        c.add(new Column(LAST_BLOCK_PLACED, STRING, DICT, ColumnGroup.ACTIONS));
+        c.add(new Column(LAST_BLOCK_DAMAGE, STRING, DICT, ColumnGroup.ACTIONS));
+        c.add(new Column(LAST_MOB_HIT, STRING, DICT, ColumnGroup.ACTIONS));
+        c.add(new Column(LAST_MOB_KILLED, STRING, DICT, ColumnGroup.ACTIONS));
+        c.add(new Column(AGE_VISIBLE_BLOCKS, INT32, RLE, ColumnGroup.VISIBLE_BLOCKS));
+        c.add(new Column(AGE_OUTDOOR, INT32, RLE, ColumnGroup.OUTDOOR));
+        c.add(new Column(AGE_MOBS, INT32, RLE, ColumnGroup.MOBS));
+        COLUMNS = Collections.unmodifiableList(c);
+    }
+
+    private ColumnarFormat() {
+    }
+
+    /** The columns of a segment projected to the given groups, in schema order. */
+    public static List<Column> columns(Set<ColumnGroup> groups) {
+        List<Column> selected = new ArrayList<>();
+        for (Column c : COLUMNS) {
+            if (c.group == null || groups.contains(c.group)) selected.add(c);
+        }
+        return selected;
+    }
+
+    /** Column name of an inventory slot, following the CSV header. */
+    public static String slotColumn(int slot) {
+        if (slot < PlayerRecord.MAIN_SLOTS) {
+            return "PlayerInventory_MainInventory_Item" + (slot + 1);
+        }
+        if (slot < PlayerRecord.OFFHAND_SLOT) {
+            return "PlayerInventory_Item" + (slot - PlayerRecord.ARMOR_OFFSET + 1) + "Armor";
+        }
+        return "PlayerInventory_ShieldSlot";
+    }
+
+    public static final class Column {
+        public final String name;
+        public final int type;
+        public final int encoding;
+        /** Group the column is written with; null for the ID columns. Not stored in the file. */
+        public final ColumnGroup group;
+
+        public Column(String name, int type, int encoding) {
+            this(name, type, encoding, group(name));
+        }
+
+        public Column(String name, int type, int encoding, ColumnGroup group) {
+            this.name = name;
+            this.type = type;
+            this.encoding = encoding;
+            this.group = group;
+        }
+    }
+
+    // Group of a known column name, null for ID and unknown columns
+    private static ColumnGroup group(String name) {
+        for (Column c : COLUMNS) {
+            if (c.name.equals(name)) return c.group;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,424 @@
+package positionlogger_v0_0.output;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static positionlogger_v0_0.output.ColumnarFormat.*;
+
+/**
+ * Reads a file written by {@link ColumnarRecordSink} back into
+ * {@link PlayerRecord}s, one row group at a time.
+ *
+ * Block and mob ids in the returned records are dictionary indices of the
+ * current segment; {@link #names()} turns them back into names, so records
+ * can be fed straight into another sink (e.g. to convert to CSV). Columns
+ * missing from a segment keep the builder defaults.
+ */
+public final class ColumnarLogReader implements Closeable {
+
+    private static final DateTimeFormatter ISO_FORMAT = DateTimeFormatter.ISO_INSTANT;
+
+    private final DataInputStream in;
+    private final PositionInputStream position;
+
+    private List<Column> schema = new ArrayList<>();
+    private final List<String> dictionary = new ArrayList<>();
+
+    // Decoded row group
+    private PlayerRecord.Builder[] group = new PlayerRecord.Builder[0];
+    private int groupSize;
+    private int next;
+
+    private final NameResolver names = new NameResolver() {
+        @Override
+        public String blockName(int id) {
+            return dictionary.get(id);
+        }
+
+        @Override
+        public String entityName(int id) {
+            return dictionary.get(id);
+        }
+    };
+
+    public ColumnarLogReader(Path path) throws IOException {
+        this(Files.newInputStream(path));
+    }
+
+    public ColumnarLogReader(InputStream stream) throws IOException {
+        this.position = new PositionInputStream(new BufferedInputStream(stream, 1 << 16));
+        this.in = new DataInputStream(position);
+    }
+
+    /**
+     * Length of the longest prefix of the file that consists of complete
+     * segment headers and row groups. Anything after it is a torn write.
+     */
+    public static long completeLength(Path path) throws IOException {
+        try (ColumnarLogReader reader = new ColumnarLogReader(path)) {
+            long complete = 0;
+            try {
+                while (reader.readBlock()) {
+                    complete = reader.position.position;
+                }
+            } catch (IOException e) {
+                // Torn or garbled tail: keep what was complete
+            }
+            return complete;
+        }
+    }
+
+    /**
+     * Resolves ids of the records returned so far from the current segment.
+     */
+    public NameResolver names() {
+        return names;
+    }
+
+    /** Schema of the current segment. */
+    public List<Column> schema() {
+        return schema;
+    }
+
+    /** Column groups the current segment was written with. */
+    public Set<ColumnGroup> columnGroups() {
+        Set<ColumnGroup> groups = EnumSet.noneOf(ColumnGroup.class);
+        for (Column c : schema) {
+            if (c.group != null) groups.add(c.group);
+        }
+        return groups;
+    }
+
+    /**
+     * The next record, or null at the end of the file.
+     */
+    public PlayerRecord next() throws IOException {
+        while (next >= groupSize) {
+            if (!readBlock()) return null;
+        }
+        return group[next++].build();
+    }
+
+    /**
+     * Moves on to the row group starting at the given byte offset (as kept
+     * by {@link SegmentIndex}), dropping what is left of the current one;
+     * the next call to {@link #next()} returns its first record. Row groups
+     * in between are not decoded, but their headers are read to keep the
+     * dictionary complete. False if the offset lies behind the position
+     * already read, or past the end of the file.
+     */
+    public boolean skipTo(long offset) throws IOException {
+        if (offset < position.position) return false;
+
+        groupSize = 0;
+        next = 0;
+        while (position.position < offset) {
+            int tag = in.read();
+            if (tag < 0) return false;
+
+            if (tag == MAGIC[0]) {
+                readSchema();
+            } else if (tag == ROW_GROUP) {
+                skipRowGroup();
+            } else {
+                throw new IOException("Unexpected block tag " + tag);
+            }
+        }
+        return position.position == offset;
+    }
+
+    /** Records of the current row group not yet returned by {@link #next()}. */
+    public int remainingInGroup() {
+        return groupSize - next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the next segment header or row group. False at end of file.
+     */
+    private boolean readBlock() throws IOException {
+        int tag = in.read();
+        if (tag < 0) return false;
+
+        if (tag == MAGIC[0]) {
+            readSchema();
+            return true;
+        }
+        if (tag != ROW_GROUP) throw new IOException("Unexpected block tag " + tag);
+
+        readRowGroup();
+        return true;
+    }
+
+    private void readSchema() throws IOException {
+        for (int i = 1; i < MAGIC.length; i++) {
+            if (in.readUnsignedByte() != MAGIC[i]) throw new IOException("Not a columnar log");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported version " + version);
+
+        int count = (int) readVarint();
+        List<Column> columns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            int type = in.readUnsignedByte();
+            int encoding = in.readUnsignedByte();
+            columns.add(new Column(name, type, encoding));
+        }
+
+        this.schema = columns;
+        dictionary.clear();
+    }
+
+    private void readRowGroup() throws IOException {
+        int rows = (int) readVarint();
+        int added = (int) readVarint();
+        for (int i = 0; i < added; i++) {
+            dictionary.add(in.readUTF());
+        }
+
+        if (group.length < rows) group = new PlayerRecord.Builder[rows];
+        for (int r = 0; r < rows; r++) {
+            group[r] = PlayerRecord.builder();
+        }
+
+        byte[][] pages = new byte[schema.size()][];
+        for (int c = 0; c < pages.length; c++) {
+            int length = (int) readVarint();
+            pages[c] = new byte[length];
+            in.readFully(pages[c]);
+        }
+
+        // Player column first: REPEAT pages are relative to each player's previous row
+        int[] playerOfRow = new int[rows];
+        for (int c = 0; c < pages.length; c++) {
+            if (schema.get(c).name.equals(PLAYER)) {
+                ByteReader page = new ByteReader(pages[c], 0, pages[c].length);
+                for (int r = 0; r < rows; r++) playerOfRow[r] = page.readVarint32();
+            }
+        }
+
+        for (int c = 0; c < pages.length; c++) {
+            decode(schema.get(c), new ByteReader(pages[c], 0, pages[c].length), rows, playerOfRow);
+        }
+
+        this.groupSize = rows;
+        this.next = 0;
+    }
+
+    private void skipRowGroup() throws IOException {
+        readVarint();
+        int added = (int) readVarint();
+        for (int i = 0; i < added; i++) {
+            dictionary.add(in.readUTF());
+        }
+        for (int c = 0; c < schema.size(); c++) {
+            in.skipNBytes(readVarint());
+        }
+    }
+
+    private void decode(Column column, ByteReader page, int rows, int[] playerOfRow) throws IOException {
+        String name = column.name;
+
+        switch (name) {
+            case PLAYER -> {
+                for (int r = 0; r < rows; r++) group[r].playerName = string(page.readVarint32());
+            }
+            case TICK -> {
+                long v = 0;
+                for (int r = 0; r < rows; r++) group[r].tick = v += page.readZigZag();
+            }
+            case TIMESTAMP -> {
+                long v = 0;
+                for (int r = 0; r < rows; r++) {
+                    v += page.readZigZag();
+                    Instant t = Instant.ofEpochSecond(Math.floorDiv(v, 1_000_000_000L), Math.floorMod(v, 1_000_000_000L));
+                    group[r].timestamp = ISO_FORMAT.format(t);
+                }
+            }
+            case X -> { for (int r = 0; r < rows; r++) group[r].x = page.readDouble(); }
+            case Y -> { for (int r = 0; r < rows; r++) group[r].y = page.readDouble(); }
+            case Z -> { for (int r = 0; r < rows; r++) group[r].z = page.readDouble(); }
+            case LOOK_X -> { for (int r = 0; r < rows; r++) group[r].lookX = page.readFloat(); }
+            case LOOK_Y -> { for (int r = 0; r < rows; r++) group[r].lookY = page.readFloat(); }
+            case LOOK_Z -> { for (int r = 0; r < rows; r++) group[r].lookZ = page.readFloat(); }
+            case EYE_Y -> { for (int r = 0; r < rows; r++) group[r].eyeY = page.readDouble(); }
+            case DIMENSION -> { for (int r = 0; r < rows; r++) group[r].dimension = string(page.readVarint32()); }
+            case DAY_TIME -> {
+                int[] v = readRle(page, rows);
+                for (int r = 0; r < rows; r++) group[r].dayTime = v[r];
+            }
+            case HEALTH -> { for (int r = 0; r < rows; r++) group[r].health = page.readFloat(); }
+            case FOOD -> { for (int r = 0; r < rows; r++) group[r].food = page.readFloat(); }
+            case OXYGEN -> { for (int r = 0; r < rows; r++) group[r].oxygen = page.readFloat(); }
+            case BIOME -> { for (int r = 0; r < rows; r++) group[r].biome = string(page.readVarint32()); }
+            case OUTSIDE -> { for (int r = 0; r < rows; r++) group[r].outsideObservable = page.readByte() != 0; }
+            case NIGHT -> {
+                for (int r = 0; r < rows; r++) {
+                    int v = page.readByte();
+                    group[r].nightFlag = v < 0 ? "none" : Integer.toString(v);
+                }
+            }
+            case BLOCK_HIGHLIGHTED -> { for (int r = 0; r < rows; r++) group[r].blockHighlighted = page.readByte() != 0; }
+            case HIGHLIGHTED_BLOCK -> { for (int r = 0; r < rows; r++) group[r].highlightedBlock = string(page.readVarint32()); }
+            case VISIBLE_BLOCKS -> {
+                for (int r = 0; r < rows; r++) {
+                    int n = page.readVarint32();
+                    int[] ids = new int[n];
+                    int[] counts = new int[n];
+                    readIdCounts(page, ids, counts);
+                    group[r].visibleBlockIds = ids;
+                    group[r].visibleBlockCounts = counts;
+                }
+            }
+            case MOB_FLAG -> { for (int r = 0; r < rows; r++) group[r].viewingMob = page.readByte() != 0; }
+            case CLOSEST_MOB -> {
+                for (int r = 0; r < rows; r++) group[r].closestViewingMob = page.readVarint32() - 1;
+            }
+            case ALL_MOBS -> {
+                for (int r = 0; r < rows; r++) {
+                    int n = page.readVarint32();
+                    int[] ids = new int[n];
+                    int[] counts = new int[n];
+                    readIdCounts(page, ids, counts);
+                    group[r].viewingMobIds = ids;
+                    group[r].viewingMobCounts = counts;
+                }
+            }
+            case LAST_BLOCK_HIT -> { for (int r = 0; r < rows; r++) group[r].lastBlockHit = page.readVarint32() - 1; }
+            case LAST_BLOCK_BROKEN -> { for (int r = 0; r < rows; r++) group[r].lastBlockBroken = page.readVarint32() - 1; }
+            case LAST_BLOCK_PLACED -> { for (int r = 0; r < rows; r++) group[r].lastBlockPlaced = page.readVarint32() - 1; }
+            case LAST_BLOCK_DAMAGE -> { for (int r = 0; r < rows; r++) group[r].lastBlockDamageTaken = page.readVarint32() - 1; }
+            case LAST_MOB_HIT -> { for (int r = 0; r < rows; r++) group[r].lastMobHit = page.readVarint32() - 1; }
+            case LAST_MOB_KILLED -> { for (int r = 0; r < rows; r++) group[r].lastMobKilled = page.readVarint32() - 1; }
+            case AGE_VISIBLE_BLOCKS -> {
+                int[] v = readRle(page, rows);
+                for (int r = 0; r < rows; r++) group[r].visibleBlocksAge = v[r];
+            }
+            case AGE_OUTDOOR -> {
+                int[] v = readRle(page, rows);
+                for (int r = 0; r < rows; r++) group[r].outdoorAge = v[r];
+            }
+            case AGE_MOBS -> {
+                int[] v = readRle(page, rows);
+                for (int r = 0; r < rows; r++) group[r].mobsAge = v[r];
+            }
+            default -> {
+                if (column.type == SLOT && column.encoding == REPEAT) {
+                    int slot = slotIndex(name);
+                    if (slot >= 0) readSlot(page, rows, playerOfRow, slot);
+                }
+                // Unknown columns are skipped
+            }
+        }
+    }
+
+    private void readIdCounts(ByteReader page, int[] ids, int[] counts) throws IOException {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = page.readVarint32() - 1;
+            counts[i] = page.readVarint32();
+        }
+    }
+
+    private static int[] readRle(ByteReader page, int rows) throws IOException {
+        int[] values = new int[rows];
+        int r = 0;
+        while (r < rows) {
+            int run = page.readVarint32();
+            int v = (int) page.readZigZag();
+            Arrays.fill(values, r, Math.min(rows, r + run), v);
+            r += run;
+        }
+        return values;
+    }
+
+    private void readSlot(ByteReader page, int rows, int[] playerOfRow, int slot) throws IOException {
+        Map<Integer, Integer> lastRowOfPlayer = new HashMap<>();
+
+        int r = 0;
+        while (true) {
+            int run = page.readVarint32();
+            for (int i = 0; i < run; i++, r++) {
+                PlayerRecord.Builder prev = group[lastRowOfPlayer.get(playerOfRow[r])];
+                group[r].slot(slot, prev.slotItems[slot], prev.slotCounts[slot]);
+                lastRowOfPlayer.put(playerOfRow[r], r);
+            }
+            if (r >= rows) break;
+
+            group[r].slot(slot, string(page.readVarint32()), page.readVarint32());
+            lastRowOfPlayer.put(playerOfRow[r], r);
+            r++;
+        }
+    }
+
+    private static int slotIndex(String name) {
+        for (int slot = 0; slot < PlayerRecord.SLOT_COUNT; slot++) {
+            if (name.equals(slotColumn(slot))) return slot;
+        }
+        return -1;
+    }
+
+    private String string(int ref) {
+        return ref == 0 ? null : dictionary.get(ref - 1);
+    }
+
+    private static final class PositionInputStream extends FilterInputStream {
+        long position;
+
+        PositionInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    private long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated varint");
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,371 @@
+package positionlogger_v0_0.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static positionlogger_v0_0.output.ColumnarFormat.*;
+
+/**
+ * Writes records in the binary columnar layout of {@link ColumnarFormat}.
+ *
+ * Rows are buffered until a row group is full and then written column by
+ * column. {@link #flush()} writes the rows buffered so far as a shorter row
+ * group, so how often it is called trades durability against file size.
+ */
+public final class ColumnarRecordSink implements RecordSink {
+
+    private interface Encoder {
+        void encode(List<PlayerRecord> rows, ByteBuilder out);
+    }
+
+    private final DataOutputStream out;
+    // Every byte written, including what is still buffered
+    private final CountingOutputStream written;
+    private final NameResolver names;
+    private final int rowGroupSize;
+
+    private final List<PlayerRecord> rows;
+    private final List<Column> columns;
+    private final Encoder[] encoders;
+    private final ByteBuilder[] pages;
+
+    // Segment-wide string dictionary; references are index + 1, 0 is null
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> newStrings = new ArrayList<>();
+    private int[] blockRefs = new int[0];
+    private int[] entityRefs = new int[0];
+
+    // Dense player index per row of the current group, for REPEAT columns
+    private int[] playerOfRow = new int[0];
+    private int playersInGroup;
+    private int[] prevItem = new int[0];
+    private int[] prevCount = new int[0];
+
+    public ColumnarRecordSink(Path path, NameResolver names, int rowGroupSize) throws IOException {
+        this(new FileOutputStream(path.toFile(), true), names, rowGroupSize);
+    }
+
+    /**
+     * Writes a new segment to the given stream, starting with the schema.
+     * The stream is closed with the sink.
+     */
+    public ColumnarRecordSink(OutputStream stream, NameResolver names, int rowGroupSize) throws IOException {
+        this(stream, names, rowGroupSize, ColumnGroup.ALL);
+    }
+
+    /**
+     * Like {@link #ColumnarRecordSink(OutputStream, NameResolver, int)}, with
+     * only the columns of the given groups in the schema.
+     */
+    public ColumnarRecordSink(OutputStream stream, NameResolver names, int rowGroupSize,
+                              Set<ColumnGroup> groups) throws IOException {
+        this.names = names;
+        this.columns = ColumnarFormat.columns(groups);
+        this.rowGroupSize = Math.max(1, rowGroupSize);
+        this.rows = new ArrayList<>(this.rowGroupSize);
+        this.written = new CountingOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        this.out = new DataOutputStream(written);
+
+        this.encoders = new Encoder[columns.size()];
+        this.pages = new ByteBuilder[columns.size()];
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = encoderFor(columns.get(i).name);
+            pages[i] = new ByteBuilder(1024);
+        }
+
+        writeSchema();
+    }
+
+    @Override
+    public void write(PlayerRecord record) throws IOException {
+        rows.add(record);
+        if (rows.size() >= rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    /** Offset of the row group the next record goes into. */
+    @Override
+    public long position() {
+        return written.count();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!rows.isEmpty()) writeRowGroup();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!rows.isEmpty()) writeRowGroup();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeSchema() throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeVarint(columns.size());
+        for (Column c : columns) {
+            out.writeUTF(c.name);
+            out.writeByte(c.type);
+            out.writeByte(c.encoding);
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        indexPlayers();
+
+        for (int i = 0; i < encoders.length; i++) {
+            pages[i].clear();
+            encoders[i].encode(rows, pages[i]);
+        }
+
+        out.writeByte(ROW_GROUP);
+        writeVarint(rows.size());
+        writeVarint(newStrings.size());
+        for (String s : newStrings) {
+            out.writeUTF(s);
+        }
+        newStrings.clear();
+
+        for (ByteBuilder page : pages) {
+            writeVarint(page.size());
+            page.writeTo(out);
+        }
+        rows.clear();
+    }
+
+    private void writeVarint(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    // --- Dictionary ---
+
+    private int ref(String s) {
+        if (s == null) return 0;
+        Integer index = dictionary.get(s);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(s, index);
+            newStrings.add(s);
+        }
+        return index + 1;
+    }
+
+    private int blockRef(int id) {
+        if (id < 0) return 0;
+        if (id >= blockRefs.length) blockRefs = Arrays.copyOf(blockRefs, Math.max(id + 1, blockRefs.length * 2));
+        if (blockRefs[id] == 0) blockRefs[id] = ref(names.blockName(id));
+        return blockRefs[id];
+    }
+
+    private int entityRef(int id) {
+        if (id < 0) return 0;
+        if (id >= entityRefs.length) entityRefs = Arrays.copyOf(entityRefs, Math.max(id + 1, entityRefs.length * 2));
+        if (entityRefs[id] == 0) entityRefs[id] = ref(names.entityName(id));
+        return entityRefs[id];
+    }
+
+    private void indexPlayers() {
+        if (playerOfRow.length < rows.size()) playerOfRow = new int[rowGroupSize];
+
+        Map<String, Integer> seen = new HashMap<>();
+        for (int r = 0; r < rows.size(); r++) {
+            Integer p = seen.get(rows.get(r).playerName);
+            if (p == null) {
+                p = seen.size();
+                seen.put(rows.get(r).playerName, p);
+            }
+            playerOfRow[r] = p;
+        }
+
+        playersInGroup = seen.size();
+        if (prevItem.length < playersInGroup) {
+            prevItem = new int[playersInGroup];
+            prevCount = new int[playersInGroup];
+        }
+    }
+
+    // --- Column encoders ---
+
+    private Encoder encoderFor(String name) {
+        return switch (name) {
+            case PLAYER -> dict(r -> r.playerName);
+            case TICK -> delta(r -> r.tick);
+            case TIMESTAMP -> delta(ColumnarRecordSink::epochNanos);
+            case X -> float64(r -> r.x);
+            case Y -> float64(r -> r.y);
+            case Z -> float64(r -> r.z);
+            case LOOK_X -> float32(r -> r.lookX);
+            case LOOK_Y -> float32(r -> r.lookY);
+            case LOOK_Z -> float32(r -> r.lookZ);
+            case EYE_Y -> float64(r -> r.eyeY);
+            case DIMENSION -> dict(r -> r.dimension);
+            case DAY_TIME -> rle(r -> r.dayTime);
+            case HEALTH -> float32(r -> r.health);
+            case FOOD -> float32(r -> r.food);
+            case OXYGEN -> float32(r -> r.oxygen);
+            case BIOME -> dict(r -> r.biome);
+            case OUTSIDE -> int8(r -> r.outsideObservable ? 1 : 0);
+            case NIGHT -> int8(r -> nightValue(r.nightFlag));
+            case BLOCK_HIGHLIGHTED -> int8(r -> r.blockHighlighted ? 1 : 0);
+            case HIGHLIGHTED_BLOCK -> dict(r -> r.highlightedBlock);
+            case VISIBLE_BLOCKS -> idCounts(r -> r.visibleBlockIds, r -> r.visibleBlockCounts, this::blockRef);
+            case MOB_FLAG -> int8(r -> r.viewingMob ? 1 : 0);
+            case CLOSEST_MOB -> ref(r -> r.closestViewingMob, this::entityRef);
+            case ALL_MOBS -> idCounts(r -> r.viewingMobIds, r -> r.viewingMobCounts, this::entityRef);
+            case LAST_BLOCK_HIT -> ref(r -> r.lastBlockHit, this::blockRef);
+            case LAST_BLOCK_BROKEN -> ref(r -> r.lastBlockBroken, this::blockRef);
+            case LAST_BLOCK_PLACED -> ref(r -> r.lastBlockPlaced, this::blockRef);
+            case LAST_BLOCK_DAMAGE -> ref(r -> r.lastBlockDamageTaken, this::blockRef);
+            case LAST_MOB_HIT -> ref(r -> r.lastMobHit, this::entityRef);
+            case LAST_MOB_KILLED -> ref(r -> r.lastMobKilled, this::entityRef);
+            case AGE_VISIBLE_BLOCKS -> rle(r -> r.visibleBlocksAge);
+            case AGE_OUTDOOR -> rle(r -> r.outdoorAge);
+            case AGE_MOBS -> rle(r -> r.mobsAge);
+            default -> {
+                for (int slot = 0; slot < PlayerRecord.SLOT_COUNT; slot++) {
+                    if (name.equals(slotColumn(slot))) yield slot(slot);
+                }
+                throw new IllegalArgumentException("No encoder for column " + name);
+            }
+        };
+    }
+
+    private Encoder dict(Function<PlayerRecord, String> value) {
+        return (rows, out) -> {
+            for (PlayerRecord r : rows) out.writeVarint(ref(value.apply(r)));
+        };
+    }
+
+    // A block or entity id (NONE allowed) through its name's dictionary ref
+    private static Encoder ref(ToIntFunction<PlayerRecord> id, IntUnaryOperator ref) {
+        return (rows, out) -> {
+            for (PlayerRecord r : rows) out.writeVarint(ref.applyAsInt(id.applyAsInt(r)));
+        };
+    }
+
+    private static Encoder delta(ToLongFunction<PlayerRecord> value) {
+        return (rows, out) -> {
+            long prev = 0;
+            for (PlayerRecord r : rows) {
+                long v = value.applyAsLong(r);
+                out.writeZigZag(v - prev);
+                prev = v;
+            }
+        };
+    }
+
+    private static Encoder float64(ToDoubleFunction<PlayerRecord> value) {
+        return (rows, out) -> {
+            for (PlayerRecord r : rows) out.writeDouble(value.applyAsDouble(r));
+        };
+    }
+
+    private static Encoder float32(ToDoubleFunction<PlayerRecord> value) {
+        return (rows, out) -> {
+            for (PlayerRecord r : rows) out.writeFloat((float) value.applyAsDouble(r));
+        };
+    }
+
+    private static Encoder int8(ToIntFunction<PlayerRecord> value) {
+        return (rows, out) -> {
+            for (PlayerRecord r : rows) out.writeByte(value.applyAsInt(r));
+        };
+    }
+
+    private static Encoder rle(ToIntFunction<PlayerRecord> value) {
+        return (rows, out) -> {
+            int n = rows.size();
+            int i = 0;
+            while (i < n) {
+                int v = value.applyAsInt(rows.get(i));
+                int run = 1;
+                while (i + run < n && value.applyAsInt(rows.get(i + run)) == v) run++;
+                out.writeVarint(run);
+                out.writeZigZag(v);
+                i += run;
+            }
+        };
+    }
+
+    private static Encoder idCounts(Function<PlayerRecord, int[]> ids,
+                                    Function<PlayerRecord, int[]> counts,
+                                    IntUnaryOperator refOf) {
+        return (rows, out) -> {
+            for (PlayerRecord r : rows) {
+                int[] id = ids.apply(r);
+                int[] count = counts.apply(r);
+                out.writeVarint(id.length);
+                for (int i = 0; i < id.length; i++) {
+                    out.writeVarint(refOf.applyAsInt(id[i]));
+                    out.writeVarint(count[i]);
+                }
+            }
+        };
+    }
+
+    private Encoder slot(int slot) {
+        return (rows, out) -> {
+            Arrays.fill(prevItem, 0, playersInGroup, -1);
+
+            int run = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                PlayerRecord record = rows.get(r);
+                int p = playerOfRow[r];
+                int item = ref(record.slotItems[slot]);
+                int count = record.slotCounts[slot];
+
+                if (prevItem[p] == item && prevCount[p] == count) {
+                    run++;
+                    continue;
+                }
+
+                out.writeVarint(run);
+                out.writeVarint(item);
+                out.writeVarint(count);
+                run = 0;
+                prevItem[p] = item;
+                prevCount[p] = count;
+            }
+            out.writeVarint(run);
+        };
+    }
+
+    private static long epochNanos(PlayerRecord r) {
+        Instant t = Instant.parse(r.timestamp);
+        return t.getEpochSecond() * 1_000_000_000L + t.getNano();
+    }
+
+    private static int nightValue(String nightFlag) {
+        return switch (nightFlag) {
+            case "0" -> 0;
+            case "1" -> 1;
+            default -> -1;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package positionlogger_v0_0.output;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Turns a CSV log written with inventory delta rows back into full rows:
+ * every empty inventory field is filled in from the same player's previous
+ * row. Full logs pass through unchanged.
+ *
+ * Usage: {@code CsvDeltaExpander <in.csv[.gz]> <out.csv>}
+ */
+public final class CsvDeltaExpander {
+
+    private static final String INVENTORY_PREFIX = "PlayerInventory_";
+
+    private CsvDeltaExpander() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CsvDeltaExpander <in.csv[.gz]> <out.csv>");
+            System.exit(2);
+        }
+
+        Path source = Path.of(args[0]);
+        InputStream raw = Files.newInputStream(source);
+        if (source.getFileName().toString().endsWith(".gz")) raw = new GZIPInputStream(raw, 1 << 16);
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8), 1 << 16);
+             Writer out = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            expand(in, out);
+        }
+    }
+
+    /**
+     * Copies the log from {@code in} to {@code out} with full inventory
+     * fields. A header line (starting with "ID,") sets the column layout for
+     * the rows after it.
+     */
+    public static void expand(BufferedReader in, Writer out) throws IOException {
+        Writer w = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+
+        boolean[] inventory = new boolean[0];
+        Map<String, String[]> previous = new HashMap<>();
+        List<String> fields = new ArrayList<>();
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            split(line, fields);
+
+            if (line.startsWith("ID,") || line.equals("ID")) {
+                inventory = new boolean[fields.size()];
+                for (int i = 0; i < fields.size(); i++) {
+                    inventory[i] = fields.get(i).startsWith(INVENTORY_PREFIX);
+                }
+                previous.clear();
+                w.write(line);
+                w.write('\n');
+                continue;
+            }
+
+            String[] last = previous.computeIfAbsent(playerName(fields.get(0)),
+                    name -> new String[fields.size()]);
+
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) w.write(',');
+
+                String value = fields.get(i);
+                if (i < inventory.length && inventory[i] && i < last.length) {
+                    if (value.isEmpty() && last[i] != null) value = last[i];
+                    last[i] = value;
+                }
+                w.write(value);
+            }
+            w.write('\n');
+        }
+        w.flush();
+    }
+
+    /**
+     * Player name from an ID of the form name_tick_timestamp; names may
+     * contain '_', the other parts cannot.
+     */
+    static String playerName(String id) {
+        int tsSep = id.lastIndexOf('_');
+        int tickSep = tsSep > 0 ? id.lastIndexOf('_', tsSep - 1) : -1;
+        return tickSep < 0 ? id : id.substring(0, tickSep);
+    }
+
+    // Raw fields between commas outside quotes, quotes kept
+    private static void split(String line, List<String> out) {
+        out.clear();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                out.add(line.substring(start, i));
+                start = i + 1;
+            }
+        }
+        out.add(line.substring(start));
+    }
+}
@@ -0,0 +1,567 @@
+package positionlogger_v0_0.output;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Appends records to a CSV file, one row per player per tick.
+ *
+ * Rows are encoded into a reused byte array and copied into a direct buffer
+ * that is drained through a channel, so writing a row allocates nothing once
+ * the name caches are warm: numbers go through {@link DoubleFormat}, and strings are encoded
+ * to UTF-8 once and kept (per registry id for blocks and mobs, per instance
+ * for everything else; the timestamp is shared by all rows of a tick).
+ * The bytes are the same as formatting with {@code String} concatenation.
+ *
+ * With a keyframe interval, inventory columns are only written when they
+ * differ from the player's previous row and left empty otherwise, except in
+ * a keyframe row (the player's first row in the file, then one every
+ * interval) that has all of them. {@link CsvDeltaExpander} turns such a file
+ * back into full rows.
+ *
+ * Only the selected {@link ColumnGroup}s are written, in header order.
+ */
+public final class CsvRecordSink implements RecordSink {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Bounds the cache of other strings (items, biomes, player names, ...)
+    private static final int MAX_CACHED_STRINGS = 1 << 14;
+
+    private static final byte[] NONE = bytes("none");
+    private static final byte[] COUNT_SEPARATOR = bytes(" : ");
+    private static final byte[] ENTRY_SEPARATOR = bytes("; ");
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // Bytes handed to the channel so far
+    private long drained;
+    // Row being encoded; copied to the direct buffer in one go
+    private byte[] row = new byte[4096];
+    private int size;
+    private final NameResolver names;
+
+    // Registry names by raw id, as strings (for sorting) and as bytes
+    private String[] blockNames = new String[0];
+    private byte[][] blockBytes = new byte[0][];
+    private String[] entityNames = new String[0];
+    private byte[][] entityBytes = new byte[0][];
+
+    private final Map<String, byte[]> stringBytes = new HashMap<>();
+    private String lastTimestamp;
+    private byte[] lastTimestampBytes;
+
+    // Sort buffer for the "name : count" lists
+    private int[] order = new int[16];
+
+    // Inventory of each player's previous row, for delta rows
+    private static final class SlotState {
+        String[] items;
+        int[] counts;
+        long keyframeTick;
+    }
+
+    private final int keyframeTicks;
+    private final Map<String, SlotState> slotStates = new HashMap<>();
+
+    private final boolean position, look, viewpoint, stats, biome, outdoor, highlightedBlock,
+            visibleBlocks, mobs, inventory, actions;
+
+    public CsvRecordSink(Path path, NameResolver names) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND), names, 0, ColumnGroup.ALL);
+    }
+
+    public CsvRecordSink(OutputStream out, NameResolver names) throws IOException {
+        this(out, names, 0);
+    }
+
+    /**
+     * Writes to the given stream, starting with the header. The stream is
+     * closed with the sink.
+     *
+     * @param keyframeTicks ticks between full inventory rows per player;
+     *                      0 writes every row in full
+     */
+    public CsvRecordSink(OutputStream out, NameResolver names, int keyframeTicks) throws IOException {
+        this(out, names, keyframeTicks, ColumnGroup.ALL);
+    }
+
+    /**
+     * Like {@link #CsvRecordSink(OutputStream, NameResolver, int)}, writing
+     * only the given column groups.
+     */
+    public CsvRecordSink(OutputStream out, NameResolver names, int keyframeTicks,
+                         Set<ColumnGroup> columns) throws IOException {
+        this(out instanceof FileOutputStream file ? file.getChannel() : Channels.newChannel(out),
+                names, keyframeTicks, columns);
+    }
+
+    private CsvRecordSink(WritableByteChannel channel, NameResolver names, int keyframeTicks,
+                          Set<ColumnGroup> columns) throws IOException {
+        this.channel = channel;
+        this.names = names;
+        this.keyframeTicks = keyframeTicks;
+
+        this.position = columns.contains(ColumnGroup.POSITION);
+        this.look = columns.contains(ColumnGroup.LOOK);
+        this.viewpoint = columns.contains(ColumnGroup.VIEWPOINT);
+        this.stats = columns.contains(ColumnGroup.STATS);
+        this.biome = columns.contains(ColumnGroup.BIOME);
+        this.outdoor = columns.contains(ColumnGroup.OUTDOOR);
+        this.highlightedBlock = columns.contains(ColumnGroup.HIGHLIGHTED_BLOCK);
+        this.visibleBlocks = columns.contains(ColumnGroup.VISIBLE_BLOCKS);
+        this.mobs = columns.contains(ColumnGroup.MOBS);
+        this.inventory = columns.contains(ColumnGroup.INVENTORY);
+        this.actions = columns.contains(ColumnGroup.ACTIONS);
+
+        put(bytes(header(columns)));
+        endRow();
+    }
+
+    @Override
+    public void write(PlayerRecord r) throws IOException {
+        // ID: name_tick_timestamp
+        put(string(r.playerName));
+        put('_');
+        putLong(r.tick);
+        put('_');
+        put(timestamp(r.timestamp));
+
+        // Every other field starts with its comma
+        if (position) {
+            put(',');
+            putDouble(r.x);
+            put(',');
+            putDouble(r.y);
+            put(',');
+            putDouble(r.z);
+        }
+        if (look) {
+            put(',');
+            putDouble(r.lookX);
+            put(',');
+            putDouble(r.lookY);
+            put(',');
+            putDouble(r.lookZ);
+        }
+        if (viewpoint) {
+            put(',');
+            putDouble(r.eyeY);
+            put(',');
+            put(string(r.dimension));
+            put(',');
+            putLong(r.dayTime);
+        }
+        if (stats) {
+            put(',');
+            putDouble(r.health);
+            put(',');
+            putDouble(r.food);
+            put(',');
+            putDouble(r.oxygen);
+        }
+        if (biome) {
+            put(',');
+            put(string(r.biome));
+        }
+        if (outdoor) {
+            put(',');
+            put(r.outsideObservable ? '1' : '0');
+            put(',');
+            put(string(r.nightFlag));
+        }
+        if (highlightedBlock) {
+            put(',');
+            put(r.blockHighlighted ? '1' : '0');
+            put(',');
+            put(string(r.highlightedBlock));
+        }
+        if (visibleBlocks) {
+            // Quoted, with quotes inside doubled
+            put(',');
+            put('"');
+            putCounts(r.visibleBlockIds, r.visibleBlockCounts, true, true);
+            put('"');
+        }
+        if (mobs) {
+            put(',');
+            put(r.viewingMob ? '1' : '0');
+            put(',');
+            putEntity(r.closestViewingMob);
+            put(',');
+            putCounts(r.viewingMobIds, r.viewingMobCounts, false, false);
+        }
+        if (inventory) {
+            putInventory(r);
+        }
+        if (actions) {
+            put(',');
+            putBlock(r.lastBlockHit);
+            put(',');
+            putBlock(r.lastBlockBroken);
+            put(',');
+            putBlock(r.lastBlockPlaced);
+            put(',');
+            putBlock(r.lastBlockDamageTaken);
+            put(',');
+            putEntity(r.lastMobHit);
+            put(',');
+            putEntity(r.lastMobKilled);
+        }
+
+        // --- Feature ages ---
+        if (visibleBlocks) {
+            put(',');
+            putLong(r.visibleBlocksAge);
+        }
+        if (outdoor) {
+            put(',');
+            putLong(r.outdoorAge);
+        }
+        if (mobs) {
+            put(',');
+            putLong(r.mobsAge);
+        }
+        put('\n');
+        endRow();
+    }
+
+    private void putInventory(PlayerRecord r) {
+        // Delta row: slots equal to the player's previous row stay empty
+        SlotState state = null, previous = null;
+        if (keyframeTicks > 0) {
+            state = slotStates.get(r.playerName);
+            if (state == null) {
+                state = new SlotState();
+                slotStates.put(r.playerName, state);
+            } else if (r.tick - state.keyframeTick < keyframeTicks) {
+                previous = state;
+            }
+        }
+        boolean unchanged = previous != null
+                && previous.items == r.slotItems && previous.counts == r.slotCounts;
+
+        // --- Hotbar (duplicates the first nine main slots) ---
+        for (int i = 0; i < PlayerRecord.HOTBAR_SLOTS; i++) {
+            putSlot(r, i, previous, unchanged);
+        }
+
+        // --- Main Inventory ---
+        for (int i = 0; i < PlayerRecord.MAIN_SLOTS; i++) {
+            putSlot(r, i, previous, unchanged);
+        }
+
+        // --- Armor ---
+        for (int i = 0; i < PlayerRecord.ARMOR_SLOTS; i++) {
+            putSlot(r, PlayerRecord.ARMOR_OFFSET + i, previous, unchanged);
+        }
+
+        // --- Shield ---
+        putSlot(r, PlayerRecord.OFFHAND_SLOT, previous, unchanged);
+
+        if (state != null) {
+            if (previous == null) state.keyframeTick = r.tick;
+            state.items = r.slotItems;
+            state.counts = r.slotCounts;
+        }
+    }
+
+    @Override
+    public long position() {
+        return drained + buffer.position();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // A comma, then "item" or "item : count"; nothing if the slot is the
+    // same as in the previous row
+    private void putSlot(PlayerRecord r, int slot, SlotState previous, boolean unchanged) {
+        put(',');
+        if (previous == null || !(unchanged || sameSlot(previous, r, slot))) {
+            String itemName = r.slotItems[slot];
+            if (itemName == null) {
+                put(NONE);
+            } else {
+                put(string(itemName));
+                int count = r.slotCounts[slot];
+                if (count > 1) {
+                    put(COUNT_SEPARATOR);
+                    putLong(count);
+                }
+            }
+        }
+    }
+
+    private static boolean sameSlot(SlotState previous, PlayerRecord r, int slot) {
+        String item = r.slotItems[slot];
+        return Objects.equals(previous.items[slot], item)
+                && (item == null || previous.counts[slot] == r.slotCounts[slot]);
+    }
+
+    /**
+     * "name : count; ..." sorted by count (descending), then name; "none"
+     * if empty.
+     */
+    private void putCounts(int[] ids, int[] counts, boolean blocks, boolean escapeQuotes) {
+        int n = ids.length;
+        if (n == 0) {
+            put(NONE);
+            return;
+        }
+
+        if (order.length < n) order = new int[Math.max(n, order.length * 2)];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            // Resolves the name before sorting compares it
+            if (blocks) blockBytes(ids[i]);
+            else entityBytes(ids[i]);
+        }
+        String[] keys = blocks ? blockNames : entityNames;
+
+        // Insertion sort: a handful of distinct ids per row
+        for (int i = 1; i < n; i++) {
+            int cur = order[i];
+            int j = i - 1;
+            while (j >= 0 && before(cur, order[j], ids, counts, keys)) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = cur;
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (i > 0) put(ENTRY_SEPARATOR);
+            int k = order[i];
+            byte[] name = blocks ? blockBytes[ids[k]] : entityBytes[ids[k]];
+            if (escapeQuotes) putEscaped(name);
+            else put(name);
+            put(COUNT_SEPARATOR);
+            putLong(counts[k]);
+        }
+    }
+
+    private static boolean before(int a, int b, int[] ids, int[] counts, String[] keys) {
+        if (counts[a] != counts[b]) return counts[a] > counts[b];
+        return keys[ids[a]].compareTo(keys[ids[b]]) < 0;
+    }
+
+    // --- Name caches ---
+
+    private void putBlock(int id) {
+        put(id == PlayerRecord.NONE ? NONE : blockBytes(id));
+    }
+
+    private void putEntity(int id) {
+        put(id == PlayerRecord.NONE ? NONE : entityBytes(id));
+    }
+
+    private byte[] blockBytes(int id) {
+        if (id >= blockBytes.length) {
+            int size = Math.max(id + 1, blockBytes.length * 2);
+            blockNames = Arrays.copyOf(blockNames, size);
+            blockBytes = Arrays.copyOf(blockBytes, size);
+        }
+        if (blockBytes[id] == null) {
+            blockNames[id] = names.blockName(id);
+            blockBytes[id] = bytes(blockNames[id]);
+        }
+        return blockBytes[id];
+    }
+
+    private byte[] entityBytes(int id) {
+        if (id >= entityBytes.length) {
+            int size = Math.max(id + 1, entityBytes.length * 2);
+            entityNames = Arrays.copyOf(entityNames, size);
+            entityBytes = Arrays.copyOf(entityBytes, size);
+        }
+        if (entityBytes[id] == null) {
+            entityNames[id] = names.entityName(id);
+            entityBytes[id] = bytes(entityNames[id]);
+        }
+        return entityBytes[id];
+    }
+
+    private byte[] timestamp(String timestamp) {
+        if (lastTimestampBytes == null || !Objects.equals(timestamp, lastTimestamp)) {
+            lastTimestamp = timestamp;
+            lastTimestampBytes = bytes(timestamp);
+        }
+        return lastTimestampBytes;
+    }
+
+    private byte[] string(String s) {
+        byte[] b = stringBytes.get(s);
+        if (b == null) {
+            if (stringBytes.size() >= MAX_CACHED_STRINGS) stringBytes.clear();
+            b = bytes(s);
+            stringBytes.put(s, b);
+        }
+        return b;
+    }
+
+    private static byte[] bytes(String s) {
+        return String.valueOf(s).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // --- Buffer ---
+
+    private void put(char c) {
+        ensure(1);
+        row[size++] = (byte) c;
+    }
+
+    private void put(byte[] b) {
+        ensure(b.length);
+        System.arraycopy(b, 0, row, size, b.length);
+        size += b.length;
+    }
+
+    private void putEscaped(byte[] b) {
+        ensure(b.length * 2);
+        for (byte c : b) {
+            if (c == '"') row[size++] = '"';
+            row[size++] = c;
+        }
+    }
+
+    private void putLong(long v) {
+        ensure(DoubleFormat.MAX_LENGTH);
+        size = DoubleFormat.writeLong(v, row, size);
+    }
+
+    private void putDouble(double v) {
+        ensure(DoubleFormat.MAX_LENGTH);
+        size = DoubleFormat.write(v, row, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > row.length) {
+            row = Arrays.copyOf(row, Math.max(row.length * 2, size + extra));
+        }
+    }
+
+    // Moves the encoded row into the direct buffer, draining it when full
+    private void endRow() throws IOException {
+        int off = 0;
+        while (off < size) {
+            if (!buffer.hasRemaining()) drain();
+            int n = Math.min(buffer.remaining(), size - off);
+            buffer.put(row, off, n);
+            off += n;
+        }
+        size = 0;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        drained += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Names of the header's columns for the given groups, ID first. */
+    public static List<String> columns(Set<ColumnGroup> columns) {
+        String header = header(columns);
+        return List.of(header.substring(0, header.length() - 1).split(","));
+    }
+
+    /** Header line (with newline) for the given column groups. */
+    static String header(Set<ColumnGroup> columns) {
+        StringBuilder sb = new StringBuilder("ID");
+
+        if (columns.contains(ColumnGroup.POSITION)) {
+            sb.append(",PlayerCords_XPos,PlayerCords_YPos,PlayerCords_ZPos");
+        }
+        if (columns.contains(ColumnGroup.LOOK)) {
+            sb.append(",PlayerViewingCords_XPos,PlayerViewingCords_YPos,PlayerViewingCords_ZPos");
+        }
+        if (columns.contains(ColumnGroup.VIEWPOINT)) {
+            sb.append(",PlayerViewpoint_EyeYPos,PlayerViewpoint_Dimension,PlayerViewpoint_DayTime");
+        }
+        if (columns.contains(ColumnGroup.STATS)) {
+            sb.append(",PlayerStats_Health,PlayerStats_FoodLevel,PlayerStats_OxygenLevel");
+        }
+        if (columns.contains(ColumnGroup.BIOME)) {
+            sb.append(",PlayerEnvironment_Biome");
+        }
+        if (columns.contains(ColumnGroup.OUTDOOR)) {
+            sb.append(",PlayerViewingEnvironment_OutsideObservableFlag,PlayerViewingEnvironment_NightFlag");
+        }
+        if (columns.contains(ColumnGroup.HIGHLIGHTED_BLOCK)) {
+            sb.append(",PlayerViewingEnvironment_BlockHighlightedFlag,PlayerViewingEnvironment_HighlightedBlock");
+        }
+        if (columns.contains(ColumnGroup.VISIBLE_BLOCKS)) {
+            sb.append(",PlayerViewingEnvironment_VisibleBlocks");
+        }
+        if (columns.contains(ColumnGroup.MOBS)) {
+            sb.append(",PlayerViewingEnvironment_MobFlag," +
+                    "PlayerViewingEnvironment_ClosestViewingMobType," +
+                    "PlayerViewingEnvironment_AllViewingMobs");
+        }
+
+        if (columns.contains(ColumnGroup.INVENTORY)) {
+            // Hotbar
+            for (int i = 1; i <= 9; i++) {
+                sb.append(",PlayerInventory_Item").append(i).append("Hotbar");
+            }
+
+            // Main Inventory
+            for (int i = 1; i <= 36; i++) {
+                sb.append(",PlayerInventory_MainInventory_Item").append(i);
+            }
+
+            // Armor
+            for (int i = 1; i <= 4; i++) {
+                sb.append(",PlayerInventory_Item").append(i).append("Armor");
+            }
+
+            // Shield
+            sb.append(",PlayerInventory_ShieldSlot");
+        }
+
+        if (columns.contains(ColumnGroup.ACTIONS)) {
+            sb.append(",PlayerAction_LastBlockHit," +
+                    "PlayerAction_LastBlockBroken," +
+                    "PlayerAction_LastBlockPlaced," +
+                    "PlayerAction_LastBlockDamageTaken," +
+                    "PlayerAction_LastMobHit," +
+                    "PlayerAction_LastMobKilled");
+        }
+
+        // Feature ages
+        if (columns.contains(ColumnGroup.VISIBLE_BLOCKS)) sb.append(",FeatureAge_VisibleBlocks");
+        if (columns.contains(ColumnGroup.OUTDOOR)) sb.append(",FeatureAge_OutsideObservable");
+        if (columns.contains(ColumnGroup.MOBS)) sb.append(",FeatureAge_Mobs");
+
+        return sb.append('\n').toString();
+    }
+}
@@ -0,0 +1,217 @@
+package positionlogger_v0_0.output;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes doubles as ASCII exactly the way {@link Double#toString(double)}
+ * does, without allocating.
+ *
+ * Double.toString picks the shortest decimal that rounds back to the value
+ * (the closest one if there are several) and prints it plainly when the
+ * magnitude is in [10^-3, 10^7). In that range the decimal is found here with
+ * exact 128-bit integer arithmetic: the range of integers d with d / 10^k
+ * inside the value's rounding interval is computed for 17 significant
+ * digits, then narrowed a digit at a time while it still contains a multiple
+ * of ten. Zero is handled directly; everything else (tiny, huge, NaN,
+ * infinite) falls back to Double.toString. Positions, angles and stats all
+ * stay inside the fast range.
+ */
+final class DoubleFormat {
+
+    /** Longest output, e.g. "-1.2345678901234567E-300". */
+    static final int MAX_LENGTH = 25;
+
+    private static final double FAST_MIN = 1.0E-3;
+    private static final double FAST_MAX = 1.0E7;
+    private static final int MAX_FRACTION_DIGITS = 21;
+
+    private static final long[] POW10 = new long[19];
+    // 10^(i - 3) as doubles, to estimate the decimal exponent
+    private static final double[] DECADES = new double[11];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        for (int i = 0; i < DECADES.length; i++) {
+            DECADES[i] = Math.pow(10, i - 3);
+        }
+    }
+
+    private static final int MIN = 0;
+    private static final int MAX = 1;
+    private static final int NEAREST = 2;
+
+    private DoubleFormat() {
+    }
+
+    /**
+     * Writes {@code v} into {@code out} at {@code pos}; returns the end position.
+     */
+    static int write(double v, byte[] out, int pos) {
+        long bits = Double.doubleToRawLongBits(v);
+        boolean negative = bits < 0;
+        double abs = Math.abs(v);
+
+        if (abs == 0.0) {
+            if (negative) out[pos++] = '-';
+            out[pos++] = '0';
+            out[pos++] = '.';
+            out[pos++] = '0';
+            return pos;
+        }
+        if (!(abs >= FAST_MIN && abs < FAST_MAX)) {
+            return slow(v, out, pos);
+        }
+
+        int biased = (int) (bits >>> 52) & 0x7FF;
+        long f = (bits & 0xFFFFFFFFFFFFFL) | (1L << 52);
+        // v = 4f / 2^n, with n in [31, 64]
+        int n = 1075 - biased + 2;
+
+        // Rounding interval [4f - lowGap, 4f + 2] / 2^n; the gap below a
+        // power of two is half as wide. Ends belong to it if f is even.
+        boolean closed = (f & 1) == 0;
+        long low = (f << 2) - ((f == 1L << 52 && biased > 1) ? 1 : 2);
+        long high = (f << 2) + 2;
+
+        // Estimated decimal exponent; one off only costs a retry or a step
+        int exponent = -3;
+        while (exponent < 6 && abs >= DECADES[exponent + 4]) exponent++;
+
+        // 17 significant digits always have a candidate
+        int k = Math.min(16 - exponent, MAX_FRACTION_DIGITS);
+        long min = scale(low, k, n, MIN, closed);
+        long max = scale(high, k, n, MAX, closed);
+        while (min > max && k < MAX_FRACTION_DIGITS) {
+            k++;
+            min = scale(low, k, n, MIN, closed);
+            max = scale(high, k, n, MAX, closed);
+        }
+        if (min > max) return slow(v, out, pos);
+
+        // Drop digits while a shorter decimal still fits
+        while (k > 0) {
+            long shorterMin = (min + 9) / 10;
+            long shorterMax = max / 10;
+            if (shorterMin > shorterMax) break;
+            min = shorterMin;
+            max = shorterMax;
+            k--;
+        }
+
+        long d;
+        int fraction;
+        if (max >= 10) {
+            d = clamp(scale(f << 2, k, n, NEAREST, closed), min, max);
+            fraction = k;
+        } else {
+            // One significant digit: Double.toString also considers two
+            // digit decimals and takes the closest
+            fraction = k + 1;
+            d = clamp(scale(f << 2, fraction, n, NEAREST, closed),
+                    scale(low, fraction, n, MIN, closed),
+                    scale(high, fraction, n, MAX, closed));
+            if (d % 10 == 0) {
+                d /= 10;
+                fraction = k;
+            }
+        }
+
+        if (negative) out[pos++] = '-';
+        return plain(d, fraction, out, pos);
+    }
+
+    /**
+     * Writes a decimal integer; returns the end position.
+     */
+    static int writeLong(long v, byte[] out, int pos) {
+        if (v == Long.MIN_VALUE) {
+            byte[] s = Long.toString(v).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(s, 0, out, pos, s.length);
+            return pos + s.length;
+        }
+        if (v < 0) {
+            out[pos++] = '-';
+            v = -v;
+        }
+        int end = pos + digitCount(v);
+        int i = end;
+        do {
+            out[--i] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        return end;
+    }
+
+    // d / 10^fraction, with at least one digit on each side of the point
+    private static int plain(long d, int fraction, byte[] out, int pos) {
+        int digits = digitCount(d);
+        int intDigits = Math.max(1, digits - fraction);
+        int length = intDigits + 1 + Math.max(1, fraction);
+        int end = pos + length;
+
+        int i = end;
+        if (fraction == 0) out[--i] = '0';
+        for (int j = 0; j < fraction; j++) {
+            out[--i] = (byte) ('0' + d % 10);
+            d /= 10;
+        }
+        out[--i] = '.';
+        do {
+            out[--i] = (byte) ('0' + d % 10);
+            d /= 10;
+        } while (i > pos);
+        return end;
+    }
+
+    private static int slow(double v, byte[] out, int pos) {
+        String s = Double.toString(v);
+        for (int i = 0; i < s.length(); i++) {
+            out[pos++] = (byte) s.charAt(i);
+        }
+        return pos;
+    }
+
+    private static int digitCount(long v) {
+        int n = 1;
+        while (n < POW10.length && v >= POW10[n]) n++;
+        return n;
+    }
+
+    private static long clamp(long d, long min, long max) {
+        return Math.max(min, Math.min(max, d));
+    }
+
+    /**
+     * a * 10^k / 2^n as an integer: rounded up (or past an open end) for MIN,
+     * down (or before an open end) for MAX, to nearest-even for NEAREST.
+     * a is below 2^56, k at most 21 and n in [31, 64].
+     */
+    private static long scale(long a, int k, int n, int mode, boolean closed) {
+        long hi, lo;
+        if (k < POW10.length) {
+            hi = Math.multiplyHigh(a, POW10[k]);
+            lo = a * POW10[k];
+        } else {
+            long h = Math.multiplyHigh(a, POW10[18]);
+            long l = a * POW10[18];
+            long m = POW10[k - 18];
+            hi = h * m + Math.multiplyHigh(l, m) + (l < 0 ? m : 0);
+            lo = l * m;
+        }
+
+        long q = n == 64 ? hi : (hi << (64 - n)) | (lo >>> n);
+        long rem = n == 64 ? lo : lo & ((1L << n) - 1);
+
+        return switch (mode) {
+            case MIN -> rem != 0 || !closed ? q + 1 : q;
+            case MAX -> rem == 0 && !closed ? q - 1 : q;
+            default -> {
+                int cmp = Long.compareUnsigned(rem, 1L << (n - 1));
+                yield cmp > 0 || (cmp == 0 && (q & 1) != 0) ? q + 1 : q;
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package positionlogger_v0_0.output;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads one player's records in a tick range out of a segment, jumping to
+ * them through the segment's {@link SegmentIndex} instead of reading the
+ * whole file. Without an index the segment is scanned.
+ *
+ * Index offsets are into the uncompressed segment, so in a {@code .gz}
+ * segment the reader still decompresses up to each record, but skips
+ * parsing everything in between.
+ */
+public final class IndexedLogReader {
+
+    private IndexedLogReader() {
+    }
+
+    /**
+     * CSV rows (without the header) of the player with a tick in
+     * [fromTick, toTick], in file order. Rows of a file written with
+     * keyframes are returned as stored; see {@link CsvDeltaExpander}.
+     */
+    public static List<String> csvRows(Path segment, String player, long fromTick, long toTick) throws IOException {
+        List<String> rows = new ArrayList<>();
+        String prefix = player + "_";
+        long[] offsets = offsets(segment, player, fromTick, toTick);
+
+        try (InputStream in = open(segment)) {
+            if (offsets == null) {
+                // No index: every row
+                String line;
+                while ((line = readLine(in)) != null) {
+                    if (matches(line, prefix, fromTick, toTick)) rows.add(line);
+                }
+                return rows;
+            }
+
+            long position = 0;
+            for (long offset : offsets) {
+                in.skipNBytes(offset - position);
+                String line = readLine(in);
+                if (line == null) break;
+                position = offset + line.getBytes(StandardCharsets.UTF_8).length + 1;
+
+                // Rules out hash collisions
+                if (matches(line, prefix, fromTick, toTick)) rows.add(line);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Feeds the player's records with a tick in [fromTick, toTick] from a
+     * columnar segment to the consumer, in file order, each with the names
+     * of its block and mob ids (see {@link ColumnarLogReader#names()}).
+     */
+    public static void columnarRecords(Path segment, String player, long fromTick, long toTick,
+                                       BiConsumer<PlayerRecord, NameResolver> consumer) throws IOException {
+        long[] offsets = offsets(segment, player, fromTick, toTick);
+
+        try (ColumnarLogReader reader = new ColumnarLogReader(open(segment))) {
+            if (offsets == null) {
+                PlayerRecord r;
+                while ((r = reader.next()) != null) {
+                    if (matches(r, player, fromTick, toTick)) consumer.accept(r, reader.names());
+                }
+                return;
+            }
+
+            for (long offset : offsets) {
+                if (!reader.skipTo(offset)) continue;
+
+                // The whole row group; the index only knows where it starts
+                PlayerRecord r = reader.next();
+                while (r != null) {
+                    if (matches(r, player, fromTick, toTick)) consumer.accept(r, reader.names());
+                    r = reader.remainingInGroup() > 0 ? reader.next() : null;
+                }
+            }
+        }
+    }
+
+    // Offsets from the segment's index, or null without a usable one
+    private static long[] offsets(Path segment, String player, long fromTick, long toTick) {
+        Path indexFile = SegmentIndex.pathFor(segment);
+        if (!Files.exists(indexFile)) return null;
+
+        try (SegmentIndex.Reader index = SegmentIndex.open(indexFile)) {
+            return index.offsets(player, fromTick, toTick);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static InputStream open(Path segment) throws IOException {
+        InputStream in = Files.newInputStream(segment);
+        if (segment.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedInputStream(in, 1 << 16);
+    }
+
+    // Up to (not including) the next newline; null at end of file
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    // ID is name_tick_timestamp
+    private static boolean matches(String line, String prefix, long fromTick, long toTick) {
+        if (!line.startsWith(prefix)) return false;
+        int end = line.indexOf('_', prefix.length());
+        if (end < 0) return false;
+        try {
+            long tick = Long.parseLong(line, prefix.length(), end, 10);
+            return tick >= fromTick && tick <= toTick;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean matches(PlayerRecord r, String player, long fromTick, long toTick) {
+        return player.equals(r.playerName) && r.tick >= fromTick && r.tick <= toTick;
+    }
+}
@@ -0,0 +1,12 @@
+package positionlogger_v0_0.output;
+
+/**
+ * Turns registry raw ids stored in a {@link PlayerRecord} back into names.
+ * Called from the writer thread.
+ */
+public interface NameResolver {
+
+    String blockName(int id);
+
+    String entityName(int id);
+}
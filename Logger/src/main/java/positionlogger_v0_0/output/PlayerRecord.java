@@ -0,0 +1,182 @@
+package positionlogger_v0_0.output;
+
+/**
+ * Immutable per-player snapshot captured on the server thread.
+ *
+ * Holds raw values only; all formatting happens on the writer thread.
+ * Blocks and mobs are stored as registry raw ids and resolved to names
+ * through a {@link NameResolver} when the record is written.
+ * Arrays handed to the builder are owned by the record afterwards and
+ * must not be touched again by the caller.
+ */
+public final class PlayerRecord {
+
+    // Slot layout of slotItems / slotCounts
+    public static final int HOTBAR_SLOTS = 9;
+    public static final int MAIN_SLOTS = 36;
+    public static final int ARMOR_SLOTS = 4;   // head, chest, legs, feet
+    public static final int ARMOR_OFFSET = MAIN_SLOTS;
+    public static final int OFFHAND_SLOT = MAIN_SLOTS + ARMOR_SLOTS;
+    public static final int SLOT_COUNT = OFFHAND_SLOT + 1;
+
+    public static final int NONE = -1;
+    private static final int[] NO_IDS = new int[0];
+    // Shared all-empty inventory, copied on the first slot() write
+    private static final String[] NO_ITEMS = new String[SLOT_COUNT];
+    private static final int[] NO_COUNTS = new int[SLOT_COUNT];
+
+    public final String playerName;
+    public final long tick;
+    public final String timestamp;
+
+    public final double x, y, z;
+    public final double lookX, lookY, lookZ;
+
+    // Eye Y, dimension id and time of day (0-23999)
+    public final double eyeY;
+    public final String dimension;
+    public final int dayTime;
+
+    public final double health;
+    public final double food;
+    public final double oxygen;
+
+    public final String biome;
+
+    public final boolean outsideObservable;
+    public final String nightFlag;          // "none", "0" or "1"
+    public final boolean blockHighlighted;
+    public final String highlightedBlock;
+    // Unique visible positions per block id, parallel arrays
+    public final int[] visibleBlockIds;
+    public final int[] visibleBlockCounts;
+
+    public final boolean viewingMob;
+    public final int closestViewingMob;     // entity type id or NONE
+    public final int[] viewingMobIds;
+    public final int[] viewingMobCounts;
+
+    // Item path per slot, null for empty
+    public final String[] slotItems;
+    public final int[] slotCounts;
+
+    // Latest player actions (registry raw ids or NONE), kept until replaced
+    public final int lastBlockHit;
+    public final int lastBlockBroken;
+    public final int lastBlockPlaced;
+    public final int lastBlockDamageTaken;  // block that dealt the damage
+    public final int lastMobHit;
+    public final int lastMobKilled;
+
+    // Ticks since each expensive feature was computed (0 = this tick)
+    public final int visibleBlocksAge;
+    public final int outdoorAge;
+    public final int mobsAge;
+
+    private PlayerRecord(Builder b) {
+        this.playerName = b.playerName;
+        this.tick = b.tick;
+        this.timestamp = b.timestamp;
+        this.x = b.x;
+        this.y = b.y;
+        this.z = b.z;
+        this.lookX = b.lookX;
+        this.lookY = b.lookY;
+        this.lookZ = b.lookZ;
+        this.eyeY = b.eyeY;
+        this.dimension = b.dimension;
+        this.dayTime = b.dayTime;
+        this.health = b.health;
+        this.food = b.food;
+        this.oxygen = b.oxygen;
+        this.biome = b.biome;
+        this.outsideObservable = b.outsideObservable;
+        this.nightFlag = b.nightFlag;
+        this.blockHighlighted = b.blockHighlighted;
+        this.highlightedBlock = b.highlightedBlock;
+        this.visibleBlockIds = b.visibleBlockIds;
+        this.visibleBlockCounts = b.visibleBlockCounts;
+        this.viewingMob = b.viewingMob;
+        this.closestViewingMob = b.closestViewingMob;
+        this.viewingMobIds = b.viewingMobIds;
+        this.viewingMobCounts = b.viewingMobCounts;
+        this.slotItems = b.slotItems;
+        this.slotCounts = b.slotCounts;
+        this.lastBlockHit = b.lastBlockHit;
+        this.lastBlockBroken = b.lastBlockBroken;
+        this.lastBlockPlaced = b.lastBlockPlaced;
+        this.lastBlockDamageTaken = b.lastBlockDamageTaken;
+        this.lastMobHit = b.lastMobHit;
+        this.lastMobKilled = b.lastMobKilled;
+        this.visibleBlocksAge = b.visibleBlocksAge;
+        this.outdoorAge = b.outdoorAge;
+        this.mobsAge = b.mobsAge;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        public String playerName;
+        public long tick;
+        public String timestamp;
+
+        public double x, y, z;
+        public double lookX, lookY, lookZ;
+
+        public double eyeY;
+        public String dimension = "none";
+        public int dayTime;
+
+        public double health;
+        public double food;
+        public double oxygen;
+
+        public String biome = "none";
+
+        public boolean outsideObservable;
+        public String nightFlag = "none";
+        public boolean blockHighlighted;
+        public String highlightedBlock = "none";
+        public int[] visibleBlockIds = NO_IDS;
+        public int[] visibleBlockCounts = NO_IDS;
+
+        public boolean viewingMob;
+        public int closestViewingMob = NONE;
+        public int[] viewingMobIds = NO_IDS;
+        public int[] viewingMobCounts = NO_IDS;
+
+        public String[] slotItems = NO_ITEMS;
+        public int[] slotCounts = NO_COUNTS;
+
+        public int lastBlockHit = NONE;
+        public int lastBlockBroken = NONE;
+        public int lastBlockPlaced = NONE;
+        public int lastBlockDamageTaken = NONE;
+        public int lastMobHit = NONE;
+        public int lastMobKilled = NONE;
+
+        public int visibleBlocksAge;
+        public int outdoorAge;
+        public int mobsAge;
+
+        private Builder() {
+        }
+
+        public Builder slot(int index, String item, int count) {
+            if (slotItems == NO_ITEMS) {
+                if (item == null && count == 0) return this;
+                slotItems = new String[SLOT_COUNT];
+                slotCounts = new int[SLOT_COUNT];
+            }
+            slotItems[index] = item;
+            slotCounts[index] = count;
+            return this;
+        }
+
+        public PlayerRecord build() {
+            return new PlayerRecord(this);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package positionlogger_v0_0.output;
+
+import java.io.IOException;
+
+/**
+ * Destination for formatted records. Only ever called from the writer thread.
+ */
+public interface RecordSink {
+
+    void write(PlayerRecord record) throws IOException;
+
+    /**
+     * Byte offset in this sink's output at which the next record will start
+     * (for formats that group rows, the start of its group); -1 if unknown.
+     */
+    default long position() {
+        return -1;
+    }
+
+    void flush() throws IOException;
+
+    void close() throws IOException;
+}
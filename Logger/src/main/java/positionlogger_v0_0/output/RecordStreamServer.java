@@ -0,0 +1,314 @@
+package positionlogger_v0_0.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes each tick's records to local subscribers over TCP or a
+ * Unix-domain socket, for bots and trainers that should not tail the log.
+ *
+ * <pre>
+ * request := players:utf8-line        (comma separated names, empty = all)
+ * stream  := frame*
+ * frame   := length:u32 payload
+ * </pre>
+ *
+ * The payload of the first frame is a {@link ColumnarFormat} segment header
+ * for the configured columns; every later frame holds one tick's records
+ * for the subscriber's players as a row group (several past 1024 rows).
+ * Concatenating the payloads gives a file {@link ColumnarLogReader} can read.
+ *
+ * The server thread only hands each subscriber a reference to the tick's
+ * records. Every subscriber has its own thread and a queue of a bounded
+ * number of ticks; when it cannot keep up, its oldest ticks are dropped and
+ * counted, so a slow consumer never stalls the server.
+ */
+public final class RecordStreamServer implements Closeable {
+
+    // Longest accepted request line
+    private static final int MAX_REQUEST = 4096;
+    // Rows per row group; a tick with more players spans several in one frame
+    private static final int ROW_GROUP_SIZE = 1024;
+
+    private final ServerSocketChannel server;
+    private final NameResolver names;
+    private final Set<ColumnGroup> columns;
+    private final int queueTicks;
+    private final Thread acceptor;
+    private final Path socketFile;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean closing = false;
+
+    /**
+     * Listens on {@code host:port}.
+     *
+     * @param queueTicks ticks a subscriber may fall behind before its oldest are dropped
+     */
+    public static RecordStreamServer tcp(SocketAddress address, NameResolver names,
+                                         Set<ColumnGroup> columns, int queueTicks) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(address);
+        return new RecordStreamServer(channel, null, names, columns, queueTicks);
+    }
+
+    /**
+     * Listens on a Unix-domain socket file, replacing a stale one.
+     */
+    public static RecordStreamServer unix(Path socketFile, NameResolver names,
+                                          Set<ColumnGroup> columns, int queueTicks) throws IOException {
+        Files.deleteIfExists(socketFile);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socketFile));
+        return new RecordStreamServer(channel, socketFile, names, columns, queueTicks);
+    }
+
+    private RecordStreamServer(ServerSocketChannel server, Path socketFile, NameResolver names,
+                               Set<ColumnGroup> columns, int queueTicks) {
+        this.server = server;
+        this.socketFile = socketFile;
+        this.names = names;
+        this.columns = columns;
+        this.queueTicks = Math.max(1, queueTicks);
+
+        this.acceptor = new Thread(this::accept, "PositionLogger-Stream");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * Hands one tick's records to every subscriber. Never blocks; the list
+     * must not be modified afterwards.
+     */
+    public void publish(List<PlayerRecord> tick) {
+        if (tick.isEmpty()) return;
+        for (Subscriber s : subscribers) {
+            s.offer(tick);
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Records sent, over all subscribers so far. */
+    public long sentCount() {
+        return sent.get();
+    }
+
+    /** Records dropped for slow subscribers, over all subscribers so far. */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /** Address clients connect to, e.g. for the log. */
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    @Override
+    public void close() {
+        closing = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Subscriber s : subscribers) {
+            s.close();
+        }
+        try {
+            acceptor.join(1000);
+            if (socketFile != null) Files.deleteIfExists(socketFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void accept() {
+        int number = 0;
+        while (!closing) {
+            try {
+                SocketChannel channel = server.accept();
+                Subscriber s = new Subscriber(channel);
+                Thread t = new Thread(s::run, "PositionLogger-Stream-" + (++number));
+                t.setDaemon(true);
+                t.start();
+            } catch (AsynchronousCloseException e) {
+                break;
+            } catch (IOException e) {
+                if (!closing) e.printStackTrace();
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SocketChannel channel;
+        private final ArrayBlockingQueue<List<PlayerRecord>> queue;
+        // Player names to send, null for everyone
+        private Set<String> players;
+
+        private final FrameBuffer frame = new FrameBuffer();
+        private final List<PlayerRecord> rows = new ArrayList<>();
+        private long subscriberSent;
+        private final AtomicLong subscriberDropped = new AtomicLong();
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+            this.queue = new ArrayBlockingQueue<>(queueTicks);
+        }
+
+        // Server thread
+        void offer(List<PlayerRecord> tick) {
+            while (!queue.offer(tick)) {
+                List<PlayerRecord> oldest = queue.poll();
+                if (oldest != null) {
+                    int n = count(oldest);
+                    subscriberDropped.addAndGet(n);
+                    dropped.addAndGet(n);
+                }
+            }
+        }
+
+        void run() {
+            try {
+                players = parseRequest(readRequest());
+
+                // Schema first, then one row group per tick
+                ColumnarRecordSink sink = new ColumnarRecordSink(frame, names, ROW_GROUP_SIZE, columns);
+                sink.flush();
+                sendFrame();
+
+                subscribers.add(this);
+                System.out.println("[PositionLogger] Stream subscriber connected ("
+                        + (players == null ? "all players" : String.join(", ", players)) + ")");
+
+                while (!closing && channel.isOpen()) {
+                    List<PlayerRecord> tick = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (tick == null) continue;
+
+                    rows.clear();
+                    for (PlayerRecord r : tick) {
+                        if (players == null || players.contains(r.playerName)) rows.add(r);
+                    }
+                    if (rows.isEmpty()) continue;
+
+                    for (PlayerRecord r : rows) sink.write(r);
+                    sink.flush();
+                    sendFrame();
+
+                    subscriberSent += rows.size();
+                    sent.addAndGet(rows.size());
+                }
+            } catch (IOException e) {
+                // Disconnected
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                boolean registered = subscribers.remove(this);
+                close();
+                if (registered) {
+                    System.out.println("[PositionLogger] Stream subscriber left ("
+                            + subscriberSent + " sent, " + subscriberDropped.get() + " dropped)");
+                }
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private int count(List<PlayerRecord> tick) {
+            if (players == null) return tick.size();
+            int n = 0;
+            for (PlayerRecord r : tick) {
+                if (players.contains(r.playerName)) n++;
+            }
+            return n;
+        }
+
+        private String readRequest() throws IOException {
+            InputStream in = Channels.newInputStream(channel);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) throw new IOException("Closed before the request");
+                if (line.size() >= MAX_REQUEST) throw new IOException("Request too long");
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        private void sendFrame() throws IOException {
+            frame.writeTo(channel);
+            frame.reset();
+        }
+    }
+
+    // Comma separated player names; blank means everyone
+    static Set<String> parseRequest(String line) {
+        Set<String> players = new HashSet<>();
+        for (String name : line.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) players.add(trimmed);
+        }
+        return players.isEmpty() ? null : players;
+    }
+
+    /**
+     * Collects what the sink writes for one frame and sends it behind its
+     * length.
+     */
+    private static final class FrameBuffer extends ByteArrayOutputStream {
+
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+
+        FrameBuffer() {
+            super(1 << 12);
+        }
+
+        void writeTo(SocketChannel channel) throws IOException {
+            header.clear();
+            header.putInt(count).flip();
+            ByteBuffer[] parts = { header, ByteBuffer.wrap(buf, 0, count) };
+            while (parts[1].hasRemaining()) {
+                channel.write(parts);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package positionlogger_v0_0.output;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * File format of the segments written by {@link SegmentedRecordSink}, with
+ * what recovery needs to know about it.
+ */
+public interface SegmentFormat {
+
+    /** File extension without the dot. */
+    String extension();
+
+    /** Opens a sink writing a complete, self-contained segment to the stream. */
+    RecordSink open(OutputStream out) throws IOException;
+
+    /** Length of the file without a torn last record. */
+    long completeLength(Path file) throws IOException;
+
+    /** Feeds every record in the file to the consumer; only name and tick are required. */
+    void scan(Path file, Consumer<PlayerRecord> consumer) throws IOException;
+
+    /**
+     * @param keyframeTicks see {@link CsvRecordSink#CsvRecordSink(OutputStream, NameResolver, int)}
+     * @param columns       column groups written to every segment
+     */
+    static SegmentFormat csv(NameResolver names, int keyframeTicks, Set<ColumnGroup> columns) {
+        return new SegmentFormat() {
+            @Override
+            public String extension() {
+                return "csv";
+            }
+
+            @Override
+            public RecordSink open(OutputStream out) throws IOException {
+                return new CsvRecordSink(out, names, keyframeTicks, columns);
+            }
+
+            @Override
+            public long completeLength(Path file) throws IOException {
+                // Everything up to and including the last newline
+                try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "r")) {
+                    byte[] buf = new byte[8192];
+                    long end = f.length();
+                    while (end > 0) {
+                        int n = (int) Math.min(buf.length, end);
+                        f.seek(end - n);
+                        f.readFully(buf, 0, n);
+                        for (int i = n - 1; i >= 0; i--) {
+                            if (buf[i] == '\n') return end - n + i + 1;
+                        }
+                        end -= n;
+                    }
+                    return 0;
+                }
+            }
+
+            @Override
+            public void scan(Path file, Consumer<PlayerRecord> consumer) throws IOException {
+                try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        if (line.startsWith("ID,") || line.equals("ID")) continue;
+
+                        // ID is name_tick_timestamp; names may contain '_', the rest cannot
+                        int comma = line.indexOf(',');
+                        if (comma < 0) continue;
+                        String id = line.substring(0, comma);
+                        int tsSep = id.lastIndexOf('_');
+                        int tickSep = tsSep > 0 ? id.lastIndexOf('_', tsSep - 1) : -1;
+                        if (tickSep < 0) continue;
+
+                        PlayerRecord.Builder b = PlayerRecord.builder();
+                        b.playerName = id.substring(0, tickSep);
+                        b.tick = Long.parseLong(id.substring(tickSep + 1, tsSep));
+                        b.timestamp = id.substring(tsSep + 1);
+                        consumer.accept(b.build());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * The format of existing segments with the given extension, for
+     * recovering segments written before {@code output.format} changed;
+     * null for an unknown extension. Only {@link #completeLength} and
+     * {@link #scan} may be used on it.
+     */
+    static SegmentFormat forRecovery(String extension) {
+        return switch (extension) {
+            case "csv" -> csv(null, 0, Set.of());
+            case "plcol" -> columnar(null, 1, Set.of());
+            default -> null;
+        };
+    }
+
+    static SegmentFormat columnar(NameResolver names, int rowGroupSize, Set<ColumnGroup> columns) {
+        return new SegmentFormat() {
+            @Override
+            public String extension() {
+                return "plcol";
+            }
+
+            @Override
+            public RecordSink open(OutputStream out) throws IOException {
+                return new ColumnarRecordSink(out, names, rowGroupSize, columns);
+            }
+
+            @Override
+            public long completeLength(Path file) throws IOException {
+                return ColumnarLogReader.completeLength(file);
+            }
+
+            @Override
+            public void scan(Path file, Consumer<PlayerRecord> consumer) throws IOException {
+                try (ColumnarLogReader reader = new ColumnarLogReader(file)) {
+                    PlayerRecord r;
+                    while ((r = reader.next()) != null) {
+                        consumer.accept(r);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,262 @@
+package positionlogger_v0_0.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only side index of one segment, {@code <segment>.idx}: for every
+ * record the tick, the player and the byte offset the record starts at (in
+ * columnar segments, the offset of its row group). Offsets are into the
+ * uncompressed segment.
+ *
+ * <pre>
+ * file   := MAGIC version:i32 entries:i64 flags:i64 entry*
+ * entry  := tick:i64 player:i64 offset:i64
+ * </pre>
+ *
+ * The player is a 64-bit FNV-1a hash of the UTF-8 name; readers compare the
+ * record's name to rule out collisions. Entries are written through a
+ * memory mapping that grows in fixed chunks, and the entry count in the
+ * header is updated after each entry, so readers (even while the segment
+ * is still written) only see complete entries. Adding an entry costs three
+ * stores and no system call.
+ *
+ * Numbers are big-endian, like the columnar format.
+ */
+public final class SegmentIndex implements Closeable {
+
+    public static final byte[] MAGIC = { 'P', 'L', 'I', 'X' };
+    public static final int VERSION = 1;
+
+    static final int HEADER = 24;
+    static final int ENTRY = 24;
+    /** Set once a tick was lower than the one before; readers then scan instead of searching. */
+    static final long FLAG_UNSORTED = 1;
+
+    private static final int COUNT_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 16;
+    // Entries per mapped chunk; the header takes the first slot of chunk 0
+    private static final int CHUNK_ENTRIES = 4096;
+    private static final int CHUNK = CHUNK_ENTRIES * ENTRY;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+
+    private long entries;
+    private long flags;
+    private long lastTick = Long.MIN_VALUE;
+
+    // Names repeat every tick; hash each once
+    private final Map<String, Long> hashes = new HashMap<>();
+
+    private SegmentIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK);
+        this.chunk = header;
+        this.chunkStart = 0;
+
+        header.put(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(COUNT_OFFSET, 0);
+        header.putLong(FLAGS_OFFSET, 0);
+    }
+
+    /** Starts a new, empty index, replacing any file at the path. */
+    public static SegmentIndex create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SegmentIndex(channel);
+    }
+
+    /** Index file of a segment, compressed or not. */
+    public static Path pathFor(Path segment) {
+        String name = segment.getFileName().toString();
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return segment.resolveSibling(name + ".idx");
+    }
+
+    public void add(long tick, String player, long offset) throws IOException {
+        long position = HEADER + entries * ENTRY;
+        if (position >= chunkStart + CHUNK) {
+            chunkStart += CHUNK;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, CHUNK);
+        }
+
+        Long playerHash = hashes.get(player);
+        if (playerHash == null) {
+            playerHash = hash(player);
+            hashes.put(player, playerHash);
+        }
+
+        int at = (int) (position - chunkStart);
+        chunk.putLong(at, tick);
+        chunk.putLong(at + 8, playerHash);
+        chunk.putLong(at + 16, offset);
+
+        if (tick < lastTick && (flags & FLAG_UNSORTED) == 0) {
+            flags |= FLAG_UNSORTED;
+            header.putLong(FLAGS_OFFSET, flags);
+        }
+        lastTick = tick;
+
+        header.putLong(COUNT_OFFSET, ++entries);
+    }
+
+    public long entries() {
+        return entries;
+    }
+
+    /** Writes the mapped pages to disk. */
+    public void force() {
+        header.force();
+        if (chunk != header) chunk.force();
+    }
+
+    /**
+     * Forces the index to disk. The file keeps its last partial chunk (the
+     * mapping cannot be released portably); the entry count marks the end.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Drops the entries at or past {@code length}, e.g. after a torn record
+     * was cut off the segment. Entries are in offset order.
+     */
+    public static void truncate(Path path, long length) throws IOException {
+        if (!Files.exists(path)) return;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            long count = validCount(map, channel.size());
+            long keep = count;
+            while (keep > 0 && map.getLong((int) (HEADER + (keep - 1) * ENTRY + 16)) >= length) keep--;
+            if (keep != count) {
+                map.putLong(COUNT_OFFSET, keep);
+                map.force();
+            }
+        }
+    }
+
+    /** 64-bit FNV-1a of the UTF-8 bytes. */
+    public static long hash(String player) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : player.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    private static long validCount(MappedByteBuffer map, long size) throws IOException {
+        if (size < HEADER) throw new IOException("Not a segment index");
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (map.get(i) != MAGIC[i]) throw new IOException("Not a segment index");
+        }
+        int version = map.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported index version " + version);
+
+        // A count past the end of the file means a torn header; trust the file
+        return Math.min(map.getLong(COUNT_OFFSET), (size - HEADER) / ENTRY);
+    }
+
+    /**
+     * Read-only view of an index, as of when it was opened. Files larger than
+     * 2 GiB (about 89 million records) are not supported.
+     */
+    public static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final MappedByteBuffer map;
+        private final long entries;
+        private final boolean sorted;
+
+        private Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.entries = validCount(map, size);
+            this.sorted = (map.getLong(FLAGS_OFFSET) & FLAG_UNSORTED) == 0;
+        }
+
+        public long entries() {
+            return entries;
+        }
+
+        public long tick(long entry) {
+            return map.getLong((int) (HEADER + entry * ENTRY));
+        }
+
+        public long playerHash(long entry) {
+            return map.getLong((int) (HEADER + entry * ENTRY + 8));
+        }
+
+        public long offset(long entry) {
+            return map.getLong((int) (HEADER + entry * ENTRY + 16));
+        }
+
+        /**
+         * Distinct offsets of the player's records with a tick in
+         * [fromTick, toTick], ascending. May include another player's
+         * record on a hash collision.
+         */
+        public long[] offsets(String player, long fromTick, long toTick) {
+            long hash = hash(player);
+            long[] out = new long[16];
+            int n = 0;
+
+            long e = sorted ? firstAtOrAfter(fromTick) : 0;
+            for (; e < entries; e++) {
+                long tick = tick(e);
+                if (tick > toTick) {
+                    if (sorted) break;
+                    continue;
+                }
+                if (tick < fromTick || playerHash(e) != hash) continue;
+
+                long offset = offset(e);
+                if (n > 0 && out[n - 1] == offset) continue;
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = offset;
+            }
+
+            out = Arrays.copyOf(out, n);
+            if (!sorted) out = Arrays.stream(out).sorted().distinct().toArray();
+            return out;
+        }
+
+        // Lowest entry with tick >= the given one
+        private long firstAtOrAfter(long tick) {
+            long lo = 0, hi = entries;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (tick(mid) < tick) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
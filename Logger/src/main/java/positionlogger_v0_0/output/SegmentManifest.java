@@ -0,0 +1,126 @@
+package positionlogger_v0_0.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tab-separated list of the segments in a log directory: file, state, row
+ * count, tick range and players.
+ *
+ * Rewritten as a whole (through a temporary file and an atomic move) on
+ * every change. Shared between the writer and the compressor thread, hence
+ * synchronized.
+ */
+public final class SegmentManifest {
+
+    public static final String FILE_NAME = "manifest.tsv";
+
+    public enum State {
+        /** Being written; after a crash it needs recovery. */
+        OPEN,
+        /** Complete, not compressed (yet). */
+        CLOSED,
+        /** Complete and gzip-compressed; {@link Entry#file} ends in ".gz". */
+        COMPRESSED
+    }
+
+    public static final class Entry {
+        public String file;
+        public State state = State.OPEN;
+        public long rows;
+        public long firstTick = -1;
+        public long lastTick = -1;
+        public final Set<String> players = new TreeSet<>();
+
+        void add(PlayerRecord record) {
+            if (rows == 0 || record.tick < firstTick) firstTick = record.tick;
+            if (rows == 0 || record.tick > lastTick) lastTick = record.tick;
+            rows++;
+            players.add(record.playerName);
+        }
+
+        void reset() {
+            rows = 0;
+            firstTick = -1;
+            lastTick = -1;
+            players.clear();
+        }
+    }
+
+    private final Path path;
+    private final List<Entry> entries = new ArrayList<>();
+
+    private SegmentManifest(Path path) {
+        this.path = path;
+    }
+
+    public static SegmentManifest load(Path dir) throws IOException {
+        SegmentManifest manifest = new SegmentManifest(dir.resolve(FILE_NAME));
+        if (!Files.exists(manifest.path)) return manifest;
+
+        for (String line : Files.readAllLines(manifest.path)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] f = line.split("\t", -1);
+            if (f.length < 6) continue;
+
+            Entry e = new Entry();
+            e.file = f[0];
+            e.state = State.valueOf(f[1]);
+            e.rows = Long.parseLong(f[2]);
+            e.firstTick = Long.parseLong(f[3]);
+            e.lastTick = Long.parseLong(f[4]);
+            if (!f[5].isEmpty()) Collections.addAll(e.players, f[5].split(","));
+            manifest.entries.add(e);
+        }
+        return manifest;
+    }
+
+    public synchronized List<Entry> entries() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    public synchronized void remove(Entry entry) {
+        entries.remove(entry);
+    }
+
+    /** Counts a record towards an entry's statistics. */
+    public synchronized void count(Entry entry, PlayerRecord record) {
+        entry.add(record);
+    }
+
+    /** Forgets an entry's statistics before rescanning its file. */
+    public synchronized void clearCounts(Entry entry) {
+        entry.reset();
+    }
+
+    public synchronized void update(Entry entry, String file, State state) {
+        entry.file = file;
+        entry.state = state;
+    }
+
+    public synchronized void save() throws IOException {
+        Path tmp = path.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
+            w.write("# file\tstate\trows\tfirstTick\tlastTick\tplayers\n");
+            for (Entry e : entries) {
+                w.write(e.file + "\t" + e.state + "\t" + e.rows + "\t"
+                        + e.firstTick + "\t" + e.lastTick + "\t"
+                        + String.join(",", e.players) + "\n");
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
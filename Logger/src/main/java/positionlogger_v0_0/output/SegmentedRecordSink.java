@@ -0,0 +1,412 @@
+package positionlogger_v0_0.output;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Splits the log into numbered segment files in one directory, rotating by
+ * size, age or game day, and gzips closed segments in the background.
+ *
+ * A {@link SegmentManifest} next to the segments lists each one with its
+ * tick range and players. On startup, segments left open by a crash have
+ * their torn last record cut off and their statistics rebuilt, and closed
+ * segments that were never compressed are queued for compression.
+ *
+ * With {@link Options#index}, every segment gets a {@link SegmentIndex}
+ * of record offsets by tick and player, for {@link IndexedLogReader}.
+ *
+ * {@link #flush()} is only a hint: data is committed (flushed to the OS and
+ * recorded in the manifest) according to the {@link FlushPolicy}.
+ */
+public final class SegmentedRecordSink implements RecordSink {
+
+    public enum FlushPolicy {
+        /** Whenever the writer runs out of queued records (roughly every tick). */
+        IDLE,
+        /** Once the game time advanced by {@link Options#flushEveryTicks}. */
+        TICKS,
+        /** Once {@link Options#flushEveryMillis} passed since the last commit. */
+        MILLIS,
+        /** Only when a segment is closed. */
+        ROTATION
+    }
+
+    /**
+     * Receives the time spent formatting each record (including the
+     * occasional buffer spill) and committing it to disk. Called on the
+     * writing thread.
+     */
+    public interface Timings {
+        void wrote(long nanos);
+
+        void committed(long nanos);
+    }
+
+    public static final class Options {
+        public String baseName = "loggger";
+        /** Rotate once a segment reaches this many bytes; 0 = never. */
+        public long maxBytes = 256L << 20;
+        /** Rotate once a segment is this old; 0 = never. */
+        public long maxMillis = 0;
+        /** Rotate when {@code tick / 24000} changes. */
+        public boolean rotateOnGameDay = false;
+        public boolean compress = true;
+
+        public FlushPolicy flushPolicy = FlushPolicy.TICKS;
+        public int flushEveryTicks = 20;
+        public long flushEveryMillis = 1000;
+
+        /** Keep a {@link SegmentIndex} next to each segment. */
+        public boolean index = true;
+    }
+
+    private static final long TICKS_PER_DAY = 24000L;
+
+    private final Path dir;
+    private final SegmentFormat format;
+    private final Options options;
+    private final SegmentManifest manifest;
+    private final Pattern segmentName;
+    private final ExecutorService compressor;
+
+    private int nextNumber;
+
+    // Current segment; sink is null until the first record
+    private RecordSink sink;
+    private CountingOutputStream bytes;
+    private SegmentIndex index;
+    private SegmentManifest.Entry entry;
+    private long openedAt;
+    private long segmentDay;
+
+    // Bytes in closed segments, and in all segments as of the last write
+    private long closedBytes;
+    private volatile long bytesWritten;
+    private volatile Timings timings;
+
+    private long lastCommitTick = Long.MIN_VALUE;
+    private long lastCommitMillis;
+    private boolean dirty;
+
+    public SegmentedRecordSink(Path dir, SegmentFormat format, Options options) throws IOException {
+        this.dir = dir;
+        this.format = format;
+        this.options = options;
+        // Any extension, so numbering continues across a change of format
+        this.segmentName = Pattern.compile(Pattern.quote(options.baseName) + "-(\\d+)\\.([a-z]+)(\\.gz)?");
+
+        Files.createDirectories(dir);
+        this.manifest = SegmentManifest.load(dir);
+
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "PositionLogger-Compressor");
+            t.setDaemon(true);
+            return t;
+        });
+
+        recover();
+    }
+
+    @Override
+    public void write(PlayerRecord record) throws IOException {
+        if (sink != null && needsRotation(record)) {
+            closeSegment();
+        }
+        if (sink == null) {
+            openSegment(record);
+        }
+
+        // Commit before the first record of a later tick, so that committed
+        // data always ends on a tick boundary
+        if (options.flushPolicy == FlushPolicy.TICKS
+                && record.tick - lastCommitTick >= options.flushEveryTicks) {
+            commit(record.tick);
+        } else if (options.flushPolicy == FlushPolicy.MILLIS) {
+            maybeCommitByTime();
+        }
+
+        if (index != null) {
+            long offset = sink.position();
+            if (offset >= 0) index.add(record.tick, record.playerName, offset);
+        }
+
+        Timings t = timings;
+        if (t == null) {
+            sink.write(record);
+        } else {
+            long start = System.nanoTime();
+            sink.write(record);
+            t.wrote(System.nanoTime() - start);
+        }
+        manifest.count(entry, record);
+        dirty = true;
+    }
+
+    /** Starts (or with null stops) reporting timings. */
+    public void setTimings(Timings timings) {
+        this.timings = timings;
+    }
+
+    /** Bytes handed to the OS so far, over all segments of this sink. */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (options.flushPolicy == FlushPolicy.IDLE) {
+            commit(lastCommitTick);
+        } else if (options.flushPolicy == FlushPolicy.MILLIS) {
+            maybeCommitByTime();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sink != null) closeSegment();
+        } finally {
+            // Whatever is left uncompressed is picked up on the next start
+            compressor.shutdown();
+            try {
+                compressor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean needsRotation(PlayerRecord record) {
+        if (options.maxBytes > 0 && bytes.count() >= options.maxBytes) return true;
+        if (options.maxMillis > 0 && System.currentTimeMillis() - openedAt >= options.maxMillis) return true;
+        return options.rotateOnGameDay && Math.floorDiv(record.tick, TICKS_PER_DAY) != segmentDay;
+    }
+
+    private void openSegment(PlayerRecord first) throws IOException {
+        String name = String.format("%s-%06d.%s", options.baseName, nextNumber++, format.extension());
+
+        bytes = new CountingOutputStream(new FileOutputStream(dir.resolve(name).toFile()));
+        sink = format.open(bytes);
+        if (options.index) index = SegmentIndex.create(SegmentIndex.pathFor(dir.resolve(name)));
+
+        entry = new SegmentManifest.Entry();
+        entry.file = name;
+        manifest.add(entry);
+        manifest.save();
+
+        openedAt = System.currentTimeMillis();
+        segmentDay = Math.floorDiv(first.tick, TICKS_PER_DAY);
+        lastCommitMillis = openedAt;
+        if (lastCommitTick == Long.MIN_VALUE) lastCommitTick = first.tick;
+    }
+
+    private void closeSegment() throws IOException {
+        SegmentManifest.Entry closed = entry;
+        try {
+            try {
+                sink.close();
+            } finally {
+                if (index != null) index.close();
+            }
+        } finally {
+            closedBytes += bytes.count();
+            bytesWritten = closedBytes;
+            sink = null;
+            bytes = null;
+            index = null;
+            entry = null;
+            dirty = false;
+        }
+
+        manifest.update(closed, closed.file, SegmentManifest.State.CLOSED);
+        manifest.save();
+
+        if (options.compress) {
+            compressor.execute(() -> compress(closed));
+        }
+    }
+
+    private void maybeCommitByTime() throws IOException {
+        if (System.currentTimeMillis() - lastCommitMillis >= options.flushEveryMillis) {
+            commit(lastCommitTick);
+        }
+    }
+
+    /**
+     * Pushes everything written so far to the OS and records it in the manifest.
+     */
+    private void commit(long tick) throws IOException {
+        lastCommitTick = tick;
+        lastCommitMillis = System.currentTimeMillis();
+        if (sink == null || !dirty) return;
+
+        long start = System.nanoTime();
+        sink.flush();
+        if (index != null) index.force();
+        manifest.save();
+        dirty = false;
+        bytesWritten = closedBytes + bytes.count();
+
+        Timings t = timings;
+        if (t != null) t.committed(System.nanoTime() - start);
+    }
+
+    // --- Startup recovery ---
+
+    private void recover() throws IOException {
+        int maxNumber = 0;
+
+        for (SegmentManifest.Entry e : manifest.entries()) {
+            maxNumber = Math.max(maxNumber, number(e.file));
+
+            switch (e.state) {
+                case OPEN -> {
+                    if (repair(e) && options.compress) compressor.execute(() -> compress(e));
+                }
+                case CLOSED -> {
+                    if (options.compress) compressor.execute(() -> compress(e));
+                }
+                case COMPRESSED -> {
+                }
+            }
+        }
+
+        // Segments on disk the manifest never heard of (e.g. it was deleted)
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.sorted().toList();
+        }
+        for (Path p : files) {
+            String name = p.getFileName().toString();
+            int n = number(name);
+            if (n < 0) continue;
+
+            maxNumber = Math.max(maxNumber, n);
+            if (known(name) || name.endsWith(".gz")) continue;
+
+            SegmentManifest.Entry e = new SegmentManifest.Entry();
+            e.file = name;
+            if (formatOf(name) == null) continue;
+            manifest.add(e);
+            if (repair(e) && options.compress) compressor.execute(() -> compress(e));
+        }
+
+        manifest.save();
+        nextNumber = maxNumber + 1;
+    }
+
+    /**
+     * Cuts a torn last record off a segment (and its index) and recounts
+     * what is left.
+     * Segments without a single complete record are removed; returns
+     * whether the segment still exists and is closed. Segments of an
+     * unknown format are left as they are.
+     */
+    private boolean repair(SegmentManifest.Entry e) throws IOException {
+        Path file = dir.resolve(e.file);
+        Path indexFile = SegmentIndex.pathFor(file);
+        if (!Files.exists(file)) {
+            Files.deleteIfExists(indexFile);
+            manifest.remove(e);
+            return false;
+        }
+
+        // Written in the segment's own format, which may not be the current one
+        SegmentFormat segmentFormat = formatOf(e.file);
+        if (segmentFormat == null) {
+            System.out.println("[PositionLogger] Not recovering " + e.file + ": unknown segment format");
+            return false;
+        }
+
+        long length = Files.size(file);
+        long complete = segmentFormat.completeLength(file);
+        if (complete < length) {
+            try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+                f.setLength(complete);
+            }
+            System.out.println("[PositionLogger] Recovered " + e.file + ": dropped "
+                    + (length - complete) + " bytes of a torn record");
+        }
+        try {
+            SegmentIndex.truncate(indexFile, complete);
+        } catch (IOException ex) {
+            // Only a lookup aid; readers fall back to scanning without it
+            System.out.println("[PositionLogger] Dropping unreadable index of " + e.file);
+            Files.deleteIfExists(indexFile);
+        }
+
+        manifest.clearCounts(e);
+        segmentFormat.scan(file, r -> manifest.count(e, r));
+
+        if (e.rows == 0) {
+            Files.delete(file);
+            Files.deleteIfExists(indexFile);
+            manifest.remove(e);
+            return false;
+        }
+        manifest.update(e, e.file, SegmentManifest.State.CLOSED);
+        return true;
+    }
+
+    private void compress(SegmentManifest.Entry e) {
+        Path source = dir.resolve(e.file);
+        Path target = dir.resolve(e.file + ".gz");
+        Path partial = dir.resolve(e.file + ".gz.tmp");
+
+        try {
+            if (!Files.exists(source)) return;
+
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(new FileOutputStream(partial.toFile()), 1 << 16)) {
+                in.transferTo(out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+
+            manifest.update(e, target.getFileName().toString(), SegmentManifest.State.COMPRESSED);
+            manifest.save();
+            Files.delete(source);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private int number(String file) {
+        Matcher m = segmentName.matcher(file);
+        return m.matches() ? Integer.parseInt(m.group(1)) : -1;
+    }
+
+    private SegmentFormat formatOf(String file) {
+        Matcher m = segmentName.matcher(file);
+        if (!m.matches()) return null;
+        return m.group(2).equals(format.extension()) ? format : SegmentFormat.forRecovery(m.group(2));
+    }
+
+    private boolean known(String file) {
+        for (SegmentManifest.Entry e : manifest.entries()) {
+            if (stripGz(e.file).equals(stripGz(file))) return true;
+        }
+        return false;
+    }
+
+    private static String stripGz(String file) {
+        return file.endsWith(".gz") ? file.substring(0, file.length() - 3) : file;
+    }
+}
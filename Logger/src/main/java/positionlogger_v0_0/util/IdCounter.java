@@ -0,0 +1,76 @@
+package positionlogger_v0_0.util;
+
+import java.util.Arrays;
+
+/**
+ * Counts occurrences of small non-negative int ids (registry raw ids) without
+ * boxing. Distinct ids are kept in first-seen order; {@link #clear()} only
+ * touches the ids that were counted.
+ */
+public final class IdCounter {
+
+    private int[] counts;
+    private int[] ids;
+    private int distinct;
+
+    public IdCounter(int idCapacity) {
+        this.counts = new int[Math.max(16, idCapacity)];
+        this.ids = new int[16];
+    }
+
+    public void increment(int id) {
+        if (id >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+        }
+        if (counts[id]++ == 0) {
+            if (distinct == ids.length) ids = Arrays.copyOf(ids, distinct * 2);
+            ids[distinct++] = id;
+        }
+    }
+
+    public int distinct() {
+        return distinct;
+    }
+
+    public boolean isEmpty() {
+        return distinct == 0;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public int countAt(int index) {
+        return counts[ids[index]];
+    }
+
+    /** Distinct ids in first-seen order, sized exactly. */
+    public int[] copyIds() {
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    /** Counts matching {@link #copyIds()}. */
+    public int[] copyCounts() {
+        int[] out = new int[distinct];
+        for (int i = 0; i < distinct; i++) out[i] = counts[ids[i]];
+        return out;
+    }
+
+    /**
+     * True if {@code ids} / {@code counts} hold exactly what
+     * {@link #copyIds()} / {@link #copyCounts()} would return, so a
+     * previous copy can be reused.
+     */
+    public boolean matches(int[] ids, int[] counts) {
+        if (ids.length != distinct || counts.length != distinct) return false;
+        for (int i = 0; i < distinct; i++) {
+            if (ids[i] != this.ids[i] || counts[i] != this.counts[this.ids[i]]) return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < distinct; i++) counts[ids[i]] = 0;
+        distinct = 0;
+    }
+}
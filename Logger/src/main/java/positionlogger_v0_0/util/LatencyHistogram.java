@@ -0,0 +1,89 @@
+package positionlogger_v0_0.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds, in the style of
+ * HdrHistogram: every power of two is split into {@value #SUB_BUCKETS}
+ * linear buckets, so any recorded value is known to within about 3% while
+ * recording is a shift, a mask and an increment. Values from 0 up to about
+ * 18 minutes are covered; larger ones land in the last bucket.
+ *
+ * One thread records; other threads may read at any time and then see a
+ * slightly stale but usable picture.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Powers of two above the linear range, up to 2^39 ns
+    private static final int MAGNITUDES = 40 - SUB_BITS;
+    private static final int BUCKETS = SUB_BUCKETS * (MAGNITUDES + 1);
+
+    private final long[] counts = new long[BUCKETS];
+    private volatile long count;
+    private volatile long max;
+    private long total;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[index(nanos)]++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+        count++;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        long n = count;
+        return n == 0 ? 0.0 : (double) total / n;
+    }
+
+    /**
+     * Smallest bucket bound with at least {@code fraction} of the values at
+     * or below it (capped at the maximum); 0 if nothing was recorded.
+     */
+    public long percentile(double fraction) {
+        long n = count;
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+        count = 0;
+    }
+
+    // Values below SUB_BUCKETS map to themselves; above, the top SUB_BITS + 1
+    // bits pick the bucket within the value's power of two
+    private static int index(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int magnitude = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        if (magnitude >= MAGNITUDES) return BUCKETS - 1;
+        int sub = (int) (v >>> magnitude) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (magnitude + 1) + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int magnitude = index / SUB_BUCKETS - 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << magnitude) - 1;
+    }
+}
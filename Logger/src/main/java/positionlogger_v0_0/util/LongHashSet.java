@@ -0,0 +1,104 @@
+package positionlogger_v0_0.util;
+
+/**
+ * Open-addressing set of primitive longs, meant to be cleared and reused.
+ *
+ * {@link #clear()} only resets the slots that were filled, so a large set
+ * holding few entries is cheap to recycle every tick.
+ */
+public final class LongHashSet {
+
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    // Slots filled since the last clear, for cheap resets
+    private int[] filled;
+    private int mask;
+    private int size;
+    // Zero is the free marker, so it is tracked separately
+    private boolean hasZero;
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.filled = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return true if the key was not present before
+     */
+    public boolean add(long key) {
+        if (key == FREE) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == FREE) break;
+            if (k == key) return false;
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        filled[size - (hasZero ? 1 : 0)] = i;
+        size++;
+
+        if (size * 2 > keys.length) grow();
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == FREE) return hasZero;
+
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == FREE) return false;
+            if (k == key) return true;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        int n = size - (hasZero ? 1 : 0);
+        for (int j = 0; j < n; j++) {
+            keys[filled[j]] = FREE;
+        }
+        size = 0;
+        hasZero = false;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldFilled = filled;
+        int n = size - (hasZero ? 1 : 0);
+
+        keys = new long[oldKeys.length << 1];
+        filled = new int[keys.length];
+        mask = keys.length - 1;
+
+        for (int j = 0; j < n; j++) {
+            long key = oldKeys[oldFilled[j]];
+            int i = mix(key) & mask;
+            while (keys[i] != FREE) i = (i + 1) & mask;
+            keys[i] = key;
+            filled[j] = i;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h ^= h >>> 16;
+        return (int) h;
+    }
+}
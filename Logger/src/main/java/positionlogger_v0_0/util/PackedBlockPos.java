@@ -0,0 +1,34 @@
+package positionlogger_v0_0.util;
+
+/**
+ * Block coordinates packed into a long with the same layout as
+ * {@code BlockPos.asLong}: 26 bits of x, 26 bits of z, 12 bits of y.
+ */
+public final class PackedBlockPos {
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final int Z_OFFSET = Y_BITS;
+    private static final int X_OFFSET = Y_BITS + XZ_BITS;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    private PackedBlockPos() {
+    }
+
+    public static long asLong(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_OFFSET) | ((z & XZ_MASK) << Z_OFFSET) | (y & Y_MASK);
+    }
+
+    public static int x(long packed) {
+        return (int) (packed >> X_OFFSET);
+    }
+
+    public static int y(long packed) {
+        return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int z(long packed) {
+        return (int) (packed << (64 - X_OFFSET) >> (64 - XZ_BITS));
+    }
+}
@@ -0,0 +1,31 @@
+package positionlogger_v0_0.util;
+
+/**
+ * Unique positions seen per block id, for the VisibleBlocks column.
+ *
+ * A position holds exactly one block, so a single set of packed positions is
+ * enough: the first time a position is seen, its block id is counted.
+ */
+public final class VisibleBlockAggregator {
+
+    private final LongHashSet seen;
+    private final IdCounter counts;
+
+    public VisibleBlockAggregator(int expectedHits, int idCapacity) {
+        this.seen = new LongHashSet(expectedHits);
+        this.counts = new IdCounter(idCapacity);
+    }
+
+    public void add(int blockId, long packedPos) {
+        if (seen.add(packedPos)) counts.increment(blockId);
+    }
+
+    public IdCounter counts() {
+        return counts;
+    }
+
+    public void clear() {
+        seen.clear();
+        counts.clear();
+    }
+}